@@ -65,7 +65,7 @@ public final class ArticleRankProc {
     @Procedure(value = "algo.articleRank", mode = Mode.WRITE)
     @Description("CALL algo.articleRank(label:String, relationship:String, " +
             "{iterations:5, dampingFactor:0.85, weightProperty: null, write: true, writeProperty:'articlerank', concurrency:4}) " +
-            "YIELD nodes, iterations, loadMillis, computeMillis, writeMillis, dampingFactor, write, writeProperty" +
+            "YIELD nodes, iterations, residual, loadMillis, computeMillis, writeMillis, dampingFactor, write, writeProperty" +
             " - calculates page rank and potentially writes back")
     public Stream<PageRankScore.Stats> articleRank(
             @Name(value = "label", defaultValue = "") String label,
@@ -157,6 +157,7 @@ public final class ArticleRankProc {
 
         double dampingFactor = configuration.get(CONFIG_DAMPING, DEFAULT_DAMPING);
         int iterations = configuration.getIterations(DEFAULT_ITERATIONS);
+        double tolerance = configuration.getNumber(PageRankProc.CONFIG_TOLERANCE, PageRankProc.DEFAULT_TOLERANCE).doubleValue();
         final int batchSize = configuration.getBatchSize();
         final int concurrency = configuration.getConcurrency();
         log.debug("Computing article rank with damping of " + dampingFactor + " and " + iterations + " iterations.");
@@ -178,10 +179,11 @@ public final class ArticleRankProc {
                 .withLog(log)
                 .withTerminationFlag(terminationFlag);
 
-        statsBuilder.timeEval(() -> prAlgo.compute(iterations));
+        statsBuilder.timeEval(() -> prAlgo.compute(iterations, tolerance));
 
         statsBuilder
-                .withIterations(iterations)
+                .withIterations(prAlgo.iterations())
+                .withResidual(prAlgo.residual())
                 .withDampingFactor(dampingFactor);
 
         final CentralityResult pageRank = prAlgo.result();
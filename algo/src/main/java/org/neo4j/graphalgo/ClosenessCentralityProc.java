@@ -158,6 +158,19 @@ public class ClosenessCentralityProc {
                 .withProgressLogger(ProgressLogger.wrap(log, "ClosenessCentrality(MultiSource)"))
                 .withTerminationFlag(terminationFlag);
 
+        if (configuration.isWriteFlag() && configuration.get("writePipelined", Boolean.FALSE)) {
+            // the centrality is written while it is computed, so the write time is part of the compute time
+            final String writeProperty = configuration.getWriteProperty(DEFAULT_TARGET_PROPERTY);
+            Exporter exporter = Exporter.of(api, graph)
+                    .withLog(log)
+                    .parallel(Pools.DEFAULT, concurrency, terminationFlag)
+                    .build();
+            builder.timeEval(() -> algo.computeAndExport(writeProperty, exporter));
+            graph.release();
+            algo.release();
+            return Stream.of(builder.build());
+        }
+
         builder.timeEval(algo::compute);
 
         if (configuration.isWriteFlag()) {
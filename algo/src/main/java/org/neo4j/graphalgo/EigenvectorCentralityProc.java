@@ -60,7 +60,7 @@ public final class EigenvectorCentralityProc {
     @Procedure(value = "algo.eigenvector", mode = Mode.WRITE)
     @Description("CALL algo.eigenvector(label:String, relationship:String, " +
             "{weightProperty: null, write: true, writeProperty:'eigenvector', concurrency:4}) " +
-            "YIELD nodes, iterations, loadMillis, computeMillis, writeMillis, dampingFactor, write, writeProperty" +
+            "YIELD nodes, iterations, residual, loadMillis, computeMillis, writeMillis, dampingFactor, write, writeProperty" +
             " - calculates eigenvector centrality and potentially writes back")
     public Stream<PageRankScore.Stats> write(
             @Name(value = "label", defaultValue = "") String label,
@@ -157,6 +157,7 @@ public final class EigenvectorCentralityProc {
             PageRankScore.Stats.Builder statsBuilder) {
         double dampingFactor = 1.0;
         int iterations = configuration.getIterations(DEFAULT_ITERATIONS);
+        double tolerance = configuration.getNumber(PageRankProc.CONFIG_TOLERANCE, PageRankProc.DEFAULT_TOLERANCE).doubleValue();
         final int batchSize = configuration.getBatchSize();
         final int concurrency = configuration.getConcurrency();
         log.debug("Computing eigenvector centrality with " + iterations + " iterations.");
@@ -171,8 +172,11 @@ public final class EigenvectorCentralityProc {
                 .withLog(log)
                 .withTerminationFlag(terminationFlag);
 
-        statsBuilder.timeEval(() -> prAlgo.compute(iterations));
-        statsBuilder.withIterations(iterations).withDampingFactor(dampingFactor);
+        statsBuilder.timeEval(() -> prAlgo.compute(iterations, tolerance));
+        statsBuilder
+                .withIterations(prAlgo.iterations())
+                .withResidual(prAlgo.residual())
+                .withDampingFactor(dampingFactor);
 
         final CentralityResult results = prAlgo.result();
         algo.release();
@@ -20,13 +20,23 @@ package org.neo4j.graphalgo;
 
 import org.neo4j.graphalgo.api.Graph;
 import org.neo4j.graphalgo.api.GraphFactory;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
 import org.neo4j.graphalgo.core.GraphLoader;
 import org.neo4j.graphalgo.core.ProcedureConfiguration;
 import org.neo4j.graphalgo.core.ProcedureConstants;
+import org.neo4j.graphalgo.core.huge.HugeDeltaGraph;
+import org.neo4j.graphalgo.core.huge.HugeGraphImpl;
+import org.neo4j.graphalgo.core.huge.IncrementalHugeGraph;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphCompaction;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFilter;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphSnapshot;
+import org.neo4j.graphalgo.core.loading.IncrementalGraphUpdater;
 import org.neo4j.graphalgo.core.loading.LoadGraphFactory;
 import org.neo4j.graphalgo.core.utils.Pools;
 import org.neo4j.graphalgo.core.utils.ProgressTimer;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
 import org.neo4j.graphalgo.impl.LabelPropagationAlgorithm;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.kernel.api.KernelTransaction;
@@ -34,11 +44,18 @@ import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.function.DoublePredicate;
+import java.util.function.LongPredicate;
 import java.util.stream.Stream;
 
 public final class LoadGraphProc {
 
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 100_000L;
+
     @Context
     public GraphDatabaseAPI dbAPI;
 
@@ -51,7 +68,7 @@ public final class LoadGraphProc {
     @Procedure(name = "algo.graph.load")
     @Description("CALL algo.graph.load(" +
             "name:String, label:String, relationship:String" +
-            "{direction:'OUT/IN/BOTH', undirected:true/false, sorted:true/false, nodeProperty:'value', nodeWeight:'weight', relationshipWeight: 'weight', graph:'heavy/huge/cypher'}) " +
+            "{direction:'OUT/IN/BOTH', undirected:true/false, sorted:true/false, nodeProperty:'value', nodeWeight:'weight', relationshipWeight: 'weight', graph:'heavy/huge/cypher', incremental:true/false, compactionThreshold:100000}) " +
             "YIELD nodes, relationships, loadMillis, computeMillis, writeMillis, write, nodeProperty, nodeWeight, relationshipWeight - " +
             "load named graph")
     public Stream<LoadGraphStats> load(
@@ -80,6 +97,7 @@ public final class LoadGraphProc {
         stats.nodeWeight = nodeWeight;
         stats.nodeProperty = nodeProperty;
         stats.relationshipWeight = relationshipWeight;
+        stats.incremental = configuration.get("incremental", false);
 
         if (LoadGraphFactory.check(name)) {
             // return already loaded
@@ -87,14 +105,19 @@ public final class LoadGraphProc {
             return Stream.of(stats);
         }
 
+        if (stats.incremental) {
+            validateIncremental(stats);
+        }
+
         try (ProgressTimer timer = ProgressTimer.start()) {
             Class<? extends GraphFactory> graphImpl = configuration.getGraphImpl();
+            AllocationTracker tracker = new AllocationTracker();
 
             Graph graph = new GraphLoader(dbAPI, Pools.DEFAULT)
                     .init(log, configuration.getNodeLabelOrQuery(),
                             configuration.getRelationshipOrQuery(), configuration)
                     .withName(name)
-                    .withAllocationTracker(new AllocationTracker())
+                    .withAllocationTracker(tracker)
                     .withOptionalRelationshipWeightsFromProperty(relationshipWeight, 1.0d)
                     .withOptionalNodeProperty(nodeProperty, 0.0d)
                     .withOptionalNodeWeightsFromProperty(nodeWeight, 1.0d)
@@ -106,20 +129,44 @@ public final class LoadGraphProc {
                     .withSort(stats.sorted)
                     .asUndirected(stats.undirected)
                     .load(graphImpl);
+            if (stats.incremental) {
+                IncrementalHugeGraph incremental = new IncrementalHugeGraph(
+                        (HugeGraphImpl) graph,
+                        stats.undirected,
+                        tracker,
+                        configuration.get("compactionThreshold", DEFAULT_COMPACTION_THRESHOLD),
+                        Pools.DEFAULT,
+                        log);
+                IncrementalGraphUpdater.register(dbAPI, incremental, label, relationshipType);
+                graph = incremental;
+            }
             stats.nodes=graph.nodeCount();
             stats.loadMillis = timer.stop().getDuration();
-            LoadGraphFactory.set(name, graph);
+            LoadGraphFactory.set(name, graph, tracker, PageBackend.parse(configuration.getString("pageBackend", null)));
         }
 
         return Stream.of(stats);
     }
 
+    private static void validateIncremental(LoadGraphStats stats) {
+        if (!HugeGraph.TYPE.equalsIgnoreCase(stats.graph)) {
+            throw new IllegalArgumentException("Only graphs that are loaded with graph:'huge' can be maintained incrementally, got " + stats.graph);
+        }
+        if (stats.relationshipWeight != null) {
+            throw new IllegalArgumentException("Graphs with relationship weights cannot be maintained incrementally");
+        }
+        if (stats.loadRelationships != null && stats.loadRelationships.contains("|")) {
+            throw new IllegalArgumentException("Graphs with multiple relationship types cannot be maintained incrementally");
+        }
+    }
+
     public static class LoadGraphStats {
         public String name, graph, direction;
         public boolean undirected;
         public boolean sorted;
         public long nodes, loadMillis;
         public boolean alreadyLoaded;
+        public boolean incremental;
         public String nodeWeight, relationshipWeight, nodeProperty, loadNodes, loadRelationships;
     }
 
@@ -128,10 +175,10 @@ public final class LoadGraphProc {
     public Stream<GraphInfo> remove(@Name("name") String name) {
         GraphInfo info = new GraphInfo(name);
 
-        Graph graph = LoadGraphFactory.get(name);
-        if (graph != null) {
-            info.type = graph.getType();
-            info.nodes = graph.nodeCount();
+        LoadGraphFactory.Stats stats = LoadGraphFactory.stats(name);
+        if (stats != null) {
+            info.type = stats.type;
+            info.nodes = stats.nodes;
             info.exists = LoadGraphFactory.remove(name);
             info.removed = true;
         }
@@ -139,27 +186,223 @@ public final class LoadGraphProc {
     }
 
     @Procedure(name = "algo.graph.info")
-    @Description("CALL algo.graph.info(name:String")
+    @Description("CALL algo.graph.info(name:String) " +
+            "YIELD name, type, exists, removed, nodes, bytes, offHeapBytes, loadedAt, lastAccess, hits, snapshot - " +
+            "return details and usage statistics of a named graph")
     public Stream<GraphInfo> info(@Name("name") String name) {
         GraphInfo info = new GraphInfo(name);
-        Graph graph = LoadGraphFactory.get(name);
-        if (graph != null) {
-            info.type = graph.getType();
-            info.nodes = graph.nodeCount();
+        LoadGraphFactory.Stats stats = LoadGraphFactory.stats(name);
+        if (stats != null) {
+            info.type = stats.type;
+            info.nodes = stats.nodes;
             info.exists = true;
+            info.bytes = stats.bytes;
+            info.offHeapBytes = stats.offHeapBytes;
+            info.loadedAt = stats.loadedAt;
+            info.lastAccess = stats.lastAccess;
+            info.hits = stats.hits;
+            info.snapshot = stats.snapshot;
         }
         return Stream.of(info);
     }
 
+    @Procedure(name = "algo.graph.budget")
+    @Description("CALL algo.graph.budget() " +
+            "YIELD maxBytes, usedBytes, graphs, evictions, snapshotDirectory - " +
+            "return the memory budget of all named graphs, which is configured with the system properties " +
+            LoadGraphFactory.MAX_BYTES_PROPERTY + " and " + LoadGraphFactory.SNAPSHOT_DIRECTORY_PROPERTY)
+    public Stream<CatalogInfo> budget() {
+        return Stream.of(new CatalogInfo());
+    }
+
+    @Procedure(name = "algo.graph.save")
+    @Description("CALL algo.graph.save(name:String, file:String) " +
+            "YIELD name, file, nodes, bytes, version, millis - " +
+            "write a named huge graph into a binary snapshot file within the configured snapshot directory")
+    public Stream<GraphSnapshotStats> save(
+            @Name("name") String name,
+            @Name("file") String file) {
+        Graph graph = loadedGraph(name);
+        if (!(graph instanceof HugeGraph)) {
+            throw new IllegalArgumentException("Only graphs that are loaded with graph:'huge' can be saved, " + name + " is of type " + graph.getType());
+        }
+
+        Path path = LoadGraphFactory.resolveSnapshot(file);
+        GraphSnapshotStats stats = new GraphSnapshotStats(name, file);
+        try (ProgressTimer timer = ProgressTimer.start()) {
+            stats.bytes = HugeGraphSnapshot.write((HugeGraph) graph, path);
+            stats.nodes = graph.nodeCount();
+            stats.millis = timer.stop().getDuration();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Stream.of(stats);
+    }
+
+    @Procedure(name = "algo.graph.filter")
+    @Description("CALL algo.graph.filter(name:String, source:String, " +
+            "{nodeProperty:'property/weight', minValue:0.0, maxValue:1.0, minWeight:0.0, maxWeight:1.0, concurrency:4, pageBackend:'heap/off_heap'}) " +
+            "YIELD name, source, nodes, relationships, millis, alreadyLoaded - " +
+            "derive a named graph from the nodes and relationships of a loaded huge graph whose property values and weights are within the given bounds")
+    public Stream<FilterGraphStats> filter(
+            @Name("name") String name,
+            @Name("source") String source,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        FilterGraphStats stats = new FilterGraphStats(name, source);
+        if (LoadGraphFactory.check(name)) {
+            stats.alreadyLoaded = true;
+            return Stream.of(stats);
+        }
+        Graph graph = loadedGraph(source);
+        if (!(graph instanceof HugeGraphImpl)) {
+            throw new IllegalArgumentException("Only graphs that are loaded with graph:'huge' and a single relationship type can be filtered, " + source + " is of type " + graph.getType());
+        }
+        HugeGraphImpl parent = (HugeGraphImpl) graph;
+
+        ProcedureConfiguration configuration = ProcedureConfiguration.create(config);
+        LongPredicate nodeFilter = nodeFilter(parent, configuration);
+        DoublePredicate relationshipFilter = null;
+        if (configuration.containsKeys("minWeight") || configuration.containsKeys("maxWeight")) {
+            double minWeight = configuration.getNumber("minWeight", Double.NEGATIVE_INFINITY).doubleValue();
+            double maxWeight = configuration.getNumber("maxWeight", Double.POSITIVE_INFINITY).doubleValue();
+            relationshipFilter = weight -> weight >= minWeight && weight <= maxWeight;
+        }
+        PageBackend backend = PageBackend.parse(configuration.getString("pageBackend", null));
+
+        try (ProgressTimer timer = ProgressTimer.start()) {
+            AllocationTracker tracker = new AllocationTracker();
+            HugeGraphImpl filtered = HugeGraphFilter.filter(
+                    parent,
+                    nodeFilter,
+                    relationshipFilter,
+                    backend,
+                    configuration.getConcurrency(),
+                    Pools.DEFAULT,
+                    tracker);
+            stats.nodes = filtered.nodeCount();
+            Direction direction = filtered.hasAdjacency(Direction.OUTGOING) ? Direction.OUTGOING : Direction.INCOMING;
+            filtered.forEachNode((long node) -> {
+                stats.relationships += filtered.degree(node, direction);
+                return true;
+            });
+            stats.millis = timer.stop().getDuration();
+            LoadGraphFactory.set(name, filtered, tracker, backend);
+        }
+        return Stream.of(stats);
+    }
+
+    private static LongPredicate nodeFilter(HugeGraphImpl graph, ProcedureConfiguration configuration) {
+        String nodeProperty = configuration.getString("nodeProperty", null);
+        if (nodeProperty == null) {
+            return node -> true;
+        }
+        if (!graph.availableNodeProperties().contains(nodeProperty)) {
+            throw new IllegalArgumentException("Unknown node property " + nodeProperty +
+                    ", the graph has the node properties " + graph.availableNodeProperties());
+        }
+        HugeWeightMapping properties = graph.hugeNodeProperties(nodeProperty);
+        double minValue = configuration.getNumber("minValue", Double.NEGATIVE_INFINITY).doubleValue();
+        double maxValue = configuration.getNumber("maxValue", Double.POSITIVE_INFINITY).doubleValue();
+        return node -> {
+            double value = properties.nodeWeight(node);
+            return value >= minValue && value <= maxValue;
+        };
+    }
+
+    /**
+     * Returns the named graph, graphs that are maintained incrementally are returned with their current changes.
+     */
+    private static Graph loadedGraph(String name) {
+        Graph graph = LoadGraphFactory.get(name);
+        if (graph == null) {
+            throw new IllegalArgumentException("Graph " + name + " is not loaded");
+        }
+        if (graph instanceof IncrementalHugeGraph) {
+            HugeDeltaGraph snapshot = ((IncrementalHugeGraph) graph).snapshot();
+            graph = snapshot.changes() == 0L
+                    ? snapshot.base()
+                    : HugeGraphCompaction.compact(snapshot, AllocationTracker.EMPTY);
+        }
+        return graph;
+    }
+
+    public static class FilterGraphStats {
+        public final String name;
+        public final String source;
+        public long nodes, relationships, millis;
+        public boolean alreadyLoaded;
+
+        public FilterGraphStats(String name, String source) {
+            this.name = name;
+            this.source = source;
+        }
+    }
+
+    @Procedure(name = "algo.graph.restore")
+    @Description("CALL algo.graph.restore(name:String, file:String, {pageBackend:'heap/off_heap/mapped'}) " +
+            "YIELD name, file, nodes, bytes, version, millis, alreadyLoaded - " +
+            "restore a named graph from a binary snapshot file within the configured snapshot directory that was written by algo.graph.save")
+    public Stream<GraphSnapshotStats> restore(
+            @Name("name") String name,
+            @Name("file") String file,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+        GraphSnapshotStats stats = new GraphSnapshotStats(name, file);
+        if (LoadGraphFactory.check(name)) {
+            stats.alreadyLoaded = true;
+            return Stream.of(stats);
+        }
+
+        ProcedureConfiguration configuration = ProcedureConfiguration.create(config);
+        PageBackend backend = PageBackend.parse(configuration.getString("pageBackend", null));
+        Path path = LoadGraphFactory.resolveSnapshot(file);
+        try (ProgressTimer timer = ProgressTimer.start()) {
+            AllocationTracker tracker = new AllocationTracker();
+            Graph graph = HugeGraphSnapshot.read(path, backend, tracker);
+            stats.nodes = graph.nodeCount();
+            stats.bytes = path.toFile().length();
+            stats.millis = timer.stop().getDuration();
+            LoadGraphFactory.set(name, graph, tracker, backend);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Stream.of(stats);
+    }
+
+    public static class GraphSnapshotStats {
+        public final String name;
+        public final String file;
+        public long nodes, bytes, millis;
+        public long version = HugeGraphSnapshot.VERSION;
+        public boolean alreadyLoaded;
+
+        public GraphSnapshotStats(String name, String file) {
+            this.name = name;
+            this.file = file;
+        }
+    }
+
     public static class GraphInfo {
         public final String name;
         public String type;
         public boolean exists;
         public boolean removed;
         public long nodes;
+        public long bytes, offHeapBytes;
+        public long loadedAt, lastAccess, hits;
+        public String snapshot;
 
         public GraphInfo(String name) {
             this.name = name;
         }
     }
+
+    public static class CatalogInfo {
+        public final long maxBytes = LoadGraphFactory.maxBytes();
+        public final long usedBytes = LoadGraphFactory.usedBytes();
+        public final long graphs = LoadGraphFactory.size();
+        public final long evictions = LoadGraphFactory.evictions();
+        public final String snapshotDirectory = LoadGraphFactory.snapshotDirectory() == null
+                ? null
+                : LoadGraphFactory.snapshotDirectory().toString();
+    }
 }
@@ -28,12 +28,16 @@ import org.neo4j.graphalgo.core.utils.ProgressLogger;
 import org.neo4j.graphalgo.core.utils.ProgressTimer;
 import org.neo4j.graphalgo.core.utils.TerminationFlag;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.write.Exporter;
+import org.neo4j.graphalgo.core.write.PropertyTranslator;
 import org.neo4j.graphalgo.impl.louvain.*;
 import org.neo4j.graphalgo.results.AbstractCommunityResultBuilder;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.*;
+import org.neo4j.values.storable.Values;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -55,6 +59,14 @@ public class LouvainProc {
     public static final String INNER_ITERATIONS = "innerIterations";
     public static final String COMMUNITY_SELECTION = "communitySelection";
 
+    private static final PropertyTranslator<HugeLongArray[]> HUGE_DENDROGRAM_TRANSLATOR = (propertyId, dendrogram, nodeId) -> {
+        final long[] data = new long[dendrogram.length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = dendrogram[i].get(nodeId);
+        }
+        return Values.longArray(data);
+    };
+
     @Context
     public GraphDatabaseAPI api;
 
@@ -89,6 +101,10 @@ public class LouvainProc {
             return Stream.of(LouvainResult.EMPTY);
         }
 
+        if (graph instanceof HugeGraph) {
+            return Stream.of(hugeLouvain((HugeGraph) graph, configuration, builder));
+        }
+
         final Louvain louvain = new Louvain(graph, Pools.DEFAULT, 1, AllocationTracker.create())
                 .withProgressLogger(ProgressLogger.wrap(log, "Louvain"))
                 .withTerminationFlag(TerminationFlag.wrap(transaction));
@@ -145,6 +161,12 @@ public class LouvainProc {
 
         final Graph graph = graph(label, relationship, configuration);
 
+        if (graph instanceof HugeGraph) {
+            final boolean includeIntermediateCommunities = configuration.get(INCLUDE_INTERMEDIATE_COMMUNITIES, false);
+            return computeHuge((HugeGraph) graph, configuration, includeIntermediateCommunities)
+                    .dendrogramStream(includeIntermediateCommunities);
+        }
+
         // evaluation
         final Louvain louvain = new Louvain(graph, Pools.DEFAULT, configuration.getConcurrency(), AllocationTracker.create())
                 .withProgressLogger(ProgressLogger.wrap(log, "Louvain"))
@@ -185,6 +207,70 @@ public class LouvainProc {
                 .load(config.getGraphImpl());
     }
 
+    private LouvainResult hugeLouvain(HugeGraph graph, ProcedureConfiguration configuration, Builder builder) {
+        final boolean includeIntermediateCommunities = configuration.get(INCLUDE_INTERMEDIATE_COMMUNITIES, false);
+
+        // evaluation
+        final HugeLouvain louvain;
+        try (ProgressTimer timer = builder.timeEval()) {
+            louvain = computeHuge(graph, configuration, configuration.isWriteFlag() && includeIntermediateCommunities);
+        }
+
+        if (configuration.isWriteFlag()) {
+            builder.timeWrite(() -> {
+                String writeProperty = configuration.getWriteProperty("community");
+                String intermediateCommunitiesWriteProperty = configuration.get(INTERMEDIATE_COMMUNITIES_WRITE_PROPERTY, "communities");
+
+                builder.withWrite(true);
+                builder.withWriteProperty(writeProperty);
+                builder.withIntermediateCommunities(includeIntermediateCommunities);
+                builder.withIntermediateCommunitiesWriteProperty(intermediateCommunitiesWriteProperty);
+
+                log.debug("Writing results");
+                final Exporter exporter = Exporter.of(api, graph)
+                        .withLog(log)
+                        .parallel(Pools.DEFAULT, configuration.getConcurrency(), TerminationFlag.wrap(transaction))
+                        .build();
+                if (includeIntermediateCommunities) {
+                    exporter.write(
+                            writeProperty,
+                            louvain.getCommunityIds(),
+                            HugeLongArray.Translator.INSTANCE,
+                            intermediateCommunitiesWriteProperty,
+                            louvain.getDendrogram(),
+                            HUGE_DENDROGRAM_TRANSLATOR);
+                } else {
+                    exporter.write(writeProperty, louvain.getCommunityIds(), HugeLongArray.Translator.INSTANCE);
+                }
+            });
+        }
+
+        builder.withIterations(louvain.getLevel());
+        builder.withModularities(louvain.getModularities());
+        builder.withFinalModularity(louvain.getFinalModularity());
+
+        final HugeLongArray communityIds = louvain.getCommunityIds();
+        return builder.build(graph.nodeCount(), communityIds::get);
+    }
+
+    private HugeLouvain computeHuge(HugeGraph graph, ProcedureConfiguration configuration, boolean includeIntermediateCommunities) {
+        final HugeLouvain louvain = new HugeLouvain(graph, Pools.DEFAULT, configuration.getConcurrency(), AllocationTracker.create())
+                .withIntermediateCommunities(includeIntermediateCommunities)
+                .withProgressLogger(ProgressLogger.wrap(log, "Louvain"))
+                .withTerminationFlag(TerminationFlag.wrap(transaction));
+
+        final boolean randomNeighbor = configuration.get(COMMUNITY_SELECTION, "classic").equalsIgnoreCase("random");
+        final int maxIterations = configuration.getNumber(INNER_ITERATIONS, 10L).intValue();
+        if (configuration.getString(DEFAULT_CLUSTER_PROPERTY).isPresent()) {
+            // use predefined clustering
+            final HugeWeightMapping communityMap = graph.hugeNodeProperties(CLUSTERING_IDENTIFIER);
+            louvain.compute(communityMap, configuration.getIterations(10), maxIterations, randomNeighbor);
+        } else {
+            louvain.compute(configuration.getIterations(10), maxIterations, randomNeighbor);
+        }
+        return louvain;
+    }
+
     private void write(Graph graph, int[][] allCommunities, int[] finalCommunities, ProcedureConfiguration configuration, String writeProperty, boolean includeIntermediateCommunities, String intermediateCommunitiesPropertyName) {
         log.debug("Writing results");
 
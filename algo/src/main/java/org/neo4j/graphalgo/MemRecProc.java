@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo;
+
+import org.neo4j.graphalgo.api.GraphFactory;
+import org.neo4j.graphalgo.api.GraphSetup;
+import org.neo4j.graphalgo.core.GraphDimensions;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.ProcedureConfiguration;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.MemoryEstimation;
+import org.neo4j.graphalgo.core.utils.paged.MemoryRange;
+import org.neo4j.graphalgo.impl.UnionFindAlgo;
+import org.neo4j.graphalgo.impl.pagerank.HugePageRank;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.logging.Log;
+import org.neo4j.procedure.Context;
+import org.neo4j.procedure.Description;
+import org.neo4j.procedure.Name;
+import org.neo4j.procedure.Procedure;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.neo4j.graphalgo.core.utils.paged.AllocationTracker.humanReadable;
+
+/**
+ * Estimates the memory that loading a huge graph and running an algorithm on it will require,
+ * based on the node and relationship counts of the store, without loading anything.
+ * <p>
+ * Algorithm procedures that load a huge graph use the same estimation to refuse to start
+ * when even the lower bound would not fit into the currently free heap.
+ */
+public final class MemRecProc {
+
+    public static final String CONFIG_CHECK_MEMORY = "checkMemory";
+
+    private static final String ALGO_GRAPH_LOAD = "graph.load";
+    private static final String ALGO_PAGE_RANK = "pagerank";
+    private static final String ALGO_UNION_FIND = "unionfind";
+
+    @Context
+    public GraphDatabaseAPI api;
+
+    @Context
+    public Log log;
+
+    @Procedure(name = "algo.memrec")
+    @Description("CALL algo.memrec(label:String, relationship:String, algo:String, " +
+            "{direction:'OUT/IN/BOTH', weightProperty:'weight', concurrency:4, graph:'huge'}) " +
+            "YIELD requiredMemory, treeView, mapView, bytesMin, bytesMax, nodeCount, relationshipCount, freeHeap - " +
+            "estimates the memory requirements of loading a huge graph and running the algorithm 'graph.load', 'pageRank' or 'unionFind' on it")
+    public Stream<MemRecResult> memrec(
+            @Name(value = "label", defaultValue = "") String label,
+            @Name(value = "relationship", defaultValue = "") String relationship,
+            @Name(value = "algo", defaultValue = "graph.load") String algo,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        ProcedureConfiguration configuration = ProcedureConfiguration.create(config)
+                .overrideNodeLabelOrQuery(label)
+                .overrideRelationshipTypeOrQuery(relationship);
+
+        GraphLoader loader = new GraphLoader(api, Pools.DEFAULT)
+                .init(log, configuration.getNodeLabelOrQuery(), configuration.getRelationshipOrQuery(), configuration)
+                .withOptionalRelationshipWeightsFromProperty(
+                        configuration.getString("weightProperty", configuration.getString("relationshipWeight", null)),
+                        1.0);
+        Direction direction = configuration.getDirection(Direction.OUTGOING);
+        if (direction == Direction.BOTH && !ALGO_GRAPH_LOAD.equals(algo)) {
+            loader.asUndirected(true);
+        } else {
+            loader.withDirection(direction);
+            loader.asUndirected(configuration.get("undirected", false));
+        }
+
+        GraphSetup setup = loader.toSetup();
+        GraphDimensions dimensions = new GraphDimensions(api, setup).call();
+        MemoryEstimation estimation = estimate(setup, dimensions, algo, configuration.getConcurrency());
+        return Stream.of(new MemRecResult(estimation, dimensions));
+    }
+
+    /**
+     * Refuses to run an algorithm on a huge graph if the lower bound of the estimated memory
+     * exceeds the free heap. The check can be disabled with {@code checkMemory: false}.
+     *
+     * @throws IllegalStateException if the graph and algorithm will not fit into the heap
+     */
+    public static void checkMemory(
+            GraphDatabaseAPI api,
+            GraphLoader loader,
+            Class<? extends GraphFactory> graphFactory,
+            ProcedureConfiguration configuration,
+            String algo) {
+        if (graphFactory != HugeGraphFactory.class || !configuration.get(CONFIG_CHECK_MEMORY, true)) {
+            return;
+        }
+        GraphSetup setup = loader.toSetup();
+        GraphDimensions dimensions = new GraphDimensions(api, setup).call();
+        MemoryEstimation estimation = estimate(setup, dimensions, algo, configuration.getConcurrency());
+        long freeHeap = freeHeap();
+        if (estimation.heap().min() > freeHeap) {
+            throw new IllegalStateException(String.format(
+                    "Procedure was blocked since the minimum estimated memory (%s) exceeds the free heap (%s). " +
+                            "Set {%s: false} to run it anyway.",
+                    humanReadable(estimation.heap().min()),
+                    humanReadable(freeHeap),
+                    CONFIG_CHECK_MEMORY));
+        }
+    }
+
+    static MemoryEstimation estimate(
+            GraphSetup setup,
+            GraphDimensions dimensions,
+            String algo,
+            int concurrency) {
+        long nodeCount = dimensions.hugeNodeCount();
+        MemoryEstimation.Builder builder = MemoryEstimation.builder(algo)
+                .add(HugeGraphFactory.memoryEstimation(setup, dimensions));
+        switch (algo.toLowerCase(Locale.ENGLISH)) {
+            case ALGO_GRAPH_LOAD:
+                break;
+            case ALGO_PAGE_RANK:
+                builder.add("HugePageRank", HugePageRank.memoryEstimation(nodeCount, concurrency));
+                break;
+            case ALGO_UNION_FIND:
+                UnionFindAlgo unionFind = concurrency > 1 ? UnionFindAlgo.QUEUE : UnionFindAlgo.SEQ;
+                builder.add("HugeGraphUnionFind", unionFind.memoryEstimation(nodeCount, concurrency));
+                break;
+            default:
+                throw new IllegalArgumentException(String.format(
+                        "No memory estimation available for '%s', supported are 'graph.load', 'pageRank' and 'unionFind'",
+                        algo));
+        }
+        return builder.build();
+    }
+
+    private static long freeHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.maxMemory() - rt.totalMemory() + rt.freeMemory();
+    }
+
+    public static final class MemRecResult {
+        public final String requiredMemory;
+        public final String treeView;
+        public final Map<String, Object> mapView;
+        public final long bytesMin;
+        public final long bytesMax;
+        public final long offHeapMin;
+        public final long offHeapMax;
+        public final long nodeCount;
+        public final long relationshipCount;
+        public final long freeHeap;
+
+        MemRecResult(MemoryEstimation estimation, GraphDimensions dimensions) {
+            MemoryRange heap = estimation.heap();
+            MemoryRange offHeap = estimation.offHeap();
+            this.requiredMemory = heap.toString();
+            this.treeView = estimation.render();
+            this.mapView = estimation.renderMap();
+            this.bytesMin = heap.min();
+            this.bytesMax = heap.max();
+            this.offHeapMin = offHeap.min();
+            this.offHeapMax = offHeap.max();
+            this.nodeCount = dimensions.hugeNodeCount();
+            this.relationshipCount = dimensions.maxRelCount();
+            this.freeHeap = freeHeap();
+        }
+    }
+}
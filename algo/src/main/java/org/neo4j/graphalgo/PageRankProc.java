@@ -20,6 +20,7 @@ package org.neo4j.graphalgo;
 
 import org.neo4j.graphalgo.api.Graph;
 import org.neo4j.graphalgo.api.GraphFactory;
+import org.neo4j.graphalgo.api.HugeGraph;
 import org.neo4j.graphalgo.core.GraphLoader;
 import org.neo4j.graphalgo.core.ProcedureConfiguration;
 import org.neo4j.graphalgo.core.utils.Pools;
@@ -27,6 +28,10 @@ import org.neo4j.graphalgo.core.utils.ProgressTimer;
 import org.neo4j.graphalgo.core.utils.TerminationFlag;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphalgo.impl.Algorithm;
+import org.neo4j.graphalgo.impl.pagerank.ApproximatePageRank;
+import org.neo4j.graphalgo.impl.pagerank.ForwardPushPageRank;
+import org.neo4j.graphalgo.impl.pagerank.HugeMultiSourcePageRank;
+import org.neo4j.graphalgo.impl.pagerank.MonteCarloPageRank;
 import org.neo4j.graphalgo.impl.pagerank.PageRankAlgorithm;
 import org.neo4j.graphalgo.impl.results.CentralityResult;
 import org.neo4j.graphalgo.results.CentralityScore;
@@ -51,12 +56,27 @@ import java.util.stream.Stream;
 public final class PageRankProc {
 
     public static final String CONFIG_DAMPING = "dampingFactor";
+    public static final String CONFIG_TOLERANCE = "tolerance";
+    public static final String CONFIG_EPSILON = "epsilon";
 
     public static final Double DEFAULT_DAMPING = 0.85;
     public static final Integer DEFAULT_ITERATIONS = 20;
+    public static final Double DEFAULT_TOLERANCE = 0.0;
     public static final String DEFAULT_SCORE_PROPERTY = "pagerank";
 
     public static final String CONFIG_WEIGHT_KEY = "weightProperty";
+    public static final String CONFIG_TOP_N = "topN";
+    public static final String CONFIG_SOURCE_BATCH_SIZE = "sourceBatchSize";
+
+    public static final String CONFIG_APPROX_METHOD = "method";
+    public static final String CONFIG_WALKS = "walks";
+    public static final String CONFIG_CONFIDENCE = "confidence";
+
+    public static final Integer DEFAULT_TOP_N = 10;
+    public static final Double DEFAULT_APPROX_EPSILON = 1e-4;
+    public static final Integer DEFAULT_WALKS = 10_000;
+    public static final Double DEFAULT_CONFIDENCE = 0.95;
+    public static final Integer DEFAULT_SOURCE_BATCH_SIZE = 32;
 
     @Context
     public GraphDatabaseAPI api;
@@ -69,8 +89,8 @@ public final class PageRankProc {
 
     @Procedure(value = "algo.pageRank", mode = Mode.WRITE)
     @Description("CALL algo.pageRank(label:String, relationship:String, " +
-            "{iterations:5, dampingFactor:0.85, weightProperty: null, write: true, writeProperty:'pagerank', concurrency:4}) " +
-            "YIELD nodes, iterations, loadMillis, computeMillis, writeMillis, dampingFactor, write, writeProperty" +
+            "{iterations:5, dampingFactor:0.85, tolerance:0.0, epsilon:null, weightProperty: null, write: true, writeProperty:'pagerank', concurrency:4}) " +
+            "YIELD nodes, iterations, residual, loadMillis, computeMillis, writeMillis, dampingFactor, write, writeProperty" +
             " - calculates page rank and potentially writes back")
     public Stream<PageRankScore.Stats> pageRank(
             @Name(value = "label", defaultValue = "") String label,
@@ -130,6 +150,156 @@ public final class PageRankProc {
         return CentralityUtils.streamResults(graph, scores);
     }
 
+    @Procedure(value = "algo.pageRank.multiSource.stream", mode = Mode.READ)
+    @Description("CALL algo.pageRank.multiSource.stream(label:String, relationship:String, " +
+            "{sourceNodes:[], topN:10, sourceBatchSize:32, iterations:20, dampingFactor:0.85, tolerance:0.0, concurrency:4}) " +
+            "YIELD sourceNodeId, nodeId, score - calculates personalized page rank for every source node and streams the top nodes")
+    public Stream<HugeMultiSourcePageRank.Result> pageRankMultiSourceStream(
+            @Name(value = "label", defaultValue = "") String label,
+            @Name(value = "relationship", defaultValue = "") String relationship,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        ProcedureConfiguration configuration = ProcedureConfiguration.create(config);
+        int topN = configuration.getNumber(CONFIG_TOP_N, DEFAULT_TOP_N).intValue();
+        if (topN < 1) {
+            throw new IllegalArgumentException("topN must be at least 1, but was " + topN);
+        }
+        int sourceBatchSize = configuration.getNumber(CONFIG_SOURCE_BATCH_SIZE, DEFAULT_SOURCE_BATCH_SIZE).intValue();
+        if (sourceBatchSize < 1) {
+            throw new IllegalArgumentException("sourceBatchSize must be at least 1, but was " + sourceBatchSize);
+        }
+        AllocationTracker tracker = AllocationTracker.create();
+
+        Direction direction = configuration.getDirection(Direction.OUTGOING);
+        GraphLoader graphLoader = new GraphLoader(api, Pools.DEFAULT)
+                .init(log, label, relationship, configuration)
+                .withAllocationTracker(tracker)
+                .withoutRelationshipWeights();
+        if (direction == Direction.BOTH) {
+            graphLoader.asUndirected(true);
+        } else {
+            // scores are pulled against the direction, which needs the relationships of both directions
+            graphLoader.withDirection(Direction.BOTH);
+        }
+        Class<? extends GraphFactory> graphFactory = configuration.getGraphImpl(HugeGraph.TYPE, HugeGraph.TYPE);
+        MemRecProc.checkMemory(api, graphLoader, graphFactory, configuration, "pageRank");
+        Graph graph = graphLoader.load(graphFactory);
+        if (!(graph instanceof HugeGraph)) {
+            graph.release();
+            throw new IllegalArgumentException("Multi source PageRank requires a graph loaded with graph:'huge'");
+        }
+        HugeGraph hugeGraph = (HugeGraph) graph;
+
+        List<Node> sourceNodes = configuration.get("sourceNodes", new ArrayList<>());
+        long[] sourceNodeIds = sourceNodes.stream()
+                .mapToLong(node -> hugeGraph.toHugeMappedNodeId(node.getId()))
+                .filter(mappedId -> mappedId != -1L)
+                .toArray();
+        if (graph.nodeCount() == 0 || sourceNodeIds.length == 0) {
+            graph.release();
+            return Stream.empty();
+        }
+
+        double dampingFactor = configuration.get(CONFIG_DAMPING, DEFAULT_DAMPING);
+        int iterations = configuration.getIterations(DEFAULT_ITERATIONS);
+        double tolerance = configuration.getNumber(CONFIG_TOLERANCE, DEFAULT_TOLERANCE).doubleValue();
+
+        HugeMultiSourcePageRank algo = new HugeMultiSourcePageRank(
+                Pools.DEFAULT,
+                configuration.getConcurrency(),
+                tracker,
+                hugeGraph,
+                direction,
+                dampingFactor,
+                sourceNodeIds,
+                sourceBatchSize)
+                .withLog(log)
+                .withTerminationFlag(TerminationFlag.wrap(transaction));
+
+        log.info("PageRank: multi source memory usage: %s", tracker.getUsageString());
+
+        return algo.resultStream(iterations, tolerance, topN)
+                .onClose(() -> {
+                    algo.release();
+                    graph.release();
+                });
+    }
+
+    @Procedure(value = "algo.pageRank.approx.stream", mode = Mode.READ)
+    @Description("CALL algo.pageRank.approx.stream(label:String, relationship:String, " +
+            "{sourceNodes:[], method:'push', epsilon:0.0001, walks:10000, confidence:0.95, dampingFactor:0.85, concurrency:4}) " +
+            "YIELD nodeId, score, errorBound - approximates personalized page rank around the source nodes and streams results")
+    public Stream<ApproximatePageRank.Result> pageRankApproxStream(
+            @Name(value = "label", defaultValue = "") String label,
+            @Name(value = "relationship", defaultValue = "") String relationship,
+            @Name(value = "config", defaultValue = "{}") Map<String, Object> config) {
+
+        ProcedureConfiguration configuration = ProcedureConfiguration.create(config);
+        AllocationTracker tracker = AllocationTracker.create();
+
+        GraphLoader graphLoader = new GraphLoader(api, Pools.DEFAULT)
+                .init(log, label, relationship, configuration)
+                .withAllocationTracker(tracker)
+                .withoutRelationshipWeights();
+        Direction direction = configuration.getDirection(Direction.OUTGOING);
+        if (direction == Direction.BOTH) {
+            graphLoader.asUndirected(true);
+            direction = Direction.OUTGOING;
+        } else {
+            graphLoader.withDirection(direction);
+        }
+        Graph graph = graphLoader.load(configuration.getGraphImpl(HugeGraph.TYPE, HugeGraph.TYPE));
+        if (!(graph instanceof HugeGraph)) {
+            graph.release();
+            throw new IllegalArgumentException("Approximate PageRank requires a graph loaded with graph:'huge'");
+        }
+        HugeGraph hugeGraph = (HugeGraph) graph;
+
+        List<Node> sourceNodes = configuration.get("sourceNodes", new ArrayList<>());
+        long[] sourceNodeIds = sourceNodes.stream()
+                .mapToLong(node -> hugeGraph.toHugeMappedNodeId(node.getId()))
+                .filter(mappedId -> mappedId != -1L)
+                .distinct()
+                .toArray();
+        if (sourceNodeIds.length == 0) {
+            graph.release();
+            return Stream.empty();
+        }
+
+        double dampingFactor = configuration.get(CONFIG_DAMPING, DEFAULT_DAMPING);
+        String method = configuration.getString(CONFIG_APPROX_METHOD, "push");
+        ApproximatePageRank approx;
+        if ("push".equalsIgnoreCase(method)) {
+            double epsilon = configuration.getNumber(CONFIG_EPSILON, DEFAULT_APPROX_EPSILON).doubleValue();
+            approx = new ForwardPushPageRank(hugeGraph, direction, dampingFactor, epsilon, sourceNodeIds)
+                    .withLog(log)
+                    .withTerminationFlag(TerminationFlag.wrap(transaction));
+        } else if ("monteCarlo".equalsIgnoreCase(method)) {
+            int walks = configuration.getNumber(CONFIG_WALKS, DEFAULT_WALKS).intValue();
+            double confidence = configuration.getNumber(CONFIG_CONFIDENCE, DEFAULT_CONFIDENCE).doubleValue();
+            approx = new MonteCarloPageRank(
+                    Pools.DEFAULT,
+                    configuration.getConcurrency(),
+                    hugeGraph,
+                    direction,
+                    dampingFactor,
+                    sourceNodeIds,
+                    walks,
+                    confidence)
+                    .withLog(log)
+                    .withTerminationFlag(TerminationFlag.wrap(transaction));
+        } else {
+            graph.release();
+            throw new IllegalArgumentException("Unknown method '" + method + "', expected 'push' or 'monteCarlo'");
+        }
+
+        approx.compute();
+        log.info("PageRank: approximated %d scores with an error bound of %f", approx.scores().size(), approx.errorBound());
+        Stream<ApproximatePageRank.Result> results = approx.resultStream(hugeGraph::toOriginalNodeId);
+        graph.release();
+        return results;
+    }
+
     private Graph load(
             String label,
             String relationship,
@@ -150,6 +320,8 @@ public final class PageRankProc {
             graphLoader.withDirection(direction);
         }
 
+        MemRecProc.checkMemory(api, graphLoader, graphFactory, configuration, "pageRank");
+
         try (ProgressTimer timer = statsBuilder.timeLoad()) {
             Graph graph = graphLoader.load(graphFactory);
             statsBuilder.withNodes(graph.nodeCount());
@@ -167,6 +339,7 @@ public final class PageRankProc {
 
         double dampingFactor = configuration.get(CONFIG_DAMPING, DEFAULT_DAMPING);
         int iterations = configuration.getIterations(DEFAULT_ITERATIONS);
+        double tolerance = configuration.getNumber(CONFIG_TOLERANCE, DEFAULT_TOLERANCE).doubleValue();
         final int batchSize = configuration.getBatchSize();
         final int concurrency = configuration.getConcurrency();
         log.debug("Computing page rank with damping of " + dampingFactor + " and " + iterations + " iterations.");
@@ -182,8 +355,11 @@ public final class PageRankProc {
                 .withTerminationFlag(terminationFlag);
 
 
-        statsBuilder.timeEval(() -> prAlgo.compute(iterations));
-        statsBuilder.withIterations(iterations).withDampingFactor(dampingFactor);
+        statsBuilder.timeEval(() -> prAlgo.compute(iterations, tolerance));
+        statsBuilder
+                .withIterations(prAlgo.iterations())
+                .withResidual(prAlgo.residual())
+                .withDampingFactor(dampingFactor);
 
         final CentralityResult pageRank = prAlgo.result();
         algo.release();
@@ -192,7 +368,14 @@ public final class PageRankProc {
     }
 
     private PageRankAlgorithm selectAlgorithm(Graph graph, AllocationTracker tracker, ProcedureConfiguration configuration, String weightPropertyKey, double dampingFactor, int batchSize, int concurrency, LongStream sourceNodeIds) {
+        Number epsilon = configuration.getNumber(CONFIG_EPSILON, null);
+        if (epsilon != null && epsilon.doubleValue() <= 0.0) {
+            throw new IllegalArgumentException("epsilon must be positive, but was " + epsilon);
+        }
         if(weightPropertyKey != null) {
+            if (epsilon != null) {
+                log.warn("PageRank: epsilon %s is ignored, weighted PageRank computes every node in every iteration", epsilon);
+            }
             final boolean cacheWeights = configuration.get("cacheWeights", false);
             return PageRankAlgorithm.weightedOf(
                     tracker,
@@ -203,7 +386,19 @@ public final class PageRankProc {
                     concurrency,
                     batchSize,
                     cacheWeights);
+        } else if (epsilon != null && graph instanceof HugeGraph) {
+            return PageRankAlgorithm.deltaOf(
+                    tracker,
+                    (HugeGraph) graph,
+                    dampingFactor,
+                    epsilon.doubleValue(),
+                    sourceNodeIds,
+                    Pools.DEFAULT,
+                    concurrency);
         } else {
+            if (epsilon != null) {
+                log.warn("PageRank: epsilon %s is ignored, it is only supported for graphs that are loaded with graph:'huge'", epsilon);
+            }
             return PageRankAlgorithm.of(
                     tracker,
                     graph,
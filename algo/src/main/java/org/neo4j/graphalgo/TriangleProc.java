@@ -26,6 +26,7 @@ import org.neo4j.graphalgo.core.GraphLoader;
 import org.neo4j.graphalgo.core.ProcedureConfiguration;
 import org.neo4j.graphalgo.core.heavyweight.HeavyCypherGraphFactory;
 import org.neo4j.graphalgo.core.heavyweight.HeavyGraph;
+import org.neo4j.graphalgo.core.huge.loader.HugeCypherGraphFactory;
 import org.neo4j.graphalgo.core.utils.*;
 import org.neo4j.graphalgo.core.utils.paged.DoubleArray;
 import org.neo4j.graphalgo.core.utils.paged.PagedAtomicIntegerArray;
@@ -84,7 +85,7 @@ public class TriangleProc {
                 .withDirection(TriangleCountBase.D)
                 .load(configuration.getGraphImpl(
                         HeavyGraph.TYPE,
-                        HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE, HugeGraph.TYPE
+                        HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE, HugeGraph.TYPE, HugeCypherGraphFactory.TYPE
                 ));
 
         if (graph.nodeCount() == 0) {
@@ -122,7 +123,7 @@ public class TriangleProc {
                 .withDirection(TriangleCountBase.D)
                 .load(configuration.getGraphImpl(
                         HeavyGraph.TYPE,
-                        HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE, HugeGraph.TYPE
+                        HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE, HugeGraph.TYPE, HugeCypherGraphFactory.TYPE
                 ));
 
         if (graph.nodeCount() == 0) {
@@ -161,7 +162,7 @@ public class TriangleProc {
                 .withDirection(TriangleCountBase.D)
                 .load(configuration.getGraphImpl(
                         HeavyGraph.TYPE,
-                        HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE, HugeGraph.TYPE
+                        HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE, HugeGraph.TYPE, HugeCypherGraphFactory.TYPE
                 ));
 
         return new TriangleCountForkJoin(
@@ -204,7 +205,7 @@ public class TriangleProc {
                     .withDirection(TriangleCountBase.D)
                     .load(configuration.getGraphImpl(
                             HeavyGraph.TYPE,
-                            HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE, HugeGraph.TYPE
+                            HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE, HugeGraph.TYPE, HugeCypherGraphFactory.TYPE
                     ));
         }
 
@@ -343,7 +344,7 @@ public class TriangleProc {
                     .withDirection(TriangleCountBase.D)
                     .load(configuration.getGraphImpl(
                             HeavyGraph.TYPE,
-                            HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE, HugeGraph.TYPE
+                            HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE, HugeGraph.TYPE, HugeCypherGraphFactory.TYPE
                     ));
         }
 
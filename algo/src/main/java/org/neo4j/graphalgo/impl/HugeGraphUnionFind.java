@@ -19,7 +19,7 @@
 package org.neo4j.graphalgo.impl;
 
 import org.neo4j.graphalgo.api.HugeGraph;
-import org.neo4j.graphalgo.api.HugeRelationshipConsumer;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
 import org.neo4j.graphalgo.core.utils.ProgressLogger;
 import org.neo4j.graphalgo.core.utils.dss.DisjointSetStruct;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
@@ -45,7 +45,6 @@ public class HugeGraphUnionFind extends GraphUnionFindAlgo<HugeGraph, PagedDisjo
 
     private PagedDisjointSetStruct dss;
     private final long nodeCount;
-    private HugeRelationshipConsumer unrestricted;
 
     HugeGraphUnionFind(
             HugeGraph graph,
@@ -54,10 +53,6 @@ public class HugeGraphUnionFind extends GraphUnionFindAlgo<HugeGraph, PagedDisjo
         this.graph = graph;
         nodeCount = graph.nodeCount();
         this.dss = new PagedDisjointSetStruct(nodeCount, tracker);
-        unrestricted = (source, target) -> {
-            dss.union(source, target);
-            return true;
-        };
     }
 
     /**
@@ -67,7 +62,7 @@ public class HugeGraphUnionFind extends GraphUnionFindAlgo<HugeGraph, PagedDisjo
      */
     @Override
     public PagedDisjointSetStruct compute() {
-        return compute(unrestricted);
+        return compute(Double.NaN, false);
     }
 
     /**
@@ -78,46 +73,45 @@ public class HugeGraphUnionFind extends GraphUnionFindAlgo<HugeGraph, PagedDisjo
      */
     @Override
     public PagedDisjointSetStruct compute(final double threshold) {
-        return compute(new WithThreshold(threshold));
+        return compute(threshold, true);
     }
 
     @Override
     public HugeGraphUnionFind release() {
         dss = null;
-        unrestricted = null;
         return super.release();
     }
 
-    private PagedDisjointSetStruct compute(HugeRelationshipConsumer consumer) {
+    private PagedDisjointSetStruct compute(double threshold, boolean withThreshold) {
         dss.reset();
         final ProgressLogger progressLogger = getProgressLogger();
+        final HugeNeighbourCursor neighbours = graph.neighbourCursor(Direction.OUTGOING);
+        final long[] targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+        final double[] weights = withThreshold ? new double[HugeNeighbourCursor.BATCH_SIZE] : null;
         graph.forEachNode((long node) -> {
             if (!running()) {
                 return false;
             }
-            graph.forEachRelationship(node, Direction.OUTGOING, consumer);
+            neighbours.init(node);
+            int count;
+            if (withThreshold) {
+                while ((count = neighbours.next(targets, weights)) > 0) {
+                    for (int i = 0; i < count; i++) {
+                        if (weights[i] >= threshold) {
+                            dss.union(node, targets[i]);
+                        }
+                    }
+                }
+            } else {
+                while ((count = neighbours.next(targets)) > 0) {
+                    for (int i = 0; i < count; i++) {
+                        dss.union(node, targets[i]);
+                    }
+                }
+            }
             progressLogger.logProgress((double) node / (nodeCount - 1));
             return true;
         });
         return dss;
     }
-
-    private final class WithThreshold implements HugeRelationshipConsumer {
-        private final double threshold;
-
-        private WithThreshold(final double threshold) {
-            this.threshold = threshold;
-        }
-
-        @Override
-        public boolean accept(
-                final long source,
-                final long target) {
-            double weight = graph.weightOf(source, target);
-            if (weight >= threshold) {
-                dss.union(source, target);
-            }
-            return true;
-        }
-    }
 }
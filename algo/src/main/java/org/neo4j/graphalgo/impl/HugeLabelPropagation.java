@@ -20,8 +20,8 @@ package org.neo4j.graphalgo.impl;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
 import org.neo4j.graphalgo.api.HugeNodeProperties;
-import org.neo4j.graphalgo.api.HugeRelationshipConsumer;
 import org.neo4j.graphalgo.api.HugeRelationshipIterator;
 import org.neo4j.graphalgo.api.HugeRelationshipWeights;
 import org.neo4j.graphalgo.api.HugeWeightMapping;
@@ -125,7 +125,7 @@ public final class HugeLabelPropagation extends BaseLabelPropagation<HugeGraph,
             PrimitiveLongIterator iterator = nodes.iterator(random.randomForNewIteration());
             while (iterator.hasNext()) {
                 long nodeId = iterator.next();
-                long existingLabel = (long) nodeProperties.nodeWeight(nodeId, (double) nodeId);
+                long existingLabel = nodeProperties.nodeLongValue(nodeId, nodeId);
                 existingLabels.setLabelFor(nodeId, existingLabel);
             }
         }
@@ -146,14 +146,15 @@ public final class HugeLabelPropagation extends BaseLabelPropagation<HugeGraph,
         }
     }
 
-    private static final class ComputeStep extends Computation implements HugeRelationshipConsumer {
+    private static final class ComputeStep extends Computation {
 
         private final ThreadLocal<HugeRelationshipIterator> graphs;
         private final HugeRelationshipWeights relationshipWeights;
         private final HugeWeightMapping nodeWeights;
         private final Direction direction;
         private final RandomLongIterable nodes;
-        private HugeRelationshipIterator graph;
+        private final long[] targets;
+        private HugeNeighbourCursor neighbours;
 
         private ComputeStep(
                 ThreadLocal<HugeRelationshipIterator> graphs,
@@ -171,17 +172,28 @@ public final class HugeLabelPropagation extends BaseLabelPropagation<HugeGraph,
             this.nodeWeights = nodeWeights;
             this.direction = direction;
             this.nodes = nodes;
+            this.targets = new long[HugeNeighbourCursor.BATCH_SIZE];
         }
 
         @Override
         boolean computeAll() {
-            graph = graphs.get();
+            if (neighbours == null) {
+                neighbours = graphs.get().neighbourCursor(direction);
+            }
             return iterateAll(nodes.iterator(randomProvider.randomForNewIteration()));
         }
 
         @Override
         void forEach(final long nodeId) {
-            graph.forEachRelationship(nodeId, direction, this);
+            HugeNeighbourCursor neighbours = this.neighbours;
+            long[] targets = this.targets;
+            neighbours.init(nodeId);
+            int count;
+            while ((count = neighbours.next(targets)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    castVote(nodeId, targets[i]);
+                }
+            }
         }
 
         @Override
@@ -190,11 +202,5 @@ public final class HugeLabelPropagation extends BaseLabelPropagation<HugeGraph,
             double nodeWeight = nodeWeights.nodeWeight(candidate);
             return relationshipWeight * nodeWeight;
         }
-
-        @Override
-        public boolean accept(final long sourceNodeId, final long targetNodeId) {
-            castVote(sourceNodeId, targetNodeId);
-            return true;
-        }
     }
 }
@@ -19,7 +19,7 @@
 package org.neo4j.graphalgo.impl;
 
 import org.neo4j.graphalgo.api.HugeGraph;
-import org.neo4j.graphalgo.api.HugeRelationshipIterator;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
 import org.neo4j.graphalgo.core.utils.ExceptionUtil;
 import org.neo4j.graphalgo.core.utils.ParallelUtil;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
@@ -128,26 +128,28 @@ public class HugeParallelUnionFindFJMerge extends GraphUnionFindAlgo<HugeGraph,
         private final long offset;
         private final long end;
         private final PagedDisjointSetStruct struct;
-        private final HugeRelationshipIterator rels;
+        private final HugeNeighbourCursor neighbours;
+        private final long[] targets;
 
         UFProcess(long offset, long length) {
             this.offset = offset;
             this.end = offset + length;
             struct = new PagedDisjointSetStruct(nodeCount, tracker).reset();
-            rels = graph.concurrentCopy();
+            neighbours = graph.neighbourCursor(Direction.OUTGOING);
+            targets = new long[HugeNeighbourCursor.BATCH_SIZE];
         }
 
         @Override
         public void run() {
             for (long node = offset; node < end && node < nodeCount && running(); node++) {
                 try {
-                    rels.forEachRelationship(
-                            node,
-                            Direction.OUTGOING,
-                            (sourceNodeId, targetNodeId) -> {
-                                struct.union(sourceNodeId, targetNodeId);
-                                return true;
-                            });
+                    neighbours.init(node);
+                    int count;
+                    while ((count = neighbours.next(targets)) > 0) {
+                        for (int i = 0; i < count; i++) {
+                            struct.union(node, targets[i]);
+                        }
+                    }
                 } catch (Exception e) {
                     throw ExceptionUtil.asUnchecked(e);
                 }
@@ -169,7 +171,9 @@ public class HugeParallelUnionFindFJMerge extends GraphUnionFindAlgo<HugeGraph,
         private final long offset;
         private final long end;
         private final PagedDisjointSetStruct struct;
-        private final HugeRelationshipIterator rels;
+        private final HugeNeighbourCursor neighbours;
+        private final long[] targets;
+        private final double[] weights;
         private final double threshold;
 
         TUFProcess(long offset, long length, double threshold) {
@@ -177,24 +181,23 @@ public class HugeParallelUnionFindFJMerge extends GraphUnionFindAlgo<HugeGraph,
             this.end = offset + length;
             this.threshold = threshold;
             struct = new PagedDisjointSetStruct(nodeCount, tracker).reset();
-            rels = graph.concurrentCopy();
+            neighbours = graph.neighbourCursor(Direction.OUTGOING);
+            targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+            weights = new double[HugeNeighbourCursor.BATCH_SIZE];
         }
 
         @Override
         public void run() {
             for (long node = offset; node < end && node < nodeCount && running(); node++) {
-                rels.forEachRelationship(
-                        node,
-                        Direction.OUTGOING,
-                        (sourceNodeId, targetNodeId) -> {
-                            double weight = graph.weightOf(
-                                    sourceNodeId,
-                                    targetNodeId);
-                            if (weight > threshold) {
-                                struct.union(sourceNodeId, targetNodeId);
-                            }
-                            return true;
-                        });
+                neighbours.init(node);
+                int count;
+                while ((count = neighbours.next(targets, weights)) > 0) {
+                    for (int i = 0; i < count; i++) {
+                        if (weights[i] > threshold) {
+                            struct.union(node, targets[i]);
+                        }
+                    }
+                }
             }
         }
 
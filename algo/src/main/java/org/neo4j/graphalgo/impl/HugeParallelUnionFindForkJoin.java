@@ -19,7 +19,7 @@
 package org.neo4j.graphalgo.impl;
 
 import org.neo4j.graphalgo.api.HugeGraph;
-import org.neo4j.graphalgo.api.HugeRelationshipIterator;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
 import org.neo4j.graphalgo.core.utils.ParallelUtil;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphalgo.core.utils.paged.PagedDisjointSetStruct;
@@ -84,12 +84,10 @@ public class HugeParallelUnionFindForkJoin extends GraphUnionFindAlgo<HugeGraph,
 
         private final long offset;
         private final long end;
-        private final HugeRelationshipIterator rels;
 
         UnionFindTask(long offset) {
             this.offset = offset;
             this.end = Math.min(offset + batchSize, nodeCount);
-            this.rels = graph.concurrentCopy();
         }
 
         @Override
@@ -106,14 +104,16 @@ public class HugeParallelUnionFindForkJoin extends GraphUnionFindAlgo<HugeGraph,
             final PagedDisjointSetStruct struct = new PagedDisjointSetStruct(
                     nodeCount,
                     tracker).reset();
+            final HugeNeighbourCursor neighbours = graph.neighbourCursor(Direction.OUTGOING);
+            final long[] targets = new long[HugeNeighbourCursor.BATCH_SIZE];
             for (long node = offset; node < end && running(); node++) {
-                rels.forEachRelationship(
-                        node,
-                        Direction.OUTGOING,
-                        (sourceNodeId, targetNodeId) -> {
-                            struct.union(sourceNodeId, targetNodeId);
-                            return true;
-                        });
+                neighbours.init(node);
+                int count;
+                while ((count = neighbours.next(targets)) > 0) {
+                    for (int i = 0; i < count; i++) {
+                        struct.union(node, targets[i]);
+                    }
+                }
             }
             getProgressLogger().logProgress(end - 1, nodeCount - 1);
 
@@ -125,13 +125,11 @@ public class HugeParallelUnionFindForkJoin extends GraphUnionFindAlgo<HugeGraph,
 
         private final long offset;
         private final long end;
-        private final HugeRelationshipIterator rels;
         private final double threshold;
 
         ThresholdUFTask(long offset, double threshold) {
             this.offset = offset;
             this.end = Math.min(offset + batchSize, nodeCount);
-            this.rels = graph.concurrentCopy();
             this.threshold = threshold;
         }
 
@@ -151,19 +149,20 @@ public class HugeParallelUnionFindForkJoin extends GraphUnionFindAlgo<HugeGraph,
             final PagedDisjointSetStruct struct = new PagedDisjointSetStruct(
                     nodeCount,
                     tracker).reset();
+            final HugeNeighbourCursor neighbours = graph.neighbourCursor(Direction.OUTGOING);
+            final long[] targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+            final double[] weights = new double[HugeNeighbourCursor.BATCH_SIZE];
             for (long node = offset; node < end && running(); node++) {
-                rels.forEachRelationship(
-                        node,
-                        Direction.OUTGOING,
-                        (source, target) -> {
-                            double weight = graph.weightOf(source, target);
-                            if (weight >= threshold && !struct.connected(
-                                    source,
-                                    target)) {
-                                struct.union(source, target);
-                            }
-                            return true;
-                        });
+                neighbours.init(node);
+                int count;
+                while ((count = neighbours.next(targets, weights)) > 0) {
+                    for (int i = 0; i < count; i++) {
+                        long target = targets[i];
+                        if (weights[i] >= threshold && !struct.connected(node, target)) {
+                            struct.union(node, target);
+                        }
+                    }
+                }
             }
             return struct;
         }
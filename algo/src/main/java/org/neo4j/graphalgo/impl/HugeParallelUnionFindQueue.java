@@ -19,7 +19,7 @@
 package org.neo4j.graphalgo.impl;
 
 import org.neo4j.graphalgo.api.HugeGraph;
-import org.neo4j.graphalgo.api.HugeRelationshipIterator;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
 import org.neo4j.graphalgo.core.utils.ParallelUtil;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphalgo.core.utils.paged.PagedDisjointSetStruct;
@@ -121,7 +121,7 @@ public class HugeParallelUnionFindQueue extends GraphUnionFindAlgo<HugeGraph, Pa
 
     private class HugeUnionFindTask implements Runnable {
 
-        private final HugeRelationshipIterator rels;
+        private final HugeNeighbourCursor neighbours;
         private final BlockingQueue<PagedDisjointSetStruct> queue;
         private final AtomicInteger expectedStructs;
         private final long offset;
@@ -131,7 +131,7 @@ public class HugeParallelUnionFindQueue extends GraphUnionFindAlgo<HugeGraph, Pa
                 BlockingQueue<PagedDisjointSetStruct> queue,
                 long offset,
                 AtomicInteger expectedStructs) {
-            this.rels = graph.concurrentCopy();
+            this.neighbours = graph.neighbourCursor(Direction.OUTGOING);
             this.queue = queue;
             this.expectedStructs = expectedStructs;
             this.offset = offset;
@@ -146,14 +146,16 @@ public class HugeParallelUnionFindQueue extends GraphUnionFindAlgo<HugeGraph, Pa
                 final PagedDisjointSetStruct struct = new PagedDisjointSetStruct(
                         nodeCount,
                         tracker).reset();
+                final HugeNeighbourCursor neighbours = this.neighbours;
+                final long[] targets = new long[HugeNeighbourCursor.BATCH_SIZE];
                 for (long node = offset; node < end; node++) {
-                    rels.forEachRelationship(
-                            node,
-                            Direction.OUTGOING,
-                            (sourceNodeId, targetNodeId) -> {
-                                struct.union(sourceNodeId, targetNodeId);
-                                return true;
-                            });
+                    neighbours.init(node);
+                    int count;
+                    while ((count = neighbours.next(targets)) > 0) {
+                        for (int i = 0; i < count; i++) {
+                            struct.union(node, targets[i]);
+                        }
+                    }
                 }
                 getProgressLogger().logProgress((end - 1.0) / (nodeCount - 1.0));
                 try {
@@ -22,6 +22,7 @@ import org.neo4j.graphalgo.api.Graph;
 import org.neo4j.graphalgo.api.HugeGraph;
 import org.neo4j.graphalgo.core.utils.dss.DisjointSetStruct;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.MemoryRange;
 import org.neo4j.graphalgo.core.utils.paged.PagedDisjointSetStruct;
 
 import java.util.concurrent.ExecutorService;
@@ -206,11 +207,26 @@ public enum UnionFindAlgo {
             algo.release();
             return new DSSResult(struct);
         }
+
+        @Override
+        public MemoryRange memoryEstimation(long nodeCount, int concurrency) {
+            return MemoryRange.of(PagedDisjointSetStruct.estimateMemoryUsage(nodeCount));
+        }
     };
 
     public static BiConsumer<String, Algorithm<?>> NOTHING = (s, a) -> {
     };
 
+    /**
+     * Estimates the memory of the disjoint set structures that the huge variant allocates.
+     * The parallel variants create one structure per batch, which are merged while the computation is running,
+     * so that at least one and at most {@code concurrency} structures are alive at the same time.
+     */
+    public MemoryRange memoryEstimation(long nodeCount, int concurrency) {
+        long struct = PagedDisjointSetStruct.estimateMemoryUsage(nodeCount);
+        return MemoryRange.of(struct).times(1L, Math.max(1, concurrency));
+    }
+
     abstract DSSResult run(
             Graph graph,
             ExecutorService executor,
@@ -20,6 +20,7 @@ package org.neo4j.graphalgo.impl;
 
 import com.carrotsearch.hppc.LongLongMap;
 import org.HdrHistogram.Histogram;
+import org.neo4j.graphalgo.MemRecProc;
 import org.neo4j.graphalgo.api.Graph;
 import org.neo4j.graphalgo.core.GraphLoader;
 import org.neo4j.graphalgo.core.ProcedureConfiguration;
@@ -260,14 +261,15 @@ public final class UnionFindProcExec implements BiConsumer<String, Algorithm<?>>
     public Graph load(
             ProcedureConfiguration config,
             AllocationTracker tracker) {
-        return new GraphLoader(api, Pools.DEFAULT)
+        GraphLoader loader = new GraphLoader(api, Pools.DEFAULT)
                 .init(log, config.getNodeLabelOrQuery(), config.getRelationshipOrQuery(), config)
                 .withOptionalRelationshipWeightsFromProperty(
                         config.getWeightProperty(),
                         config.getWeightPropertyDefaultValue(1.0))
                 .withDirection(Direction.OUTGOING)
-                .withAllocationTracker(tracker)
-                .load(config.getGraphImpl());
+                .withAllocationTracker(tracker);
+        MemRecProc.checkMemory(api, loader, config.getGraphImpl(), config, "unionFind");
+        return loader.load(config.getGraphImpl());
     }
 
     private DSSResult evaluate(
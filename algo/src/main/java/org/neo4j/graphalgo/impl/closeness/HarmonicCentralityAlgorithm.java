@@ -53,6 +53,14 @@ public interface HarmonicCentralityAlgorithm {
 
     void export(final String propertyName, final Exporter exporter);
 
+    /**
+     * compute centrality and write it into the given property
+     */
+    default void computeAndExport(final String propertyName, final Exporter exporter) {
+        compute();
+        export(propertyName, exporter);
+    }
+
     static HarmonicCentralityAlgorithm instance(Graph graph, AllocationTracker tracker, ExecutorService pool, int concurrency) {
         if (graph instanceof HugeGraph) {
             return new HugeHarmonicCentrality((HugeGraph) graph,
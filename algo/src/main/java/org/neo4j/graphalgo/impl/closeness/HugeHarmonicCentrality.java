@@ -26,6 +26,7 @@ import org.neo4j.graphalgo.core.write.Exporter;
 import org.neo4j.graphalgo.core.write.PropertyTranslator;
 import org.neo4j.graphalgo.impl.Algorithm;
 import org.neo4j.graphalgo.impl.msbfs.HugeBfsConsumer;
+import org.neo4j.graphalgo.impl.msbfs.HugeBfsSources;
 import org.neo4j.graphalgo.impl.msbfs.HugeMultiSourceBFS;
 import org.neo4j.graphdb.Direction;
 
@@ -75,6 +76,49 @@ public class HugeHarmonicCentrality extends Algorithm<HugeHarmonicCentrality> im
         return this;
     }
 
+    /**
+     * Writes the centrality of the sources of every MS-BFS as soon as their traversal is done,
+     * so that the writes overlap with the traversal of the remaining sources.
+     * The inverse farness is summed up on the source instead of the reached node,
+     * which yields the same centrality as the traversal follows both directions.
+     */
+    @Override
+    public void computeAndExport(final String propertyName, final Exporter exporter) {
+        final ProgressLogger progressLogger = getProgressLogger();
+
+        try (Exporter.Pipeline pipeline = exporter.pipeline(propertyName)) {
+            final HugeBfsConsumer consumer = new HugeBfsConsumer() {
+                @Override
+                public void accept(long nodeId, int depth, HugeBfsSources sourceNodeIds) {
+                    final double inverseDepth = 1.0 / depth;
+                    while (sourceNodeIds.hasNext()) {
+                        inverseFarness.add(sourceNodeIds.next(), inverseDepth);
+                    }
+                    progressLogger.logProgress((double) nodeId / (nodeCount - 1));
+                }
+
+                @Override
+                public void sourcesDone(HugeBfsSources sourceNodeIds) {
+                    try (Exporter.Pipeline.Writer writer = pipeline.writer()) {
+                        while (sourceNodeIds.hasNext()) {
+                            long sourceNodeId = sourceNodeIds.next();
+                            writer.add(sourceNodeId, inverseFarness.get(sourceNodeId) / (double) (nodeCount - 1));
+                        }
+                    }
+                }
+            };
+
+            new HugeMultiSourceBFS(
+                    graph,
+                    graph,
+                    Direction.BOTH,
+                    consumer,
+                    allocationTracker)
+                    .run(concurrency, executorService);
+            pipeline.success();
+        }
+    }
+
     public Stream<Result> resultStream() {
         return LongStream.range(0, nodeCount)
                 .mapToObj(nodeId -> new Result(
@@ -26,6 +26,7 @@ import org.neo4j.graphalgo.core.utils.paged.PagedAtomicIntegerArray;
 import org.neo4j.graphalgo.core.write.Exporter;
 import org.neo4j.graphalgo.core.write.PropertyTranslator;
 import org.neo4j.graphalgo.impl.msbfs.HugeBfsConsumer;
+import org.neo4j.graphalgo.impl.msbfs.HugeBfsSources;
 import org.neo4j.graphalgo.impl.msbfs.HugeMultiSourceBFS;
 import org.neo4j.graphdb.Direction;
 
@@ -92,6 +93,54 @@ public class HugeMSClosenessCentrality extends MSBFSCCAlgorithm<HugeMSClosenessC
         return this;
     }
 
+    /**
+     * Writes the centrality of the sources of every MS-BFS as soon as their traversal is done,
+     * so that the writes overlap with the traversal of the remaining sources.
+     * The farness is summed up on the source instead of the reached node,
+     * which yields the same centrality on the undirected graphs that this algorithm is used with.
+     */
+    @Override
+    public void computeAndExport(final String propertyName, final Exporter exporter) {
+        final ProgressLogger progressLogger = getProgressLogger();
+
+        try (Exporter.Pipeline pipeline = exporter.pipeline(propertyName)) {
+            final HugeBfsConsumer consumer = new HugeBfsConsumer() {
+                @Override
+                public void accept(long nodeId, int depth, HugeBfsSources sourceNodeIds) {
+                    while (sourceNodeIds.hasNext()) {
+                        long sourceNodeId = sourceNodeIds.next();
+                        farness.add(sourceNodeId, depth);
+                        component.add(sourceNodeId, 1);
+                    }
+                    progressLogger.logProgress((double) nodeId / (nodeCount - 1));
+                }
+
+                @Override
+                public void sourcesDone(HugeBfsSources sourceNodeIds) {
+                    try (Exporter.Pipeline.Writer writer = pipeline.writer()) {
+                        while (sourceNodeIds.hasNext()) {
+                            long sourceNodeId = sourceNodeIds.next();
+                            writer.add(sourceNodeId, centrality(
+                                    farness.get(sourceNodeId),
+                                    component.get(sourceNodeId),
+                                    nodeCount,
+                                    wassermanFaust));
+                        }
+                    }
+                }
+            };
+
+            new HugeMultiSourceBFS(
+                    graph,
+                    graph,
+                    Direction.OUTGOING,
+                    consumer,
+                    tracker)
+                    .run(concurrency, executorService);
+            pipeline.success();
+        }
+    }
+
     @Override
     public DoubleArray getCentrality() {
         final DoubleArray cc = DoubleArray.newArray(nodeCount, tracker);
@@ -39,6 +39,14 @@ public abstract class MSBFSCCAlgorithm<ME extends MSBFSCCAlgorithm<ME>> extends
 
     public abstract void export(String propertyName, Exporter exporter);
 
+    /**
+     * Computes the centrality and writes it into the given property.
+     */
+    public void computeAndExport(String propertyName, Exporter exporter) {
+        compute();
+        export(propertyName, exporter);
+    }
+
     public final double[] exportToArray() {
         return resultStream()
                 .limit(Integer.MAX_VALUE)
@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.louvain;
+
+import com.carrotsearch.hppc.LongLongHashMap;
+import com.carrotsearch.hppc.LongLongMap;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeRelationshipIterator;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.impl.Algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Louvain Clustering Algorithm for huge graphs.
+ * <p>
+ * Works like {@link Louvain}, but keeps the community structure in paged
+ * arrays and traverses the graph through its long based cursors, so graphs
+ * with more than 2^31 nodes can be clustered. The community of every node
+ * is updated in place after each level, the communities of the intermediate
+ * levels are only copied if they are requested with
+ * {@link #withIntermediateCommunities(boolean)}.
+ * <p>
+ * The graph of the next level is built with one node per community and
+ * the relationships between the communities merged into one.
+ */
+public class HugeLouvain extends Algorithm<HugeLouvain> {
+
+    private final long rootNodeCount;
+    private int level;
+    private final ExecutorService pool;
+    private final int concurrency;
+    private final AllocationTracker tracker;
+    private HugeLongArray communities;
+    private double[] modularities;
+    private HugeLongArray[] dendrogram;
+    private HugeGraph root;
+    private long communityCount;
+    private double finalModularity;
+    private boolean includeIntermediateCommunities = false;
+
+    public HugeLouvain(HugeGraph graph,
+                       ExecutorService pool,
+                       int concurrency,
+                       AllocationTracker tracker) {
+        this.root = graph;
+        this.pool = pool;
+        this.concurrency = concurrency;
+        this.tracker = tracker;
+        rootNodeCount = graph.nodeCount();
+        communities = HugeLongArray.newArray(rootNodeCount, tracker);
+        communityCount = rootNodeCount;
+        communities.setAll(i -> i);
+    }
+
+    /**
+     * keep the communities of every level for {@link #getDendrogram()}
+     */
+    public HugeLouvain withIntermediateCommunities(boolean includeIntermediateCommunities) {
+        this.includeIntermediateCommunities = includeIntermediateCommunities;
+        return this;
+    }
+
+    public HugeLouvain compute(int maxLevel, int maxIterations) {
+        return compute(maxLevel, maxIterations, false);
+    }
+
+    public HugeLouvain compute(int maxLevel, int maxIterations, boolean rnd) {
+        return compute(root, rootNodeCount, null, maxLevel, maxIterations, rnd);
+    }
+
+    /**
+     * start with the communities of the given mapping, nodes without a
+     * community start in a community of their own
+     */
+    public HugeLouvain compute(HugeWeightMapping communityMap, int maxLevel, int maxIterations, boolean rnd) {
+        final LongLongMap predefined = new LongLongHashMap();
+        long nodeCount = 0L;
+        for (long node = 0L; node < rootNodeCount; node++) {
+            final long community = communityMap.nodeLongValue(node, -1L);
+            if (community == -1L) {
+                communities.set(node, nodeCount++);
+                continue;
+            }
+            final long mapped = predefined.getOrDefault(community, -1L);
+            if (mapped == -1L) {
+                predefined.put(community, nodeCount);
+                communities.set(node, nodeCount++);
+            } else {
+                communities.set(node, mapped);
+            }
+        }
+        communityCount = nodeCount;
+        final HugeLouvainGraph graph = HugeLouvainGraph.rebuild(root, rootNodeCount, communities, nodeCount, pool, concurrency, tracker);
+        return compute(graph, graph.nodeCount(), graph, maxLevel, maxIterations, rnd);
+    }
+
+    /**
+     * @param graph      graph of the first level
+     * @param nodeCount  number of nodes of the first level
+     * @param levelGraph the first level as a graph of communities that must be released, or null
+     */
+    private HugeLouvain compute(
+            HugeRelationshipIterator graph,
+            long nodeCount,
+            HugeLouvainGraph levelGraph,
+            int maxLevel,
+            int maxIterations,
+            boolean rnd) {
+        // result arrays
+        dendrogram = new HugeLongArray[maxLevel];
+        modularities = new double[maxLevel];
+        finalModularity = -1.0;
+        for (level = 0; level < maxLevel && running(); level++) {
+            // start modularity optimization
+            final HugeModularityOptimization modularityOptimization =
+                    new HugeModularityOptimization(graph,
+                            nodeCount,
+                            pool,
+                            concurrency,
+                            tracker, System.currentTimeMillis())
+                            .withProgressLogger(progressLogger)
+                            .withTerminationFlag(terminationFlag)
+                            .withRandomNeighborOptimization(rnd)
+                            .compute(maxIterations);
+            // rebuild graph based on the community structure
+            final HugeLongArray communityIds = modularityOptimization.getCommunityIds();
+            final long levelCommunityCount = LouvainUtils.normalize(communityIds, tracker);
+            progressLogger.log(
+                    "level: " + (level + 1) +
+                            " communities: " + levelCommunityCount +
+                            " q: " + modularityOptimization.getModularity());
+            if (level == 0) {
+                finalModularity = modularityOptimization.getModularity();
+            }
+            if (levelCommunityCount >= nodeCount) {
+                modularityOptimization.release();
+                break;
+            }
+            rebuildCommunityStructure(communityIds);
+            modularities[level] = finalModularity = modularityOptimization.getModularity();
+            final HugeLouvainGraph next = HugeLouvainGraph.rebuild(graph, nodeCount, communityIds, levelCommunityCount, pool, concurrency, tracker);
+            nodeCount = communityCount = levelCommunityCount;
+            // release the old algo instance and the graph of the previous level
+            modularityOptimization.release();
+            if (levelGraph != null) {
+                levelGraph.release();
+            }
+            graph = levelGraph = next;
+        }
+        if (levelGraph != null) {
+            levelGraph.release();
+        }
+        dendrogram = Arrays.copyOf(dendrogram, level);
+        return this;
+    }
+
+    private void rebuildCommunityStructure(HugeLongArray communityIds) {
+        for (long node = 0L; node < rootNodeCount; node++) {
+            communities.set(node, communityIds.get(communities.get(node)));
+        }
+        if (includeIntermediateCommunities) {
+            final HugeLongArray copy = HugeLongArray.newArray(rootNodeCount, tracker);
+            communities.copyTo(copy, rootNodeCount);
+            dendrogram[level] = copy;
+        }
+    }
+
+    /**
+     * nodeId to community mapping array
+     *
+     * @return
+     */
+    public HugeLongArray getCommunityIds() {
+        return communities;
+    }
+
+    /**
+     * communities of every level, empty unless intermediate
+     * communities have been requested
+     */
+    public HugeLongArray[] getDendrogram() {
+        return includeIntermediateCommunities ? dendrogram : new HugeLongArray[0];
+    }
+
+    public double[] getModularities() {
+        return Arrays.copyOfRange(modularities, 0, level);
+    }
+
+    public double getFinalModularity() {
+        return finalModularity;
+    }
+
+    /**
+     * number of outer iterations
+     *
+     * @return
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * number of distinct communities
+     *
+     * @return
+     */
+    public long getCommunityCount() {
+        return communityCount;
+    }
+
+    /**
+     * result stream
+     *
+     * @return
+     */
+    public Stream<Louvain.Result> resultStream() {
+        return LongStream.range(0L, rootNodeCount)
+                .mapToObj(i -> new Louvain.Result(i, communities.get(i)));
+    }
+
+    public Stream<Louvain.StreamingResult> dendrogramStream(boolean includeIntermediateCommunities) {
+        final HugeLongArray[] dendrogram = getDendrogram();
+        return LongStream.range(0L, rootNodeCount)
+                .mapToObj(i -> {
+                    List<Long> communitiesList = null;
+                    if (includeIntermediateCommunities) {
+                        communitiesList = new ArrayList<>(dendrogram.length);
+                        for (HugeLongArray community : dendrogram) {
+                            communitiesList.add(community.get(i));
+                        }
+                    }
+
+                    return new Louvain.StreamingResult(root.toOriginalNodeId(i), communitiesList, communities.get(i));
+                });
+    }
+
+    @Override
+    public HugeLouvain me() {
+        return this;
+    }
+
+    @Override
+    public HugeLouvain release() {
+        tracker.remove(communities.release());
+        if (dendrogram != null) {
+            for (HugeLongArray community : dendrogram) {
+                if (community != null) {
+                    tracker.remove(community.release());
+                }
+            }
+        }
+        communities = null;
+        dendrogram = null;
+        return this;
+    }
+}
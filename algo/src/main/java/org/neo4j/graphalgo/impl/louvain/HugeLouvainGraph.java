@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.louvain;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongDoubleHashMap;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
+import org.neo4j.graphalgo.api.HugeRelationshipConsumer;
+import org.neo4j.graphalgo.api.HugeRelationshipIterator;
+import org.neo4j.graphalgo.api.HugeWeightedRelationshipConsumer;
+import org.neo4j.graphalgo.core.utils.ParallelUtil;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeDoubleArray;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphdb.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * virtual graph used by HugeLouvain. Every node of this graph is a
+ * community of the previous level. The relationships between two
+ * communities are merged into one relationship whose weight is the
+ * sum of their weights, relationships within a community become a
+ * relationship of the community to itself.
+ * <p>
+ * The adjacency is kept in paged arrays, where the neighbours of a node
+ * start at its offset and end at the offset of the next node. The graph
+ * only offers the traversals that louvain needs, it has no id mapping
+ * and no properties.
+ */
+final class HugeLouvainGraph implements HugeRelationshipIterator {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final long nodeCount;
+    private final AllocationTracker tracker;
+    private HugeLongArray offsets;
+    private HugeLongArray targets;
+    private HugeDoubleArray weights;
+
+    private HugeLouvainGraph(
+            long nodeCount,
+            HugeLongArray offsets,
+            HugeLongArray targets,
+            HugeDoubleArray weights,
+            AllocationTracker tracker) {
+        this.nodeCount = nodeCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.tracker = tracker;
+    }
+
+    /**
+     * create the graph of the communities of the given graph
+     *
+     * @param graph          graph of the previous level, must be undirected
+     * @param nodeCount      number of nodes of the previous level
+     * @param communityIds   normalized community of every node of the previous level
+     * @param communityCount number of communities
+     * @return a new graph with one node per community
+     */
+    static HugeLouvainGraph rebuild(
+            HugeRelationshipIterator graph,
+            long nodeCount,
+            HugeLongArray communityIds,
+            long communityCount,
+            ExecutorService pool,
+            int concurrency,
+            AllocationTracker tracker) {
+        // bucket the nodes by their community
+        final HugeLongArray memberOffsets = HugeLongArray.newArray(communityCount + 1, tracker);
+        for (long node = 0L; node < nodeCount; node++) {
+            memberOffsets.addTo(communityIds.get(node) + 1, 1L);
+        }
+        prefixSum(memberOffsets);
+        final HugeLongArray insertAt = HugeLongArray.newArray(communityCount, tracker);
+        memberOffsets.copyTo(insertAt, communityCount);
+        final HugeLongArray members = HugeLongArray.newArray(nodeCount, tracker);
+        for (long node = 0L; node < nodeCount; node++) {
+            final long community = communityIds.get(node);
+            members.set(insertAt.get(community), node);
+            insertAt.addTo(community, 1L);
+        }
+        tracker.remove(insertAt.release());
+
+        final HugeLongArray offsets = HugeLongArray.newArray(communityCount + 1, tracker);
+        final List<Aggregator> tasks = new ArrayList<>(concurrency);
+        final AtomicLong batchOffset = new AtomicLong();
+        for (int i = 0; i < concurrency; i++) {
+            tasks.add(new Aggregator(graph.neighbourCursor(Direction.OUTGOING), communityIds, communityCount, memberOffsets, members, offsets, batchOffset));
+        }
+
+        // first pass only counts the neighbouring communities
+        ParallelUtil.run(tasks, pool);
+        prefixSum(offsets);
+
+        // second pass writes the merged relationships
+        final long relationshipCount = offsets.get(communityCount);
+        final HugeLongArray targets = HugeLongArray.newArray(relationshipCount, tracker);
+        final HugeDoubleArray weights = HugeDoubleArray.newArray(relationshipCount, tracker);
+        batchOffset.set(0L);
+        for (Aggregator task : tasks) {
+            task.writeInto(targets, weights);
+        }
+        ParallelUtil.run(tasks, pool);
+
+        tracker.remove(memberOffsets.release());
+        tracker.remove(members.release());
+        return new HugeLouvainGraph(communityCount, offsets, targets, weights, tracker);
+    }
+
+    private static void prefixSum(HugeLongArray array) {
+        long sum = 0L;
+        for (long i = 0L; i < array.size(); i++) {
+            sum += array.get(i);
+            array.set(i, sum);
+        }
+    }
+
+    long nodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public void forEachRelationship(long nodeId, Direction direction, HugeRelationshipConsumer consumer) {
+        final long end = offsets.get(nodeId + 1);
+        for (long i = offsets.get(nodeId); i < end; i++) {
+            if (!consumer.accept(nodeId, targets.get(i))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void forEachRelationship(long nodeId, Direction direction, HugeWeightedRelationshipConsumer consumer) {
+        final long end = offsets.get(nodeId + 1);
+        for (long i = offsets.get(nodeId); i < end; i++) {
+            if (!consumer.accept(nodeId, targets.get(i), weights.get(i))) {
+                return;
+            }
+        }
+    }
+
+    void release() {
+        if (offsets == null) {
+            return;
+        }
+        tracker.remove(offsets.release());
+        tracker.remove(targets.release());
+        tracker.remove(weights.release());
+        offsets = null;
+        targets = null;
+        weights = null;
+    }
+
+    /**
+     * the adjacency is read straight from the paged arrays, a cursor
+     * only keeps the position within the neighbours of the current node
+     */
+    @Override
+    public HugeNeighbourCursor neighbourCursor(Direction direction) {
+        return new NeighbourCursor();
+    }
+
+    /**
+     * sums up the relationships of batches of communities. In the
+     * first pass only the number of neighbouring communities is
+     * counted, in the second pass the merged relationships are written.
+     */
+    private static final class Aggregator implements Runnable {
+
+        private final HugeNeighbourCursor neighbours;
+        private final long[] neighbourIds;
+        private final double[] neighbourWeights;
+        private final HugeLongArray communityIds;
+        private final long communityCount;
+        private final HugeLongArray memberOffsets;
+        private final HugeLongArray members;
+        private final AtomicLong batchOffset;
+        private final LongDoubleHashMap communityWeights;
+        private final LongArrayList communitiesInOrder;
+        private final HugeLongArray offsets;
+        private HugeLongArray targets;
+        private HugeDoubleArray weights;
+
+        private Aggregator(
+                HugeNeighbourCursor neighbours,
+                HugeLongArray communityIds,
+                long communityCount,
+                HugeLongArray memberOffsets,
+                HugeLongArray members,
+                HugeLongArray offsets,
+                AtomicLong batchOffset) {
+            this.neighbours = neighbours;
+            this.neighbourIds = new long[HugeNeighbourCursor.BATCH_SIZE];
+            this.neighbourWeights = new double[HugeNeighbourCursor.BATCH_SIZE];
+            this.communityIds = communityIds;
+            this.communityCount = communityCount;
+            this.memberOffsets = memberOffsets;
+            this.members = members;
+            this.offsets = offsets;
+            this.batchOffset = batchOffset;
+            this.communityWeights = new LongDoubleHashMap();
+            this.communitiesInOrder = new LongArrayList();
+        }
+
+        void writeInto(HugeLongArray targets, HugeDoubleArray weights) {
+            this.targets = targets;
+            this.weights = weights;
+        }
+
+        @Override
+        public void run() {
+            long start;
+            while ((start = batchOffset.getAndAdd(BATCH_SIZE)) < communityCount) {
+                final long end = Math.min(start + BATCH_SIZE, communityCount);
+                for (long community = start; community < end; community++) {
+                    aggregate(community);
+                    if (targets == null) {
+                        offsets.set(community + 1, communitiesInOrder.size());
+                    } else {
+                        long offset = offsets.get(community);
+                        for (int i = 0; i < communitiesInOrder.size(); i++, offset++) {
+                            final long target = communitiesInOrder.get(i);
+                            targets.set(offset, target);
+                            weights.set(offset, communityWeights.get(target));
+                        }
+                    }
+                }
+            }
+        }
+
+        private void aggregate(long community) {
+            communityWeights.clear();
+            communitiesInOrder.clear();
+            final long end = memberOffsets.get(community + 1);
+            for (long i = memberOffsets.get(community); i < end; i++) {
+                neighbours.init(members.get(i));
+                int count;
+                while ((count = neighbours.next(neighbourIds, neighbourWeights)) > 0) {
+                    for (int j = 0; j < count; j++) {
+                        final long targetCommunity = communityIds.get(neighbourIds[j]);
+                        if (!communityWeights.containsKey(targetCommunity)) {
+                            communitiesInOrder.add(targetCommunity);
+                        }
+                        communityWeights.addTo(targetCommunity, neighbourWeights[j]);
+                    }
+                }
+            }
+        }
+    }
+
+    private final class NeighbourCursor implements HugeNeighbourCursor {
+        private long offset;
+        private long end;
+
+        @Override
+        public int init(long nodeId) {
+            offset = offsets.get(nodeId);
+            end = offsets.get(nodeId + 1);
+            return Math.toIntExact(end - offset);
+        }
+
+        @Override
+        public int next(long[] targets) {
+            final int count = (int) Math.min(targets.length, end - offset);
+            for (int i = 0; i < count; i++) {
+                targets[i] = HugeLouvainGraph.this.targets.get(offset + i);
+            }
+            offset += count;
+            return count;
+        }
+
+        @Override
+        public int next(long[] targets, double[] weights) {
+            final int count = (int) Math.min(targets.length, end - offset);
+            for (int i = 0; i < count; i++) {
+                targets[i] = HugeLouvainGraph.this.targets.get(offset + i);
+                weights[i] = HugeLouvainGraph.this.weights.get(offset + i);
+            }
+            offset += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.louvain;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongDoubleHashMap;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
+import org.neo4j.graphalgo.api.HugeRelationshipIterator;
+import org.neo4j.graphalgo.core.utils.ParallelUtil;
+import org.neo4j.graphalgo.core.utils.ProgressLogger;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeDoubleArray;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.impl.Algorithm;
+import org.neo4j.graphdb.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * weighted undirected modularity based community detection on huge graphs
+ * (first phase of louvain algo). Instead of optimizing several copies of the
+ * community structure in parallel like {@link ModularityOptimization}, the
+ * nodes are moved one after another on a single community structure that
+ * is kept in paged arrays. The node weights and the modularity are computed
+ * in parallel. Neighbours are read in batches through a
+ * {@link HugeNeighbourCursor} per thread.
+ */
+public class HugeModularityOptimization extends Algorithm<HugeModularityOptimization> {
+
+    private static final double MINIMUM_MODULARITY = -1.0;
+    /**
+     * only outgoing directions are visited since the graph itself must be loaded using {@code .asUndirected(true) } !
+     */
+    private static final Direction D = Direction.OUTGOING;
+    private final long nodeCount;
+    private final int concurrency;
+    private final AllocationTracker tracker;
+    private HugeRelationshipIterator graph;
+    private ExecutorService pool;
+    private double m2;
+    private HugeLongArray communities;
+    private HugeDoubleArray ki;
+    private HugeDoubleArray sTot;
+    private int iterations;
+    private double q = MINIMUM_MODULARITY;
+    private boolean randomNeighborSelection = false;
+    private final Random random;
+    private final LongDoubleHashMap communityWeights = new LongDoubleHashMap();
+    private final LongArrayList communitiesInOrder = new LongArrayList();
+    private HugeNeighbourCursor neighbours;
+    private final long[] targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+    private final double[] weights = new double[HugeNeighbourCursor.BATCH_SIZE];
+
+    HugeModularityOptimization(
+            HugeRelationshipIterator graph,
+            long nodeCount,
+            ExecutorService pool,
+            int concurrency,
+            AllocationTracker tracker,
+            long rndSeed) {
+        this.graph = graph;
+        this.nodeCount = nodeCount;
+        this.pool = pool;
+        this.concurrency = concurrency;
+        this.tracker = tracker;
+        this.random = new Random(rndSeed);
+
+        communities = HugeLongArray.newArray(nodeCount, tracker);
+        ki = HugeDoubleArray.newArray(nodeCount, tracker);
+        sTot = HugeDoubleArray.newArray(nodeCount, tracker);
+    }
+
+    public HugeModularityOptimization withRandomNeighborOptimization(boolean randomNeighborSelection) {
+        this.randomNeighborSelection = randomNeighborSelection;
+        return this;
+    }
+
+    /**
+     * init ki (sum of weights of node), sTot & m
+     */
+    private void init() {
+        final List<NodeTask> tasks = nodeTasks(NodeWeight::new);
+        ParallelUtil.run(tasks, pool);
+        // since we use an undirected graph 2m is counted here
+        m2 = sum(tasks);
+        for (long node = 0L; node < nodeCount; node++) {
+            sTot.set(node, ki.get(node));
+        }
+        communities.setAll(i -> i);
+        neighbours = graph.neighbourCursor(D);
+    }
+
+    /**
+     * compute first phase louvain
+     *
+     * @param maxIterations
+     * @return
+     */
+    public HugeModularityOptimization compute(int maxIterations) {
+        init();
+        if (m2 == 0.0) {
+            q = 0.0;
+            return this;
+        }
+        final ProgressLogger progressLogger = getProgressLogger();
+        for (iterations = 0; iterations < maxIterations && running(); iterations++) {
+            boolean improvement = false;
+            for (long node = 0L; node < nodeCount && running(); node++) {
+                improvement |= move(node);
+                progressLogger.logProgress(
+                        node + 1,
+                        nodeCount,
+                        () -> String.format("round %d", iterations + 1));
+            }
+            final double modularity = calcModularity();
+            final boolean increased = modularity > q;
+            this.q = modularity;
+            if (!improvement || !increased) {
+                break;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * calc modularity-gain for a node and move it into the best community
+     *
+     * @param node node nodeId
+     * @return true if the node has been moved
+     */
+    private boolean move(long node) {
+        final long currentCommunity = communities.get(node);
+        final double k = ki.get(node);
+
+        communityWeights.clear();
+        communitiesInOrder.clear();
+        neighbours.init(node);
+        int count;
+        while ((count = neighbours.next(targets, weights)) > 0) {
+            for (int i = 0; i < count; i++) {
+                final long target = targets[i];
+                // relationships to itself stay within any community the node moves to
+                if (target != node) {
+                    final long localCommunity = communities.get(target);
+                    if (!communityWeights.containsKey(localCommunity)) {
+                        communitiesInOrder.add(localCommunity);
+                    }
+                    communityWeights.addTo(localCommunity, weights[i]);
+                }
+            }
+        }
+
+        sTot.addTo(currentCommunity, -k);
+        long bestCommunity = currentCommunity;
+        if (randomNeighborSelection) {
+            if (!communitiesInOrder.isEmpty()) {
+                bestCommunity = communitiesInOrder.get(random.nextInt(communitiesInOrder.size()));
+            }
+        } else {
+            double bestGain = communityWeights.get(currentCommunity) - sTot.get(currentCommunity) * k / m2;
+            for (int i = 0; i < communitiesInOrder.size(); i++) {
+                final long community = communitiesInOrder.get(i);
+                final double g = communityWeights.get(community) - sTot.get(community) * k / m2;
+                if (g > bestGain) {
+                    bestGain = g;
+                    bestCommunity = community;
+                }
+            }
+        }
+        sTot.addTo(bestCommunity, k);
+        communities.set(node, bestCommunity);
+        return bestCommunity != currentCommunity;
+    }
+
+    /**
+     * modularity is the weight within the communities minus the
+     * weight that is expected within the communities
+     */
+    private double calcModularity() {
+        final List<NodeTask> tasks = nodeTasks(InternalWeight::new);
+        ParallelUtil.run(tasks, pool);
+        final double internalWeight = sum(tasks);
+        double expectedWeight = 0.0;
+        for (long community = 0L; community < nodeCount; community++) {
+            final double tot = sTot.get(community);
+            expectedWeight += tot * tot;
+        }
+        return internalWeight / m2 - expectedWeight / (m2 * m2);
+    }
+
+    private List<NodeTask> nodeTasks(NodeTaskFactory factory) {
+        final long batchSize = ParallelUtil.threadSize(concurrency, nodeCount);
+        final List<NodeTask> tasks = new ArrayList<>(concurrency);
+        for (long start = 0L; start < nodeCount; start += batchSize) {
+            tasks.add(factory.create(start, Math.min(start + batchSize, nodeCount)));
+        }
+        return tasks;
+    }
+
+    private static double sum(List<NodeTask> tasks) {
+        double sum = 0.0;
+        for (NodeTask task : tasks) {
+            sum += task.sum;
+        }
+        return sum;
+    }
+
+    /**
+     * get communities
+     *
+     * @return node-nodeId to community nodeId mapping
+     */
+    public HugeLongArray getCommunityIds() {
+        return communities;
+    }
+
+    /**
+     * number of iterations
+     *
+     * @return number of iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    public double getModularity() {
+        return q;
+    }
+
+    /**
+     * @return this
+     */
+    @Override
+    public HugeModularityOptimization me() {
+        return this;
+    }
+
+    /**
+     * release structures
+     *
+     * @return this
+     */
+    @Override
+    public HugeModularityOptimization release() {
+        tracker.remove(communities.release());
+        tracker.remove(ki.release());
+        tracker.remove(sTot.release());
+        this.graph = null;
+        this.neighbours = null;
+        this.pool = null;
+        this.communities = null;
+        this.ki = null;
+        this.sTot = null;
+        return this;
+    }
+
+    private interface NodeTaskFactory {
+        NodeTask create(long start, long end);
+    }
+
+    /**
+     * sums up a function of the weighted neighbours over a range of nodes
+     */
+    private abstract class NodeTask implements Runnable {
+
+        private final long start;
+        private final long end;
+        private final HugeNeighbourCursor neighbours;
+        final long[] targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+        final double[] weights = new double[HugeNeighbourCursor.BATCH_SIZE];
+        private double sum;
+
+        NodeTask(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.neighbours = graph.neighbourCursor(D);
+        }
+
+        @Override
+        public void run() {
+            for (long node = start; node < end; node++) {
+                neighbours.init(node);
+                sum += apply(node, neighbours);
+            }
+        }
+
+        abstract double apply(long node, HugeNeighbourCursor neighbours);
+    }
+
+    /**
+     * sum of the weights of the relationships of a node, stored as ki
+     */
+    private final class NodeWeight extends NodeTask {
+
+        NodeWeight(long start, long end) {
+            super(start, end);
+        }
+
+        @Override
+        double apply(long node, HugeNeighbourCursor neighbours) {
+            double sum = 0.0;
+            int count;
+            while ((count = neighbours.next(targets, weights)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    sum += weights[i];
+                }
+            }
+            ki.set(node, sum);
+            return sum;
+        }
+    }
+
+    /**
+     * sum of the weights of the relationships of a node within its community
+     */
+    private final class InternalWeight extends NodeTask {
+
+        InternalWeight(long start, long end) {
+            super(start, end);
+        }
+
+        @Override
+        double apply(long node, HugeNeighbourCursor neighbours) {
+            final long community = communities.get(node);
+            double sum = 0.0;
+            int count;
+            while ((count = neighbours.next(targets, weights)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    if (communities.get(targets[i]) == community) {
+                        sum += weights[i];
+                    }
+                }
+            }
+            return sum;
+        }
+    }
+}
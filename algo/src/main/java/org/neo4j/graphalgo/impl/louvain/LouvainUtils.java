@@ -20,6 +20,8 @@ package org.neo4j.graphalgo.impl.louvain;
 
 import com.carrotsearch.hppc.IntIntMap;
 import com.carrotsearch.hppc.IntIntScatterMap;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
 
 public class LouvainUtils {
 
@@ -44,4 +46,30 @@ public class LouvainUtils {
         }
         return c;
     }
+
+    /**
+     * normalize nodeToCommunity-Array of a huge graph. The community IDs
+     * must be valid node IDs, so a dense array can be used for the mapping.
+     *
+     * @param communities
+     * @param tracker
+     * @return number of communities
+     */
+    static long normalize(HugeLongArray communities, AllocationTracker tracker) {
+        final long nodeCount = communities.size();
+        final HugeLongArray map = HugeLongArray.newArray(nodeCount, tracker);
+        map.fill(-1L);
+        long c = 0L;
+        for (long i = 0L; i < nodeCount; i++) {
+            long mapped, community = communities.get(i);
+            if ((mapped = map.get(community)) != -1L) {
+                communities.set(i, mapped);
+            } else {
+                map.set(community, c);
+                communities.set(i, c++);
+            }
+        }
+        tracker.remove(map.release());
+        return c;
+    }
 }
@@ -22,4 +22,11 @@ package org.neo4j.graphalgo.impl.msbfs;
 public interface HugeBfsConsumer {
 
     void accept(long nodeId, int depth, HugeBfsSources sourceNodeIds);
+
+    /**
+     * Called once all nodes that are reachable from the given sources have been visited.
+     * No other calls for these sources will follow, so results of a source are final at this point.
+     */
+    default void sourcesDone(HugeBfsSources sourceNodeIds) {
+    }
 }
@@ -202,6 +202,9 @@ public final class HugeMultiSourceBFS implements Runnable, MsBFSAlgo {
         }
 
         runLocalMsbfs(totalNodeCount, sourceNodes, visitSet, nextSet, seenSet);
+
+        sourceNodes.resetAll();
+        perNodeAction.sourcesDone(sourceNodes);
     }
 
     private SourceNodes prepareOffsetSources(HugeLongArray visitSet, HugeLongArray seenSet) {
@@ -423,6 +426,10 @@ public final class HugeMultiSourceBFS implements Runnable, MsBFSAlgo {
             reset();
         }
 
+        void resetAll() {
+            reset(maxPos == OMEGA ? -1L : (1L << maxPos) - 1L);
+        }
+
         @Override
         public boolean hasNext() {
             return pos < maxPos;
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.pagerank;
+
+import com.carrotsearch.hppc.LongDoubleMap;
+import com.carrotsearch.hppc.cursors.LongDoubleCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Personalized PageRank that is approximated from the neighbourhood of the source nodes,
+ * together with a bound of the error of the approximated scores.
+ */
+public interface ApproximatePageRank {
+
+    ApproximatePageRank compute();
+
+    /**
+     * the approximated scores of all nodes that have been reached, keyed by their mapped id
+     */
+    LongDoubleMap scores();
+
+    /**
+     * an upper bound of the difference between the approximated and the exact score of any node,
+     * which only holds with the configured confidence for estimates that are sampled
+     */
+    double errorBound();
+
+    /**
+     * streams the approximated scores in descending order, with the original node ids
+     */
+    default Stream<Result> resultStream(LongUnaryOperator toOriginalNodeId) {
+        double errorBound = errorBound();
+        List<Result> results = new ArrayList<>(scores().size());
+        for (LongDoubleCursor cursor : scores()) {
+            if (cursor.value > 0.0) {
+                results.add(new Result(toOriginalNodeId.applyAsLong(cursor.key), cursor.value, errorBound));
+            }
+        }
+        results.sort((a, b) -> Double.compare(b.score, a.score));
+        return results.stream();
+    }
+
+    final class Result {
+
+        public final long nodeId;
+        public final double score;
+        public final double errorBound;
+
+        public Result(long nodeId, double score, double errorBound) {
+            this.nodeId = nodeId;
+            this.score = score;
+            this.errorBound = errorBound;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "nodeId=" + nodeId +
+                    ", score=" + score +
+                    ", errorBound=" + errorBound +
+                    '}';
+        }
+    }
+}
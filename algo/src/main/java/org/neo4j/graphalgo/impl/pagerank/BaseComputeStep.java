@@ -48,6 +48,7 @@ public abstract class BaseComputeStep implements ComputeStep {
     final int startNode;
     final int endNode;
     double l2Norm;
+    double residual;
 
     BaseComputeStep(
             double dampingFactor,
@@ -140,6 +141,7 @@ public abstract class BaseComputeStep implements ComputeStep {
         float[][] prevScores = this.prevScores;
         int length = prevScores[0].length;
 
+        double residual = 0.0;
         for (int i = 0; i < length; i++) {
             double sum = 0.0;
             for (float[] scores : prevScores) {
@@ -149,7 +151,14 @@ public abstract class BaseComputeStep implements ComputeStep {
             double delta = dampingFactor * sum;
             pageRank[i] += delta;
             deltas[i] = delta;
+            residual += Math.abs(delta);
         }
+        this.residual = residual;
+    }
+
+    @Override
+    public double residual() {
+        return residual;
     }
 
     @Override
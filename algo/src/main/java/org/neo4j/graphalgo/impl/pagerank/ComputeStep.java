@@ -32,4 +32,6 @@ public interface ComputeStep extends Runnable {
     void prepareNormalizeDeltas(double l2Norm);
 
     double[] deltas();
+
+    double residual();
 }
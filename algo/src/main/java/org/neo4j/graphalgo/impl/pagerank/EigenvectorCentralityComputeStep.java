@@ -85,6 +85,7 @@ final class EigenvectorCentralityComputeStep extends BaseComputeStep implements
         float[][] prevScores = this.prevScores;
         int length = prevScores[0].length;
 
+        double residual = 0.0;
         for (int i = 0; i < length; i++) {
             double delta = 0.0;
             for (float[] scores : prevScores) {
@@ -93,7 +94,9 @@ final class EigenvectorCentralityComputeStep extends BaseComputeStep implements
             }
             pageRank[i] += delta;
             deltas[i] = delta;
+            residual += Math.abs(delta);
         }
+        this.residual = residual;
     }
 
     @Override
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.pagerank;
+
+import com.carrotsearch.hppc.LongArrayDeque;
+import com.carrotsearch.hppc.LongDoubleHashMap;
+import com.carrotsearch.hppc.LongDoubleMap;
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.cursors.DoubleCursor;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
+import org.neo4j.graphalgo.impl.Algorithm;
+import org.neo4j.graphdb.Direction;
+
+/**
+ * Local personalized PageRank by forward pushes, as described in
+ * "Local Graph Partitioning using PageRank Vectors" by Andersen, Chung and Lang.
+ * <p>
+ * The source nodes start with a residual of {@code 1 - dampingFactor}. Pushing a node adds its residual to its
+ * score and sends the damped share of it to the residuals of its neighbours. Only nodes whose residual is at least
+ * {@code epsilon} times their degree are pushed, so the computation stays in the neighbourhood of the sources and
+ * never touches the rest of the graph. All maps are sparse for the same reason.
+ * <p>
+ * Every unit of residual that is left adds at most {@code 1 / (1 - dampingFactor)} to the scores, which bounds
+ * the error of every score by the remaining residuals.
+ */
+public final class ForwardPushPageRank extends Algorithm<ForwardPushPageRank> implements ApproximatePageRank {
+
+    private final HugeGraph graph;
+    private final Direction direction;
+    private final double dampingFactor;
+    private final double epsilon;
+    private final long[] sourceNodeIds;
+
+    private LongDoubleMap scores;
+    private LongDoubleMap residuals;
+    private long pushes;
+    private double errorBound;
+
+    /**
+     * @param sourceNodeIds the mapped ids of the source nodes
+     */
+    public ForwardPushPageRank(
+            HugeGraph graph,
+            Direction direction,
+            double dampingFactor,
+            double epsilon,
+            long[] sourceNodeIds) {
+        if (dampingFactor >= 1.0) {
+            throw new IllegalArgumentException("dampingFactor must be less than 1, but was " + dampingFactor);
+        }
+        if (epsilon <= 0.0) {
+            throw new IllegalArgumentException("epsilon must be positive, but was " + epsilon);
+        }
+        this.graph = graph;
+        this.direction = direction;
+        this.dampingFactor = dampingFactor;
+        this.epsilon = epsilon;
+        this.sourceNodeIds = sourceNodeIds;
+    }
+
+    @Override
+    public ForwardPushPageRank compute() {
+        double alpha = 1.0 - dampingFactor;
+        scores = new LongDoubleHashMap();
+        residuals = new LongDoubleHashMap();
+        LongArrayDeque queue = new LongArrayDeque();
+        LongHashSet queued = new LongHashSet();
+        for (long sourceNodeId : sourceNodeIds) {
+            residuals.addTo(sourceNodeId, alpha);
+        }
+        for (long sourceNodeId : sourceNodeIds) {
+            if (residuals.get(sourceNodeId) >= threshold(sourceNodeId) && queued.add(sourceNodeId)) {
+                queue.addLast(sourceNodeId);
+            }
+        }
+
+        HugeNeighbourCursor neighbours = graph.neighbourCursor(direction);
+        long[] targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+        while (!queue.isEmpty() && running()) {
+            long nodeId = queue.removeFirst();
+            queued.remove(nodeId);
+            double residual = residuals.put(nodeId, 0.0);
+            scores.addTo(nodeId, residual);
+            ++pushes;
+
+            int degree = neighbours.init(nodeId);
+            if (degree == 0) {
+                continue;
+            }
+            double share = dampingFactor * residual / degree;
+            int count;
+            while ((count = neighbours.next(targets)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    long targetNodeId = targets[i];
+                    double targetResidual = residuals.addTo(targetNodeId, share);
+                    if (targetResidual >= threshold(targetNodeId) && queued.add(targetNodeId)) {
+                        queue.addLast(targetNodeId);
+                    }
+                }
+            }
+        }
+
+        double remaining = 0.0;
+        for (DoubleCursor cursor : residuals.values()) {
+            remaining += cursor.value;
+        }
+        errorBound = remaining / alpha;
+        return this;
+    }
+
+    @Override
+    public LongDoubleMap scores() {
+        return scores;
+    }
+
+    @Override
+    public double errorBound() {
+        return errorBound;
+    }
+
+    /**
+     * the number of nodes that have been pushed
+     */
+    public long pushes() {
+        return pushes;
+    }
+
+    private double threshold(long nodeId) {
+        return epsilon * Math.max(1, graph.degree(nodeId, direction));
+    }
+
+    @Override
+    public ForwardPushPageRank me() {
+        return this;
+    }
+
+    @Override
+    public ForwardPushPageRank release() {
+        residuals = null;
+        return this;
+    }
+}
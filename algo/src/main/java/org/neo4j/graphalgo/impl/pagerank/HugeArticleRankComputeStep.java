@@ -22,10 +22,7 @@ import org.neo4j.graphalgo.api.*;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphdb.Direction;
 
-import static org.neo4j.graphalgo.core.utils.ArrayUtil.binaryLookup;
-
-final class HugeArticleRankComputeStep extends HugeBaseComputeStep implements HugeRelationshipConsumer {
-    private final HugeRelationshipIterator relationshipIterator;
+final class HugeArticleRankComputeStep extends HugeBaseComputeStep {
     private double averageDegree;
 
     HugeArticleRankComputeStep(
@@ -44,35 +41,23 @@ final class HugeArticleRankComputeStep extends HugeBaseComputeStep implements Hu
                 tracker,
                 partitionSize,
                 startNode);
-        this.relationshipIterator = relationshipIterator;
         this.averageDegree = degreeCache.average();
     }
 
-
-    private float srcRankDelta;
-
-
     void singleIteration() {
         long startNode = this.startNode;
         long endNode = this.endNode;
-        HugeRelationshipIterator rels = this.relationshipIterator;
         for (long nodeId = startNode; nodeId < endNode; ++nodeId) {
             double delta = deltas[(int) (nodeId - startNode)];
             if (delta > 0) {
                 int degree = degrees.degree(nodeId, Direction.OUTGOING);
                 if (degree > 0) {
-                    srcRankDelta = (float) (delta / (degree + averageDegree));
-                    rels.forEachRelationship(nodeId, Direction.OUTGOING, this);
+                    float srcRankDelta = (float) (delta / (degree + averageDegree));
+                    if (srcRankDelta != 0f) {
+                        pushDelta(nodeId, srcRankDelta);
+                    }
                 }
             }
         }
     }
-
-    public boolean accept(long sourceNodeId, long targetNodeId) {
-        if (srcRankDelta != 0f) {
-            int idx = binaryLookup(targetNodeId, starts);
-            nextScores[idx][(int) (targetNodeId - starts[idx])] += srcRankDelta;
-        }
-        return true;
-    }
 }
@@ -19,12 +19,16 @@
 package org.neo4j.graphalgo.impl.pagerank;
 
 import org.neo4j.graphalgo.api.HugeDegrees;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
 import org.neo4j.graphalgo.api.HugeRelationshipIterator;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphdb.Direction;
 
 import java.util.Arrays;
 import java.util.stream.LongStream;
 
+import static org.neo4j.graphalgo.core.utils.ArrayUtil.binaryLookup;
+
 import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfDoubleArray;
 import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfFloatArray;
 
@@ -40,6 +44,8 @@ public abstract class HugeBaseComputeStep implements HugeComputeStep {
     private int[] lengths;
     private long[] sourceNodeIds;
     final HugeRelationshipIterator relationshipIterator;
+    final HugeNeighbourCursor neighbours;
+    final long[] targets;
     final HugeDegrees degrees;
     private final AllocationTracker tracker;
 
@@ -55,6 +61,7 @@ public abstract class HugeBaseComputeStep implements HugeComputeStep {
     final long endNode;
     private final int partitionSize;
     double l2Norm;
+    double residual;
 
     HugeBaseComputeStep(
             double dampingFactor,
@@ -68,6 +75,8 @@ public abstract class HugeBaseComputeStep implements HugeComputeStep {
         this.alpha = 1.0 - dampingFactor;
         this.sourceNodeIds = sourceNodeIds;
         this.relationshipIterator = relationshipIterator.concurrentCopy();
+        this.neighbours = relationshipIterator.neighbourCursor(Direction.OUTGOING);
+        this.targets = new long[HugeNeighbourCursor.BATCH_SIZE];
         this.degrees = degrees;
         this.tracker = tracker;
         this.partitionSize = partitionSize;
@@ -136,6 +145,25 @@ public abstract class HugeBaseComputeStep implements HugeComputeStep {
 
     abstract void singleIteration();
 
+    /**
+     * Adds the same rank delta to the next scores of every outgoing neighbour of the node.
+     */
+    final void pushDelta(long nodeId, float srcRankDelta) {
+        HugeNeighbourCursor neighbours = this.neighbours;
+        long[] targets = this.targets;
+        long[] starts = this.starts;
+        float[][] nextScores = this.nextScores;
+        neighbours.init(nodeId);
+        int count;
+        while ((count = neighbours.next(targets)) > 0) {
+            for (int i = 0; i < count; i++) {
+                long targetNodeId = targets[i];
+                int idx = binaryLookup(targetNodeId, starts);
+                nextScores[idx][(int) (targetNodeId - starts[idx])] += srcRankDelta;
+            }
+        }
+    }
+
     @Override
     public void prepareNormalizeDeltas(double l2Norm) {
         this.l2Norm = l2Norm;
@@ -153,6 +181,7 @@ public abstract class HugeBaseComputeStep implements HugeComputeStep {
         float[][] prevScores = this.prevScores;
 
         int length = prevScores[0].length;
+        double residual = 0.0;
         for (int i = 0; i < length; i++) {
             double sum = 0.0;
             for (int j = 0; j < scoreDim; j++) {
@@ -163,7 +192,14 @@ public abstract class HugeBaseComputeStep implements HugeComputeStep {
             double delta = dampingFactor * sum;
             pageRank[i] += delta;
             deltas[i] = delta;
+            residual += Math.abs(delta);
         }
+        this.residual = residual;
+    }
+
+    @Override
+    public double residual() {
+        return residual;
     }
 
     public float[][] nextScores() {
@@ -32,4 +32,6 @@ public interface HugeComputeStep extends Runnable {
     double[] deltas();
 
     void prepareNormalizeDeltas(double l2Norm);
+
+    double residual();
 }
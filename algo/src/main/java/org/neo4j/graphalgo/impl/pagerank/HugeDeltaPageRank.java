@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.pagerank;
+
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
+import org.neo4j.graphalgo.core.utils.ParallelUtil;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeDoubleArray;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.PagedAtomicDoubleArray;
+import org.neo4j.graphalgo.impl.Algorithm;
+import org.neo4j.graphalgo.impl.results.CentralityResult;
+import org.neo4j.graphalgo.impl.results.HugeDoubleArrayResult;
+import org.neo4j.graphdb.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/**
+ * PageRank that pushes the rank changes of single nodes instead of iterating over the whole graph.
+ * <p>
+ * Every node keeps the part of its rank that has not yet been sent to its neighbours as a residual.
+ * Processing a node adds its residual to its rank and pushes the damped share of it to the residuals of its
+ * outgoing neighbours. Only nodes whose residual is at least {@code epsilon} are processed, so parts of the graph
+ * that have converged are no longer traversed. Started with a residual of {@code 1 - dampingFactor} for every node
+ * (or every source node), the ranks approach the same scores as {@link HugePageRank}.
+ * <p>
+ * The nodes to process are kept in a frontier. A round processes the whole frontier in parallel, where every
+ * thread claims batches of frontier nodes and collects the neighbours whose residual reached {@code epsilon}
+ * in a local buffer. The buffers are appended to the frontier of the next round, so every node is in a frontier
+ * at most once.
+ */
+public class HugeDeltaPageRank extends Algorithm<HugeDeltaPageRank> implements PageRankAlgorithm {
+
+    private static final int FRONTIER_BATCH_SIZE = 1024;
+    private static final int BUFFER_SIZE = 4096;
+
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final AllocationTracker tracker;
+    private final HugeGraph graph;
+    private final double dampingFactor;
+    private final double epsilon;
+    private final LongStream sourceNodeIds;
+
+    private HugeDoubleArray ranks;
+    private PagedAtomicDoubleArray residuals;
+    private HugeLongArray frontier;
+    private HugeLongArray nextFrontier;
+    private long frontierSize;
+    private final AtomicLong frontierOffset = new AtomicLong();
+    private final AtomicLong nextFrontierSize = new AtomicLong();
+    private boolean ranksHandedOut;
+
+    private int iterations;
+    private double residual;
+    private long relationshipsTraversed;
+
+    HugeDeltaPageRank(
+            ExecutorService executor,
+            int concurrency,
+            AllocationTracker tracker,
+            HugeGraph graph,
+            double dampingFactor,
+            double epsilon,
+            LongStream sourceNodeIds) {
+        if (epsilon <= 0.0) {
+            throw new IllegalArgumentException("epsilon must be positive, but was " + epsilon);
+        }
+        this.executor = ParallelUtil.canRunInParallel(executor) ? executor : null;
+        this.concurrency = Math.max(1, concurrency);
+        this.tracker = tracker;
+        this.graph = graph;
+        this.dampingFactor = dampingFactor;
+        this.epsilon = epsilon;
+        this.sourceNodeIds = sourceNodeIds;
+    }
+
+    /**
+     * run at most the given number of rounds, or until the frontier is empty
+     */
+    @Override
+    public HugeDeltaPageRank compute(int iterations) {
+        return compute(iterations, 0.0);
+    }
+
+    /**
+     * run at most the given number of rounds, but stop as soon as the rank that has been pushed
+     * in a round falls below the tolerance
+     */
+    @Override
+    public HugeDeltaPageRank compute(int iterations, double tolerance) {
+        assert iterations >= 1;
+        initialize();
+        List<PushTask> tasks = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            tasks.add(new PushTask());
+        }
+        while (this.iterations < iterations && frontierSize > 0L && running()) {
+            residual = runRound(tasks);
+            ++this.iterations;
+            if (residual < tolerance) {
+                break;
+            }
+        }
+        for (PushTask task : tasks) {
+            relationshipsTraversed += task.relationshipsTraversed;
+        }
+        return this;
+    }
+
+    /**
+     * the number of rounds that have been run
+     */
+    @Override
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * the rank that has been pushed in the last round
+     */
+    @Override
+    public double residual() {
+        return residual;
+    }
+
+    /**
+     * the number of relationships that have been traversed by all rounds
+     */
+    public long relationshipsTraversed() {
+        return relationshipsTraversed;
+    }
+
+    @Override
+    public CentralityResult result() {
+        ranksHandedOut = true;
+        return new HugeDoubleArrayResult(ranks);
+    }
+
+    @Override
+    public Algorithm<?> algorithm() {
+        return this;
+    }
+
+    @Override
+    public HugeDeltaPageRank me() {
+        return this;
+    }
+
+    /**
+     * releases the residuals, frontiers and ranks. Ranks that have been handed out by {@link #result()}
+     * belong to the result and are only no longer tracked, so the result stays readable.
+     */
+    @Override
+    public HugeDeltaPageRank release() {
+        if (ranks == null) {
+            return this;
+        }
+        if (ranksHandedOut) {
+            tracker.remove(HugeDoubleArray.estimateMemoryUsage(ranks.size()));
+        } else {
+            tracker.remove(ranks.release());
+        }
+        tracker.remove(residuals.release());
+        tracker.remove(frontier.release());
+        tracker.remove(nextFrontier.release());
+        ranks = null;
+        residuals = null;
+        frontier = null;
+        nextFrontier = null;
+        return this;
+    }
+
+    private void initialize() {
+        if (ranks != null) {
+            return;
+        }
+        long nodeCount = graph.nodeCount();
+        double alpha = 1.0 - dampingFactor;
+        ranks = HugeDoubleArray.newArray(nodeCount, tracker);
+        residuals = PagedAtomicDoubleArray.newArray(nodeCount, tracker);
+        frontier = HugeLongArray.newArray(nodeCount, tracker);
+        nextFrontier = HugeLongArray.newArray(nodeCount, tracker);
+
+        long[] sources = sourceNodeIds
+                .map(graph::toHugeMappedNodeId)
+                .filter(mappedId -> mappedId != -1L)
+                .distinct()
+                .toArray();
+        if (sources.length == 0) {
+            for (long nodeId = 0L; nodeId < nodeCount; nodeId++) {
+                residuals.set(nodeId, alpha);
+            }
+            frontierSize = alpha >= epsilon ? nodeCount : 0L;
+            frontier.setAll(i -> i);
+        } else {
+            for (long sourceNodeId : sources) {
+                residuals.set(sourceNodeId, alpha);
+            }
+            frontierSize = 0L;
+            if (alpha >= epsilon) {
+                for (long sourceNodeId : sources) {
+                    frontier.set(frontierSize++, sourceNodeId);
+                }
+            }
+        }
+    }
+
+    private double runRound(List<PushTask> tasks) {
+        frontierOffset.set(0L);
+        nextFrontierSize.set(0L);
+        ParallelUtil.run(tasks, executor);
+
+        double pushed = 0.0;
+        for (PushTask task : tasks) {
+            pushed += task.pushed;
+        }
+        HugeLongArray processed = frontier;
+        frontier = nextFrontier;
+        nextFrontier = processed;
+        frontierSize = nextFrontierSize.get();
+        return pushed;
+    }
+
+    private final class PushTask implements Runnable {
+        private final HugeNeighbourCursor neighbours;
+        private final long[] targets;
+        private final long[] buffer;
+        private int buffered;
+        private double pushed;
+        private long relationshipsTraversed;
+
+        private PushTask() {
+            this.neighbours = graph.neighbourCursor(Direction.OUTGOING);
+            this.targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+            this.buffer = new long[BUFFER_SIZE];
+        }
+
+        @Override
+        public void run() {
+            pushed = 0.0;
+            HugeLongArray frontier = HugeDeltaPageRank.this.frontier;
+            long frontierSize = HugeDeltaPageRank.this.frontierSize;
+            long start;
+            while ((start = frontierOffset.getAndAdd(FRONTIER_BATCH_SIZE)) < frontierSize && running()) {
+                long end = Math.min(start + FRONTIER_BATCH_SIZE, frontierSize);
+                for (long i = start; i < end; i++) {
+                    push(frontier.get(i));
+                }
+            }
+            flush();
+        }
+
+        private void push(long nodeId) {
+            double delta = residuals.getAndSet(nodeId, 0.0);
+            ranks.addTo(nodeId, delta);
+            pushed += delta;
+            int degree = neighbours.init(nodeId);
+            if (degree == 0) {
+                return;
+            }
+            relationshipsTraversed += degree;
+            double share = dampingFactor * delta / degree;
+            int count;
+            while ((count = neighbours.next(targets)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    long targetNodeId = targets[i];
+                    double before = residuals.getAndAdd(targetNodeId, share);
+                    // only the push that lifts the residual over epsilon adds the node to the next frontier
+                    if (before < epsilon && before + share >= epsilon) {
+                        if (buffered == buffer.length) {
+                            flush();
+                        }
+                        buffer[buffered++] = targetNodeId;
+                    }
+                }
+            }
+        }
+
+        private void flush() {
+            long offset = nextFrontierSize.getAndAdd(buffered);
+            for (int i = 0; i < buffered; i++) {
+                nextFrontier.set(offset + i, buffer[i]);
+            }
+            buffered = 0;
+        }
+    }
+}
@@ -19,15 +19,11 @@
 package org.neo4j.graphalgo.impl.pagerank;
 
 import org.neo4j.graphalgo.api.HugeDegrees;
-import org.neo4j.graphalgo.api.HugeRelationshipConsumer;
 import org.neo4j.graphalgo.api.HugeRelationshipIterator;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphdb.Direction;
 
-import static org.neo4j.graphalgo.core.utils.ArrayUtil.binaryLookup;
-
-final class HugeEigenvectorCentralityComputeStep extends HugeBaseComputeStep implements HugeRelationshipConsumer {
-    private float srcRankDelta;
+final class HugeEigenvectorCentralityComputeStep extends HugeBaseComputeStep {
     private final double initialValue;
 
     HugeEigenvectorCentralityComputeStep(
@@ -57,28 +53,20 @@ final class HugeEigenvectorCentralityComputeStep extends HugeBaseComputeStep imp
     void singleIteration() {
         long startNode = this.startNode;
         long endNode = this.endNode;
-        HugeRelationshipIterator rels = this.relationshipIterator;
         for (long nodeId = startNode; nodeId < endNode; ++nodeId) {
             double delta = deltas[(int) (nodeId - startNode)];
             if (delta > 0.0) {
                 int degree = degrees.degree(nodeId, Direction.OUTGOING);
                 if (degree > 0) {
-                    srcRankDelta = (float) delta;
-                    rels.forEachRelationship(nodeId, Direction.OUTGOING, this);
+                    float srcRankDelta = (float) delta;
+                    if (srcRankDelta != 0f) {
+                        pushDelta(nodeId, srcRankDelta);
+                    }
                 }
             }
         }
     }
 
-    @Override
-    public boolean accept(long sourceNodeId, long targetNodeId) {
-        if (srcRankDelta != 0f) {
-            int idx = binaryLookup(targetNodeId, starts);
-            nextScores[idx][(int) (targetNodeId - starts[idx])] += srcRankDelta;
-        }
-        return true;
-    }
-
     @Override
     void combineScores() {
         assert prevScores != null;
@@ -89,6 +77,7 @@ final class HugeEigenvectorCentralityComputeStep extends HugeBaseComputeStep imp
         float[][] prevScores = this.prevScores;
         int length = prevScores[0].length;
 
+        double residual = 0.0;
         for (int i = 0; i < length; i++) {
             double delta = 0.0;
             for (float[] scores : prevScores) {
@@ -97,7 +86,9 @@ final class HugeEigenvectorCentralityComputeStep extends HugeBaseComputeStep imp
             }
             pageRank[i] += delta;
             deltas[i] = delta;
+            residual += Math.abs(delta);
         }
+        this.residual = residual;
     }
 
     @Override
@@ -106,5 +97,4 @@ final class HugeEigenvectorCentralityComputeStep extends HugeBaseComputeStep imp
             deltas[i] = deltas[i] / l2Norm;
         }
     }
-
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.pagerank;
+
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
+import org.neo4j.graphalgo.core.utils.ParallelUtil;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeDoubleArray;
+import org.neo4j.graphalgo.core.utils.queue.LongPriorityQueue;
+import org.neo4j.graphalgo.impl.Algorithm;
+import org.neo4j.graphdb.Direction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Personalized PageRank for many source nodes at once.
+ * <p>
+ * The sources are processed in batches of {@code lanes} sources. Every node holds one score per source of the
+ * batch, interleaved next to each other, so that a single decode of a node's adjacency list updates the scores
+ * of all sources. The scores are pulled from the neighbours in the reverse direction, which requires the graph
+ * to be loaded with both directions, but lets every thread write only to the nodes it owns.
+ * <p>
+ * The score arrays are allocated once for {@code lanes} sources and reused for every batch. Batches are only
+ * computed once the results of the previous batch have been consumed from
+ * {@link #resultStream(int, double, int)}.
+ */
+public final class HugeMultiSourcePageRank extends Algorithm<HugeMultiSourcePageRank> {
+
+    private static final int NODE_BATCH_SIZE = 4096;
+
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final AllocationTracker tracker;
+    private final HugeGraph graph;
+    private final Direction direction;
+    private final Direction pullDirection;
+    private final double dampingFactor;
+    private final long[] sourceNodeIds;
+    private final int lanes;
+    private final long nodeCount;
+
+    private HugeDoubleArray inverseDegrees;
+    private HugeDoubleArray scores;
+    private HugeDoubleArray deltas;
+    private HugeDoubleArray nextDeltas;
+
+    /**
+     * @param sourceNodeIds the mapped ids of the source nodes
+     * @param lanes         the number of sources that are computed together
+     * @param direction     the direction in which the scores flow along the relationships
+     */
+    public HugeMultiSourcePageRank(
+            ExecutorService executor,
+            int concurrency,
+            AllocationTracker tracker,
+            HugeGraph graph,
+            Direction direction,
+            double dampingFactor,
+            long[] sourceNodeIds,
+            int lanes) {
+        this.executor = ParallelUtil.canRunInParallel(executor) ? executor : null;
+        this.concurrency = Math.max(1, concurrency);
+        this.tracker = tracker;
+        this.graph = graph;
+        this.direction = direction;
+        this.pullDirection = direction == Direction.BOTH ? Direction.BOTH : direction.reverse();
+        this.dampingFactor = dampingFactor;
+        this.sourceNodeIds = sourceNodeIds;
+        this.lanes = Math.max(1, Math.min(lanes, sourceNodeIds.length));
+        this.nodeCount = graph.nodeCount();
+        this.inverseDegrees = HugeDoubleArray.newArray(nodeCount, tracker);
+        this.scores = HugeDoubleArray.newArray(nodeCount * this.lanes, tracker);
+        this.deltas = HugeDoubleArray.newArray(nodeCount * this.lanes, tracker);
+        this.nextDeltas = HugeDoubleArray.newArray(nodeCount * this.lanes, tracker);
+        for (long nodeId = 0L; nodeId < nodeCount; nodeId++) {
+            int degree = graph.degree(nodeId, direction);
+            inverseDegrees.set(nodeId, degree == 0 ? 0.0 : 1.0 / degree);
+        }
+    }
+
+    /**
+     * Computes the sources batch by batch and streams the {@code topN} nodes with the highest score
+     * for every source, ordered by source and descending score. Nodes without a score are omitted.
+     */
+    public Stream<Result> resultStream(int iterations, double tolerance, int topN) {
+        int batches = (sourceNodeIds.length + lanes - 1) / lanes;
+        return IntStream.range(0, batches)
+                .boxed()
+                .flatMap(batch -> {
+                    int offset = batch * lanes;
+                    int size = Math.min(lanes, sourceNodeIds.length - offset);
+                    compute(offset, size, iterations, tolerance);
+                    return topN(offset, size, topN);
+                });
+    }
+
+    /**
+     * Computes the sources {@code offset} to {@code offset + size} into the lanes of the score arrays.
+     */
+    void compute(int offset, int size, int iterations, double tolerance) {
+        double alpha = 1.0 - dampingFactor;
+        scores.fill(0.0);
+        deltas.fill(0.0);
+        for (int lane = 0; lane < size; lane++) {
+            long index = sourceNodeIds[offset + lane] * lanes + lane;
+            scores.set(index, alpha);
+            deltas.set(index, alpha);
+        }
+
+        AtomicLong nodeOffset = new AtomicLong();
+        List<PullTask> tasks = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            tasks.add(new PullTask(nodeOffset, size));
+        }
+        for (int i = 0; i < iterations && running(); i++) {
+            nodeOffset.set(0L);
+            ParallelUtil.run(tasks, executor);
+            HugeDoubleArray processed = deltas;
+            deltas = nextDeltas;
+            nextDeltas = processed;
+
+            double residual = 0.0;
+            for (PullTask task : tasks) {
+                residual += task.residual;
+            }
+            if (residual < tolerance) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * The score of the node for the source in the given lane of the last computed batch.
+     */
+    double score(int lane, long nodeId) {
+        return scores.get(nodeId * lanes + lane);
+    }
+
+    private Stream<Result> topN(int offset, int size, int topN) {
+        LongPriorityQueue[] queues = new LongPriorityQueue[size];
+        for (int lane = 0; lane < size; lane++) {
+            queues[lane] = LongPriorityQueue.min(topN);
+        }
+        for (long nodeId = 0L; nodeId < nodeCount; nodeId++) {
+            long base = nodeId * lanes;
+            for (int lane = 0; lane < size; lane++) {
+                double score = scores.get(base + lane);
+                if (score <= 0.0) {
+                    continue;
+                }
+                LongPriorityQueue queue = queues[lane];
+                if (queue.size() < topN) {
+                    queue.add(nodeId, score);
+                } else if (score > queue.topCost()) {
+                    queue.pop();
+                    queue.add(nodeId, score);
+                }
+            }
+        }
+
+        List<Result> results = new ArrayList<>();
+        for (int lane = 0; lane < size; lane++) {
+            long sourceNodeId = graph.toOriginalNodeId(sourceNodeIds[offset + lane]);
+            LongPriorityQueue queue = queues[lane];
+            Result[] ranked = new Result[queue.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                double score = queue.topCost();
+                long nodeId = queue.pop();
+                ranked[i] = new Result(sourceNodeId, graph.toOriginalNodeId(nodeId), score);
+            }
+            for (Result result : ranked) {
+                results.add(result);
+            }
+        }
+        return results.stream();
+    }
+
+    @Override
+    public HugeMultiSourcePageRank me() {
+        return this;
+    }
+
+    @Override
+    public HugeMultiSourcePageRank release() {
+        tracker.remove(inverseDegrees.release());
+        tracker.remove(scores.release());
+        tracker.remove(deltas.release());
+        tracker.remove(nextDeltas.release());
+        inverseDegrees = null;
+        scores = null;
+        deltas = null;
+        nextDeltas = null;
+        return this;
+    }
+
+    private final class PullTask implements Runnable {
+        private final AtomicLong nodeOffset;
+        private final int size;
+        private final HugeNeighbourCursor neighbours;
+        private final long[] sources;
+        private final double[] sums;
+        private double residual;
+
+        private PullTask(AtomicLong nodeOffset, int size) {
+            this.nodeOffset = nodeOffset;
+            this.size = size;
+            this.neighbours = graph.neighbourCursor(pullDirection);
+            this.sources = new long[HugeNeighbourCursor.BATCH_SIZE];
+            this.sums = new double[size];
+        }
+
+        @Override
+        public void run() {
+            residual = 0.0;
+            long start;
+            while ((start = nodeOffset.getAndAdd(NODE_BATCH_SIZE)) < nodeCount && running()) {
+                long end = Math.min(start + NODE_BATCH_SIZE, nodeCount);
+                for (long nodeId = start; nodeId < end; nodeId++) {
+                    pull(nodeId);
+                }
+            }
+        }
+
+        private void pull(long nodeId) {
+            double[] sums = this.sums;
+            int size = this.size;
+            HugeDoubleArray deltas = HugeMultiSourcePageRank.this.deltas;
+            Arrays.fill(sums, 0.0);
+            neighbours.init(nodeId);
+            int count;
+            while ((count = neighbours.next(sources)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    long sourceNodeId = sources[i];
+                    double share = inverseDegrees.get(sourceNodeId);
+                    long base = sourceNodeId * lanes;
+                    for (int lane = 0; lane < size; lane++) {
+                        sums[lane] += deltas.get(base + lane) * share;
+                    }
+                }
+            }
+            long base = nodeId * lanes;
+            for (int lane = 0; lane < size; lane++) {
+                double delta = dampingFactor * sums[lane];
+                nextDeltas.set(base + lane, delta);
+                scores.addTo(base + lane, delta);
+                residual += delta;
+            }
+        }
+    }
+
+    public static final class Result {
+
+        public final long sourceNodeId;
+        public final long nodeId;
+        public final double score;
+
+        public Result(long sourceNodeId, long nodeId, double score) {
+            this.sourceNodeId = sourceNodeId;
+            this.nodeId = nodeId;
+            this.score = score;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "sourceNodeId=" + sourceNodeId +
+                    ", nodeId=" + nodeId +
+                    ", score=" + score +
+                    '}';
+        }
+    }
+}
@@ -22,11 +22,7 @@ import org.neo4j.graphalgo.api.*;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphdb.Direction;
 
-import static org.neo4j.graphalgo.core.utils.ArrayUtil.binaryLookup;
-
-public class HugeNonWeightedComputeStep extends HugeBaseComputeStep implements HugeRelationshipConsumer {
-
-    private float srcRankDelta;
+public class HugeNonWeightedComputeStep extends HugeBaseComputeStep {
 
     HugeNonWeightedComputeStep(
             double dampingFactor,
@@ -48,25 +44,17 @@ public class HugeNonWeightedComputeStep extends HugeBaseComputeStep implements H
     void singleIteration() {
         long startNode = this.startNode;
         long endNode = this.endNode;
-        HugeRelationshipIterator rels = this.relationshipIterator;
         for (long nodeId = startNode; nodeId < endNode; ++nodeId) {
             double delta = deltas[(int) (nodeId - startNode)];
             if (delta > 0.0) {
                 int degree = degrees.degree(nodeId, Direction.OUTGOING);
                 if (degree > 0) {
-                    srcRankDelta = (float) (delta / degree);
-                    rels.forEachRelationship(nodeId, Direction.OUTGOING, this);
+                    float srcRankDelta = (float) (delta / degree);
+                    if (srcRankDelta != 0f) {
+                        pushDelta(nodeId, srcRankDelta);
+                    }
                 }
             }
         }
     }
-
-    @Override
-    public boolean accept(long sourceNodeId, long targetNodeId) {
-        if (srcRankDelta != 0f) {
-            int idx = binaryLookup(targetNodeId, starts);
-            nextScores[idx][(int) (targetNodeId - starts[idx])] += srcRankDelta;
-        }
-        return true;
-    }
 }
@@ -24,6 +24,7 @@ import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphalgo.api.*;
 import org.neo4j.graphalgo.core.utils.ParallelUtil;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.MemoryRange;
 import org.neo4j.graphalgo.impl.Algorithm;
 import org.neo4j.graphalgo.impl.results.CentralityResult;
 import org.neo4j.graphalgo.impl.results.DoubleArrayResult;
@@ -167,12 +168,27 @@ public class HugePageRank extends Algorithm<HugePageRank> implements PageRankAlg
      */
     @Override
     public HugePageRank compute(int iterations) {
+        return compute(iterations, 0.0);
+    }
+
+    @Override
+    public HugePageRank compute(int iterations, double tolerance) {
         assert iterations >= 1;
         initializeSteps();
-        computeSteps.run(iterations);
+        computeSteps.run(iterations, tolerance);
         return this;
     }
 
+    @Override
+    public int iterations() {
+        return computeSteps == null ? 0 : computeSteps.iterations;
+    }
+
+    @Override
+    public double residual() {
+        return computeSteps == null ? 0.0 : computeSteps.residual;
+    }
+
     @Override
     public CentralityResult result() {
         return computeSteps.getPageRank();
@@ -361,6 +377,20 @@ public class HugePageRank extends Algorithm<HugePageRank> implements PageRankAlg
         return newConcurrency;
     }
 
+    /**
+     * Estimates the memory of the compute steps for a graph with the given number of nodes.
+     * The scores and deltas are shared by all steps, while the scores that are sent to the other partitions
+     * are held by every step. Depending on the partitioning there is at least one and at most {@code concurrency} step.
+     */
+    public static MemoryRange memoryEstimation(long nodeCount, int concurrency) {
+        int maxSteps = Math.max(1, concurrency);
+        long shared = shallowSizeOfInstance(ComputeSteps.class) + ((nodeCount * Double.BYTES) << 1);
+        long perStep = shallowSizeOfInstance(HugeBaseComputeStep.class) + nodeCount * Integer.BYTES;
+        return MemoryRange.of(
+                shared + perStep + (sizeOfLongArray(1) << 1) + sizeOfObjectArray(1),
+                shared + perStep * maxSteps + (sizeOfLongArray(maxSteps) << 1) + sizeOfObjectArray(maxSteps));
+    }
+
     private static long availableMemory() {
         // TODO: run gc first to free up memory?
         Runtime rt = Runtime.getRuntime();
@@ -460,6 +490,8 @@ public class HugePageRank extends Algorithm<HugePageRank> implements PageRankAlg
         private final ExecutorService pool;
         private float[][][] scores;
         private final int concurrency;
+        private int iterations;
+        private double residual;
 
         private ComputeSteps(
                 AllocationTracker tracker,
@@ -491,7 +523,7 @@ public class HugePageRank extends Algorithm<HugePageRank> implements PageRankAlg
             }
         }
 
-        private void run(int iterations) {
+        private void run(int iterations, double tolerance) {
             final int operations = (iterations << 1) + 1;
             int op = 0;
             ParallelUtil.runWithConcurrency(concurrency, steps, pool);
@@ -505,6 +537,11 @@ public class HugePageRank extends Algorithm<HugePageRank> implements PageRankAlg
                 synchronizeScores();
                 ParallelUtil.runWithConcurrency(concurrency, steps, pool);
                 getProgressLogger().logProgress(++op, operations, tracker);
+                this.iterations = i + 1;
+                this.residual = computeResidual();
+                if (residual < tolerance) {
+                    break;
+                }
 
                 // normalize deltas
                 normalizeDeltas();
@@ -513,6 +550,14 @@ public class HugePageRank extends Algorithm<HugePageRank> implements PageRankAlg
             }
         }
 
+        private double computeResidual() {
+            double residual = 0.0;
+            for (HugeComputeStep step : steps) {
+                residual += step.residual();
+            }
+            return residual;
+        }
+
         private void normalizeDeltas() {
             double l2Norm = computeNorm();
 
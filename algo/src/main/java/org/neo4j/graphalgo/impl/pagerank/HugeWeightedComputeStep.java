@@ -19,7 +19,7 @@
 package org.neo4j.graphalgo.impl.pagerank;
 
 import org.neo4j.graphalgo.api.HugeDegrees;
-import org.neo4j.graphalgo.api.HugeRelationshipConsumer;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
 import org.neo4j.graphalgo.api.HugeRelationshipIterator;
 import org.neo4j.graphalgo.api.HugeRelationshipWeights;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
@@ -27,11 +27,9 @@ import org.neo4j.graphdb.Direction;
 
 import static org.neo4j.graphalgo.core.utils.ArrayUtil.binaryLookup;
 
-public class HugeWeightedComputeStep extends HugeBaseComputeStep implements HugeRelationshipConsumer {
-    private final HugeRelationshipWeights relationshipWeights;
+public class HugeWeightedComputeStep extends HugeBaseComputeStep {
     private final double[] aggregatedDegrees;
-    private double sumOfWeights;
-    private double delta;
+    private final double[] weights;
 
     HugeWeightedComputeStep(
             double dampingFactor,
@@ -50,39 +48,42 @@ public class HugeWeightedComputeStep extends HugeBaseComputeStep implements Huge
                 tracker,
                 partitionSize,
                 startNode);
-        this.relationshipWeights = relationshipWeights;
         this.aggregatedDegrees = degreeCache.aggregatedDegrees();
+        this.weights = new double[HugeNeighbourCursor.BATCH_SIZE];
     }
 
     void singleIteration() {
         long startNode = this.startNode;
         long endNode = this.endNode;
-        HugeRelationshipIterator rels = this.relationshipIterator;
+        HugeNeighbourCursor neighbours = this.neighbours;
+        long[] targets = this.targets;
+        double[] weights = this.weights;
+        long[] starts = this.starts;
+        float[][] nextScores = this.nextScores;
         for (long nodeId = startNode; nodeId < endNode; ++nodeId) {
-            delta = deltas[(int) (nodeId - startNode)];
+            double delta = deltas[(int) (nodeId - startNode)];
             if (delta > 0.0) {
                 int degree = degrees.degree(nodeId, Direction.OUTGOING);
                 if (degree > 0) {
-                    sumOfWeights = aggregatedDegrees[(int) nodeId];
-                    rels.forEachRelationship(nodeId, Direction.OUTGOING, this);
+                    double sumOfWeights = aggregatedDegrees[(int) nodeId];
+                    neighbours.init(nodeId);
+                    int count;
+                    while ((count = neighbours.next(targets, weights)) > 0) {
+                        for (int i = 0; i < count; i++) {
+                            double weight = weights[i];
+                            if (weight > 0) {
+                                double proportion = weight / sumOfWeights;
+                                float srcRankDelta = (float) (delta * proportion);
+                                if (srcRankDelta != 0f) {
+                                    long targetNodeId = targets[i];
+                                    int idx = binaryLookup(targetNodeId, starts);
+                                    nextScores[idx][(int) (targetNodeId - starts[idx])] += srcRankDelta;
+                                }
+                            }
+                        }
+                    }
                 }
             }
         }
     }
-
-    @Override
-    public boolean accept(long sourceNodeId, long targetNodeId) {
-        double weight = relationshipWeights.weightOf(sourceNodeId, targetNodeId);
-
-        if (weight > 0) {
-            double proportion = weight / sumOfWeights;
-            float srcRankDelta = (float) (delta * proportion);
-            if (srcRankDelta != 0f) {
-                int idx = binaryLookup(targetNodeId, starts);
-                nextScores[idx][(int) (targetNodeId - starts[idx])] += srcRankDelta;
-            }
-        }
-
-        return true;
-    }
 }
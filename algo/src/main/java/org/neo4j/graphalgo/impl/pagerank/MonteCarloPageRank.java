@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.pagerank;
+
+import com.carrotsearch.hppc.LongDoubleHashMap;
+import com.carrotsearch.hppc.LongDoubleMap;
+import com.carrotsearch.hppc.cursors.LongDoubleCursor;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.core.utils.ParallelUtil;
+import org.neo4j.graphalgo.impl.Algorithm;
+import org.neo4j.graphalgo.impl.walking.NodeWalker;
+import org.neo4j.graphdb.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Personalized PageRank estimated by random walks.
+ * <p>
+ * Every walk starts at a source node and stops after each step with a probability of {@code 1 - dampingFactor},
+ * so the share of walks that end at a node estimates its score. Walks that reach a node without relationships
+ * are lost, like the rank of such nodes in {@link HugePageRank}. The walks are taken by the
+ * {@link NodeWalker.RandomNextNodeStrategy} of the random walk procedures, which is limited to int node ids.
+ * <p>
+ * By Hoeffding's inequality, the estimate for a single source differs by at most
+ * {@code sqrt(ln(2 / (1 - confidence)) / (2 * walks))} from the exact score with the given confidence.
+ */
+public final class MonteCarloPageRank extends Algorithm<MonteCarloPageRank> implements ApproximatePageRank {
+
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final HugeGraph graph;
+    private final Direction direction;
+    private final double dampingFactor;
+    private final long[] sourceNodeIds;
+    private final int walks;
+    private final double confidence;
+
+    private LongDoubleMap scores;
+
+    /**
+     * @param sourceNodeIds the mapped ids of the source nodes
+     * @param walks         the number of walks from every source node
+     * @param confidence    the probability with which the {@link #errorBound()} holds
+     */
+    public MonteCarloPageRank(
+            ExecutorService executor,
+            int concurrency,
+            HugeGraph graph,
+            Direction direction,
+            double dampingFactor,
+            long[] sourceNodeIds,
+            int walks,
+            double confidence) {
+        if (graph.nodeCount() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Random walks support at most " + Integer.MAX_VALUE + " nodes");
+        }
+        if (walks <= 0) {
+            throw new IllegalArgumentException("walks must be positive, but was " + walks);
+        }
+        if (confidence <= 0.0 || confidence >= 1.0) {
+            throw new IllegalArgumentException("confidence must be between 0 and 1, but was " + confidence);
+        }
+        this.executor = ParallelUtil.canRunInParallel(executor) ? executor : null;
+        this.concurrency = Math.max(1, concurrency);
+        this.graph = graph;
+        this.direction = direction;
+        this.dampingFactor = dampingFactor;
+        this.sourceNodeIds = sourceNodeIds;
+        this.walks = walks;
+        this.confidence = confidence;
+    }
+
+    @Override
+    public MonteCarloPageRank compute() {
+        long totalWalks = (long) walks * sourceNodeIds.length;
+        int taskCount = (int) Math.max(1L, Math.min(concurrency, totalWalks));
+        List<WalkTask> tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            long start = totalWalks * i / taskCount;
+            long end = totalWalks * (i + 1) / taskCount;
+            tasks.add(new WalkTask(start, end));
+        }
+        ParallelUtil.run(tasks, executor);
+
+        scores = new LongDoubleHashMap();
+        for (WalkTask task : tasks) {
+            for (LongDoubleCursor cursor : task.ends) {
+                scores.addTo(cursor.key, cursor.value / walks);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    public LongDoubleMap scores() {
+        return scores;
+    }
+
+    /**
+     * the Hoeffding bound of a single source, times the number of sources as the scores of all sources add up
+     */
+    @Override
+    public double errorBound() {
+        int sources = Math.max(1, sourceNodeIds.length);
+        double delta = (1.0 - confidence) / sources;
+        return sources * Math.sqrt(Math.log(2.0 / delta) / (2.0 * walks));
+    }
+
+    @Override
+    public MonteCarloPageRank me() {
+        return this;
+    }
+
+    @Override
+    public MonteCarloPageRank release() {
+        return this;
+    }
+
+    private final class WalkTask implements Runnable {
+        private final long start;
+        private final long end;
+        private final LongDoubleMap ends;
+
+        private WalkTask(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.ends = new LongDoubleHashMap();
+        }
+
+        @Override
+        public void run() {
+            // the int based graph access of the strategy is thread-safe
+            NodeWalker.NextNodeStrategy strategy = new NodeWalker.RandomNextNodeStrategy(graph, graph, direction);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (long walk = start; walk < end && running(); walk++) {
+                int current = (int) sourceNodeIds[(int) (walk / walks)];
+                int previous = current;
+                while (true) {
+                    if (random.nextDouble() >= dampingFactor) {
+                        ends.addTo(current, 1.0);
+                        break;
+                    }
+                    int next = strategy.getNextNode(current, previous);
+                    if (next == -1) {
+                        break;
+                    }
+                    previous = current;
+                    current = next;
+                }
+            }
+        }
+    }
+}
@@ -155,11 +155,26 @@ public class PageRank extends Algorithm<PageRank> implements PageRankAlgorithm {
      */
     @Override
     public PageRank compute(int iterations) {
+        return compute(iterations, 0.0);
+    }
+
+    @Override
+    public PageRank compute(int iterations, double tolerance) {
         assert iterations >= 1;
-        computeSteps.run(iterations);
+        computeSteps.run(iterations, tolerance);
         return this;
     }
 
+    @Override
+    public int iterations() {
+        return computeSteps.iterations;
+    }
+
+    @Override
+    public double residual() {
+        return computeSteps.residual;
+    }
+
     @Override
     public CentralityResult result() {
         return computeSteps.getPageRank();
@@ -321,6 +336,8 @@ public class PageRank extends Algorithm<PageRank> implements PageRankAlgorithm {
         private List<ComputeStep> steps;
         private final ExecutorService pool;
         private float[][][] scores;
+        private int iterations;
+        private double residual;
 
         private ComputeSteps(
                 int concurrency,
@@ -349,7 +366,7 @@ public class PageRank extends Algorithm<PageRank> implements PageRankAlgorithm {
             return new PartitionedPrimitiveDoubleArrayResult(results, firstStep.starts());
         }
 
-        private void run(int iterations) {
+        private void run(int iterations, double tolerance) {
             // initialize data structures
             ParallelUtil.runWithConcurrency(concurrency, steps, pool);
             for (int iteration = 0; iteration < iterations && running(); iteration++) {
@@ -359,6 +376,11 @@ public class PageRank extends Algorithm<PageRank> implements PageRankAlgorithm {
                 // sync scores
                 synchronizeScores();
                 ParallelUtil.runWithConcurrency(concurrency, steps, 3, 1, TimeUnit.SECONDS, pool);
+                this.iterations = iteration + 1;
+                this.residual = computeResidual();
+                if (residual < tolerance) {
+                    break;
+                }
 
                 // normalize deltas
                 normalizeDeltas();
@@ -366,6 +388,14 @@ public class PageRank extends Algorithm<PageRank> implements PageRankAlgorithm {
             }
         }
 
+        private double computeResidual() {
+            double residual = 0.0;
+            for (ComputeStep step : steps) {
+                residual += step.residual();
+            }
+            return residual;
+        }
+
         private void normalizeDeltas() {
             double l2Norm = computeNorm();
 
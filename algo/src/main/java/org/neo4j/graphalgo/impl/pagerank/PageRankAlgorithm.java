@@ -42,6 +42,22 @@ public interface PageRankAlgorithm {
 
     PageRankAlgorithm compute(int iterations);
 
+    /**
+     * compute for at most the given iterations, but stop as soon as
+     * the sum of the absolute score changes of an iteration falls below the tolerance
+     */
+    PageRankAlgorithm compute(int iterations, double tolerance);
+
+    /**
+     * the number of iterations that have been run
+     */
+    int iterations();
+
+    /**
+     * the sum of the absolute score changes of the last iteration
+     */
+    double residual();
+
     CentralityResult result();
 
     Algorithm<?> algorithm();
@@ -155,6 +171,31 @@ public interface PageRankAlgorithm {
                 pageRankVariant);
     }
 
+    /**
+     * PageRank that only processes nodes whose pending rank change is at least {@code epsilon},
+     * see {@link HugeDeltaPageRank}.
+     */
+    static PageRankAlgorithm deltaOf(
+            AllocationTracker tracker,
+            HugeGraph graph,
+            double dampingFactor,
+            double epsilon,
+            LongStream sourceNodeIds,
+            ExecutorService pool,
+            int concurrency) {
+        if (epsilon <= 0.0) {
+            throw new IllegalArgumentException("epsilon must be positive, but was " + epsilon);
+        }
+        return new HugeDeltaPageRank(
+                pool,
+                concurrency,
+                tracker,
+                graph,
+                dampingFactor,
+                epsilon,
+                sourceNodeIds);
+    }
+
     static PageRankAlgorithm weightedOf(
             AllocationTracker tracker,
             Graph graph,
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl.results;
+
+import org.neo4j.graphalgo.core.utils.paged.HugeDoubleArray;
+import org.neo4j.graphalgo.core.write.Exporter;
+import org.neo4j.graphalgo.core.write.PropertyTranslator;
+
+import java.util.function.Function;
+
+public final class HugeDoubleArrayResult implements CentralityResult {
+    private final HugeDoubleArray result;
+
+    public HugeDoubleArrayResult(HugeDoubleArray result) {
+        this.result = result;
+    }
+
+    @Override
+    public void export(
+            final String propertyName, final Exporter exporter) {
+        exporter.write(
+                propertyName,
+                result,
+                HugeDoubleArray.Translator.INSTANCE);
+    }
+
+    @Override
+    public void export(String propertyName, Exporter exporter, Function<Double, Double> normalizationFunction) {
+        exporter.write(
+                propertyName,
+                result,
+                (PropertyTranslator.OfDouble<HugeDoubleArray>) (data, nodeId) -> normalizationFunction.apply(data.get(nodeId)));
+    }
+
+    @Override
+    public double computeMax() {
+        if (result.size() == 0L) {
+            return 1.0;
+        }
+        double max = result.get(0L);
+        for (long i = 1L; i < result.size(); i++) {
+            max = Math.max(max, result.get(i));
+        }
+        return max;
+    }
+
+    @Override
+    public double computeL2Norm() {
+        double sum = 0.0;
+        for (long i = 0; i < result.size(); i++) {
+            double value = result.get(i);
+            sum += value * value;
+        }
+        return Math.sqrt(sum);
+    }
+
+    @Override
+    public double computeL1Norm() {
+        double sum = 0.0;
+        for (long i = 0; i < result.size(); i++) {
+            sum += result.get(i);
+        }
+        return sum;
+    }
+
+    @Override
+    public final double score(final long nodeId) {
+        return result.get(nodeId);
+    }
+
+    @Override
+    public double score(final int nodeId) {
+        return result.get((long) nodeId);
+    }
+}
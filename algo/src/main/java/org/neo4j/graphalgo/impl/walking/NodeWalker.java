@@ -133,20 +133,29 @@ public class NodeWalker {
     */
 
     public static class RandomNextNodeStrategy extends NextNodeStrategy {
+        private final Direction direction;
 
         public RandomNextNodeStrategy(Graph graph, Degrees degrees) {
+            this(graph, degrees, Direction.BOTH);
+        }
+
+        /**
+         * picks a random neighbour along relationships of the given direction only
+         */
+        public RandomNextNodeStrategy(Graph graph, Degrees degrees, Direction direction) {
             super(graph, degrees);
+            this.direction = direction;
         }
 
         @Override
         public int getNextNode(int currentNodeId, int previousNodeId) {
-            int degree = degrees.degree(currentNodeId, Direction.BOTH);
+            int degree = degrees.degree(currentNodeId, direction);
             if (degree == 0) {
                 return -1;
             }
             int randomEdgeIndex = ThreadLocalRandom.current().nextInt(degree);
 
-            return graph.getTarget(currentNodeId, randomEdgeIndex, Direction.BOTH);
+            return graph.getTarget(currentNodeId, randomEdgeIndex, direction);
         }
 
     }
@@ -32,7 +32,7 @@ public class PageRankScore {
     //  the Graph API doesn't expose this value yet
     public static final class Stats {
         public final long nodes, iterations, loadMillis, computeMillis, writeMillis;
-        public final double dampingFactor;
+        public final double dampingFactor, residual;
         public final boolean write;
         public final String writeProperty;
 
@@ -43,6 +43,7 @@ public class PageRankScore {
                 long computeMillis,
                 long writeMillis,
                 double dampingFactor,
+                double residual,
                 boolean write,
                 String writeProperty) {
             this.nodes = nodes;
@@ -51,6 +52,7 @@ public class PageRankScore {
             this.computeMillis = computeMillis;
             this.writeMillis = writeMillis;
             this.dampingFactor = dampingFactor;
+            this.residual = residual;
             this.write = write;
             this.writeProperty = writeProperty;
         }
@@ -59,6 +61,7 @@ public class PageRankScore {
             private long nodes;
             private long iterations;
             private double dampingFactor;
+            private double residual;
             private boolean write;
             private String writeProperty;
 
@@ -77,6 +80,11 @@ public class PageRankScore {
                 return this;
             }
 
+            public Builder withResidual(double residual) {
+                this.residual = residual;
+                return this;
+            }
+
             @Override
             public Builder withWrite(boolean write) {
                 this.write = write;
@@ -97,6 +105,7 @@ public class PageRankScore {
                         evalDuration,
                         writeDuration,
                         dampingFactor,
+                        residual,
                         write,
                         writeProperty);
             }
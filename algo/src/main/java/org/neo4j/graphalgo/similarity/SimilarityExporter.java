@@ -19,7 +19,10 @@
 package org.neo4j.graphalgo.similarity;
 
 import org.neo4j.graphalgo.core.utils.ExceptionUtil;
+import org.neo4j.graphalgo.core.utils.ParallelUtil;
+import org.neo4j.graphalgo.core.utils.ProgressLogger;
 import org.neo4j.graphalgo.core.utils.StatementApi;
+import org.neo4j.helpers.Exceptions;
 import org.neo4j.internal.kernel.api.exceptions.EntityNotFoundException;
 import org.neo4j.internal.kernel.api.exceptions.InvalidTransactionTypeKernelException;
 import org.neo4j.internal.kernel.api.exceptions.KernelException;
@@ -29,12 +32,27 @@ import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.values.storable.Values;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public class SimilarityExporter extends StatementApi {
 
+    // batches that are waiting for a worker, per worker
+    private static final int QUEUED_BATCHES = 2;
+    private static final List<SimilarityResult> END_OF_RESULTS = Collections.emptyList();
+
     private final int propertyId;
     private final int relationshipTypeId;
 
@@ -50,6 +68,30 @@ public class SimilarityExporter extends StatementApi {
         writeSequential(similarityPairs, batchSize);
     }
 
+    /**
+     * Writes the relationships with {@code concurrency} workers on the given executor, every batch in its own transaction.
+     * <p>
+     * The results are partitioned by their source node, so that all relationships of a node are written by the same worker.
+     * Every worker accepts only a few batches at once, so a slow write blocks the consumption of the stream,
+     * which in turn blocks the computation of further results.
+     * The executor must be able to run all workers at once, while the stream is being consumed.
+     *
+     * @param maxResults an upper bound of the number of results, which is only used to report the progress
+     */
+    public void export(
+            Stream<SimilarityResult> similarityPairs,
+            long batchSize,
+            int concurrency,
+            ExecutorService executor,
+            ProgressLogger progressLogger,
+            long maxResults) {
+        if (concurrency <= 1 || !ParallelUtil.canRunInParallel(executor)) {
+            writeSequential(similarityPairs, batchSize);
+        } else {
+            writeParallel(similarityPairs, Math.toIntExact(batchSize), concurrency, executor, progressLogger, maxResults);
+        }
+    }
+
     private void export(SimilarityResult similarityResult) {
         applyInTransaction(statement -> {
             try {
@@ -108,6 +150,149 @@ public class SimilarityExporter extends StatementApi {
         }
     }
 
+    private void writeParallel(
+            Stream<SimilarityResult> similarityPairs,
+            int batchSize,
+            int concurrency,
+            ExecutorService executor,
+            ProgressLogger progressLogger,
+            long maxResults) {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        AtomicLong written = new AtomicLong();
+        long start = System.nanoTime();
+        Consumer<List<SimilarityResult>> onWritten = batch -> {
+            long total = written.addAndGet(batch.size());
+            progressLogger.logProgress(total, Math.max(total, maxResults), () -> String.format(
+                    "wrote %,d relationships, %,.0f relationships/s",
+                    total,
+                    total * 1e9 / Math.max(1L, System.nanoTime() - start)));
+        };
+
+        List<BlockingQueue<List<SimilarityResult>>> queues = new ArrayList<>(concurrency);
+        Collection<Future<?>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            BlockingQueue<List<SimilarityResult>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+            queues.add(queue);
+            futures.add(executor.submit(new WriteWorker(queue, error, onWritten)));
+        }
+
+        try {
+            List<List<SimilarityResult>> batches = new ArrayList<>(concurrency);
+            for (int i = 0; i < concurrency; i++) {
+                batches.add(new ArrayList<>(batchSize));
+            }
+            Iterator<SimilarityResult> iterator = similarityPairs.iterator();
+            while (iterator.hasNext() && error.get() == null) {
+                SimilarityResult result = iterator.next();
+                int worker = (int) Math.floorMod(result.item1, (long) concurrency);
+                List<SimilarityResult> batch = batches.get(worker);
+                batch.add(result);
+                if (batch.size() >= batchSize) {
+                    put(queues.get(worker), batch);
+                    batches.set(worker, new ArrayList<>(batchSize));
+                }
+            }
+            for (int i = 0; i < concurrency; i++) {
+                if (!batches.get(i).isEmpty()) {
+                    put(queues.get(i), batches.get(i));
+                }
+            }
+        } finally {
+            for (BlockingQueue<List<SimilarityResult>> queue : queues) {
+                put(queue, END_OF_RESULTS);
+            }
+            ParallelUtil.awaitTermination(futures);
+        }
+
+        Throwable failure = error.get();
+        if (failure != null) {
+            throw Exceptions.launderedException(failure);
+        }
+        progressLogger.logDone(() -> String.format(
+                "wrote %,d relationships in %,d ms",
+                written.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    }
+
+    private static void put(BlockingQueue<List<SimilarityResult>> queue, List<SimilarityResult> batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes the batches of one partition, each in its own transaction, until the end of the results.
+     * Once any worker has failed, the remaining batches are only drained, so that the stream is never blocked.
+     */
+    private final class WriteWorker implements Runnable {
+
+        private final BlockingQueue<List<SimilarityResult>> queue;
+        private final AtomicReference<Throwable> error;
+        private final Consumer<List<SimilarityResult>> onWritten;
+
+        private WriteWorker(
+                BlockingQueue<List<SimilarityResult>> queue,
+                AtomicReference<Throwable> error,
+                Consumer<List<SimilarityResult>> onWritten) {
+            this.queue = queue;
+            this.error = error;
+            this.onWritten = onWritten;
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<SimilarityResult> batch;
+                while ((batch = queue.take()) != END_OF_RESULTS) {
+                    if (error.get() != null) {
+                        continue;
+                    }
+                    try {
+                        exportLocked(batch);
+                        onWritten.accept(batch);
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            } catch (InterruptedException e) {
+                error.compareAndSet(null, e);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Writes the batch in one transaction, that first locks all nodes of the batch in ascending order.
+     * As every worker locks its nodes in the same order, workers that share target nodes wait for each other,
+     * but never deadlock.
+     */
+    private void exportLocked(List<SimilarityResult> similarityResults) {
+        long[] nodes = new long[similarityResults.size() << 1];
+        int length = 0;
+        for (SimilarityResult similarityResult : similarityResults) {
+            nodes[length++] = similarityResult.item1;
+            nodes[length++] = similarityResult.item2;
+        }
+        Arrays.sort(nodes);
+        int distinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (distinct == 0 || nodes[distinct - 1] != nodes[i]) {
+                nodes[distinct++] = nodes[i];
+            }
+        }
+        long[] lockedNodes = Arrays.copyOf(nodes, distinct);
+        applyInTransaction(statement -> {
+            statement.locks().acquireExclusiveNodeLock(lockedNodes);
+            for (SimilarityResult similarityResult : similarityResults) {
+                createRelationship(similarityResult, statement);
+            }
+            return null;
+        });
+    }
+
     private static List<SimilarityResult> take(Iterator<SimilarityResult> iterator, int batchSize) {
         List<SimilarityResult> result = new ArrayList<>(batchSize);
         while (iterator.hasNext() && batchSize-- > 0) {
@@ -25,17 +25,22 @@ import com.carrotsearch.hppc.LongSet;
 import org.HdrHistogram.DoubleHistogram;
 import org.neo4j.graphalgo.core.ProcedureConfiguration;
 import org.neo4j.graphalgo.core.ProcedureConstants;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.ProgressLogger;
 import org.neo4j.graphalgo.core.utils.TerminationFlag;
 import org.neo4j.graphalgo.similarity.recorder.NonRecordingSimilarityRecorder;
 import org.neo4j.graphalgo.similarity.recorder.RecordingSimilarityRecorder;
 import org.neo4j.graphalgo.similarity.recorder.SimilarityRecorder;
 import org.neo4j.graphdb.Result;
+import org.neo4j.helpers.NamedThreadFactory;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.procedure.Context;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -91,6 +96,11 @@ public class SimilarityProc {
     Long getWriteBatchSize(ProcedureConfiguration configuration) {
         return configuration.get("writeBatchSize", 10000L);
     }
+
+    int getWriteConcurrency(ProcedureConfiguration configuration) {
+        return Pools.allowedConcurrency(configuration.getNumber("writeConcurrency", 1L).intValue());
+    }
+
     Stream<SimilaritySummaryResult> writeAndAggregateResults(Stream<SimilarityResult> stream, int length, int sourceIdsLength, int targetIdsLength, ProcedureConfiguration configuration, boolean write, String writeRelationshipType, String writeProperty, Computations computations) {
         long writeBatchSize = getWriteBatchSize(configuration);
         AtomicLong similarityPairs = new AtomicLong();
@@ -102,7 +112,27 @@ public class SimilarityProc {
 
         if (write) {
             SimilarityExporter similarityExporter = new SimilarityExporter(api, writeRelationshipType, writeProperty);
-            similarityExporter.export(stream.peek(recorder), writeBatchSize);
+            int writeConcurrency = getWriteConcurrency(configuration);
+            if (writeConcurrency > 1) {
+                // the computation keeps the default pool busy until the results have been written,
+                // so the writers get threads of their own
+                ExecutorService executor = Executors.newFixedThreadPool(
+                        writeConcurrency,
+                        NamedThreadFactory.daemon("algo-similarity-write"));
+                try {
+                    similarityExporter.export(
+                            stream.peek(recorder),
+                            writeBatchSize,
+                            writeConcurrency,
+                            executor,
+                            ProgressLogger.wrap(log, "SimilarityExport"),
+                            maxResults(length, sourceIdsLength, targetIdsLength, configuration));
+                } finally {
+                    executor.shutdown();
+                }
+            } else {
+                similarityExporter.export(stream.peek(recorder), writeBatchSize);
+            }
         } else {
             stream.forEach(recorder);
         }
@@ -110,6 +140,15 @@ public class SimilarityProc {
         return Stream.of(SimilaritySummaryResult.from(length, sourceIdsLength, targetIdsLength, similarityPairs, computations.count(), writeRelationshipType, writeProperty, write, histogram));
     }
 
+    private long maxResults(int length, int sourceIdsLength, int targetIdsLength, ProcedureConfiguration configuration) {
+        long sources = sourceIdsLength > 0 ? sourceIdsLength : length;
+        long targets = targetIdsLength > 0 ? targetIdsLength : length;
+        int topK = Math.abs(getTopK(configuration));
+        long results = topK > 0 ? sources * Math.min(topK, targets) : sources * targets;
+        int topN = Math.abs(getTopN(configuration));
+        return topN > 0 ? Math.min(topN, results) : results;
+    }
+
     Stream<SimilaritySummaryResult> emptyStream(String writeRelationshipType, String writeProperty) {
         return Stream.of(SimilaritySummaryResult.from(0, 0,0, new AtomicLong(0), -1, writeRelationshipType,
                 writeProperty, false, new DoubleHistogram(5)));
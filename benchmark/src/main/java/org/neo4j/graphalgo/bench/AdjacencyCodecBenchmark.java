@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.bench;
+
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.RelationshipIntersect;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.AdjacencyCodec;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.test.TestGraphDatabaseFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the decoding of the adjacency lists with the different {@link AdjacencyCodec}s,
+ * for full traversals as done by PageRank and for intersections, which skip over the targets.
+ */
+@Threads(1)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AdjacencyCodecBenchmark {
+
+    private static final int RELATIONSHIPS = 500_000;
+
+    @Param({"VAR_LONG", "BLOCK_PACKED"})
+    AdjacencyCodec codec;
+
+    @Param({"8", "64", "512"})
+    int averageDegree;
+
+    private GraphDatabaseAPI db;
+    private HugeGraph directed;
+    private HugeGraph undirected;
+
+    @Setup
+    public void setup() {
+        db = (GraphDatabaseAPI) new TestGraphDatabaseFactory()
+                .newImpermanentDatabaseBuilder()
+                .newGraphDatabase();
+        Map<String, Object> params = new HashMap<>();
+        params.put("nodes", RELATIONSHIPS / averageDegree);
+        params.put("degree", averageDegree);
+        try (Transaction tx = db.beginTx()) {
+            db.execute("UNWIND range(1, $nodes) AS i CREATE (:Node)", params).close();
+            db.execute("MATCH (n:Node) WITH collect(n) AS nodes " +
+                    "UNWIND nodes AS a " +
+                    "UNWIND range(1, $degree) AS j " +
+                    "WITH a, nodes[toInteger(rand() * size(nodes))] AS b " +
+                    "CREATE (a)-[:TYPE]->(b)", params).close();
+            tx.success();
+        }
+        directed = load(false);
+        undirected = load(true);
+    }
+
+    private HugeGraph load(boolean asUndirected) {
+        return (HugeGraph) new GraphLoader(db, Pools.DEFAULT)
+                .withDirection(Direction.OUTGOING)
+                .asUndirected(asUndirected)
+                .withAdjacencyCodec(codec)
+                .load(HugeGraphFactory.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        directed.release();
+        undirected.release();
+        db.shutdown();
+    }
+
+    @Benchmark
+    public long forEachOutgoing() {
+        HugeGraph graph = directed;
+        long[] sum = {0L};
+        graph.forEachNode((long node) -> {
+            graph.forEachOutgoing(node, (source, target) -> {
+                sum[0] += target;
+                return true;
+            });
+            return true;
+        });
+        return sum[0];
+    }
+
+    @Benchmark
+    public long intersectAll() {
+        RelationshipIntersect intersect = undirected.intersection();
+        long[] triangles = {0L};
+        undirected.forEachNode((long node) -> {
+            intersect.intersectAll(node, (a, b, c) -> triangles[0]++);
+            return true;
+        });
+        return triangles[0];
+    }
+}
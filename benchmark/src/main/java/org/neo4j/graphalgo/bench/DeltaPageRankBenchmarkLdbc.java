@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.bench;
+
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.helper.ldbc.LdbcDownloader;
+import org.neo4j.graphalgo.impl.pagerank.PageRankAlgorithm;
+import org.neo4j.graphalgo.impl.results.CentralityResult;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Compares the delta-push PageRank with the power iteration of {@link PageRankBenchmarkLdbc} on the same huge graph.
+ */
+@Threads(1)
+@Fork(value = 1, jvmArgs = {"-Xms8g", "-Xmx8g", "-XX:+UseG1GC"})
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DeltaPageRankBenchmarkLdbc {
+
+    @Param({"L01"})
+    String graphId;
+
+    @Param({"20"})
+    int iterations;
+
+    @Param({"1e-3", "1e-4"})
+    double epsilon;
+
+    private GraphDatabaseAPI db;
+    private HugeGraph grph;
+
+    @Setup
+    public void setup() throws IOException {
+        db = LdbcDownloader.openDb(graphId);
+        grph = (HugeGraph) new GraphLoader(db, Pools.DEFAULT)
+                .withDirection(Direction.OUTGOING)
+                .withoutRelationshipWeights()
+                .load(HugeGraphFactory.class);
+    }
+
+    @TearDown
+    public void shutdown() {
+        grph.release();
+        db.shutdown();
+        Pools.DEFAULT.shutdownNow();
+    }
+
+    @Benchmark
+    public CentralityResult powerIteration() {
+        return PageRankAlgorithm.of(
+                AllocationTracker.EMPTY,
+                grph,
+                0.85,
+                LongStream.empty(),
+                Pools.DEFAULT,
+                Pools.DEFAULT_CONCURRENCY,
+                10_000)
+                .compute(iterations)
+                .result();
+    }
+
+    @Benchmark
+    public CentralityResult deltaPush() {
+        return PageRankAlgorithm.deltaOf(
+                AllocationTracker.EMPTY,
+                grph,
+                0.85,
+                epsilon,
+                LongStream.empty(),
+                Pools.DEFAULT,
+                Pools.DEFAULT_CONCURRENCY)
+                .compute(Integer.MAX_VALUE)
+                .result();
+    }
+}
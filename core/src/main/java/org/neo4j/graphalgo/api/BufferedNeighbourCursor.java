@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.api;
+
+import org.neo4j.graphdb.Direction;
+
+import java.util.Arrays;
+
+/**
+ * A {@link HugeNeighbourCursor} for any {@link HugeRelationshipIterator}, which collects the neighbours of a node
+ * with the consumer based iteration and hands them out from its own buffer.
+ * Weights are only collected, with a second iteration, once they are asked for.
+ */
+final class BufferedNeighbourCursor implements HugeNeighbourCursor, HugeRelationshipConsumer, HugeWeightedRelationshipConsumer {
+
+    private final HugeRelationshipIterator iterator;
+    private final Direction direction;
+
+    private long nodeId;
+    private long[] targets;
+    private double[] weights;
+    private int length;
+    private int position;
+    private int weightsLength;
+    private boolean weightsLoaded;
+
+    BufferedNeighbourCursor(HugeRelationshipIterator iterator, Direction direction) {
+        this.iterator = iterator;
+        this.direction = direction;
+        this.targets = new long[BATCH_SIZE];
+        this.weights = new double[0];
+    }
+
+    @Override
+    public int init(long nodeId) {
+        this.nodeId = nodeId;
+        length = 0;
+        position = 0;
+        weightsLoaded = false;
+        iterator.forEachRelationship(nodeId, direction, (HugeRelationshipConsumer) this);
+        return length;
+    }
+
+    @Override
+    public int next(long[] targets) {
+        int count = Math.min(targets.length, length - position);
+        System.arraycopy(this.targets, position, targets, 0, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int next(long[] targets, double[] weights) {
+        if (!weightsLoaded) {
+            if (this.weights.length < length) {
+                this.weights = new double[this.targets.length];
+            }
+            weightsLength = 0;
+            iterator.forEachRelationship(nodeId, direction, (HugeWeightedRelationshipConsumer) this);
+            weightsLoaded = true;
+        }
+        int count = Math.min(targets.length, length - position);
+        System.arraycopy(this.targets, position, targets, 0, count);
+        System.arraycopy(this.weights, position, weights, 0, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public boolean accept(long sourceNodeId, long targetNodeId) {
+        if (length == targets.length) {
+            targets = Arrays.copyOf(targets, length << 1);
+        }
+        targets[length++] = targetNodeId;
+        return true;
+    }
+
+    @Override
+    public boolean accept(long sourceNodeId, long targetNodeId, double weight) {
+        weights[weightsLength++] = weight;
+        return true;
+    }
+}
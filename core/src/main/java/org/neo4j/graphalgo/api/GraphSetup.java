@@ -20,14 +20,20 @@ package org.neo4j.graphalgo.api;
 
 import org.neo4j.graphalgo.PropertyMapping;
 import org.neo4j.graphalgo.core.DuplicateRelationshipsStrategy;
+import org.neo4j.graphalgo.core.huge.AdjacencyCodec;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencySkipIndex;
+import org.neo4j.graphalgo.core.huge.NodeOrder;
 import org.neo4j.graphalgo.core.utils.Pools;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.logging.Log;
 import org.neo4j.logging.NullLog;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -86,6 +92,19 @@ public class GraphSetup {
     public final PropertyMapping[] nodePropertyMappings;
     public final DuplicateRelationshipsStrategy duplicateRelationshipsStrategy;
 
+    // store relationship weights in adjacency order next to the targets instead of a per-node hash map (huge graph only)
+    public final boolean columnarRelationshipWeights;
+    // where the adjacency pages are stored (huge graph only)
+    public final PageBackend pageBackend;
+    // how the targets of the adjacency lists are encoded (huge graph only)
+    public final AdjacencyCodec adjacencyCodec;
+    // how the nodes are renumbered after loading to improve locality (huge graph only)
+    public final NodeOrder nodeOrder;
+    // the minimum degree of adjacency lists that get skip pointers, 0 disables them (huge graph only)
+    public final int skipIndexThreshold;
+    // count the degrees in a first scan to import the targets into exactly sized buffers (huge graph only)
+    public final boolean countDegrees;
+
     /**
      * main ctor
      *
@@ -129,6 +148,61 @@ public class GraphSetup {
             AllocationTracker tracker,
             String name,
             PropertyMapping[] nodePropertyMappings) {
+        this(
+                startLabel,
+                endLabel,
+                relationshipType,
+                direction,
+                relationWeightPropertyName,
+                relationDefaultWeight,
+                nodeWeightPropertyName,
+                nodeDefaultWeight,
+                nodePropertyName,
+                nodeDefaultPropertyValue,
+                params,
+                executor,
+                concurrency,
+                batchSize,
+                duplicateRelationshipsStrategy,
+                log,
+                logMillis,
+                sort,
+                loadAsUndirected,
+                tracker,
+                name,
+                nodePropertyMappings,
+                new HugeOptions());
+    }
+
+    /**
+     * ctor with the options that only apply to the huge graph loaders
+     *
+     * @param hugeOptions the options of the huge graph loaders, copied on construction
+     */
+    public GraphSetup(
+            String startLabel,
+            String endLabel,
+            String relationshipType,
+            Direction direction,
+            String relationWeightPropertyName,
+            double relationDefaultWeight,
+            String nodeWeightPropertyName,
+            double nodeDefaultWeight,
+            String nodePropertyName,
+            double nodeDefaultPropertyValue,
+            Map<String, Object> params,
+            ExecutorService executor,
+            int concurrency,
+            int batchSize,
+            DuplicateRelationshipsStrategy duplicateRelationshipsStrategy,
+            Log log,
+            long logMillis,
+            boolean sort,
+            boolean loadAsUndirected,
+            AllocationTracker tracker,
+            String name,
+            PropertyMapping[] nodePropertyMappings,
+            HugeOptions hugeOptions) {
 
         this.startLabel = startLabel;
         this.endLabel = endLabel;
@@ -153,6 +227,12 @@ public class GraphSetup {
         this.tracker = tracker;
         this.name = name;
         this.nodePropertyMappings = nodePropertyMappings;
+        this.columnarRelationshipWeights = hugeOptions.columnarRelationshipWeights;
+        this.pageBackend = hugeOptions.pageBackend;
+        this.adjacencyCodec = hugeOptions.adjacencyCodec;
+        this.nodeOrder = hugeOptions.nodeOrder;
+        this.skipIndexThreshold = hugeOptions.skipIndexThreshold;
+        this.countDegrees = hugeOptions.countDegrees;
     }
 
     /**
@@ -224,4 +304,76 @@ public class GraphSetup {
     public boolean loadAnyRelationshipType() {
         return relationshipType == null;
     }
+
+    /**
+     * Returns the relationship types to load, which can be given as {@code 'TYPE_A|TYPE_B'}.
+     * Returns an empty array if any relationship type should be loaded.
+     */
+    public String[] relationshipTypes() {
+        return parseRelationshipTypes(relationshipType);
+    }
+
+    /**
+     * @return true if more than one relationship type is loaded and should be kept apart from each other
+     */
+    public boolean loadMultipleRelationshipTypes() {
+        return relationshipTypes().length > 1;
+    }
+
+    public static String[] parseRelationshipTypes(String relationshipType) {
+        if (relationshipType == null || relationshipType.isEmpty()) {
+            return new String[0];
+        }
+        return Arrays.stream(relationshipType.split("\\|"))
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Options that only apply to the huge graph loaders, collected by the {@link org.neo4j.graphalgo.core.GraphLoader}.
+     * New options are added here instead of growing the constructor of the setup.
+     */
+    public static final class HugeOptions {
+        private boolean columnarRelationshipWeights = false;
+        private PageBackend pageBackend = PageBackend.HEAP;
+        private AdjacencyCodec adjacencyCodec = AdjacencyCodec.VAR_LONG;
+        private NodeOrder nodeOrder = NodeOrder.NONE;
+        private int skipIndexThreshold = HugeAdjacencySkipIndex.DEFAULT_THRESHOLD;
+        private boolean countDegrees = false;
+
+        public HugeOptions withColumnarRelationshipWeights(boolean columnarRelationshipWeights) {
+            this.columnarRelationshipWeights = columnarRelationshipWeights;
+            return this;
+        }
+
+        public HugeOptions withPageBackend(PageBackend pageBackend) {
+            this.pageBackend = Objects.requireNonNull(pageBackend);
+            return this;
+        }
+
+        public HugeOptions withAdjacencyCodec(AdjacencyCodec adjacencyCodec) {
+            this.adjacencyCodec = Objects.requireNonNull(adjacencyCodec);
+            return this;
+        }
+
+        public HugeOptions withNodeOrder(NodeOrder nodeOrder) {
+            this.nodeOrder = Objects.requireNonNull(nodeOrder);
+            return this;
+        }
+
+        public HugeOptions withSkipIndexThreshold(int skipIndexThreshold) {
+            if (skipIndexThreshold < 0) {
+                throw new IllegalArgumentException("skipIndexThreshold must not be negative, but was " + skipIndexThreshold);
+            }
+            this.skipIndexThreshold = skipIndexThreshold;
+            return this;
+        }
+
+        public HugeOptions withDegreeCounting(boolean countDegrees) {
+            this.countDegrees = countDegrees;
+            return this;
+        }
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.api;
+
+/**
+ * Decodes the neighbours of a node in batches into arrays that are owned by the caller.
+ * <p>
+ * A cursor is positioned with {@link #init(long)} and then drained with {@link #next(long[])} or
+ * {@link #next(long[], double[])}, which both return {@code 0} once all neighbours have been read.
+ * The same cursor and arrays can be reused for any number of nodes, which turns a traversal into a plain loop
+ * over primitive arrays instead of one call of a {@link HugeRelationshipConsumer} per relationship:
+ * <pre>
+ * HugeNeighbourCursor cursor = graph.neighbourCursor(Direction.OUTGOING);
+ * long[] targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+ * cursor.init(node);
+ * int count;
+ * while ((count = cursor.next(targets)) > 0) {
+ *     for (int i = 0; i < count; i++) {
+ *         // targets[i] is a neighbour of node
+ *     }
+ * }
+ * </pre>
+ * Neighbours are returned in the same order as {@link HugeRelationshipIterator#forEachRelationship(long, org.neo4j.graphdb.Direction, HugeRelationshipConsumer)}
+ * visits them. A cursor must only be used by a single thread, but cursors of the same graph are independent of each other.
+ */
+public interface HugeNeighbourCursor {
+
+    /**
+     * A batch size that matches the blocks in which adjacency lists are decoded.
+     */
+    int BATCH_SIZE = 64;
+
+    /**
+     * Positions the cursor before the first neighbour of the given node.
+     *
+     * @return the number of neighbours of the node
+     */
+    int init(long nodeId);
+
+    /**
+     * Decodes the next neighbours into {@code targets}, at most as many as fit into the array.
+     *
+     * @return the number of neighbours that have been decoded, or {@code 0} if there are no more neighbours
+     */
+    int next(long[] targets);
+
+    /**
+     * Decodes the next neighbours into {@code targets} and the weights of the relationships into {@code weights},
+     * at the same positions. The weights array must be at least as long as the targets array.
+     *
+     * @return the number of neighbours that have been decoded, or {@code 0} if there are no more neighbours
+     */
+    int next(long[] targets, double[] weights);
+}
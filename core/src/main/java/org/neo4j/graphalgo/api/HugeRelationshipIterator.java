@@ -47,6 +47,17 @@ public interface HugeRelationshipIterator {
         forEachRelationship(nodeId, Direction.OUTGOING, consumer);
     }
 
+    /**
+     * Returns a cursor that decodes the neighbours of nodes in the given direction in batches.
+     * The cursor is independent from other iterations of this iterator, but must only be used by a single thread.
+     * <p>
+     * The default implementation collects the neighbours of every node with
+     * {@link #forEachRelationship(long, Direction, HugeRelationshipConsumer)} on a {@link #concurrentCopy()}.
+     */
+    default HugeNeighbourCursor neighbourCursor(Direction direction) {
+        return new BufferedNeighbourCursor(concurrentCopy(), direction);
+    }
+
     /**
      * @return a copy of this iterator that reuses new cursors internally,
      *         so that iterations happen independent from other iterations.
@@ -35,6 +35,11 @@ public interface HugeWeightMapping extends WeightMapping {
      */
     double weight(long source, long target, double defaultValue);
 
+    /**
+     * returns the default weight defined by the loader, which is returned for relationships and nodes without a weight.
+     */
+    double defaultValue();
+
     /**
      * returns the weight for a node or the loaded default weight if no weight has been defined.
      */
@@ -50,6 +55,14 @@ public interface HugeWeightMapping extends WeightMapping {
         return weight(nodeId, -1L, defaultValue);
     }
 
+    /**
+     * returns the value of a node property as a long or the given default value if no value has been defined.
+     * Long-valued properties return the stored value as is, other values are truncated.
+     */
+    default long nodeLongValue(long nodeId, long defaultValue) {
+        return (long) nodeWeight(nodeId, (double) defaultValue);
+    }
+
     /**
      * release internal data structures and return an estimate how many
      * bytes were freed.
@@ -36,6 +36,8 @@ public final class GraphDimensions extends StatementFunction<GraphDimensions> {
     private long allRelsCount;
     private int labelId;
     private int[] relationId;
+    private String[] relationshipTypes;
+    private int[] relationshipTypeIds;
     private int relWeightId;
 
     private int nodeWeightId;
@@ -77,6 +79,21 @@ public final class GraphDimensions extends StatementFunction<GraphDimensions> {
         return relationId;
     }
 
+    /**
+     * Returns the names of the relationship types if more than one type has been requested, otherwise an empty array.
+     */
+    public String[] relationshipTypes() {
+        return relationshipTypes;
+    }
+
+    /**
+     * Returns the token ids of the {@link #relationshipTypes() requested relationship types}, in the same order.
+     * Types that do not exist in the database have the id {@link TokenRead#NO_TOKEN}.
+     */
+    public int[] relationshipTypeIds() {
+        return relationshipTypeIds;
+    }
+
     public int singleRelationshipTypeId() {
         return relationId == null ? Read.ANY_RELATIONSHIP_TYPE : relationId[0];
     }
@@ -134,6 +151,16 @@ public final class GraphDimensions extends StatementFunction<GraphDimensions> {
                 relationId = new int[]{relId};
             }
         }
+        if (setup.loadMultipleRelationshipTypes()) {
+            relationshipTypes = setup.relationshipTypes();
+            relationshipTypeIds = new int[relationshipTypes.length];
+            for (int i = 0; i < relationshipTypes.length; i++) {
+                relationshipTypeIds[i] = tokenRead.relationshipType(relationshipTypes[i]);
+            }
+        } else {
+            relationshipTypes = new String[0];
+            relationshipTypeIds = new int[0];
+        }
         relWeightId = propertyKey(tokenRead, setup.shouldLoadRelationshipWeight(), setup.relationWeightPropertyName);
 
         if(setup.nodePropertyMappings.length > 0) {
@@ -151,22 +178,27 @@ public final class GraphDimensions extends StatementFunction<GraphDimensions> {
 
         nodeCount = dataRead.countsForNode(labelId);
         allNodesCount = InternalReadOps.getHighestPossibleNodeCount(dataRead, api);
-        maxRelCount = Math.max(
-                dataRead.countsForRelationshipWithoutTxState(
-                        labelId,
-                        singleRelationshipTypeId(),
-                        Read.ANY_LABEL
-                ),
-                dataRead.countsForRelationshipWithoutTxState(
-                        Read.ANY_LABEL,
-                        singleRelationshipTypeId(),
-                        labelId
-                )
-        );
+        if (relationshipTypeIds.length > 0) {
+            maxRelCount = 0L;
+            for (int typeId : relationshipTypeIds) {
+                if (typeId != TokenRead.NO_TOKEN) {
+                    maxRelCount += maxRelCount(dataRead, typeId);
+                }
+            }
+        } else {
+            maxRelCount = maxRelCount(dataRead, singleRelationshipTypeId());
+        }
         allRelsCount = InternalReadOps.getHighestPossibleRelationshipCount(dataRead, api);
         return this;
     }
 
+    private long maxRelCount(Read dataRead, int typeId) {
+        return Math.max(
+                dataRead.countsForRelationshipWithoutTxState(labelId, typeId, Read.ANY_LABEL),
+                dataRead.countsForRelationshipWithoutTxState(Read.ANY_LABEL, typeId, labelId)
+        );
+    }
+
     private int propertyKey(TokenRead tokenRead, boolean load, String propertyName) {
         return load ? tokenRead.propertyKey(propertyName) : TokenRead.NO_TOKEN;
     }
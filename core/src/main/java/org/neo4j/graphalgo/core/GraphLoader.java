@@ -22,10 +22,14 @@ import org.neo4j.graphalgo.PropertyMapping;
 import org.neo4j.graphalgo.api.Graph;
 import org.neo4j.graphalgo.api.GraphFactory;
 import org.neo4j.graphalgo.api.GraphSetup;
+import org.neo4j.graphalgo.core.huge.AdjacencyCodec;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencySkipIndex;
+import org.neo4j.graphalgo.core.huge.NodeOrder;
 import org.neo4j.graphalgo.core.utils.ParallelUtil;
 import org.neo4j.graphalgo.core.utils.Pools;
 import org.neo4j.graphalgo.core.utils.ProgressLoggerAdapter;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.RelationshipType;
@@ -86,6 +90,7 @@ public class GraphLoader {
     private boolean sort = false;
     private boolean loadAsUndirected = false;
     private PropertyMapping[] nodePropertyMappings = new PropertyMapping[0];
+    private final GraphSetup.HugeOptions hugeOptions = new GraphSetup.HugeOptions();
 
     /**
      * Creates a new serial GraphLoader.
@@ -147,6 +152,83 @@ public class GraphLoader {
         return this;
     }
 
+    /**
+     * Instructs the loader to store relationship weights in adjacency order, aligned
+     * with the compressed target ids, instead of a hash map per source node.
+     * Weighted traversals then read target and weight together without any hashing.
+     * Only supported by the {@link org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory}.
+     *
+     * @return itself to enable fluent interface
+     */
+    public GraphLoader withColumnarRelationshipWeights(boolean columnarRelationshipWeights) {
+        hugeOptions.withColumnarRelationshipWeights(columnarRelationshipWeights);
+        return this;
+    }
+
+    /**
+     * Instructs the loader to store the adjacency lists and offsets in the given backend.
+     * {@link PageBackend#OFF_HEAP} and {@link PageBackend#MAPPED} move the pages out of the Java heap
+     * once loading is finished, their memory is tracked separately in the {@link AllocationTracker}.
+     * Only supported by the {@link org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory}.
+     *
+     * @return itself to enable fluent interface
+     */
+    public GraphLoader withPageBackend(PageBackend pageBackend) {
+        hugeOptions.withPageBackend(pageBackend);
+        return this;
+    }
+
+    /**
+     * Instructs the loader to encode the adjacency lists with the given codec.
+     * {@link AdjacencyCodec#BLOCK_PACKED} decodes faster than the default {@link AdjacencyCodec#VAR_LONG},
+     * but might need more memory for small degrees.
+     * Only supported by the {@link org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory}.
+     *
+     * @return itself to enable fluent interface
+     */
+    public GraphLoader withAdjacencyCodec(AdjacencyCodec adjacencyCodec) {
+        hugeOptions.withAdjacencyCodec(adjacencyCodec);
+        return this;
+    }
+
+    /**
+     * Instructs the loader to renumber the nodes in the given order once all relationships have been loaded,
+     * so that nodes which are traversed together get close ids. The original node ids are not affected.
+     * Only supported by the {@link org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory}.
+     *
+     * @return itself to enable fluent interface
+     */
+    public GraphLoader withNodeOrder(NodeOrder nodeOrder) {
+        hugeOptions.withNodeOrder(nodeOrder);
+        return this;
+    }
+
+    /**
+     * Instructs the loader to store skip pointers for all adjacency lists with at least the given number of targets,
+     * so that existence checks and intersections on them do not have to decode the list from the start.
+     * A threshold of 0 disables the skip pointers, the default is {@link HugeAdjacencySkipIndex#DEFAULT_THRESHOLD}.
+     * Only supported by the {@link org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory}.
+     *
+     * @return itself to enable fluent interface
+     */
+    public GraphLoader withSkipIndexThreshold(int skipIndexThreshold) {
+        hugeOptions.withSkipIndexThreshold(skipIndexThreshold);
+        return this;
+    }
+
+    /**
+     * Instructs the loader to count the degrees of all nodes in a first scan of the relationship store.
+     * The second scan then writes the targets into buffers of the exact size, instead of growing a buffer per node,
+     * which creates less garbage for graphs with many high degree nodes, at the cost of scanning the store twice.
+     * Only supported by the {@link org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory}.
+     *
+     * @return itself to enable fluent interface
+     */
+    public GraphLoader withDegreeCounting(boolean countDegrees) {
+        hugeOptions.withDegreeCounting(countDegrees);
+        return this;
+    }
+
     /**
      * Use the given {@link AllocationTracker} to track memory allocations during loading.
      * Can be null, in which case no tracking happens. The same effect can be
@@ -529,7 +611,8 @@ public class GraphLoader {
                     loadAsUndirected,
                     tracker,
                     name,
-                    nodePropertyMappings);
+                    nodePropertyMappings,
+                    hugeOptions);
     }
 
     /**
@@ -573,6 +656,12 @@ public class GraphLoader {
                 .withConcurrency(config.getConcurrency())
                 .withBatchSize(config.getBatchSize())
                 .withDuplicateRelationshipsStrategy(config.getDuplicateRelationshipsStrategy())
+                .withColumnarRelationshipWeights(config.get("columnarWeights", false))
+                .withPageBackend(PageBackend.parse(config.getString("pageBackend", null)))
+                .withAdjacencyCodec(AdjacencyCodec.parse(config.getString("adjacencyCodec", null)))
+                .withNodeOrder(NodeOrder.parse(config.getString("nodeOrder", null)))
+                .withSkipIndexThreshold(config.getNumber("skipIndexThreshold", HugeAdjacencySkipIndex.DEFAULT_THRESHOLD).intValue())
+                .withDegreeCounting(config.get("countDegrees", false))
                 .withParams(config.getParams());
     }
 
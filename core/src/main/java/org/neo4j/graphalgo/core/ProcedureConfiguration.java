@@ -23,6 +23,7 @@ import org.neo4j.graphalgo.api.HugeGraph;
 import org.neo4j.graphalgo.core.heavyweight.HeavyCypherGraphFactory;
 import org.neo4j.graphalgo.core.heavyweight.HeavyGraph;
 import org.neo4j.graphalgo.core.heavyweight.HeavyGraphFactory;
+import org.neo4j.graphalgo.core.huge.loader.HugeCypherGraphFactory;
 import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
 import org.neo4j.graphalgo.core.lightweight.LightGraph;
 import org.neo4j.graphalgo.core.loading.LoadGraphFactory;
@@ -301,6 +302,8 @@ public class ProcedureConfiguration {
                 return GraphViewFactory.class;
             case HugeGraph.TYPE:
                 return HugeGraphFactory.class;
+            case HugeCypherGraphFactory.TYPE:
+                return HugeCypherGraphFactory.class;
             default:
                 if (validCustomName(graphImpl) && LoadGraphFactory.check(graphImpl)) {
                     return LoadGraphFactory.class;
@@ -310,7 +313,7 @@ public class ProcedureConfiguration {
     }
 
     private static Set<String> RESERVED = new HashSet<>(asList(HeavyGraph.TYPE, HeavyCypherGraphFactory.TYPE,
-            LightGraph.TYPE, GraphView.TYPE, HeavyGraph.TYPE));
+            LightGraph.TYPE, GraphView.TYPE, HeavyGraph.TYPE, HugeCypherGraphFactory.TYPE));
 
     public static boolean validCustomName(String name) {
         return name != null && !name.trim().isEmpty() && !RESERVED.contains(name.trim().toLowerCase());
@@ -409,6 +412,9 @@ public class ProcedureConfiguration {
         if (HugeGraphFactory.class.isAssignableFrom(cls)) {
             return "huge";
         }
+        if (HugeCypherGraphFactory.class.isAssignableFrom(cls)) {
+            return HugeCypherGraphFactory.TYPE;
+        }
         throw new IllegalArgumentException("Unknown impl: " + cls);
     }
 
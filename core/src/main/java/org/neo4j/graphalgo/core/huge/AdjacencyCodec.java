@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+/**
+ * Selects how the delta encoded targets of the huge graph adjacency lists are stored.
+ */
+public enum AdjacencyCodec {
+    /**
+     * Every delta is written as a variable length long, which is decoded one byte at a time.
+     * This is the most compact format for small degrees.
+     */
+    VAR_LONG,
+    /**
+     * Deltas are bit packed in blocks of 64 with the same bit width per block, which are decoded
+     * into a buffer at once. Blocks that end before a searched target can be skipped without decoding them.
+     */
+    BLOCK_PACKED;
+
+    public static AdjacencyCodec parse(String codec) {
+        return codec == null ? VAR_LONG : valueOf(codec.toUpperCase().replace('-', '_'));
+    }
+}
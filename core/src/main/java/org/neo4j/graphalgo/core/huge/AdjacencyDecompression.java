@@ -23,18 +23,30 @@ import org.neo4j.graphalgo.core.huge.loader.MutableIntValue;
 import java.util.Arrays;
 
 import static org.neo4j.graphalgo.core.huge.VarLongDecoding.decodeDeltaVLongs;
+import static org.neo4j.graphalgo.core.utils.paged.PageUtil.indexInPage;
+import static org.neo4j.graphalgo.core.utils.paged.PageUtil.pageIndex;
 
-final class AdjacencyDecompression {
+/**
+ * Decodes adjacency lists from heap pages. Lists on off-heap pages are decoded by
+ * {@link OffHeapAdjacencyDecompression}, which is selected once when a cursor is created.
+ */
+class AdjacencyDecompression {
 
-    private static final int CHUNK_SIZE = 64;
+    static final int CHUNK_SIZE = BlockPackedDecoding.BLOCK_SIZE;
 
+    private final byte[][] pages;
     private final long[] block;
+    // only set for adjacency lists that are encoded with AdjacencyCodec.BLOCK_PACKED
+    private final BlockPackedDecoding packed;
     private int pos;
-    private byte[] array;
-    private int offset;
+    // the array the current block is decoded from and the offset of the block within its page
+    byte[] array;
+    int offset;
 
-    AdjacencyDecompression() {
+    AdjacencyDecompression(byte[][] pages, AdjacencyCodec codec) {
+        this.pages = pages;
         this.block = new long[CHUNK_SIZE];
+        this.packed = codec == AdjacencyCodec.BLOCK_PACKED ? new BlockPackedDecoding() : null;
     }
 
     void copyFrom(AdjacencyDecompression other) {
@@ -44,12 +56,78 @@ final class AdjacencyDecompression {
         offset = other.offset;
     }
 
-    int reset(byte[] array, int offset) {
+    /**
+     * Starts decoding the adjacency list at {@code index} and returns its degree.
+     */
+    int reset(long index) {
+        byte[] array = pages[pageIndex(index, HugeAdjacencyList.PAGE_SHIFT)];
+        int offset = indexInPage(index, HugeAdjacencyList.PAGE_MASK);
         this.array = array;
-        int remaining = readInt(array, offset);
-        this.offset = decodeDeltaVLongs(0L, array, 4 + offset, Math.min(remaining, CHUNK_SIZE), block);
+        return start(readInt(array, offset), offset);
+    }
+
+    final int start(int degree, int offset) {
+        this.offset = 4 + offset;
+        this.offset = decodeBlock(0L, degree);
+        pos = 0;
+        return degree;
+    }
+
+    /**
+     * Makes the bytes starting at {@code offset} within the current page available in {@link #array}
+     * and returns their position in it. At least a full block must be available, unless the page ends before.
+     */
+    int load(int offset) {
+        return offset;
+    }
+
+    /**
+     * Returns how many values of the current block have been consumed.
+     */
+    int position() {
+        return pos;
+    }
+
+    /**
+     * Continues decoding with the block that starts at {@code offset}, which has been recorded in a
+     * {@link HugeAdjacencySkipIndex}, on the same page as the current block.
+     *
+     * @param startValue the value before the block
+     * @param available  the number of values that are left to decode, including the block
+     */
+    void jump(int offset, long startValue, int available) {
+        this.offset = offset;
+        this.offset = decodeBlock(startValue, available);
         pos = 0;
-        return remaining;
+    }
+
+    /**
+     * Decodes the next block at the current offset and returns the offset after it.
+     *
+     * @param available the number of values that are left to decode, including the next block
+     */
+    private int decodeBlock(long startValue, int available) {
+        int from = load(offset);
+        int end = packed != null
+                ? packed.decodeBlock(startValue, array, from, available, block)
+                : decodeDeltaVLongs(startValue, array, from, Math.min(available, CHUNK_SIZE), block);
+        return offset + (end - from);
+    }
+
+    /**
+     * Skips the full block at the current offset without decoding it if its last value
+     * is smaller than {@code target} (or equal to it, if {@code inclusive}).
+     * Returns the last value of the skipped block or {@code -1} if the block has not been skipped.
+     */
+    private long skipBlock(long startValue, long target, boolean inclusive) {
+        int from = load(offset);
+        int next = packed.skipBlock(startValue, array, from);
+        long last = packed.skippedValue();
+        if (last < target || (inclusive && last == target)) {
+            offset += next - from;
+            return last;
+        }
+        return -1L;
     }
 
     //@formatter:off
@@ -59,8 +137,43 @@ final class AdjacencyDecompression {
                 (array[2 + offset] & 255) << 16 |
                 (array[3 + offset] & 255) << 24;
     }
+
+    static long readLong(byte[] array, int offset) {
+        return   array[    offset] & 255L        |
+                (array[1 + offset] & 255L) <<  8 |
+                (array[2 + offset] & 255L) << 16 |
+                (array[3 + offset] & 255L) << 24 |
+                (array[4 + offset] & 255L) << 32 |
+                (array[5 + offset] & 255L) << 40 |
+                (array[6 + offset] & 255L) << 48 |
+                (array[7 + offset] & 255L) << 56;
+    }
     //@formatter:on
 
+    /**
+     * Returns the position of {@code target} among the {@code available} values that follow the block
+     * at {@code offset} or {@code -1} if the target is not contained. Decoding stops at the first block
+     * that ends with a value that is not smaller than the target.
+     */
+    final int indexOf(long target, int offset, long startValue, int available) {
+        int index = 0;
+        this.offset = offset;
+        while (index < available) {
+            int limit = Math.min(available - index, CHUNK_SIZE);
+            this.offset = decodeBlock(startValue, available - index);
+            int position = Arrays.binarySearch(block, 0, limit, target);
+            if (position >= 0) {
+                return index + position;
+            }
+            if (-1 - position < limit) {
+                return -1;
+            }
+            startValue = block[limit - 1];
+            index += limit;
+        }
+        return -1;
+    }
+
     long next(int remaining) {
         int pos = this.pos++;
         if (pos < CHUNK_SIZE) {
@@ -69,9 +182,28 @@ final class AdjacencyDecompression {
         return readNextBlock(remaining);
     }
 
+    /**
+     * Copies the next {@code length} values into the given array, decoding as many blocks as needed.
+     *
+     * @param remaining the number of values that are left to decode, including the copied ones
+     */
+    void next(long[] into, int length, int remaining) {
+        int copied = 0;
+        while (copied < length) {
+            if (pos == CHUNK_SIZE) {
+                offset = decodeBlock(block[CHUNK_SIZE - 1], remaining - copied);
+                pos = 0;
+            }
+            int count = Math.min(length - copied, CHUNK_SIZE - pos);
+            System.arraycopy(block, pos, into, copied, count);
+            pos += count;
+            copied += count;
+        }
+    }
+
     private long readNextBlock(int remaining) {
         pos = 1;
-        offset = decodeDeltaVLongs(block[CHUNK_SIZE - 1], array, offset, Math.min(remaining, CHUNK_SIZE), block);
+        offset = decodeBlock(block[CHUNK_SIZE - 1], remaining);
         return block[0];
     }
 
@@ -82,10 +214,17 @@ final class AdjacencyDecompression {
 
         // skip blocks until we have either not enough available to decode or have advanced far enough
         while (available > CHUNK_SIZE - pos && block[CHUNK_SIZE - 1] <= target) {
-            int skippedInThisBlock = CHUNK_SIZE - pos;
-            int needToDecode = Math.min(CHUNK_SIZE, available - skippedInThisBlock);
-            offset = decodeDeltaVLongs(block[CHUNK_SIZE - 1], array, offset, needToDecode, block);
-            available -= skippedInThisBlock;
+            available -= CHUNK_SIZE - pos;
+            long startValue = block[CHUNK_SIZE - 1];
+            if (packed != null) {
+                // full blocks that end before the target are not decoded at all
+                long last;
+                while (available > CHUNK_SIZE && (last = skipBlock(startValue, target, true)) != -1L) {
+                    startValue = last;
+                    available -= CHUNK_SIZE;
+                }
+            }
+            offset = decodeBlock(startValue, available);
             pos = 0;
         }
 
@@ -105,10 +244,17 @@ final class AdjacencyDecompression {
 
         // skip blocks until we have either not enough available to decode or have advanced far enough
         while (available > CHUNK_SIZE - pos && block[CHUNK_SIZE - 1] < target) {
-            int skippedInThisBlock = CHUNK_SIZE - pos;
-            int needToDecode = Math.min(CHUNK_SIZE, available - skippedInThisBlock);
-            offset = decodeDeltaVLongs(block[CHUNK_SIZE - 1], array, offset, needToDecode, block);
-            available -= skippedInThisBlock;
+            available -= CHUNK_SIZE - pos;
+            long startValue = block[CHUNK_SIZE - 1];
+            if (packed != null) {
+                // full blocks that end before the target are not decoded at all
+                long last;
+                while (available > CHUNK_SIZE && (last = skipBlock(startValue, target, false)) != -1L) {
+                    startValue = last;
+                    available -= CHUNK_SIZE;
+                }
+            }
+            offset = decodeBlock(startValue, available);
             pos = 0;
         }
 
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.api.HugeWeightedRelationshipConsumer;
+import org.neo4j.graphalgo.core.huge.loader.HugeIdMap;
+import org.neo4j.graphalgo.core.huge.loader.HugeNullWeightMap;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.OffHeapPageAllocator;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphdb.Direction;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.neo4j.graphalgo.core.huge.HugeAdjacencyList.PAGE_MASK;
+import static org.neo4j.graphalgo.core.huge.HugeAdjacencyList.PAGE_SHIFT;
+import static org.neo4j.graphalgo.core.huge.HugeAdjacencyList.PAGE_SIZE;
+
+/**
+ * Writes and reads the adjacency lists, offsets and relationship weights of a {@link HugeGraphImpl}.
+ * <p>
+ * Adjacency pages are written as they are, so that reading them back needs no decoding at all.
+ * Relationship weights are always written in the columnar layout of {@link HugeColumnarWeights},
+ * weights that have been loaded into a hash map are converted while writing.
+ */
+public final class AdjacencySnapshot {
+
+    private static final Direction[] DIRECTIONS = {Direction.OUTGOING, Direction.INCOMING};
+
+    private static final byte NO_WEIGHTS = 0;
+    private static final byte COLUMNAR_WEIGHTS = 1;
+
+    /**
+     * Writes the relationships of {@code graph}, which must have been loaded by the
+     * {@link org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory}.
+     */
+    public static void write(HugeGraph graph, SnapshotOutput out) throws IOException {
+        HugeGraphImpl huge = (HugeGraphImpl) graph;
+        for (Direction direction : DIRECTIONS) {
+            HugeAdjacencyList adjacency = huge.adjacency(direction);
+            // 0 for a missing direction, otherwise 1 + the ordinal of the codec
+            out.writeByte(adjacency != null ? 1 + adjacency.codec().ordinal() : 0);
+            if (adjacency != null) {
+                adjacency.writeTo(out);
+                huge.offsets(direction).writeTo(out);
+            }
+        }
+
+        HugeWeightMapping weights = huge.relationshipWeights();
+        double defaultWeight = weights.defaultValue();
+        if (weights instanceof HugeNullWeightMap) {
+            out.writeByte(NO_WEIGHTS);
+            out.writeDouble(defaultWeight);
+            return;
+        }
+        out.writeByte(COLUMNAR_WEIGHTS);
+        out.writeDouble(defaultWeight);
+        HugeColumnarWeights columnar = huge.columnarWeights();
+        for (Direction direction : DIRECTIONS) {
+            if (huge.adjacency(direction) == null) {
+                continue;
+            }
+            if (columnar != null) {
+                columnar.weights(direction).writeTo(out);
+                columnar.weightOffsets(direction).writeTo(out);
+            } else {
+                writeColumnarWeights(huge, direction, out);
+            }
+        }
+    }
+
+    /**
+     * Reads the relationships that have been written by {@link #write(HugeGraph, SnapshotOutput)}
+     * and builds a graph for the given nodes.
+     */
+    public static HugeGraph read(
+            SnapshotInput in,
+            PageBackend backend,
+            AllocationTracker tracker,
+            HugeIdMap idMapping,
+            Map<String, HugeWeightMapping> nodeProperties) throws IOException {
+        boolean mapped = backend == PageBackend.MAPPED;
+        HugeAdjacencyList[] adjacencies = new HugeAdjacencyList[DIRECTIONS.length];
+        HugeAdjacencyOffsets[] offsets = new HugeAdjacencyOffsets[DIRECTIONS.length];
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            byte adjacency = in.readByte();
+            if (adjacency != 0) {
+                AdjacencyCodec codec = AdjacencyCodec.values()[adjacency - 1];
+                adjacencies[i] = HugeAdjacencyList.readFrom(in, mapped, codec, tracker);
+                offsets[i] = HugeAdjacencyOffsets.readFrom(in, mapped, tracker);
+            }
+        }
+
+        byte weightsKind = in.readByte();
+        double defaultWeight = in.readDouble();
+        HugeAdjacencyList[] weights = new HugeAdjacencyList[DIRECTIONS.length];
+        HugeAdjacencyOffsets[] weightOffsets = new HugeAdjacencyOffsets[DIRECTIONS.length];
+        if (weightsKind == COLUMNAR_WEIGHTS) {
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                if (adjacencies[i] != null) {
+                    weights[i] = HugeAdjacencyList.readFrom(in, mapped, AdjacencyCodec.VAR_LONG, tracker);
+                    weightOffsets[i] = HugeAdjacencyOffsets.readFrom(in, mapped, tracker);
+                }
+            }
+        } else if (weightsKind != NO_WEIGHTS) {
+            throw new IllegalStateException("Unknown relationship weights format: " + weightsKind);
+        }
+
+        if (backend == PageBackend.OFF_HEAP) {
+            try (OffHeapPageAllocator allocator = OffHeapPageAllocator.of(backend, tracker)) {
+                for (int i = 0; i < DIRECTIONS.length; i++) {
+                    if (adjacencies[i] != null) {
+                        adjacencies[i] = adjacencies[i].moveOffHeap(allocator, tracker);
+                        offsets[i] = offsets[i].moveOffHeap(allocator, tracker);
+                    }
+                    if (weights[i] != null) {
+                        weights[i] = weights[i].moveOffHeap(allocator, tracker);
+                        weightOffsets[i] = weightOffsets[i].moveOffHeap(allocator, tracker);
+                    }
+                }
+            }
+        }
+
+        HugeWeightMapping relationshipWeights = weightsKind == COLUMNAR_WEIGHTS
+                ? new HugeColumnarWeights(
+                adjacencies[1], adjacencies[0],
+                offsets[1], offsets[0],
+                weights[1], weights[0],
+                weightOffsets[1], weightOffsets[0],
+                defaultWeight)
+                : new HugeNullWeightMap(defaultWeight);
+
+        return new HugeGraphImpl(
+                tracker, idMapping, relationshipWeights, nodeProperties,
+                adjacencies[1], adjacencies[0], offsets[1], offsets[0]);
+    }
+
+    /**
+     * Writes the weights of all relationships in {@code direction} in the layout of the loader:
+     * the weights of a node never span two pages and oversized weight lists get a page of their own.
+     * The layout is computed twice, once to count the pages and once while writing them.
+     */
+    private static void writeColumnarWeights(
+            HugeGraphImpl graph,
+            Direction direction,
+            SnapshotOutput out) throws IOException {
+        HugeAdjacencyList adjacency = graph.adjacency(direction);
+        HugeAdjacencyOffsets offsets = graph.offsets(direction);
+        long nodeCount = graph.nodeCount();
+
+        WeightsLayout layout = new WeightsLayout();
+        for (long node = 0L; node < nodeCount; node++) {
+            long offset = offsets.get(node);
+            if (offset != 0L) {
+                layout.place(adjacency.getDegree(offset));
+            }
+        }
+        out.writeInt(layout.numPages());
+
+        HugeLongArray weightOffsets = HugeLongArray.newArray(nodeCount, AllocationTracker.EMPTY);
+        WeightsWriter writer = new WeightsWriter(out);
+        for (long node = 0L; node < nodeCount; node++) {
+            long offset = offsets.get(node);
+            if (offset != 0L) {
+                weightOffsets.set(node, writer.write(graph, node, direction, adjacency.getDegree(offset)));
+            }
+        }
+        writer.finish();
+
+        out.writeLong(nodeCount);
+        long[] chunk = new long[1 << 16];
+        try (HugeLongArray.Cursor cursor = weightOffsets.cursor(weightOffsets.newCursor())) {
+            while (cursor.next()) {
+                for (int i = cursor.offset; i < cursor.limit; i += chunk.length) {
+                    int length = Math.min(chunk.length, cursor.limit - i);
+                    out.writeLongs(cursor.array, i, length);
+                }
+            }
+        }
+        weightOffsets.release();
+    }
+
+    private static final class WeightsLayout {
+
+        private int pageIndex;
+        // the first address is reserved to mark nodes without weights
+        private int offset = 1;
+
+        long place(int degree) {
+            int bytes = degree << 3;
+            if (bytes > PAGE_SIZE) {
+                // the oversized page is followed by a new regular page
+                long address = ((long) (pageIndex + 1)) << PAGE_SHIFT;
+                pageIndex += 2;
+                offset = 0;
+                return address;
+            }
+            if (offset + bytes > PAGE_SIZE) {
+                ++pageIndex;
+                offset = 0;
+            }
+            long address = (((long) pageIndex) << PAGE_SHIFT) + offset;
+            offset += bytes;
+            return address;
+        }
+
+        int numPages() {
+            return pageIndex + 1;
+        }
+    }
+
+    private static final class WeightsWriter implements HugeWeightedRelationshipConsumer {
+
+        private final SnapshotOutput out;
+        private final WeightsLayout layout;
+        private final byte[] page;
+        private byte[] weights;
+        private int position;
+
+        private WeightsWriter(SnapshotOutput out) {
+            this.out = out;
+            this.layout = new WeightsLayout();
+            this.page = new byte[PAGE_SIZE];
+            this.weights = page;
+        }
+
+        long write(HugeGraphImpl graph, long node, Direction direction, int degree) throws IOException {
+            int currentPage = layout.pageIndex;
+            long address = layout.place(degree);
+            if (layout.pageIndex != currentPage) {
+                flush();
+            }
+            int bytes = degree << 3;
+            if (bytes > PAGE_SIZE) {
+                weights = new byte[bytes];
+                position = 0;
+                graph.forEachRelationship(node, direction, this);
+                out.writeInt(bytes);
+                out.writeBytes(weights, 0, bytes);
+                weights = page;
+                position = 0;
+            } else {
+                position = (int) (address & PAGE_MASK);
+                graph.forEachRelationship(node, direction, this);
+            }
+            return address;
+        }
+
+        @Override
+        public boolean accept(long sourceNodeId, long targetNodeId, double weight) {
+            long bits = Double.doubleToRawLongBits(weight);
+            for (int i = 0; i < Long.BYTES; i++) {
+                weights[position++] = (byte) (bits >>> (i << 3));
+            }
+            return true;
+        }
+
+        void finish() throws IOException {
+            flush();
+        }
+
+        private void flush() throws IOException {
+            out.writeInt(PAGE_SIZE);
+            out.writeBytes(page, 0, PAGE_SIZE);
+            Arrays.fill(page, (byte) 0);
+        }
+    }
+
+    private AdjacencySnapshot() {
+        throw new UnsupportedOperationException("No instances");
+    }
+}
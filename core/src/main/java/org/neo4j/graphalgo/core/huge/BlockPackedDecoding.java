@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+/**
+ * Reads the blocks that have been written by {@code BlockPackedEncoding}.
+ * <p>
+ * The packed values of a block are first copied into whole words, from which every value is extracted
+ * with a fixed sequence of shifts, independent of its size. Instances keep these words and are not thread-safe,
+ * the static methods are.
+ */
+final class BlockPackedDecoding {
+
+    static final int BLOCK_SIZE = 64;
+
+    // the packed values of a block never exceed BLOCK_SIZE - 1 words, the additional word is
+    // read but discarded when extracting values that end in the last word
+    private final long[] words = new long[BLOCK_SIZE + 1];
+    private long skippedValue;
+
+    /**
+     * Decodes the block that starts at {@code offset} into {@code out} and returns the offset of the next block.
+     *
+     * @param startValue the last value of the previous block, 0 for the first block
+     * @param available  the number of values that are left in the adjacency list, including this block
+     */
+    int decodeBlock(long startValue, byte[] array, int offset, int available, long[] out) {
+        if (available <= 0) {
+            return offset;
+        }
+        int count = Math.min(available, BLOCK_SIZE);
+        int bits = array[offset++] & 255;
+        long first = startValue + readVLong(array, offset);
+        offset = skipVLong(array, offset);
+        if (available > BLOCK_SIZE) {
+            offset = skipVLong(array, offset);
+        }
+        int bytes = packedBytes(count - 1, bits);
+        long[] words = this.words;
+        int fullWords = bytes >>> 3;
+        int position = offset;
+        for (int i = 0; i < fullWords; i++, position += 8) {
+            words[i] = AdjacencyDecompression.readLong(array, position);
+        }
+        long tail = 0L;
+        for (int shift = 0, end = offset + bytes; position < end; ++position, shift += 8) {
+            tail |= (array[position] & 255L) << shift;
+        }
+        words[fullWords] = tail;
+        unpack(first, bits, count, words, out);
+        return offset + bytes;
+    }
+
+    /**
+     * Reads only the header of the full block at {@code offset}, which must not be the last block,
+     * and returns the offset of the next block. The last value of the skipped block is available
+     * from {@link #skippedValue()} afterwards.
+     */
+    int skipBlock(long startValue, byte[] array, int offset) {
+        int bits = array[offset++] & 255;
+        long first = startValue + readVLong(array, offset);
+        offset = skipVLong(array, offset);
+        skippedValue = first + readVLong(array, offset);
+        offset = skipVLong(array, offset);
+        return offset + packedBytes(BLOCK_SIZE - 1, bits);
+    }
+
+    long skippedValue() {
+        return skippedValue;
+    }
+
+    private static void unpack(long value, int bits, int count, long[] words, long[] out) {
+        long mask = bits == 64 ? -1L : (1L << bits) - 1L;
+        out[0] = value;
+        for (int i = 1, bitPosition = 0; i < count; i++, bitPosition += bits) {
+            int word = bitPosition >>> 6;
+            int shift = bitPosition & 63;
+            // the second shift is split in two, so that a shift of 0 does not keep the whole next word
+            value += ((words[word] >>> shift) | ((words[word + 1] << 1) << (63 - shift))) & mask;
+            out[i] = value;
+        }
+    }
+
+    /**
+     * Returns the position of {@code target} in the adjacency list with {@code degree} targets that
+     * starts at {@code offset} or {@code -1} if the target is not contained.
+     * Blocks that end before the target are skipped, values are decoded one by one only in the block
+     * that might contain the target. The first block is relative to {@code startValue}, which is 0
+     * at the start of an adjacency list.
+     */
+    static int indexOf(long target, long startValue, byte[] array, int offset, int degree) {
+        long value = startValue;
+        for (int index = 0; index < degree; index += BLOCK_SIZE) {
+            int available = degree - index;
+            int count = Math.min(available, BLOCK_SIZE);
+            int bits = array[offset++] & 255;
+            value += readVLong(array, offset);
+            offset = skipVLong(array, offset);
+            if (value >= target) {
+                return value == target ? index : -1;
+            }
+            int bytes = packedBytes(count - 1, bits);
+            if (available > BLOCK_SIZE) {
+                long last = value + readVLong(array, offset);
+                offset = skipVLong(array, offset);
+                if (last < target) {
+                    value = last;
+                    offset += bytes;
+                    continue;
+                }
+            }
+            long mask = bits == 64 ? -1L : (1L << bits) - 1L;
+            for (int i = 1, bitPosition = 0; i < count; i++, bitPosition += bits) {
+                value += readBits(array, offset + (bitPosition >>> 3), bitPosition & 7, bits) & mask;
+                if (value >= target) {
+                    return value == target ? index + i : -1;
+                }
+            }
+            return -1;
+        }
+        return -1;
+    }
+
+    private static long readBits(byte[] array, int offset, int shift, int bits) {
+        int bytes = (shift + bits + 7) >>> 3;
+        long word = 0L;
+        for (int i = 0, end = Math.min(bytes, 8); i < end; i++) {
+            word |= (array[offset + i] & 255L) << (i << 3);
+        }
+        long value = word >>> shift;
+        if (bytes > 8) {
+            value |= (array[offset + 8] & 255L) << (64 - shift);
+        }
+        return value;
+    }
+
+    private static int packedBytes(int count, int bits) {
+        return (count * bits + 7) >>> 3;
+    }
+
+    private static long readVLong(byte[] array, int offset) {
+        long input, value = 0L;
+        int shift = 0;
+        do {
+            input = array[offset++];
+            value |= (input & 127L) << shift;
+            shift += 7;
+        } while ((input & 128L) == 0L);
+        return value;
+    }
+
+    private static int skipVLong(byte[] array, int offset) {
+        while ((array[offset++] & 128) == 0) {
+        }
+        return offset;
+    }
+}
@@ -19,7 +19,12 @@
 package org.neo4j.graphalgo.core.huge;
 
 import org.neo4j.graphalgo.core.huge.loader.MutableIntValue;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphalgo.core.utils.paged.MemoryUsage;
+import org.neo4j.graphalgo.core.utils.paged.OffHeapPageAllocator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static org.neo4j.graphalgo.core.utils.paged.PageUtil.indexInPage;
 import static org.neo4j.graphalgo.core.utils.paged.PageUtil.pageIndex;
@@ -31,11 +36,158 @@ public final class HugeAdjacencyList {
     public static final long PAGE_MASK = 262143L; // PAGE_SIZE - 1
 
     private final long allocatedMemory;
+    private final long offHeapMemory;
+    private final AdjacencyCodec codec;
+    private final HugeAdjacencySkipIndex skipIndex;
+    // exactly one of pages and buffers is set
     private byte[][] pages;
+    private ByteBuffer[] buffers;
+    // decoders for indexOf on off-heap pages, which cannot be searched in place
+    private ThreadLocal<OffHeapAdjacencyDecompression> searches;
 
     public HugeAdjacencyList(byte[][] pages) {
+        this(pages, AdjacencyCodec.VAR_LONG);
+    }
+
+    public HugeAdjacencyList(byte[][] pages, AdjacencyCodec codec) {
+        this(pages, codec, null);
+    }
+
+    /**
+     * Creates a list whose high degree nodes can be searched with the given skip index, which may be {@code null}.
+     */
+    public HugeAdjacencyList(byte[][] pages, AdjacencyCodec codec, HugeAdjacencySkipIndex skipIndex) {
         this.pages = pages;
-        this.allocatedMemory = memoryOfPages(pages);
+        this.allocatedMemory = memoryOfPages(pages) + memoryOf(skipIndex);
+        this.offHeapMemory = 0L;
+        this.codec = codec;
+        this.skipIndex = skipIndex;
+    }
+
+    /**
+     * Creates a list that decodes directly from the given off-heap pages, which hold {@code offHeapMemory} bytes.
+     */
+    public HugeAdjacencyList(
+            ByteBuffer[] buffers,
+            long offHeapMemory,
+            AdjacencyCodec codec,
+            HugeAdjacencySkipIndex skipIndex) {
+        this.buffers = buffers;
+        this.allocatedMemory = MemoryUsage.sizeOfObjectArray(buffers.length) + memoryOf(skipIndex);
+        this.offHeapMemory = offHeapMemory;
+        this.codec = codec;
+        this.skipIndex = skipIndex;
+        this.searches = ThreadLocal.withInitial(() -> new OffHeapAdjacencyDecompression(buffers, codec));
+    }
+
+    /**
+     * Returns the format of the adjacency lists.
+     */
+    public AdjacencyCodec codec() {
+        return codec;
+    }
+
+    /**
+     * Returns the skip pointers of the high degree nodes or {@code null} if there are none.
+     * Skip pointers stay on the heap and are not written into snapshots.
+     */
+    public HugeAdjacencySkipIndex skipIndex() {
+        return skipIndex;
+    }
+
+    /**
+     * Moves all heap pages into buffers of the given allocator and returns a list that decodes directly
+     * from these buffers. Every heap page is released as soon as it has been copied, so that
+     * the additional heap required during the move is at most a single page.
+     * This list must not be used afterwards.
+     */
+    public HugeAdjacencyList moveOffHeap(OffHeapPageAllocator allocator, AllocationTracker tracker) {
+        if (pages == null) {
+            return this;
+        }
+        byte[][] pages = this.pages;
+        ByteBuffer[] buffers = new ByteBuffer[pages.length];
+        long offHeap = 0L;
+        for (int i = 0; i < pages.length; i++) {
+            byte[] page = pages[i];
+            if (page != null) {
+                ByteBuffer buffer = allocator.allocate(page.length);
+                buffer.duplicate().put(page);
+                buffers[i] = buffer;
+                offHeap += page.length;
+                pages[i] = null;
+            }
+        }
+        this.pages = null;
+        HugeAdjacencyList list = new HugeAdjacencyList(buffers, offHeap, codec, skipIndex);
+        tracker.remove(allocatedMemory);
+        tracker.add(list.allocatedMemory);
+        return list;
+    }
+
+    /**
+     * Writes all pages, see {@link #readFrom(SnapshotInput, boolean, AllocationTracker)} for the inverse.
+     */
+    void writeTo(SnapshotOutput out) throws IOException {
+        if (pages != null) {
+            out.writeInt(pages.length);
+            for (byte[] page : pages) {
+                if (page == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(page.length);
+                    out.writeBytes(page, 0, page.length);
+                }
+            }
+        } else {
+            out.writeInt(buffers.length);
+            for (ByteBuffer buffer : buffers) {
+                if (buffer == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(buffer.capacity());
+                    out.writeBuffer(buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads pages that have been written by {@link #writeTo(SnapshotOutput)}.
+     * If {@code mapped} is true, the pages are not read but mapped from the snapshot file.
+     */
+    static HugeAdjacencyList readFrom(
+            SnapshotInput in,
+            boolean mapped,
+            AdjacencyCodec codec,
+            AllocationTracker tracker) throws IOException {
+        int numPages = in.readInt();
+        HugeAdjacencyList list;
+        if (mapped) {
+            ByteBuffer[] buffers = new ByteBuffer[numPages];
+            long offHeap = 0L;
+            for (int i = 0; i < numPages; i++) {
+                int length = in.readInt();
+                if (length >= 0) {
+                    buffers[i] = in.map(length);
+                    offHeap += length;
+                }
+            }
+            tracker.addOffHeap(offHeap);
+            list = new HugeAdjacencyList(buffers, offHeap, codec, null);
+        } else {
+            byte[][] pages = new byte[numPages][];
+            for (int i = 0; i < numPages; i++) {
+                int length = in.readInt();
+                if (length >= 0) {
+                    pages[i] = new byte[length];
+                    in.readBytes(pages[i], 0, length);
+                }
+            }
+            list = new HugeAdjacencyList(pages, codec);
+        }
+        tracker.add(list.allocatedMemory);
+        return list;
     }
 
     private static long memoryOfPages(byte[][] pages) {
@@ -48,21 +200,111 @@ public final class HugeAdjacencyList {
         return memory;
     }
 
+    private static long memoryOf(HugeAdjacencySkipIndex skipIndex) {
+        return skipIndex != null ? skipIndex.memory() : 0L;
+    }
+
     int getDegree(long index) {
-        return AdjacencyDecompression.readInt(
-                pages[pageIndex(index, PAGE_SHIFT)],
-                indexInPage(index, PAGE_MASK));
+        if (pages != null) {
+            return AdjacencyDecompression.readInt(
+                    pages[pageIndex(index, PAGE_SHIFT)],
+                    indexInPage(index, PAGE_MASK));
+        }
+        return buffers[pageIndex(index, PAGE_SHIFT)].getInt(indexInPage(index, PAGE_MASK));
     }
 
+    /**
+     * Returns a cursor that decodes from the backend of this list, which is selected only once here.
+     */
     Cursor newCursor() {
-        return new Cursor(pages);
+        AdjacencyDecompression decompress = pages != null
+                ? new AdjacencyDecompression(pages, codec)
+                : new OffHeapAdjacencyDecompression(buffers, codec);
+        return new Cursor(decompress, skipIndex);
+    }
+
+    WeightCursor newWeightCursor() {
+        return pages != null ? new HeapWeightCursor(pages) : new OffHeapWeightCursor(buffers);
+    }
+
+    /**
+     * Returns the position of {@code target} in the adjacency list starting at {@code index}
+     * or {@code -1} if the target is not contained.
+     * This is thread-safe and decodes all targets up to the searched one, starting at the closest skip point
+     * if the list has any. Heap pages are searched in place, off-heap pages with a decoder per thread.
+     */
+    int indexOf(long index, long target) {
+        int offset = indexInPage(index, PAGE_MASK);
+        byte[] page = null;
+        ByteBuffer buffer = null;
+        int degree;
+        if (pages != null) {
+            page = pages[pageIndex(index, PAGE_SHIFT)];
+            degree = AdjacencyDecompression.readInt(page, offset);
+        } else {
+            buffer = buffers[pageIndex(index, PAGE_SHIFT)];
+            degree = buffer.getInt(offset);
+        }
+
+        int start = 0;
+        long startValue = 0L;
+        int from = 4 + offset;
+        long[] points = skipIndex != null && degree >= skipIndex.threshold() ? skipIndex.points(index) : null;
+        if (points != null) {
+            int k = HugeAdjacencySkipIndex.find(points, target, false);
+            if (k > 0) {
+                start = k * HugeAdjacencySkipIndex.SKIP_INTERVAL;
+                startValue = HugeAdjacencySkipIndex.value(points, k);
+                from = offset + HugeAdjacencySkipIndex.offset(points, k);
+            }
+        }
+
+        int position;
+        if (page != null) {
+            position = codec == AdjacencyCodec.BLOCK_PACKED
+                    ? BlockPackedDecoding.indexOf(target, startValue, page, from, degree - start)
+                    : VarLongDecoding.indexOfDeltaVLong(target, startValue, page, from, degree - start);
+        } else {
+            OffHeapAdjacencyDecompression search = searches.get();
+            search.select(buffer);
+            position = search.indexOf(target, from, startValue, degree - start);
+        }
+        return position == -1 ? -1 : start + position;
     }
 
+    /**
+     * Returns the weight at position {@code position} of the weights list starting at {@code index}.
+     * Only valid if this list stores weights (see {@link HugeColumnarWeights}).
+     */
+    double getWeight(long index, int position) {
+        int offset = indexInPage(index, PAGE_MASK) + (position << 3);
+        if (pages != null) {
+            return Double.longBitsToDouble(AdjacencyDecompression.readLong(
+                    pages[pageIndex(index, PAGE_SHIFT)],
+                    offset));
+        }
+        return buffers[pageIndex(index, PAGE_SHIFT)].getDouble(offset);
+    }
+
+    /**
+     * Returns the number of bytes that are stored outside of the Java heap.
+     */
+    public long offHeapMemory() {
+        return offHeapMemory;
+    }
+
+    /**
+     * Releases all pages and returns the amount of heap memory that was used.
+     * Off-heap buffers are freed by the garbage collector once they are no longer referenced,
+     * their size is available from {@link #offHeapMemory()}.
+     */
     public final long release() {
-        if (pages == null) {
+        if (pages == null && buffers == null) {
             return 0L;
         }
         pages = null;
+        buffers = null;
+        searches = null;
         return allocatedMemory;
     }
 
@@ -72,16 +314,18 @@ public final class HugeAdjacencyList {
 
     public static final class Cursor extends MutableIntValue {
 
-        // TODO: free
-        private byte[][] pages;
         private final AdjacencyDecompression decompress;
+        private final HugeAdjacencySkipIndex skipIndex;
 
         private int maxTargets;
         private int currentTarget;
+        // the skip points of the current list, if it has any, and the offset of the list in its page
+        private long[] skipPoints;
+        private int listOffset;
 
-        private Cursor(byte[][] pages) {
-            this.pages = pages;
-            this.decompress = new AdjacencyDecompression();
+        private Cursor(AdjacencyDecompression decompress, HugeAdjacencySkipIndex skipIndex) {
+            this.decompress = decompress;
+            this.skipIndex = skipIndex;
         }
 
         /**
@@ -91,6 +335,8 @@ public final class HugeAdjacencyList {
             decompress.copyFrom(other.decompress);
             currentTarget = other.currentTarget;
             maxTargets = other.maxTargets;
+            skipPoints = other.skipPoints;
+            listOffset = other.listOffset;
         }
 
         /**
@@ -124,6 +370,18 @@ public final class HugeAdjacencyList {
             return decompress.next(remaining);
         }
 
+        /**
+         * Decode the next target ids into the given array, at most as many as fit into it.
+         * Returns the number of decoded ids, which is {@code 0} once the cursor is exhausted.
+         */
+        int nextTargets(long[] into) {
+            int remaining = remaining();
+            int count = Math.min(into.length, remaining);
+            decompress.next(into, count, remaining);
+            currentTarget += count;
+            return count;
+        }
+
         /**
          * Read and decode target ids until it is strictly larger than (`>`) the provided {@code target}.
          * Might return an id that is less than or equal to {@code target} iff the cursor did exhaust before finding an
@@ -132,6 +390,9 @@ public final class HugeAdjacencyList {
          * will return {@code false}
          */
         long skipUntil(long target) {
+            if (skipPoints != null) {
+                skipTo(HugeAdjacencySkipIndex.find(skipPoints, target, true));
+            }
             long value = decompress.skipUntil(target, remaining(), this);
             this.currentTarget += this.value;
             return value;
@@ -145,16 +406,129 @@ public final class HugeAdjacencyList {
          * will return {@code false}
          */
         long advance(long target) {
+            if (skipPoints != null) {
+                skipTo(HugeAdjacencySkipIndex.find(skipPoints, target, false));
+            }
             long value = decompress.advance(target, remaining(), this);
             this.currentTarget += this.value;
             return value;
         }
 
+        /**
+         * Read and decode the target at position {@code index}, skipping all targets before it.
+         * It is undefined behavior if {@code index} is before the current position or not less than the degree.
+         */
+        long targetAt(int index) {
+            if (skipPoints != null) {
+                skipTo(index / HugeAdjacencySkipIndex.SKIP_INTERVAL);
+            }
+            while (currentTarget < index) {
+                nextVLong();
+            }
+            return nextVLong();
+        }
+
+        /**
+         * Continues decoding at skip point {@code k}, unless it does not lie behind the current block.
+         */
+        private void skipTo(int k) {
+            int index = k * HugeAdjacencySkipIndex.SKIP_INTERVAL;
+            // blocks are aligned with the skip interval, so this is the index of the first target of the current block
+            if (k > 0 && index > currentTarget - decompress.position()) {
+                decompress.jump(
+                        listOffset + HugeAdjacencySkipIndex.offset(skipPoints, k),
+                        HugeAdjacencySkipIndex.value(skipPoints, k),
+                        maxTargets - index);
+                currentTarget = index;
+            }
+        }
+
         Cursor init(long fromIndex) {
-            maxTargets = decompress.reset(
-                    pages[pageIndex(fromIndex, PAGE_SHIFT)],
-                    indexInPage(fromIndex, PAGE_MASK));
+            maxTargets = decompress.reset(fromIndex);
             currentTarget = 0;
+            listOffset = indexInPage(fromIndex, PAGE_MASK);
+            skipPoints = skipIndex != null && maxTargets >= skipIndex.threshold() ? skipIndex.points(fromIndex) : null;
+            return this;
+        }
+    }
+
+    /**
+     * Reads the weights that are stored in adjacency order, one 8 byte double per target.
+     * The weights of a single node are always stored within one page.
+     */
+    public abstract static class WeightCursor {
+
+        int offset;
+
+        /**
+         * Read the next weight.
+         * It is undefined behavior if this is called more often than there are targets for the current node.
+         */
+        abstract double nextWeight();
+
+        /**
+         * Read the next {@code count} weights into the given array.
+         */
+        void nextWeights(double[] into, int count) {
+            for (int i = 0; i < count; i++) {
+                into[i] = nextWeight();
+            }
+        }
+
+        /**
+         * Skip the next {@code count} weights.
+         */
+        void skip(int count) {
+            offset += count << 3;
+        }
+
+        abstract WeightCursor init(long fromIndex);
+    }
+
+    private static final class HeapWeightCursor extends WeightCursor {
+
+        private final byte[][] pages;
+        private byte[] page;
+
+        private HeapWeightCursor(byte[][] pages) {
+            this.pages = pages;
+        }
+
+        @Override
+        double nextWeight() {
+            long bits = AdjacencyDecompression.readLong(page, offset);
+            offset += 8;
+            return Double.longBitsToDouble(bits);
+        }
+
+        @Override
+        WeightCursor init(long fromIndex) {
+            page = pages[pageIndex(fromIndex, PAGE_SHIFT)];
+            offset = indexInPage(fromIndex, PAGE_MASK);
+            return this;
+        }
+    }
+
+    private static final class OffHeapWeightCursor extends WeightCursor {
+
+        private final ByteBuffer[] buffers;
+        private ByteBuffer buffer;
+
+        private OffHeapWeightCursor(ByteBuffer[] buffers) {
+            this.buffers = buffers;
+        }
+
+        @Override
+        double nextWeight() {
+            double weight = buffer.getDouble(offset);
+            offset += 8;
+            return weight;
+        }
+
+        @Override
+        WeightCursor init(long fromIndex) {
+            buffer = buffers[pageIndex(fromIndex, PAGE_SHIFT)];
+            offset = indexInPage(fromIndex, PAGE_MASK);
             return this;
         }
     }
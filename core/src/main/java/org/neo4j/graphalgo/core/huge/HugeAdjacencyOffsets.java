@@ -18,7 +18,12 @@
  */
 package org.neo4j.graphalgo.core.huge;
 
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphalgo.core.utils.paged.BitUtil;
+import org.neo4j.graphalgo.core.utils.paged.OffHeapPageAllocator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfLongArray;
 import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfObjectArray;
@@ -29,6 +34,87 @@ public abstract class HugeAdjacencyOffsets {
 
     abstract long release();
 
+    /**
+     * Returns the number of bytes that are stored outside of the Java heap.
+     */
+    public long offHeapMemory() {
+        return 0L;
+    }
+
+    /**
+     * Copies all offsets into buffers of the given allocator and releases the heap pages.
+     * These offsets must not be used afterwards.
+     */
+    public HugeAdjacencyOffsets moveOffHeap(OffHeapPageAllocator allocator, AllocationTracker tracker) {
+        long capacity = capacity();
+        int numBuffers = (int) ((capacity + BufferOffsets.PAGE_MASK) >>> BufferOffsets.PAGE_SHIFT);
+        ByteBuffer[] buffers = new ByteBuffer[numBuffers];
+        long index = 0L;
+        for (int i = 0; i < numBuffers; i++) {
+            int length = (int) Math.min(BufferOffsets.PAGE_SIZE, capacity - index);
+            ByteBuffer buffer = allocator.allocate(length << 3);
+            for (int j = 0; j < length; j++) {
+                buffer.putLong(j << 3, get(index++));
+            }
+            buffers[i] = buffer;
+        }
+        tracker.remove(release());
+        BufferOffsets offsets = new BufferOffsets(buffers, capacity << 3);
+        tracker.add(sizeOfObjectArray(numBuffers));
+        return offsets;
+    }
+
+    abstract long capacity();
+
+    /**
+     * Writes all offsets, see {@link #readFrom(SnapshotInput, boolean, AllocationTracker)} for the inverse.
+     */
+    final void writeTo(SnapshotOutput out) throws IOException {
+        long capacity = capacity();
+        out.writeLong(capacity);
+        long[] chunk = new long[BufferOffsets.PAGE_SIZE];
+        for (long index = 0L; index < capacity; ) {
+            int length = (int) Math.min(chunk.length, capacity - index);
+            for (int i = 0; i < length; i++) {
+                chunk[i] = get(index++);
+            }
+            out.writeLongs(chunk, 0, length);
+        }
+    }
+
+    /**
+     * Reads offsets that have been written by {@link #writeTo(SnapshotOutput)}.
+     * If {@code mapped} is true, the offsets are not read but mapped from the snapshot file.
+     */
+    static HugeAdjacencyOffsets readFrom(SnapshotInput in, boolean mapped, AllocationTracker tracker) throws IOException {
+        long capacity = in.readLong();
+        int numPages = (int) ((capacity + BufferOffsets.PAGE_MASK) >>> BufferOffsets.PAGE_SHIFT);
+        if (mapped) {
+            ByteBuffer[] buffers = new ByteBuffer[numPages];
+            long index = 0L;
+            for (int i = 0; i < numPages; i++) {
+                int length = (int) Math.min(BufferOffsets.PAGE_SIZE, capacity - index);
+                buffers[i] = in.map(length << 3);
+                index += length;
+            }
+            tracker.addOffHeap(capacity << 3);
+            tracker.add(sizeOfObjectArray(numPages));
+            return new BufferOffsets(buffers, capacity << 3);
+        }
+        long[][] pages = new long[numPages][];
+        long index = 0L;
+        long memoryUsed = sizeOfObjectArray(numPages);
+        for (int i = 0; i < numPages; i++) {
+            int length = (int) Math.min(BufferOffsets.PAGE_SIZE, capacity - index);
+            pages[i] = new long[length];
+            in.readLongs(pages[i], 0, length);
+            memoryUsed += sizeOfLongArray(length);
+            index += length;
+        }
+        tracker.add(memoryUsed);
+        return numPages == 1 ? of(pages[0]) : of(pages, BufferOffsets.PAGE_SIZE);
+    }
+
     public static HugeAdjacencyOffsets of(long[][] pages, int pageSize) {
         if (pages.length == 1) {
             return new SinglePageOffsets(pages[0]);
@@ -60,6 +146,15 @@ public abstract class HugeAdjacencyOffsets {
             return pages[pageIndex][indexInPage];
         }
 
+        @Override
+        long capacity() {
+            long capacity = 0L;
+            for (long[] page : pages) {
+                capacity += page.length;
+            }
+            return capacity;
+        }
+
         @Override
         long release() {
             if (pages != null) {
@@ -87,6 +182,11 @@ public abstract class HugeAdjacencyOffsets {
             return page[(int) index];
         }
 
+        @Override
+        long capacity() {
+            return page.length;
+        }
+
         @Override
         long release() {
             if (page != null) {
@@ -97,4 +197,51 @@ public abstract class HugeAdjacencyOffsets {
             return 0L;
         }
     }
+
+    private static final class BufferOffsets extends HugeAdjacencyOffsets {
+
+        private static final int PAGE_SHIFT = 16;
+        private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+        private static final long PAGE_MASK = (long) (PAGE_SIZE - 1);
+
+        private final long offHeapMemory;
+        private ByteBuffer[] pages;
+
+        private BufferOffsets(ByteBuffer[] pages, long offHeapMemory) {
+            this.pages = pages;
+            this.offHeapMemory = offHeapMemory;
+        }
+
+        @Override
+        long get(long index) {
+            final int pageIndex = (int) (index >>> PAGE_SHIFT);
+            final int indexInPage = (int) (index & PAGE_MASK);
+            return pages[pageIndex].getLong(indexInPage << 3);
+        }
+
+        @Override
+        long capacity() {
+            return offHeapMemory >>> 3;
+        }
+
+        @Override
+        public long offHeapMemory() {
+            return offHeapMemory;
+        }
+
+        @Override
+        public HugeAdjacencyOffsets moveOffHeap(OffHeapPageAllocator allocator, AllocationTracker tracker) {
+            return this;
+        }
+
+        @Override
+        long release() {
+            if (pages != null) {
+                long memoryUsed = sizeOfObjectArray(pages.length);
+                pages = null;
+                return memoryUsed;
+            }
+            return 0L;
+        }
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import com.carrotsearch.hppc.LongObjectMap;
+
+/**
+ * Skip pointers into the adjacency lists of high degree nodes, keyed by the address of the list.
+ * <p>
+ * For every {@link #SKIP_INTERVAL}th target of a list with at least {@link #threshold()} targets,
+ * the index stores the value of the target before it and the byte offset of its encoded block, relative
+ * to the start of the list. The targets between two skip points are still delta encoded in the list,
+ * but a reader can continue decoding at any skip point, so that searching a target only decodes
+ * the targets after the closest skip point instead of all targets before it.
+ * <p>
+ * The adjacency lists themselves are not changed, lists without skip points are read as before.
+ */
+public final class HugeAdjacencySkipIndex {
+
+    /**
+     * The number of targets between two skip points, which is a multiple of the block size of the decoders,
+     * so that every skip point starts a new block.
+     */
+    public static final int SKIP_INTERVAL = 4 * BlockPackedDecoding.BLOCK_SIZE;
+
+    /**
+     * The default minimum degree of lists that get skip points.
+     */
+    public static final int DEFAULT_THRESHOLD = 4 * SKIP_INTERVAL;
+
+    private final int threshold;
+    private final LongObjectMap<long[]> points;
+    private final long memory;
+
+    /**
+     * @param points for every list with at least {@code threshold} targets, the value and offset of every skip point,
+     *               interleaved in one array
+     */
+    public HugeAdjacencySkipIndex(int threshold, LongObjectMap<long[]> points, long memory) {
+        this.threshold = threshold;
+        this.points = points;
+        this.memory = memory;
+    }
+
+    /**
+     * Returns the minimum degree of lists that have skip points.
+     */
+    public int threshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns the number of lists that have skip points.
+     */
+    public int size() {
+        return points.size();
+    }
+
+    long memory() {
+        return memory;
+    }
+
+    /**
+     * Returns the skip points of the list that starts at {@code address} or {@code null} if it has none.
+     */
+    long[] points(long address) {
+        return points.get(address);
+    }
+
+    /**
+     * Returns the number of the last skip point whose preceding target is smaller than {@code target}
+     * (or equal to it, if {@code inclusive}), counting from 1, or {@code 0} if there is no such skip point.
+     * The skip point with number {@code k} starts at the target with index {@code k * SKIP_INTERVAL}.
+     */
+    static int find(long[] points, long target, boolean inclusive) {
+        int lo = 0;
+        int hi = (points.length >>> 1) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long value = points[mid << 1];
+            if (value < target || (inclusive && value == target)) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the value of the target before skip point {@code k}, which must be at least 1.
+     */
+    static long value(long[] points, int k) {
+        return points[(k - 1) << 1];
+    }
+
+    /**
+     * Returns the byte offset of skip point {@code k}, which must be at least 1, relative to the start of the list.
+     */
+    static int offset(long[] points, int k) {
+        return (int) points[((k - 1) << 1) + 1];
+    }
+}
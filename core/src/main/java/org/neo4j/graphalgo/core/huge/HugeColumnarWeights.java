@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphdb.Direction;
+
+/**
+ * Relationship weights that are stored in adjacency order, aligned with the compressed target ids.
+ * <p>
+ * For every node and direction, the weights are a contiguous block of 8 byte doubles, one for each target,
+ * in the same order as the (sorted and de-duplicated) targets in the respective {@link HugeAdjacencyList}.
+ * The start of that block is stored in a separate {@link HugeAdjacencyOffsets}, just like the adjacency.
+ * A weighted traversal can therefore read target and weight side by side, without any hashing.
+ * <p>
+ * Random access via {@link #weight(long, long)} has to find the position of the target first,
+ * which decodes the adjacency list of the source node up to the target.
+ */
+public final class HugeColumnarWeights implements HugeWeightMapping {
+
+    private final HugeAdjacencyList inAdjacency;
+    private final HugeAdjacencyList outAdjacency;
+    private final HugeAdjacencyOffsets inOffsets;
+    private final HugeAdjacencyOffsets outOffsets;
+    private HugeAdjacencyList inWeights;
+    private HugeAdjacencyList outWeights;
+    private HugeAdjacencyOffsets inWeightOffsets;
+    private HugeAdjacencyOffsets outWeightOffsets;
+    private final double defaultValue;
+
+    public HugeColumnarWeights(
+            HugeAdjacencyList inAdjacency,
+            HugeAdjacencyList outAdjacency,
+            HugeAdjacencyOffsets inOffsets,
+            HugeAdjacencyOffsets outOffsets,
+            HugeAdjacencyList inWeights,
+            HugeAdjacencyList outWeights,
+            HugeAdjacencyOffsets inWeightOffsets,
+            HugeAdjacencyOffsets outWeightOffsets,
+            double defaultValue) {
+        this.inAdjacency = inAdjacency;
+        this.outAdjacency = outAdjacency;
+        this.inOffsets = inOffsets;
+        this.outOffsets = outOffsets;
+        this.inWeights = inWeights;
+        this.outWeights = outWeights;
+        this.inWeightOffsets = inWeightOffsets;
+        this.outWeightOffsets = outWeightOffsets;
+        this.defaultValue = defaultValue;
+    }
+
+    @Override
+    public double weight(final long source, final long target) {
+        return weight(source, target, defaultValue);
+    }
+
+    @Override
+    public double defaultValue() {
+        return defaultValue;
+    }
+
+    @Override
+    public double weight(final long source, final long target, final double defaultValue) {
+        if (outWeights != null) {
+            return weight(source, target, outAdjacency, outOffsets, outWeights, outWeightOffsets, defaultValue);
+        }
+        if (inWeights != null) {
+            return weight(target, source, inAdjacency, inOffsets, inWeights, inWeightOffsets, defaultValue);
+        }
+        return defaultValue;
+    }
+
+    private static double weight(
+            long node,
+            long other,
+            HugeAdjacencyList adjacency,
+            HugeAdjacencyOffsets offsets,
+            HugeAdjacencyList weights,
+            HugeAdjacencyOffsets weightOffsets,
+            double defaultValue) {
+        long offset = offsets.get(node);
+        if (offset == 0L) {
+            return defaultValue;
+        }
+        int position = adjacency.indexOf(offset, other);
+        if (position == -1) {
+            return defaultValue;
+        }
+        return weights.getWeight(weightOffsets.get(node), position);
+    }
+
+    HugeAdjacencyList.WeightCursor newCursor(Direction direction) {
+        HugeAdjacencyList weights = direction == Direction.OUTGOING ? outWeights : inWeights;
+        return weights != null ? weights.newWeightCursor() : null;
+    }
+
+    /**
+     * Positions the cursor at the first weight of the given node.
+     * Must only be called for nodes that have at least one relationship in that direction.
+     */
+    HugeAdjacencyList.WeightCursor cursor(long node, Direction direction, HugeAdjacencyList.WeightCursor reuse) {
+        HugeAdjacencyOffsets offsets = direction == Direction.OUTGOING ? outWeightOffsets : inWeightOffsets;
+        return reuse.init(offsets.get(node));
+    }
+
+    HugeAdjacencyList weights(Direction direction) {
+        return direction == Direction.OUTGOING ? outWeights : inWeights;
+    }
+
+    HugeAdjacencyOffsets weightOffsets(Direction direction) {
+        return direction == Direction.OUTGOING ? outWeightOffsets : inWeightOffsets;
+    }
+
+    /**
+     * Returns the number of bytes of the weights that are stored outside of the Java heap.
+     */
+    public long offHeapMemory() {
+        long offHeap = 0L;
+        if (outWeights != null) {
+            offHeap += outWeights.offHeapMemory() + outWeightOffsets.offHeapMemory();
+        }
+        if (inWeights != null) {
+            offHeap += inWeights.offHeapMemory() + inWeightOffsets.offHeapMemory();
+        }
+        return offHeap;
+    }
+
+    @Override
+    public long release() {
+        long released = 0L;
+        if (outWeights != null) {
+            released += outWeights.release();
+            released += outWeightOffsets.release();
+            outWeights = null;
+            outWeightOffsets = null;
+        }
+        if (inWeights != null) {
+            released += inWeights.release();
+            released += inWeightOffsets.release();
+            inWeights = null;
+            inWeightOffsets = null;
+        }
+        return released;
+    }
+}
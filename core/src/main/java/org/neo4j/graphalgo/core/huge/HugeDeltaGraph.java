@@ -0,0 +1,846 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import com.carrotsearch.hppc.LongObjectHashMap;
+import org.neo4j.collection.primitive.PrimitiveLongIterable;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeRelationshipConsumer;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.api.HugeWeightedRelationshipConsumer;
+import org.neo4j.graphalgo.api.RelationshipConsumer;
+import org.neo4j.graphalgo.api.RelationshipIntersect;
+import org.neo4j.graphalgo.api.WeightedRelationshipConsumer;
+import org.neo4j.graphalgo.core.huge.loader.HugeIdMap;
+import org.neo4j.graphalgo.core.huge.loader.HugeNodePropertyMap;
+import org.neo4j.graphalgo.core.utils.LazyBatchCollection;
+import org.neo4j.graphalgo.core.utils.RawValues;
+import org.neo4j.graphdb.Direction;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * An immutable {@link HugeGraph} that overlays the changes of committed transactions on top of a loaded graph.
+ * <p>
+ * Created nodes are appended after the nodes of the base graph. Relationships are kept as sorted target arrays
+ * per node and direction, either as added to or as removed from the base adjacency, so that iterating a node
+ * still visits its targets in ascending order. Deleted nodes stay in the graph without relationships until the
+ * next compaction, which merges the overlay into new compressed adjacency lists.
+ * Like the loader, the overlay keeps a single relationship for parallel relationships between the same nodes,
+ * it is up to the caller to only delete a relationship once the last of its parallel relationships is deleted.
+ * <p>
+ * Applying changes returns a new overlay and leaves this one untouched, algorithms that
+ * run on an overlay never see changes that are committed while they are running.
+ * The changes are kept in maps that are split into chunks, a new overlay shares all chunks with the previous
+ * one except for those that it changes. Created nodes are appended to an array that is shared as well,
+ * every overlay only reads the nodes that have been created before it.
+ */
+public final class HugeDeltaGraph implements HugeGraph {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final HugeGraphImpl base;
+    private final long baseNodeCount;
+    private final boolean undirected;
+
+    private final AppendedNodes appendLog;
+    private final long[] appendedNodes;
+    private final int appendedCount;
+    private final ChunkedMap<Long> appendedIds;
+    private final ChunkedMap<Boolean> removedNodes;
+    private final ChunkedMap<long[]> addedOut;
+    private final ChunkedMap<long[]> removedOut;
+    private final ChunkedMap<long[]> addedIn;
+    private final ChunkedMap<long[]> removedIn;
+    private final long changes;
+
+    /**
+     * Creates an overlay without any changes.
+     *
+     * @param undirected whether the base graph has been loaded as undirected, in which case every
+     *                   relationship is added to the outgoing adjacency of both of its nodes
+     */
+    public static HugeDeltaGraph of(HugeGraphImpl base, boolean undirected) {
+        AppendedNodes appendLog = new AppendedNodes();
+        return new HugeDeltaGraph(
+                base,
+                undirected,
+                appendLog,
+                appendLog.ids,
+                0,
+                ChunkedMap.empty(),
+                ChunkedMap.empty(),
+                ChunkedMap.empty(),
+                ChunkedMap.empty(),
+                ChunkedMap.empty(),
+                ChunkedMap.empty(),
+                0L);
+    }
+
+    private HugeDeltaGraph(
+            HugeGraphImpl base,
+            boolean undirected,
+            AppendedNodes appendLog,
+            long[] appendedNodes,
+            int appendedCount,
+            ChunkedMap<Long> appendedIds,
+            ChunkedMap<Boolean> removedNodes,
+            ChunkedMap<long[]> addedOut,
+            ChunkedMap<long[]> removedOut,
+            ChunkedMap<long[]> addedIn,
+            ChunkedMap<long[]> removedIn,
+            long changes) {
+        this.base = base;
+        this.baseNodeCount = base.nodeCount();
+        this.undirected = undirected;
+        this.appendLog = appendLog;
+        this.appendedNodes = appendedNodes;
+        this.appendedCount = appendedCount;
+        this.appendedIds = appendedIds;
+        this.removedNodes = removedNodes;
+        this.addedOut = addedOut;
+        this.removedOut = removedOut;
+        this.addedIn = addedIn;
+        this.removedIn = removedIn;
+        this.changes = changes;
+    }
+
+    /**
+     * Returns a new overlay that contains the given changes in addition to the changes of this overlay.
+     * Relationships are ignored if one of their nodes is not part of the graph.
+     */
+    public HugeDeltaGraph apply(HugeGraphUpdates updates) {
+        return new Update().apply(updates);
+    }
+
+    private boolean inBase(HugeGraph lookup, Direction direction, long node, long target) {
+        return node < baseNodeCount && target < baseNodeCount && lookup.exists(node, target, direction);
+    }
+
+    /**
+     * Returns the number of changes that have been applied since the base graph has been loaded.
+     */
+    public long changes() {
+        return changes;
+    }
+
+    /**
+     * Returns the graph that has been loaded or compacted last.
+     */
+    public HugeGraphImpl base() {
+        return base;
+    }
+
+    public boolean isUndirected() {
+        return undirected;
+    }
+
+    /**
+     * Returns true if the node has been deleted after the base graph has been loaded.
+     */
+    public boolean isRemoved(long nodeId) {
+        return removedNodes.containsKey(nodeId);
+    }
+
+    public boolean hasAdjacency(Direction direction) {
+        return base.adjacency(direction) != null;
+    }
+
+    @Override
+    public long nodeCount() {
+        return baseNodeCount + appendedCount;
+    }
+
+    @Override
+    public Collection<PrimitiveLongIterable> hugeBatchIterables(final int batchSize) {
+        return LazyBatchCollection.of(
+                nodeCount(),
+                batchSize,
+                (start, length) -> () -> new HugeIdMap.IdIterator(start, length));
+    }
+
+    @Override
+    public void forEachNode(LongPredicate consumer) {
+        final long count = nodeCount();
+        for (long i = 0L; i < count; i++) {
+            if (!consumer.test(i)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public PrimitiveLongIterator hugeNodeIterator() {
+        return new HugeIdMap.IdIterator(nodeCount());
+    }
+
+    @Override
+    public long toHugeMappedNodeId(long nodeId) {
+        if (base.contains(nodeId)) {
+            return base.toHugeMappedNodeId(nodeId);
+        }
+        Long node = appendedIds.get(nodeId);
+        return node == null ? -1L : node;
+    }
+
+    @Override
+    public long toOriginalNodeId(long nodeId) {
+        if (nodeId < baseNodeCount) {
+            return base.toOriginalNodeId(nodeId);
+        }
+        return appendedNodes[(int) (nodeId - baseNodeCount)];
+    }
+
+    @Override
+    public boolean contains(long nodeId) {
+        return base.contains(nodeId) || appendedIds.containsKey(nodeId);
+    }
+
+    /**
+     * Nodes that have been created after loading have the default value of the property.
+     */
+    @Override
+    public HugeWeightMapping hugeNodeProperties(String type) {
+        HugeWeightMapping properties = base.hugeNodeProperties(type);
+        if (appendedCount == 0 || !(properties instanceof HugeNodePropertyMap)) {
+            return properties;
+        }
+        return new BaseNodeProperties(properties, baseNodeCount, ((HugeNodePropertyMap) properties).defaultValue());
+    }
+
+    @Override
+    public Set<String> availableNodeProperties() {
+        return base.availableNodeProperties();
+    }
+
+    @Override
+    public double weightOf(long sourceNodeId, long targetNodeId) {
+        return base.weightOf(sourceNodeId, targetNodeId);
+    }
+
+    @Override
+    public int degree(long nodeId, Direction direction) {
+        if (direction == Direction.BOTH) {
+            return degree(nodeId, Direction.OUTGOING) + degree(nodeId, Direction.INCOMING);
+        }
+        int degree = nodeId < baseNodeCount ? base.degree(nodeId, direction) : 0;
+        return degree + length(added(direction).get(nodeId)) - length(removed(direction).get(nodeId));
+    }
+
+    @Override
+    public void forEachRelationship(long nodeId, Direction direction, HugeRelationshipConsumer consumer) {
+        runForEach(nodeId, direction, consumer, /* threadSafe */ false);
+    }
+
+    @Override
+    public void forEachRelationship(long nodeId, Direction direction, HugeWeightedRelationshipConsumer consumer) {
+        forEachRelationship(nodeId, direction, (sourceNodeId, targetNodeId) ->
+                consumer.accept(sourceNodeId, targetNodeId, direction == Direction.INCOMING ?
+                        weightOf(targetNodeId, sourceNodeId) :
+                        weightOf(sourceNodeId, targetNodeId)));
+    }
+
+    @Override
+    public void forEachRelationship(int nodeId, Direction direction, RelationshipConsumer consumer) {
+        if (direction == Direction.BOTH) {
+            forEachOutgoing(nodeId, consumer);
+            forEachIncoming(nodeId, consumer);
+            return;
+        }
+        runForEach(Integer.toUnsignedLong(nodeId), direction, (s, t) -> consumer.accept(
+                (int) s,
+                (int) t,
+                direction == Direction.OUTGOING
+                        ? RawValues.combineIntInt((int) s, (int) t)
+                        : RawValues.combineIntInt((int) t, (int) s)),
+                /* threadSafe */ true);
+    }
+
+    @Override
+    public void forEachRelationship(int nodeId, Direction direction, WeightedRelationshipConsumer consumer) {
+        if (direction == Direction.BOTH) {
+            forEachRelationship(nodeId, Direction.OUTGOING, consumer);
+            forEachRelationship(nodeId, Direction.INCOMING, consumer);
+            return;
+        }
+        runForEach(Integer.toUnsignedLong(nodeId), direction, (s, t) -> {
+            boolean outgoing = direction == Direction.OUTGOING;
+            return consumer.accept(
+                    (int) s,
+                    (int) t,
+                    outgoing ? RawValues.combineIntInt((int) s, (int) t) : RawValues.combineIntInt((int) t, (int) s),
+                    outgoing ? weightOf(s, t) : weightOf(t, s));
+        }, /* threadSafe */ true);
+    }
+
+    @Override
+    public void forEachIncoming(int nodeId, RelationshipConsumer consumer) {
+        forEachRelationship(nodeId, Direction.INCOMING, consumer);
+    }
+
+    @Override
+    public void forEachOutgoing(int nodeId, RelationshipConsumer consumer) {
+        forEachRelationship(nodeId, Direction.OUTGOING, consumer);
+    }
+
+    private void runForEach(long nodeId, Direction direction, HugeRelationshipConsumer consumer, boolean threadSafe) {
+        if (direction == Direction.BOTH) {
+            runForEach(nodeId, Direction.OUTGOING, consumer, threadSafe);
+            runForEach(nodeId, Direction.INCOMING, consumer, threadSafe);
+            return;
+        }
+        long[] added = added(direction).get(nodeId);
+        long[] removed = removed(direction).get(nodeId);
+        if (nodeId >= baseNodeCount) {
+            emit(nodeId, added, 0, consumer);
+            return;
+        }
+        if (added == null && removed == null) {
+            forEachInBase(nodeId, direction, consumer, threadSafe);
+            return;
+        }
+        MergingConsumer merging = new MergingConsumer(consumer, added == null ? EMPTY : added, removed);
+        forEachInBase(nodeId, direction, merging, threadSafe);
+        if (!merging.stopped) {
+            emit(nodeId, merging.added, merging.next, consumer);
+        }
+    }
+
+    private void forEachInBase(long nodeId, Direction direction, HugeRelationshipConsumer consumer, boolean threadSafe) {
+        if (threadSafe) {
+            base.forEachRelationship((int) nodeId, direction, (RelationshipConsumer) (s, t, r) -> consumer.accept(s, t));
+        } else {
+            base.forEachRelationship(nodeId, direction, consumer);
+        }
+    }
+
+    private static void emit(long nodeId, long[] targets, int from, HugeRelationshipConsumer consumer) {
+        if (targets == null) {
+            return;
+        }
+        for (int i = from; i < targets.length; i++) {
+            if (!consumer.accept(nodeId, targets[i])) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean exists(int sourceNodeId, int targetNodeId, Direction direction) {
+        return exists(Integer.toUnsignedLong(sourceNodeId), Integer.toUnsignedLong(targetNodeId), direction);
+    }
+
+    @Override
+    public boolean exists(long sourceNodeId, long targetNodeId, Direction direction) {
+        if (direction == Direction.BOTH) {
+            return exists(sourceNodeId, targetNodeId, Direction.OUTGOING)
+                    || exists(sourceNodeId, targetNodeId, Direction.INCOMING);
+        }
+        if (contains(added(direction).get(sourceNodeId), targetNodeId)) {
+            return true;
+        }
+        return sourceNodeId < baseNodeCount
+                && targetNodeId < baseNodeCount
+                && !contains(removed(direction).get(sourceNodeId), targetNodeId)
+                && base.exists(sourceNodeId, targetNodeId, direction);
+    }
+
+    /**
+     * O(n) !
+     */
+    @Override
+    public int getTarget(int nodeId, int index, Direction direction) {
+        return Math.toIntExact(getTarget(Integer.toUnsignedLong(nodeId), Integer.toUnsignedLong(index), direction));
+    }
+
+    /**
+     * O(n) !
+     */
+    @Override
+    public long getTarget(long nodeId, long index, Direction direction) {
+        long[] found = {index, -1L};
+        forEachRelationship(nodeId, direction, (s, t) -> {
+            if (found[0]-- == 0L) {
+                found[1] = t;
+                return false;
+            }
+            return true;
+        });
+        return found[1];
+    }
+
+    @Override
+    public HugeGraph concurrentCopy() {
+        return new HugeDeltaGraph(
+                (HugeGraphImpl) base.concurrentCopy(), undirected, appendLog, appendedNodes, appendedCount,
+                appendedIds, removedNodes, addedOut, removedOut, addedIn, removedIn, changes);
+    }
+
+    /**
+     * Intersects the base graph directly as long as there are no changes, otherwise the merged
+     * neighbours of every node are read into arrays first.
+     */
+    @Override
+    public RelationshipIntersect intersection() {
+        if (changes == 0L) {
+            return base.intersection();
+        }
+        return new DeltaIntersect((HugeDeltaGraph) concurrentCopy());
+    }
+
+    @Override
+    public void canRelease(boolean canRelease) {
+        base.canRelease(canRelease);
+    }
+
+    @Override
+    public void release() {
+        base.release();
+    }
+
+    private ChunkedMap<long[]> added(Direction direction) {
+        return direction == Direction.OUTGOING ? addedOut : addedIn;
+    }
+
+    private ChunkedMap<long[]> removed(Direction direction) {
+        return direction == Direction.OUTGOING ? removedOut : removedIn;
+    }
+
+    private static void put(ChunkedMap.Editor<long[]> map, long node, long[] targets) {
+        if (targets.length == 0) {
+            map.remove(node);
+        } else {
+            map.put(node, targets);
+        }
+    }
+
+    private static int length(long[] targets) {
+        return targets == null ? 0 : targets.length;
+    }
+
+    private static boolean contains(long[] targets, long target) {
+        return targets != null && Arrays.binarySearch(targets, target) >= 0;
+    }
+
+    private static long[] with(long[] targets, long target) {
+        if (targets == null) {
+            return new long[]{target};
+        }
+        int index = Arrays.binarySearch(targets, target);
+        if (index >= 0) {
+            return targets;
+        }
+        int insert = -index - 1;
+        long[] copy = new long[targets.length + 1];
+        System.arraycopy(targets, 0, copy, 0, insert);
+        copy[insert] = target;
+        System.arraycopy(targets, insert, copy, insert + 1, targets.length - insert);
+        return copy;
+    }
+
+    private static long[] without(long[] targets, long target) {
+        int index = Arrays.binarySearch(targets, target);
+        long[] copy = new long[targets.length - 1];
+        System.arraycopy(targets, 0, copy, 0, index);
+        System.arraycopy(targets, index + 1, copy, index, copy.length - index);
+        return copy;
+    }
+
+    /**
+     * Collects the changes of one transaction into copies of the maps of this overlay.
+     * The maps only copy the chunks that are changed and the appended nodes are shared.
+     */
+    private final class Update {
+        // the cursors of the base graph are not shared with algorithms that run on the previous overlay
+        private final HugeGraph lookup = base.concurrentCopy();
+        private final ChunkedMap.Editor<Long> appendedIds = HugeDeltaGraph.this.appendedIds.edit();
+        private final ChunkedMap.Editor<Boolean> removedNodes = HugeDeltaGraph.this.removedNodes.edit();
+        private final ChunkedMap.Editor<long[]> addedOut = HugeDeltaGraph.this.addedOut.edit();
+        private final ChunkedMap.Editor<long[]> removedOut = HugeDeltaGraph.this.removedOut.edit();
+        private final ChunkedMap.Editor<long[]> addedIn = HugeDeltaGraph.this.addedIn.edit();
+        private final ChunkedMap.Editor<long[]> removedIn = HugeDeltaGraph.this.removedIn.edit();
+        private AppendedNodes appendLog = HugeDeltaGraph.this.appendLog;
+        private long[] appendedNodes = HugeDeltaGraph.this.appendedNodes;
+        private int appendedCount = HugeDeltaGraph.this.appendedCount;
+        private long changes = HugeDeltaGraph.this.changes;
+
+        HugeDeltaGraph apply(HugeGraphUpdates updates) {
+            long[] createdNodes = updates.createdNodes();
+            if (createdNodes.length > 0) {
+                appendNodes(createdNodes);
+                changes += createdNodes.length;
+            }
+
+            long[] created = updates.createdRelationships();
+            for (int i = 0; i < created.length; i += 2) {
+                long source = toHugeMappedNodeId(created[i]);
+                long target = toHugeMappedNodeId(created[i + 1]);
+                if (source != -1L && target != -1L) {
+                    addRelationship(source, target);
+                    ++changes;
+                }
+            }
+            long[] deleted = updates.deletedRelationships();
+            for (int i = 0; i < deleted.length; i += 2) {
+                long source = toHugeMappedNodeId(deleted[i]);
+                long target = toHugeMappedNodeId(deleted[i + 1]);
+                if (source != -1L && target != -1L) {
+                    removeRelationship(source, target);
+                    ++changes;
+                }
+            }
+            for (long nodeId : updates.deletedNodes()) {
+                long node = toHugeMappedNodeId(nodeId);
+                if (node != -1L && removedNodes.get(node) == null) {
+                    removedNodes.put(node, Boolean.TRUE);
+                    ++changes;
+                }
+            }
+
+            return new HugeDeltaGraph(
+                    base,
+                    undirected,
+                    appendLog,
+                    appendedNodes,
+                    appendedCount,
+                    appendedIds.build(),
+                    removedNodes.build(),
+                    addedOut.build(),
+                    removedOut.build(),
+                    addedIn.build(),
+                    removedIn.build(),
+                    changes);
+        }
+
+        private void appendNodes(long[] createdNodes) {
+            synchronized (appendLog) {
+                if (appendLog.size != appendedCount) {
+                    // nodes have been appended to a newer overlay already, this one branches off
+                    appendLog = appendLog.copy(appendedCount);
+                }
+                for (long nodeId : createdNodes) {
+                    if (!base.contains(nodeId) && appendedIds.get(nodeId) == null) {
+                        appendLog.add(nodeId);
+                        appendedIds.put(nodeId, baseNodeCount + appendedCount++);
+                    }
+                }
+                appendedNodes = appendLog.ids;
+            }
+        }
+
+        private long toHugeMappedNodeId(long nodeId) {
+            if (base.contains(nodeId)) {
+                return base.toHugeMappedNodeId(nodeId);
+            }
+            Long node = appendedIds.get(nodeId);
+            return node == null ? -1L : node;
+        }
+
+        private void addRelationship(long source, long target) {
+            if (undirected) {
+                addArc(Direction.OUTGOING, source, target);
+                addArc(Direction.OUTGOING, target, source);
+                return;
+            }
+            if (hasAdjacency(Direction.OUTGOING)) {
+                addArc(Direction.OUTGOING, source, target);
+            }
+            if (hasAdjacency(Direction.INCOMING)) {
+                addArc(Direction.INCOMING, target, source);
+            }
+        }
+
+        private void removeRelationship(long source, long target) {
+            if (undirected) {
+                removeArc(Direction.OUTGOING, source, target);
+                removeArc(Direction.OUTGOING, target, source);
+                return;
+            }
+            if (hasAdjacency(Direction.OUTGOING)) {
+                removeArc(Direction.OUTGOING, source, target);
+            }
+            if (hasAdjacency(Direction.INCOMING)) {
+                removeArc(Direction.INCOMING, target, source);
+            }
+        }
+
+        private void addArc(Direction direction, long node, long target) {
+            ChunkedMap.Editor<long[]> removed = removed(direction);
+            long[] removedTargets = removed.get(node);
+            if (contains(removedTargets, target)) {
+                put(removed, node, without(removedTargets, target));
+            } else if (!inBase(lookup, direction, node, target)) {
+                ChunkedMap.Editor<long[]> added = added(direction);
+                put(added, node, with(added.get(node), target));
+            }
+        }
+
+        private void removeArc(Direction direction, long node, long target) {
+            ChunkedMap.Editor<long[]> added = added(direction);
+            long[] addedTargets = added.get(node);
+            if (contains(addedTargets, target)) {
+                put(added, node, without(addedTargets, target));
+            } else if (inBase(lookup, direction, node, target)) {
+                ChunkedMap.Editor<long[]> removed = removed(direction);
+                put(removed, node, with(removed.get(node), target));
+            }
+        }
+
+        private ChunkedMap.Editor<long[]> added(Direction direction) {
+            return direction == Direction.OUTGOING ? addedOut : addedIn;
+        }
+
+        private ChunkedMap.Editor<long[]> removed(Direction direction) {
+            return direction == Direction.OUTGOING ? removedOut : removedIn;
+        }
+    }
+
+    /**
+     * The ids of created nodes, shared by all overlays that are derived from each other.
+     * Nodes are only ever appended, an overlay only reads the first nodes that existed when it was created.
+     */
+    private static final class AppendedNodes {
+        private long[] ids = EMPTY;
+        private int size;
+
+        private void add(long nodeId) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(16, size + (size >> 1)));
+            }
+            ids[size++] = nodeId;
+        }
+
+        private AppendedNodes copy(int size) {
+            AppendedNodes copy = new AppendedNodes();
+            copy.ids = Arrays.copyOf(ids, Math.max(16, size));
+            copy.size = size;
+            return copy;
+        }
+    }
+
+    /**
+     * A map from ids to values that is never changed once an overlay uses it. The keys are spread over
+     * a fixed number of chunks, an {@link Editor} copies the array of chunks and only those chunks that
+     * it changes, instead of the whole map.
+     */
+    private static final class ChunkedMap<V> {
+        private static final int CHUNKS = 256;
+
+        private final LongObjectHashMap<V>[] chunks;
+
+        private ChunkedMap(LongObjectHashMap<V>[] chunks) {
+            this.chunks = chunks;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> ChunkedMap<V> empty() {
+            return new ChunkedMap<>((LongObjectHashMap<V>[]) new LongObjectHashMap[CHUNKS]);
+        }
+
+        private static int chunk(long key) {
+            return (int) (key & (CHUNKS - 1));
+        }
+
+        private V get(long key) {
+            LongObjectHashMap<V> chunk = chunks[chunk(key)];
+            return chunk == null ? null : chunk.get(key);
+        }
+
+        private boolean containsKey(long key) {
+            LongObjectHashMap<V> chunk = chunks[chunk(key)];
+            return chunk != null && chunk.containsKey(key);
+        }
+
+        private Editor<V> edit() {
+            return new Editor<>(this);
+        }
+
+        private static final class Editor<V> {
+            private final ChunkedMap<V> source;
+            private LongObjectHashMap<V>[] chunks;
+            private boolean[] copied;
+
+            private Editor(ChunkedMap<V> source) {
+                this.source = source;
+            }
+
+            private V get(long key) {
+                if (chunks == null) {
+                    return source.get(key);
+                }
+                LongObjectHashMap<V> chunk = chunks[chunk(key)];
+                return chunk == null ? null : chunk.get(key);
+            }
+
+            private void put(long key, V value) {
+                writableChunk(key).put(key, value);
+            }
+
+            private void remove(long key) {
+                if (get(key) != null) {
+                    writableChunk(key).remove(key);
+                }
+            }
+
+            private LongObjectHashMap<V> writableChunk(long key) {
+                if (chunks == null) {
+                    chunks = source.chunks.clone();
+                    copied = new boolean[CHUNKS];
+                }
+                int index = chunk(key);
+                if (!copied[index]) {
+                    LongObjectHashMap<V> chunk = chunks[index];
+                    chunks[index] = chunk == null ? new LongObjectHashMap<>() : chunk.clone();
+                    copied[index] = true;
+                }
+                return chunks[index];
+            }
+
+            /**
+             * Returns the changed map, or the source map if nothing has been changed.
+             */
+            private ChunkedMap<V> build() {
+                return chunks == null ? source : new ChunkedMap<>(chunks);
+            }
+        }
+    }
+
+    /**
+     * Reads the merged outgoing neighbours of base and overlay, which are sorted already.
+     */
+    private static final class DeltaIntersect extends SortedNeighbourIntersect implements HugeRelationshipConsumer {
+        private final HugeDeltaGraph graph;
+        private long[] targets;
+        private int count;
+
+        private DeltaIntersect(HugeDeltaGraph graph) {
+            this.graph = graph;
+        }
+
+        @Override
+        long[] neighbours(long nodeId, long[] into) {
+            int degree = graph.degree(nodeId, Direction.OUTGOING);
+            if (into.length < degree) {
+                into = new long[degree];
+            }
+            targets = into;
+            count = 0;
+            graph.forEachRelationship(nodeId, Direction.OUTGOING, this);
+            targets = null;
+            length = count;
+            return into;
+        }
+
+        @Override
+        public boolean accept(long sourceNodeId, long targetNodeId) {
+            if (count == 0 || targets[count - 1] != targetNodeId) {
+                targets[count++] = targetNodeId;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Skips removed targets of the base graph and visits added targets in between, keeping the targets sorted.
+     */
+    private static final class MergingConsumer implements HugeRelationshipConsumer {
+        private final HugeRelationshipConsumer delegate;
+        private final long[] added;
+        private final long[] removed;
+        private int next;
+        private boolean stopped;
+
+        private MergingConsumer(HugeRelationshipConsumer delegate, long[] added, long[] removed) {
+            this.delegate = delegate;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        @Override
+        public boolean accept(long sourceNodeId, long targetNodeId) {
+            if (contains(removed, targetNodeId)) {
+                return true;
+            }
+            while (next < added.length && added[next] < targetNodeId) {
+                if (!delegate.accept(sourceNodeId, added[next++])) {
+                    stopped = true;
+                    return false;
+                }
+            }
+            if (!delegate.accept(sourceNodeId, targetNodeId)) {
+                stopped = true;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns the default value for nodes that are not part of the base graph.
+     */
+    private static final class BaseNodeProperties implements HugeWeightMapping {
+        private final HugeWeightMapping properties;
+        private final long baseNodeCount;
+        private final double defaultValue;
+
+        private BaseNodeProperties(HugeWeightMapping properties, long baseNodeCount, double defaultValue) {
+            this.properties = properties;
+            this.baseNodeCount = baseNodeCount;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public double weight(long source, long target) {
+            if (source >= baseNodeCount) {
+                return defaultValue;
+            }
+            return properties.weight(source, target);
+        }
+
+        @Override
+        public double weight(long source, long target, double defaultValue) {
+            if (source >= baseNodeCount) {
+                return defaultValue;
+            }
+            return properties.weight(source, target, defaultValue);
+        }
+
+        @Override
+        public double defaultValue() {
+            return defaultValue;
+        }
+
+        @Override
+        public long nodeLongValue(long nodeId, long defaultValue) {
+            if (nodeId >= baseNodeCount) {
+                return defaultValue;
+            }
+            return properties.nodeLongValue(nodeId, defaultValue);
+        }
+
+        @Override
+        public long release() {
+            return 0L;
+        }
+    }
+}
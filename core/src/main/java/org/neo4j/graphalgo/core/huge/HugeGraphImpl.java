@@ -21,6 +21,7 @@ package org.neo4j.graphalgo.core.huge;
 import org.neo4j.collection.primitive.PrimitiveLongIterable;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
 import org.neo4j.graphalgo.api.HugeRelationshipConsumer;
 import org.neo4j.graphalgo.api.HugeWeightedRelationshipConsumer;
 import org.neo4j.graphalgo.api.RelationshipIntersect;
@@ -28,6 +29,7 @@ import org.neo4j.graphalgo.api.HugeWeightMapping;
 import org.neo4j.graphalgo.api.RelationshipConsumer;
 import org.neo4j.graphalgo.api.WeightedRelationshipConsumer;
 import org.neo4j.graphalgo.core.huge.loader.HugeIdMap;
+import org.neo4j.graphalgo.core.huge.loader.HugeNullWeightMap;
 import org.neo4j.graphalgo.core.utils.RawValues;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphdb.Direction;
@@ -95,6 +97,9 @@ public class HugeGraphImpl implements HugeGraph {
     private HugeAdjacencyList.Cursor empty;
     private HugeAdjacencyList.Cursor inCache;
     private HugeAdjacencyList.Cursor outCache;
+    private HugeColumnarWeights columnarWeights;
+    private HugeAdjacencyList.WeightCursor inWeightCache;
+    private HugeAdjacencyList.WeightCursor outWeightCache;
     private boolean canRelease = true;
 
     public HugeGraphImpl(
@@ -117,6 +122,11 @@ public class HugeGraphImpl implements HugeGraph {
         inCache = newCursor(this.inAdjacency);
         outCache = newCursor(this.outAdjacency);
         empty = inCache == null ? newCursor(this.outAdjacency) : newCursor(this.inAdjacency);
+        if (weights instanceof HugeColumnarWeights) {
+            columnarWeights = (HugeColumnarWeights) weights;
+            inWeightCache = columnarWeights.newCursor(Direction.INCOMING);
+            outWeightCache = columnarWeights.newCursor(Direction.OUTGOING);
+        }
     }
 
     @Override
@@ -161,10 +171,7 @@ public class HugeGraphImpl implements HugeGraph {
 
     @Override
     public void forEachRelationship(long nodeId, Direction direction, HugeWeightedRelationshipConsumer consumer) {
-        forEachRelationship(nodeId, direction, (sourceNodeId, targetNodeId) ->
-                consumer.accept(sourceNodeId, targetNodeId, direction == Direction.INCOMING ?
-                        weightOf(targetNodeId, sourceNodeId) :
-                        weightOf(sourceNodeId, targetNodeId)));
+        runForEachWeighted(nodeId, direction, consumer);
     }
 
     @Override
@@ -305,8 +312,13 @@ public class HugeGraphImpl implements HugeGraph {
         return new HugeGraphIntersectImpl(outAdjacency, outOffsets);
     }
 
+    @Override
+    public HugeNeighbourCursor neighbourCursor(Direction direction) {
+        return new NeighbourCursor(direction);
+    }
+
     /**
-     * O(n) !
+     * O(log n) for nodes with skip pointers, O(n) otherwise.
      */
     @Override
     public boolean exists(int sourceNodeId, int targetNodeId, Direction direction) {
@@ -320,7 +332,7 @@ public class HugeGraphImpl implements HugeGraph {
     }
 
     /**
-     * O(n) !
+     * O(log n) for nodes with skip pointers, O(n) otherwise.
      */
     @Override
     public boolean exists(long sourceNodeId, long targetNodeId, Direction direction) {
@@ -334,13 +346,17 @@ public class HugeGraphImpl implements HugeGraph {
     }
 
     private boolean exists(long sourceNodeId, long targetNodeId, Direction direction, boolean reuseCursor) {
-        ExistsConsumer consumer = new ExistsConsumer(targetNodeId);
-        runForEach(sourceNodeId, direction, consumer, reuseCursor);
-        return consumer.found;
+        if (direction == Direction.BOTH) {
+            return exists(sourceNodeId, targetNodeId, Direction.OUTGOING, reuseCursor)
+                    || exists(sourceNodeId, targetNodeId, Direction.INCOMING, reuseCursor);
+        }
+        // targets are sorted, advance stops at the first target that is not smaller
+        HugeAdjacencyList.Cursor cursor = forEachCursor(sourceNodeId, direction, reuseCursor);
+        return cursor.hasNextVLong() && cursor.advance(targetNodeId) == targetNodeId;
     }
 
     /**
-     * O(n) !
+     * O(log n) for nodes with skip pointers, O(n) otherwise.
      */
     @Override
     public int getTarget(int nodeId, int index, Direction direction) {
@@ -354,7 +370,7 @@ public class HugeGraphImpl implements HugeGraph {
     }
 
     /*
-     * O(n) !
+     * O(log n) for nodes with skip pointers, O(n) otherwise.
      */
     @Override
     public long getTarget(long sourceNodeId, long index, Direction direction) {
@@ -368,9 +384,17 @@ public class HugeGraphImpl implements HugeGraph {
     }
 
     private long getTarget(long sourceNodeId, long index, Direction direction, boolean reuseCursor) {
-        GetTargetConsumer consumer = new GetTargetConsumer(index);
-        runForEach(sourceNodeId, direction, consumer, reuseCursor);
-        return consumer.target;
+        if (direction == Direction.BOTH) {
+            long outDegree = degree(sourceNodeId, Direction.OUTGOING);
+            return index < outDegree
+                    ? getTarget(sourceNodeId, index, Direction.OUTGOING, reuseCursor)
+                    : getTarget(sourceNodeId, index - outDegree, Direction.INCOMING, reuseCursor);
+        }
+        HugeAdjacencyList.Cursor cursor = forEachCursor(sourceNodeId, direction, reuseCursor);
+        if (index >= cursor.cost()) {
+            return -1L;
+        }
+        return cursor.targetAt((int) index);
     }
 
     private void runForEach(
@@ -387,6 +411,39 @@ public class HugeGraphImpl implements HugeGraph {
         consumeNodes(sourceNodeId, cursor, consumer);
     }
 
+    private void runForEachWeighted(
+            long sourceNodeId,
+            Direction direction,
+            HugeWeightedRelationshipConsumer consumer) {
+        if (direction == Direction.BOTH) {
+            runForEachWeighted(sourceNodeId, Direction.OUTGOING, consumer);
+            runForEachWeighted(sourceNodeId, Direction.INCOMING, consumer);
+            return;
+        }
+        HugeAdjacencyList.Cursor cursor = forEachCursor(sourceNodeId, direction, /* reuseCursor */ true);
+        if (cursor == empty) {
+            return;
+        }
+        if (columnarWeights == null) {
+            while (cursor.hasNextVLong()) {
+                long targetNodeId = cursor.nextVLong();
+                double weight = direction == Direction.INCOMING
+                        ? weightOf(targetNodeId, sourceNodeId)
+                        : weightOf(sourceNodeId, targetNodeId);
+                if (!consumer.accept(sourceNodeId, targetNodeId, weight)) {
+                    return;
+                }
+            }
+            return;
+        }
+        HugeAdjacencyList.WeightCursor weights = columnarWeights.cursor(
+                sourceNodeId,
+                direction,
+                direction == Direction.OUTGOING ? outWeightCache : inWeightCache);
+        //noinspection StatementWithEmptyBody
+        while (cursor.hasNextVLong() && consumer.accept(sourceNodeId, cursor.nextVLong(), weights.nextWeight())) ;
+    }
+
     private HugeAdjacencyList.Cursor forEachCursor(
             long sourceNodeId,
             Direction direction,
@@ -414,30 +471,87 @@ public class HugeGraphImpl implements HugeGraph {
     @Override
     public void release() {
         if (!canRelease) return;
+        releaseTopology();
+        for (final HugeWeightMapping nodeMapping : nodeProperties.values()) {
+            tracker.remove(nodeMapping.release());
+        }
+    }
+
+    /**
+     * Releases the adjacency and the relationship weights, but not the node properties,
+     * which might be shared with other graphs over the same nodes.
+     */
+    void releaseTopology() {
         if (inAdjacency != null) {
+            tracker.removeOffHeap(inAdjacency.offHeapMemory() + inOffsets.offHeapMemory());
             tracker.remove(inAdjacency.release());
             tracker.remove(inOffsets.release());
             inAdjacency = null;
             inOffsets = null;
         }
         if (outAdjacency != null) {
+            tracker.removeOffHeap(outAdjacency.offHeapMemory() + outOffsets.offHeapMemory());
             tracker.remove(outAdjacency.release());
             tracker.remove(outOffsets.release());
             outAdjacency = null;
             outOffsets = null;
         }
+        if (columnarWeights != null) {
+            tracker.removeOffHeap(columnarWeights.offHeapMemory());
+        }
         if (weights != null) {
             tracker.remove(weights.release());
         }
-        for (final HugeWeightMapping nodeMapping : nodeProperties.values()) {
-            tracker.remove(nodeMapping.release());
-        }
         empty = null;
         inCache = null;
         outCache = null;
+        inWeightCache = null;
+        outWeightCache = null;
+        columnarWeights = null;
         weights = null;
     }
 
+    /**
+     * Returns true if the relationships of the given direction have been loaded.
+     */
+    public boolean hasAdjacency(Direction direction) {
+        return adjacency(direction) != null;
+    }
+
+    /**
+     * Returns true if relationship weights have been loaded.
+     */
+    public boolean hasRelationshipWeights() {
+        return !(weights instanceof HugeNullWeightMap);
+    }
+
+    /**
+     * Returns the codec of the adjacency lists, or {@code null} if no relationships have been loaded.
+     */
+    public AdjacencyCodec adjacencyCodec() {
+        HugeAdjacencyList adjacency = outAdjacency != null ? outAdjacency : inAdjacency;
+        return adjacency != null ? adjacency.codec() : null;
+    }
+
+    HugeAdjacencyList adjacency(Direction direction) {
+        return direction == Direction.OUTGOING ? outAdjacency : inAdjacency;
+    }
+
+    HugeAdjacencyOffsets offsets(Direction direction) {
+        return direction == Direction.OUTGOING ? outOffsets : inOffsets;
+    }
+
+    /**
+     * Returns the relationship weights, which are columnar weights if they are stored along the adjacency.
+     */
+    public HugeWeightMapping relationshipWeights() {
+        return weights;
+    }
+
+    HugeColumnarWeights columnarWeights() {
+        return columnarWeights;
+    }
+
     private HugeAdjacencyList.Cursor newCursor(final HugeAdjacencyList adjacency) {
         return adjacency != null ? adjacency.newCursor() : null;
     }
@@ -506,39 +620,111 @@ public class HugeGraphImpl implements HugeGraph {
         };
     }
 
-    private static class GetTargetConsumer implements HugeRelationshipConsumer {
-        private long count;
-        private long target = -1;
+    /**
+     * Decodes the targets straight out of the compressed adjacency, block by block, and reads
+     * columnar weights alongside them. {@link Direction#BOTH} reads the outgoing targets first.
+     */
+    private final class NeighbourCursor implements HugeNeighbourCursor {
+        private final HugeAdjacencyList.Cursor outCursor;
+        private final HugeAdjacencyList.Cursor inCursor;
+        private final HugeAdjacencyList.WeightCursor outWeightCursor;
+        private final HugeAdjacencyList.WeightCursor inWeightCursor;
+        private final boolean readOutgoing;
+        private final boolean readIncoming;
+
+        private long nodeId;
+        private HugeAdjacencyList.Cursor cursor;
+        private HugeAdjacencyList.WeightCursor weightCursor;
+        private boolean incoming;
+        private boolean incomingNext;
+
+        private NeighbourCursor(Direction direction) {
+            readOutgoing = direction != Direction.INCOMING && outAdjacency != null;
+            readIncoming = direction != Direction.OUTGOING && inAdjacency != null;
+            outCursor = readOutgoing ? outAdjacency.newCursor() : null;
+            inCursor = readIncoming ? inAdjacency.newCursor() : null;
+            outWeightCursor = readOutgoing && columnarWeights != null ? columnarWeights.newCursor(Direction.OUTGOING) : null;
+            inWeightCursor = readIncoming && columnarWeights != null ? columnarWeights.newCursor(Direction.INCOMING) : null;
+        }
 
-        public GetTargetConsumer(long count) {
-            this.count = count;
+        @Override
+        public int init(long nodeId) {
+            this.nodeId = nodeId;
+            cursor = null;
+            int degree = 0;
+            if (readOutgoing) {
+                degree += degree(nodeId, outOffsets, outAdjacency);
+                position(false);
+            }
+            if (readIncoming) {
+                degree += degree(nodeId, inOffsets, inAdjacency);
+                if (readOutgoing) {
+                    incomingNext = true;
+                } else {
+                    position(true);
+                }
+            }
+            return degree;
         }
 
         @Override
-        public boolean accept(long s, long t) {
-            if (count-- == 0) {
-                target = t;
-                return false;
+        public int next(long[] targets) {
+            int count = nextTargets(targets);
+            if (weightCursor != null) {
+                weightCursor.skip(count);
             }
-            return true;
+            return count;
         }
-    }
 
-    private static class ExistsConsumer implements HugeRelationshipConsumer {
-        private final long targetNodeId;
-        private boolean found = false;
+        @Override
+        public int next(long[] targets, double[] weights) {
+            int count = nextTargets(targets);
+            if (weightCursor != null) {
+                weightCursor.nextWeights(weights, count);
+            } else if (incoming) {
+                for (int i = 0; i < count; i++) {
+                    weights[i] = weightOf(targets[i], nodeId);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    weights[i] = weightOf(nodeId, targets[i]);
+                }
+            }
+            return count;
+        }
 
-        public ExistsConsumer(long targetNodeId) {
-            this.targetNodeId = targetNodeId;
+        private int nextTargets(long[] targets) {
+            while (true) {
+                if (cursor != null) {
+                    int count = cursor.nextTargets(targets);
+                    if (count > 0) {
+                        return count;
+                    }
+                }
+                if (!incomingNext) {
+                    return 0;
+                }
+                position(true);
+            }
         }
 
-        @Override
-        public boolean accept(long s, long t) {
-            if (t == targetNodeId) {
-                found = true;
-                return false;
+        private void position(boolean incoming) {
+            this.incoming = incoming;
+            incomingNext = false;
+            HugeAdjacencyOffsets offsets = incoming ? inOffsets : outOffsets;
+            long offset = offsets.get(nodeId);
+            if (offset == 0L) {
+                cursor = null;
+                weightCursor = null;
+                return;
             }
-            return true;
+            cursor = incoming
+                    ? inAdjacency.deltaCursor(inCursor, offset)
+                    : outAdjacency.deltaCursor(outCursor, offset);
+            HugeAdjacencyList.WeightCursor weights = incoming ? inWeightCursor : outWeightCursor;
+            weightCursor = weights != null
+                    ? columnarWeights.cursor(nodeId, incoming ? Direction.INCOMING : Direction.OUTGOING, weights)
+                    : null;
         }
     }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import com.carrotsearch.hppc.LongArrayList;
+
+/**
+ * The changes of a single committed transaction that are relevant for a maintained graph.
+ * All ids are the original node ids of the database, relationships are stored as pairs of source and target.
+ */
+public final class HugeGraphUpdates {
+
+    private final LongArrayList createdNodes = new LongArrayList();
+    private final LongArrayList deletedNodes = new LongArrayList();
+    private final LongArrayList createdRelationships = new LongArrayList();
+    private final LongArrayList deletedRelationships = new LongArrayList();
+
+    public void createNode(long nodeId) {
+        createdNodes.add(nodeId);
+    }
+
+    public void deleteNode(long nodeId) {
+        deletedNodes.add(nodeId);
+    }
+
+    public void createRelationship(long sourceNodeId, long targetNodeId) {
+        createdRelationships.add(sourceNodeId, targetNodeId);
+    }
+
+    public void deleteRelationship(long sourceNodeId, long targetNodeId) {
+        deletedRelationships.add(sourceNodeId, targetNodeId);
+    }
+
+    public boolean isEmpty() {
+        return createdNodes.isEmpty()
+                && deletedNodes.isEmpty()
+                && createdRelationships.isEmpty()
+                && deletedRelationships.isEmpty();
+    }
+
+    long[] createdNodes() {
+        return createdNodes.toArray();
+    }
+
+    long[] deletedNodes() {
+        return deletedNodes.toArray();
+    }
+
+    long[] createdRelationships() {
+        return createdRelationships.toArray();
+    }
+
+    long[] deletedRelationships() {
+        return deletedRelationships.toArray();
+    }
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.neo4j.collection.primitive.PrimitiveLongIterable;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
+import org.neo4j.graphalgo.api.HugeRelationshipConsumer;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.api.HugeWeightedRelationshipConsumer;
+import org.neo4j.graphalgo.api.RelationshipConsumer;
+import org.neo4j.graphalgo.api.RelationshipIntersect;
+import org.neo4j.graphalgo.api.WeightedRelationshipConsumer;
+import org.neo4j.graphdb.Direction;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * A {@link HugeGraph} that has been loaded with more than one relationship type.
+ * <p>
+ * All types share the same id mapping and node properties, but every type has its own adjacency lists,
+ * offsets and weights. The graph itself behaves like the union of all types, i.e. a relationship that
+ * exists for two types is visited twice.
+ * Use {@link #relationshipTypes(String...)} to get a view on a subset of the types, which
+ * does not copy any of the underlying data.
+ * <p>
+ * Like {@link HugeGraphImpl}, the {@code long} based iteration methods are not thread-safe,
+ * use {@link #concurrentCopy()} to get an instance for every thread.
+ */
+public final class HugeMultiGraph implements HugeGraph {
+
+    private final String[] types;
+    private final HugeGraphImpl[] graphs;
+    private final StoppingConsumer stopping = new StoppingConsumer();
+    private final StoppingWeightedConsumer stoppingWeighted = new StoppingWeightedConsumer();
+    private boolean canRelease = true;
+
+    public HugeMultiGraph(String[] types, HugeGraphImpl[] graphs) {
+        if (types.length != graphs.length || graphs.length == 0) {
+            throw new IllegalArgumentException("Expected one graph for each of the types " + Arrays.toString(types));
+        }
+        this.types = types;
+        this.graphs = graphs;
+    }
+
+    /**
+     * Returns the relationship types of this graph, in load order.
+     */
+    public String[] relationshipTypes() {
+        return types.clone();
+    }
+
+    /**
+     * Returns a graph that only contains the relationships of the given types.
+     * The view shares all data with this graph and releasing it has no effect.
+     *
+     * @throws IllegalArgumentException if any of the types has not been loaded into this graph
+     */
+    public HugeGraph relationshipTypes(String... relationshipTypes) {
+        if (relationshipTypes.length == 0) {
+            throw new IllegalArgumentException("At least one relationship type is required");
+        }
+        HugeGraphImpl[] selected = new HugeGraphImpl[relationshipTypes.length];
+        for (int i = 0; i < relationshipTypes.length; i++) {
+            selected[i] = graphs[indexOf(relationshipTypes[i])];
+        }
+        if (selected.length == 1) {
+            HugeGraph view = selected[0].concurrentCopy();
+            view.canRelease(false);
+            return view;
+        }
+        HugeGraphImpl[] copies = new HugeGraphImpl[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            copies[i] = (HugeGraphImpl) selected[i].concurrentCopy();
+        }
+        HugeMultiGraph view = new HugeMultiGraph(relationshipTypes.clone(), copies);
+        view.canRelease(false);
+        return view;
+    }
+
+    private int indexOf(String relationshipType) {
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].equals(relationshipType)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException(String.format(
+                "Relationship type '%s' has not been loaded, available types are %s",
+                relationshipType,
+                Arrays.toString(types)));
+    }
+
+    @Override
+    public long nodeCount() {
+        return graphs[0].nodeCount();
+    }
+
+    @Override
+    public Collection<PrimitiveLongIterable> hugeBatchIterables(final int batchSize) {
+        return graphs[0].hugeBatchIterables(batchSize);
+    }
+
+    @Override
+    public void forEachNode(LongPredicate consumer) {
+        graphs[0].forEachNode(consumer);
+    }
+
+    @Override
+    public PrimitiveLongIterator hugeNodeIterator() {
+        return graphs[0].hugeNodeIterator();
+    }
+
+    @Override
+    public long toHugeMappedNodeId(long nodeId) {
+        return graphs[0].toHugeMappedNodeId(nodeId);
+    }
+
+    @Override
+    public long toOriginalNodeId(long nodeId) {
+        return graphs[0].toOriginalNodeId(nodeId);
+    }
+
+    @Override
+    public boolean contains(final long nodeId) {
+        return graphs[0].contains(nodeId);
+    }
+
+    @Override
+    public HugeWeightMapping hugeNodeProperties(final String type) {
+        return graphs[0].hugeNodeProperties(type);
+    }
+
+    @Override
+    public Set<String> availableNodeProperties() {
+        return graphs[0].availableNodeProperties();
+    }
+
+    /**
+     * Returns the first weight of the relationship that differs from the default weight, in load order,
+     * or the default weight if no type has such a weight.
+     * Weights are looked up directly, without checking first which of the types contain the relationship,
+     * which is why weights that equal the default, and {@code NaN} weights, are skipped.
+     */
+    @Override
+    public double weightOf(final long sourceNodeId, final long targetNodeId) {
+        for (HugeGraphImpl graph : graphs) {
+            double weight = graph.relationshipWeights().weight(sourceNodeId, targetNodeId, Double.NaN);
+            if (!Double.isNaN(weight)) {
+                return weight;
+            }
+        }
+        return graphs[0].relationshipWeights().defaultValue();
+    }
+
+    @Override
+    public int degree(final long node, final Direction direction) {
+        int degree = 0;
+        for (HugeGraphImpl graph : graphs) {
+            degree += graph.degree(node, direction);
+        }
+        return degree;
+    }
+
+    @Override
+    public void forEachRelationship(long nodeId, Direction direction, HugeRelationshipConsumer consumer) {
+        StoppingConsumer stopping = this.stopping.reset(consumer);
+        for (HugeGraphImpl graph : graphs) {
+            graph.forEachRelationship(nodeId, direction, stopping);
+            if (stopping.stopped) {
+                break;
+            }
+        }
+        stopping.reset(null);
+    }
+
+    @Override
+    public void forEachRelationship(long nodeId, Direction direction, HugeWeightedRelationshipConsumer consumer) {
+        StoppingWeightedConsumer stopping = this.stoppingWeighted.reset(consumer);
+        for (HugeGraphImpl graph : graphs) {
+            graph.forEachRelationship(nodeId, direction, stopping);
+            if (stopping.stopped) {
+                break;
+            }
+        }
+        stopping.reset(null);
+    }
+
+    @Override
+    public void forEachIncoming(long node, HugeRelationshipConsumer consumer) {
+        forEachRelationship(node, Direction.INCOMING, consumer);
+    }
+
+    @Override
+    public void forEachOutgoing(long node, HugeRelationshipConsumer consumer) {
+        forEachRelationship(node, Direction.OUTGOING, consumer);
+    }
+
+    @Override
+    public void forEachRelationship(int nodeId, Direction direction, RelationshipConsumer consumer) {
+        for (HugeGraphImpl graph : graphs) {
+            graph.forEachRelationship(nodeId, direction, consumer);
+        }
+    }
+
+    @Override
+    public void forEachRelationship(int nodeId, Direction direction, WeightedRelationshipConsumer consumer) {
+        for (HugeGraphImpl graph : graphs) {
+            graph.forEachRelationship(nodeId, direction, consumer);
+        }
+    }
+
+    @Override
+    public void forEachIncoming(int nodeId, RelationshipConsumer consumer) {
+        for (HugeGraphImpl graph : graphs) {
+            graph.forEachIncoming(nodeId, consumer);
+        }
+    }
+
+    @Override
+    public void forEachOutgoing(int nodeId, RelationshipConsumer consumer) {
+        for (HugeGraphImpl graph : graphs) {
+            graph.forEachOutgoing(nodeId, consumer);
+        }
+    }
+
+    @Override
+    public boolean exists(int sourceNodeId, int targetNodeId, Direction direction) {
+        for (HugeGraphImpl graph : graphs) {
+            if (graph.exists(sourceNodeId, targetNodeId, direction)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean exists(long sourceNodeId, long targetNodeId, Direction direction) {
+        for (HugeGraphImpl graph : graphs) {
+            if (graph.exists(sourceNodeId, targetNodeId, direction)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * O(n) !
+     */
+    @Override
+    public int getTarget(int nodeId, int index, Direction direction) {
+        return Math.toIntExact(getTarget(
+                Integer.toUnsignedLong(nodeId),
+                Integer.toUnsignedLong(index),
+                direction));
+    }
+
+    /**
+     * O(n) ! Indices run through the relationships of all types, in the order of the types.
+     */
+    @Override
+    public long getTarget(long nodeId, long index, Direction direction) {
+        long remaining = index;
+        for (HugeGraphImpl graph : graphs) {
+            int degree = graph.degree(nodeId, direction);
+            if (remaining < degree) {
+                return graph.getTarget(nodeId, remaining, direction);
+            }
+            remaining -= degree;
+        }
+        return -1L;
+    }
+
+    @Override
+    public HugeGraph concurrentCopy() {
+        HugeGraphImpl[] copies = new HugeGraphImpl[graphs.length];
+        for (int i = 0; i < graphs.length; i++) {
+            copies[i] = (HugeGraphImpl) graphs[i].concurrentCopy();
+        }
+        return new HugeMultiGraph(types, copies);
+    }
+
+    /**
+     * Returns a cursor that reads the neighbours of all types one after the other, in load order.
+     */
+    @Override
+    public HugeNeighbourCursor neighbourCursor(Direction direction) {
+        HugeNeighbourCursor[] cursors = new HugeNeighbourCursor[graphs.length];
+        for (int i = 0; i < graphs.length; i++) {
+            cursors[i] = graphs[i].neighbourCursor(direction);
+        }
+        return new MultiNeighbourCursor(cursors);
+    }
+
+    /**
+     * Intersects the union of the outgoing relationships of all types.
+     * A neighbour that is connected by more than one type takes part in the intersection only once.
+     */
+    @Override
+    public RelationshipIntersect intersection() {
+        HugeNeighbourCursor[] cursors = new HugeNeighbourCursor[graphs.length];
+        for (int i = 0; i < graphs.length; i++) {
+            cursors[i] = graphs[i].neighbourCursor(Direction.OUTGOING);
+        }
+        return new MultiIntersect(cursors);
+    }
+
+    @Override
+    public void canRelease(boolean canRelease) {
+        this.canRelease = canRelease;
+    }
+
+    @Override
+    public void release() {
+        if (!canRelease) return;
+        for (int i = 1; i < graphs.length; i++) {
+            graphs[i].releaseTopology();
+        }
+        // releases the shared node properties as well
+        graphs[0].release();
+    }
+
+    private static final class MultiNeighbourCursor implements HugeNeighbourCursor {
+        private final HugeNeighbourCursor[] cursors;
+        private int current;
+
+        private MultiNeighbourCursor(HugeNeighbourCursor[] cursors) {
+            this.cursors = cursors;
+        }
+
+        @Override
+        public int init(long nodeId) {
+            int degree = 0;
+            for (HugeNeighbourCursor cursor : cursors) {
+                degree += cursor.init(nodeId);
+            }
+            current = 0;
+            return degree;
+        }
+
+        @Override
+        public int next(long[] targets) {
+            for (; current < cursors.length; current++) {
+                int count = cursors[current].next(targets);
+                if (count > 0) {
+                    return count;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public int next(long[] targets, double[] weights) {
+            for (; current < cursors.length; current++) {
+                int count = cursors[current].next(targets, weights);
+                if (count > 0) {
+                    return count;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Merges the sorted adjacency lists of all types into one sorted list without duplicates.
+     */
+    private static final class MultiIntersect extends SortedNeighbourIntersect {
+        private final HugeNeighbourCursor[] cursors;
+        private final int[] runEnds;
+        private final int[] heads;
+        private final long[] batch;
+        private long[] runs;
+
+        private MultiIntersect(HugeNeighbourCursor[] cursors) {
+            this.cursors = cursors;
+            this.runEnds = new int[cursors.length];
+            this.heads = new int[cursors.length];
+            this.batch = new long[HugeNeighbourCursor.BATCH_SIZE];
+            this.runs = new long[0];
+        }
+
+        /**
+         * Decodes the sorted targets of every type one after the other and merges those runs.
+         */
+        @Override
+        long[] neighbours(long nodeId, long[] into) {
+            int degree = 0;
+            for (HugeNeighbourCursor cursor : cursors) {
+                degree += cursor.init(nodeId);
+            }
+            if (runs.length < degree) {
+                runs = new long[degree];
+            }
+            if (into.length < degree) {
+                into = new long[degree];
+            }
+            long[] runs = this.runs;
+            int end = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                heads[i] = end;
+                int count;
+                while ((count = cursors[i].next(batch)) > 0) {
+                    System.arraycopy(batch, 0, runs, end, count);
+                    end += count;
+                }
+                runEnds[i] = end;
+            }
+            int length = 0;
+            while (true) {
+                int min = -1;
+                long minTarget = Long.MAX_VALUE;
+                for (int i = 0; i < heads.length; i++) {
+                    if (heads[i] < runEnds[i] && runs[heads[i]] < minTarget) {
+                        min = i;
+                        minTarget = runs[heads[i]];
+                    }
+                }
+                if (min == -1) {
+                    break;
+                }
+                heads[min]++;
+                if (length == 0 || into[length - 1] != minTarget) {
+                    into[length++] = minTarget;
+                }
+            }
+            this.length = length;
+            return into;
+        }
+    }
+
+    private static final class StoppingConsumer implements HugeRelationshipConsumer {
+        private HugeRelationshipConsumer delegate;
+        private boolean stopped;
+
+        private StoppingConsumer reset(HugeRelationshipConsumer delegate) {
+            this.delegate = delegate;
+            this.stopped = false;
+            return this;
+        }
+
+        @Override
+        public boolean accept(long sourceNodeId, long targetNodeId) {
+            if (delegate.accept(sourceNodeId, targetNodeId)) {
+                return true;
+            }
+            stopped = true;
+            return false;
+        }
+    }
+
+    private static final class StoppingWeightedConsumer implements HugeWeightedRelationshipConsumer {
+        private HugeWeightedRelationshipConsumer delegate;
+        private boolean stopped;
+
+        private StoppingWeightedConsumer reset(HugeWeightedRelationshipConsumer delegate) {
+            this.delegate = delegate;
+            this.stopped = false;
+            return this;
+        }
+
+        @Override
+        public boolean accept(long sourceNodeId, long targetNodeId, double weight) {
+            if (delegate.accept(sourceNodeId, targetNodeId, weight)) {
+                return true;
+            }
+            stopped = true;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.neo4j.collection.primitive.PrimitiveLongIterable;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
+import org.neo4j.graphalgo.api.HugeRelationshipConsumer;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.api.HugeWeightedRelationshipConsumer;
+import org.neo4j.graphalgo.api.RelationshipConsumer;
+import org.neo4j.graphalgo.api.RelationshipIntersect;
+import org.neo4j.graphalgo.api.WeightedRelationshipConsumer;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphCompaction;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.LongPredicate;
+
+/**
+ * A named graph that is kept up to date with committed transactions.
+ * <p>
+ * Changes are applied to a {@link HugeDeltaGraph} overlay. Once the overlay holds more than a threshold
+ * of changes, it is compacted in the background into a new base graph, changes that are committed in the
+ * meantime are applied again on top of the new base. {@link #snapshot()} returns the latest version,
+ * which does not change while an algorithm is running on it.
+ * <p>
+ * A failed background compaction is logged and returned by {@link #compactionFailure()}. No further
+ * compactions are started in the background until {@link #compact()} has succeeded, the changes keep
+ * being applied to the overlay in the meantime.
+ * All other methods delegate to the latest version at the time of the call.
+ */
+public final class IncrementalHugeGraph implements HugeGraph {
+
+    private final AllocationTracker tracker;
+    private final long compactionThreshold;
+    private final Executor executor;
+    private final Log log;
+    private final List<HugeGraphUpdates> pending = new ArrayList<>();
+
+    private volatile HugeDeltaGraph current;
+    private Runnable onClose;
+    private boolean compacting;
+    private boolean canRelease = true;
+    private long compactions;
+    private long baseBytes;
+    private long baseOffHeapBytes;
+    private RuntimeException compactionFailure;
+
+    /**
+     * @param tracker             the tracker that has been used to load {@code base}, compacted graphs replace its memory
+     * @param compactionThreshold the number of changes after which the overlay is compacted
+     * @param executor            runs the compactions
+     * @param log                 logs failed background compactions
+     */
+    public IncrementalHugeGraph(
+            HugeGraphImpl base,
+            boolean undirected,
+            AllocationTracker tracker,
+            long compactionThreshold,
+            Executor executor,
+            Log log) {
+        this.current = HugeDeltaGraph.of(base, undirected);
+        this.tracker = tracker;
+        this.compactionThreshold = compactionThreshold;
+        this.executor = executor;
+        this.log = log;
+        this.baseBytes = tracker.tracked();
+        this.baseOffHeapBytes = tracker.trackedOffHeap();
+    }
+
+    /**
+     * Sets an action that is run once, when the graph is released or is no longer maintained.
+     */
+    public synchronized void onClose(Runnable onClose) {
+        this.onClose = onClose;
+    }
+
+    /**
+     * Stops maintaining the graph, the latest version stays available.
+     */
+    public synchronized void close() {
+        if (onClose != null) {
+            Runnable close = onClose;
+            onClose = null;
+            close.run();
+        }
+    }
+
+    /**
+     * Returns the latest version of the graph.
+     */
+    public HugeDeltaGraph snapshot() {
+        return current;
+    }
+
+    public synchronized void apply(HugeGraphUpdates updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+        current = current.apply(updates);
+        if (compacting) {
+            pending.add(updates);
+        } else if (compactionFailure == null && current.changes() >= compactionThreshold) {
+            compacting = true;
+            HugeDeltaGraph toCompact = current;
+            executor.execute(() -> compactInBackground(toCompact));
+        }
+    }
+
+    /**
+     * Compacts all changes that have been applied so far, unless a compaction is running already.
+     * Resumes the background compactions after a failure.
+     */
+    public void compact() {
+        HugeDeltaGraph toCompact;
+        synchronized (this) {
+            if (compacting || current.changes() == 0L) {
+                return;
+            }
+            compacting = true;
+            toCompact = current;
+        }
+        compact(toCompact);
+    }
+
+    /**
+     * Returns the exception of the last background compaction if it failed, {@code null} otherwise.
+     */
+    public synchronized RuntimeException compactionFailure() {
+        return compactionFailure;
+    }
+
+    private void compactInBackground(HugeDeltaGraph toCompact) {
+        try {
+            compact(toCompact);
+        } catch (RuntimeException e) {
+            log.error("Compaction of an incrementally maintained graph failed, the changes stay in the overlay", e);
+            synchronized (this) {
+                compactionFailure = e;
+            }
+        }
+    }
+
+    private void compact(HugeDeltaGraph toCompact) {
+        AllocationTracker compactionTracker = new AllocationTracker();
+        HugeGraphImpl base;
+        try {
+            base = HugeGraphCompaction.compact(toCompact, compactionTracker);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                compacting = false;
+                pending.clear();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            compactionFailure = null;
+            base.canRelease(canRelease);
+            HugeDeltaGraph next = HugeDeltaGraph.of(base, toCompact.isUndirected());
+            for (HugeGraphUpdates updates : pending) {
+                next = next.apply(updates);
+            }
+            pending.clear();
+            current = next;
+            compacting = false;
+            ++compactions;
+
+            // the previous base is not released, algorithms might still be running on it
+            tracker.remove(baseBytes);
+            tracker.removeOffHeap(baseOffHeapBytes);
+            baseBytes = compactionTracker.tracked();
+            baseOffHeapBytes = compactionTracker.trackedOffHeap();
+            tracker.add(baseBytes);
+            tracker.addOffHeap(baseOffHeapBytes);
+        }
+    }
+
+    /**
+     * Returns the number of changes that have not been compacted yet.
+     */
+    public long pendingChanges() {
+        return current.changes();
+    }
+
+    public synchronized long compactions() {
+        return compactions;
+    }
+
+    @Override
+    public long nodeCount() {
+        return current.nodeCount();
+    }
+
+    @Override
+    public Collection<PrimitiveLongIterable> hugeBatchIterables(int batchSize) {
+        return current.hugeBatchIterables(batchSize);
+    }
+
+    @Override
+    public void forEachNode(LongPredicate consumer) {
+        current.forEachNode(consumer);
+    }
+
+    @Override
+    public PrimitiveLongIterator hugeNodeIterator() {
+        return current.hugeNodeIterator();
+    }
+
+    @Override
+    public long toHugeMappedNodeId(long nodeId) {
+        return current.toHugeMappedNodeId(nodeId);
+    }
+
+    @Override
+    public long toOriginalNodeId(long nodeId) {
+        return current.toOriginalNodeId(nodeId);
+    }
+
+    @Override
+    public boolean contains(long nodeId) {
+        return current.contains(nodeId);
+    }
+
+    @Override
+    public HugeWeightMapping hugeNodeProperties(String type) {
+        return current.hugeNodeProperties(type);
+    }
+
+    @Override
+    public Set<String> availableNodeProperties() {
+        return current.availableNodeProperties();
+    }
+
+    @Override
+    public double weightOf(long sourceNodeId, long targetNodeId) {
+        return current.weightOf(sourceNodeId, targetNodeId);
+    }
+
+    @Override
+    public int degree(long nodeId, Direction direction) {
+        return current.degree(nodeId, direction);
+    }
+
+    @Override
+    public void forEachRelationship(long nodeId, Direction direction, HugeRelationshipConsumer consumer) {
+        current.forEachRelationship(nodeId, direction, consumer);
+    }
+
+    @Override
+    public void forEachRelationship(long nodeId, Direction direction, HugeWeightedRelationshipConsumer consumer) {
+        current.forEachRelationship(nodeId, direction, consumer);
+    }
+
+    @Override
+    public void forEachRelationship(int nodeId, Direction direction, RelationshipConsumer consumer) {
+        current.forEachRelationship(nodeId, direction, consumer);
+    }
+
+    @Override
+    public void forEachRelationship(int nodeId, Direction direction, WeightedRelationshipConsumer consumer) {
+        current.forEachRelationship(nodeId, direction, consumer);
+    }
+
+    @Override
+    public boolean exists(int sourceNodeId, int targetNodeId, Direction direction) {
+        return current.exists(sourceNodeId, targetNodeId, direction);
+    }
+
+    @Override
+    public boolean exists(long sourceNodeId, long targetNodeId, Direction direction) {
+        return current.exists(sourceNodeId, targetNodeId, direction);
+    }
+
+    @Override
+    public int getTarget(int nodeId, int index, Direction direction) {
+        return current.getTarget(nodeId, index, direction);
+    }
+
+    @Override
+    public long getTarget(long nodeId, long index, Direction direction) {
+        return current.getTarget(nodeId, index, direction);
+    }
+
+    @Override
+    public HugeGraph concurrentCopy() {
+        return current.concurrentCopy();
+    }
+
+    @Override
+    public HugeNeighbourCursor neighbourCursor(Direction direction) {
+        return current.neighbourCursor(direction);
+    }
+
+    @Override
+    public RelationshipIntersect intersection() {
+        return current.intersection();
+    }
+
+    /**
+     * Graphs are released together with the maintenance, versions that have been replaced by a compaction
+     * are left to the garbage collector, since algorithms might still be running on them.
+     */
+    @Override
+    public synchronized void canRelease(boolean canRelease) {
+        this.canRelease = canRelease;
+        current.canRelease(canRelease);
+    }
+
+    @Override
+    public synchronized void release() {
+        close();
+        current.release();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+/**
+ * Selects how the nodes of a huge graph are numbered once all relationships have been loaded.
+ * <p>
+ * By default, nodes keep the order in which they have been scanned from the store.
+ * The other orders renumber the nodes so that nodes which are traversed together get ids that are close to each other,
+ * which leads to smaller deltas in the adjacency lists and fewer cache misses when accessing per-node arrays.
+ */
+public enum NodeOrder {
+    /**
+     * Nodes keep the order of the store scan.
+     */
+    NONE,
+    /**
+     * Nodes are ordered by their degree, highest degree first, so that the hubs share a few pages of every per-node array.
+     */
+    DEGREE,
+    /**
+     * Nodes are numbered in the order of a breadth first traversal, starting a new traversal for every connected component.
+     */
+    BFS,
+    /**
+     * Nodes are numbered by the reverse Cuthill-McKee order, a breadth first traversal that starts at a node
+     * of low degree and visits neighbours by increasing degree, which keeps the ids of most neighbours close together.
+     */
+    RCM,
+    /**
+     * Nodes are grouped by the communities that a few rounds of label propagation find, so that densely connected
+     * nodes get consecutive ids.
+     */
+    LABEL_PROPAGATION;
+
+    public static NodeOrder parse(String order) {
+        return order == null ? NONE : valueOf(order.toUpperCase().replace('-', '_'));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import java.nio.ByteBuffer;
+
+import static org.neo4j.graphalgo.core.utils.paged.PageUtil.indexInPage;
+import static org.neo4j.graphalgo.core.utils.paged.PageUtil.pageIndex;
+
+/**
+ * Decodes adjacency lists from off-heap pages.
+ * <p>
+ * Every block is copied from the page into a small heap window and decoded from there with the same
+ * decoders that are used for heap pages, a single bulk copy per block is cheaper than reading the
+ * page byte by byte through the buffer.
+ */
+final class OffHeapAdjacencyDecompression extends AdjacencyDecompression {
+
+    // a block of vlongs takes at most 10 bytes per value, a packed block at most 1 + 2 * 10 + 8 * (BLOCK_SIZE - 1)
+    static final int WINDOW_SIZE = 10 * CHUNK_SIZE + 64;
+
+    private final ByteBuffer[] buffers;
+    private final byte[] window;
+    private ByteBuffer buffer;
+    private ByteBuffer view;
+
+    OffHeapAdjacencyDecompression(ByteBuffer[] buffers, AdjacencyCodec codec) {
+        super(null, codec);
+        this.buffers = buffers;
+        this.window = new byte[WINDOW_SIZE];
+        this.array = window;
+    }
+
+    @Override
+    void copyFrom(AdjacencyDecompression other) {
+        super.copyFrom(other);
+        array = window;
+        select(((OffHeapAdjacencyDecompression) other).buffer);
+    }
+
+    @Override
+    int reset(long index) {
+        ByteBuffer buffer = buffers[pageIndex(index, HugeAdjacencyList.PAGE_SHIFT)];
+        int offset = indexInPage(index, HugeAdjacencyList.PAGE_MASK);
+        select(buffer);
+        return start(buffer.getInt(offset), offset);
+    }
+
+    /**
+     * Selects the page that the following blocks are read from.
+     */
+    void select(ByteBuffer buffer) {
+        if (this.buffer != buffer) {
+            this.buffer = buffer;
+            // a private view, so that the shared buffer is only ever read with absolute reads
+            this.view = buffer == null ? null : buffer.duplicate();
+        }
+    }
+
+    @Override
+    int load(int offset) {
+        ByteBuffer view = this.view;
+        view.limit(Math.min(view.capacity(), offset + WINDOW_SIZE)).position(offset);
+        view.get(window, 0, view.remaining());
+        return 0;
+    }
+}
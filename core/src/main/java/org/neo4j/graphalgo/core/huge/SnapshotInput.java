@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffered, little-endian sequential reader for graph snapshots.
+ * Large arrays and pages are read straight from the file channel, or are mapped into memory
+ * with {@link #map(int)} without being copied at all.
+ */
+public final class SnapshotInput implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final long MAP_WINDOW = 1L << 28;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final ByteBuffer buffer;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+
+    public static SnapshotInput open(Path file) throws IOException {
+        return new SnapshotInput(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    private SnapshotInput(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.buffer.limit(0);
+    }
+
+    public byte readByte() throws IOException {
+        ensure(Byte.BYTES);
+        return buffer.get();
+    }
+
+    public int readInt() throws IOException {
+        ensure(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        ensure(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    public double readDouble() throws IOException {
+        ensure(Double.BYTES);
+        return buffer.getDouble();
+    }
+
+    public String readString() throws IOException {
+        byte[] bytes = new byte[readInt()];
+        readBytes(bytes, 0, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public void readBytes(byte[] array, int offset, int length) throws IOException {
+        int buffered = Math.min(length, buffer.remaining());
+        buffer.get(array, offset, buffered);
+        if (buffered < length) {
+            readFully(ByteBuffer.wrap(array, offset + buffered, length - buffered));
+        }
+    }
+
+    public void readLongs(long[] array, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(Long.BYTES);
+            int chunk = Math.min(length, buffer.remaining() >>> 3);
+            buffer.asLongBuffer().get(array, offset, chunk);
+            buffer.position(buffer.position() + (chunk << 3));
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Maps the next {@code length} bytes read-only into memory and skips over them.
+     * The returned buffer is little-endian and stays valid after this input has been closed.
+     */
+    public ByteBuffer map(int length) throws IOException {
+        long position = position();
+        if (window == null || position < windowStart || position + length > windowStart + window.capacity()) {
+            long size = Math.min(Math.max(MAP_WINDOW, length), fileSize - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            windowStart = position;
+        }
+        ByteBuffer mapped = window.duplicate();
+        int start = (int) (position - windowStart);
+        mapped.position(start).limit(start + length);
+        skip(length);
+        return mapped.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public void skip(long bytes) throws IOException {
+        if (bytes <= buffer.remaining()) {
+            buffer.position(buffer.position() + (int) bytes);
+            return;
+        }
+        long target = position() + bytes;
+        if (target > fileSize) {
+            throw new EOFException();
+        }
+        buffer.limit(0);
+        channel.position(target);
+    }
+
+    private long position() throws IOException {
+        return channel.position() - buffer.remaining();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+    }
+
+    private void readFully(ByteBuffer into) throws IOException {
+        while (into.hasRemaining()) {
+            if (channel.read(into) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
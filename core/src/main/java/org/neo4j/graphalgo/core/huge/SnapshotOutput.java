@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffered, little-endian sequential writer for graph snapshots.
+ * Large arrays and pages bypass the buffer and are written straight to the file channel.
+ * <p>
+ * All bytes are written to a temporary file next to the target, which only replaces the target
+ * once the snapshot is {@link #commit() committed}. An existing snapshot, which might still be mapped
+ * by a restored graph, is never truncated or partially overwritten.
+ */
+public final class SnapshotOutput implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path file;
+    private final Path temp;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long written;
+    private boolean committed;
+
+    public static SnapshotOutput create(Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+        return new SnapshotOutput(absolute, temp, channel);
+    }
+
+    private SnapshotOutput(Path file, Path temp, FileChannel channel) {
+        this.file = file;
+        this.temp = temp;
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public void writeByte(int value) throws IOException {
+        ensure(Byte.BYTES);
+        buffer.put((byte) value);
+    }
+
+    public void writeInt(int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    public void writeDouble(double value) throws IOException {
+        ensure(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    public void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    public void writeBytes(byte[] array, int offset, int length) throws IOException {
+        if (length <= buffer.remaining()) {
+            buffer.put(array, offset, length);
+            return;
+        }
+        flush();
+        writeFully(ByteBuffer.wrap(array, offset, length));
+    }
+
+    /**
+     * Writes the remaining bytes of {@code bytes} without changing its position.
+     */
+    public void writeBuffer(ByteBuffer bytes) throws IOException {
+        flush();
+        writeFully(bytes.duplicate());
+    }
+
+    public void writeLongs(long[] array, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensure(Long.BYTES);
+            int chunk = Math.min(length, buffer.remaining() >>> 3);
+            buffer.asLongBuffer().put(array, offset, chunk);
+            buffer.position(buffer.position() + (chunk << 3));
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Returns the number of bytes that have been written so far.
+     */
+    public long size() {
+        return written + buffer.position();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            written += channel.write(bytes);
+        }
+    }
+
+    /**
+     * Syncs all written bytes to disk and atomically replaces the target file with them.
+     * Returns the size of the snapshot in bytes.
+     */
+    public long commit() throws IOException {
+        try {
+            flush();
+            channel.force(true);
+        } finally {
+            channel.close();
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        committed = true;
+        return written;
+    }
+
+    /**
+     * Discards the temporary file, unless the snapshot has been committed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            try {
+                channel.close();
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.neo4j.graphalgo.api.IntersectionConsumer;
+import org.neo4j.graphalgo.api.RelationshipIntersect;
+
+/**
+ * Intersects adjacency lists that are loaded into plain arrays, for graphs whose adjacency is not
+ * a single compressed list per node. Subclasses load the outgoing neighbours of a node in ascending
+ * order and without duplicates, which are then intersected just like {@link HugeGraphIntersectImpl} does.
+ * <p>
+ * An instance of this is not thread-safe.
+ */
+abstract class SortedNeighbourIntersect implements RelationshipIntersect {
+
+    private long[] neighboursA = new long[0];
+    private long[] neighboursB = new long[0];
+
+    /**
+     * The number of neighbours that the last call of {@link #neighbours(long, long[])} has loaded.
+     */
+    int length;
+
+    /**
+     * Loads the distinct outgoing neighbours of the node in ascending order and sets {@link #length}.
+     *
+     * @param into an array that can be reused if it is large enough
+     * @return the array that holds the neighbours
+     */
+    abstract long[] neighbours(long nodeId, long[] into);
+
+    @Override
+    public final void intersectAll(long nodeIdA, IntersectionConsumer consumer) {
+        long[] a = neighboursA = neighbours(nodeIdA, neighboursA);
+        int lengthA = length;
+        int i = 0;
+        while (i < lengthA && a[i] <= nodeIdA) {
+            i++;
+        }
+        for (; i < lengthA; i++) {
+            long nodeIdB = a[i];
+            long[] b = neighboursB = neighbours(nodeIdB, neighboursB);
+            int lengthB = length;
+            int j = 0;
+            while (j < lengthB && b[j] <= nodeIdB) {
+                j++;
+            }
+            // a is sorted, so every a[k] after a[i] is greater than nodeIdB
+            int k = i + 1;
+            while (k < lengthA && j < lengthB) {
+                if (a[k] < b[j]) {
+                    k++;
+                } else if (a[k] > b[j]) {
+                    j++;
+                } else {
+                    consumer.accept(nodeIdA, nodeIdB, a[k]);
+                    k++;
+                    j++;
+                }
+            }
+        }
+    }
+}
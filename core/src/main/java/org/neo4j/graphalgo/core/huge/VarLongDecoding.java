@@ -44,6 +44,37 @@ final class VarLongDecoding {
         return offset;
     }
 
+    /**
+     * Decodes up to {@code limit} delta encoded vlongs and returns the position of {@code target}
+     * or {@code -1} if the target is not contained. Decoding stops as soon as a larger value is found.
+     * The first delta is relative to {@code startValue}, which is 0 at the start of an adjacency list.
+     */
+    static int indexOfDeltaVLong(
+            long target,
+            long startValue,
+            byte[] array,
+            int offset,
+            int limit) {
+        long input, value = 0L;
+        int into = 0, shift = 0;
+        while (into < limit) {
+            input = (long) array[offset++];
+            value += (input & 127L) << shift;
+            if ((input & 128L) == 128L) {
+                startValue += value;
+                if (startValue >= target) {
+                    return startValue == target ? into : -1;
+                }
+                ++into;
+                value = 0L;
+                shift = 0;
+            } else {
+                shift += 7;
+            }
+        }
+        return -1;
+    }
+
     private VarLongDecoding() {
         throw new UnsupportedOperationException("No instances");
     }
@@ -21,6 +21,7 @@ package org.neo4j.graphalgo.core.huge.loader;
 import org.neo4j.graphalgo.core.utils.paged.PaddedAtomicLong;
 import org.neo4j.graphdb.DependencyResolver;
 import org.neo4j.graphdb.DependencyResolver.SelectionStrategy;
+import org.neo4j.helpers.NamedThreadFactory;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
@@ -35,7 +36,11 @@ import org.neo4j.kernel.impl.store.record.RecordLoad;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 
 import java.io.IOException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Predicate;
 
 import static org.neo4j.kernel.impl.store.RecordPageLocationCalculator.offsetForId;
@@ -45,6 +50,18 @@ public class AbstractStorePageCacheScanner<Record extends AbstractBaseRecord> {
 
     public static final int DEFAULT_PREFETCH_SIZE = 100;
 
+    // stores with fewer pages than this many prefetch blocks are scanned without reading ahead
+    private static final int MIN_READ_AHEAD_BLOCKS = 4;
+    // the read ahead takes at most this fraction of the page cache, so that it doesn't evict its own pages
+    private static final int PAGE_CACHE_READ_AHEAD_FRACTION = 4;
+    // a page that is pinned faster than this is assumed to have been in the page cache already
+    private static final long PAGE_HIT_NANOS = TimeUnit.MICROSECONDS.toNanos(20L);
+    // the number of pages after which the read ahead checks the page cache hit rate
+    private static final int HIT_RATE_SAMPLE = 1024;
+    // the read ahead stops when the store is mostly in the page cache already
+    private static final double WARM_HIT_RATE = 0.95;
+    private static final long READ_AHEAD_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100L);
+
     public interface Access<Record extends AbstractBaseRecord> {
         /**
          * Return the store to use.
@@ -98,10 +115,13 @@ public class AbstractStorePageCacheScanner<Record extends AbstractBaseRecord> {
         private int offset;
         // the end offset of the current page - exclusive
         private int endOffset;
+        // time spent waiting for pages to be pinned
+        private long stallNanos;
 
         Cursor(PageCursor pageCursor, Record record) {
-            this.lastPage = Math.max((((maxId - 1L) + ((long) recordsPerPage - 1L)) / (long) recordsPerPage) - 1L, 0L);
-            this.lastOffset = offsetForId(maxId, pageSize, recordSize);
+            this.lastPage = AbstractStorePageCacheScanner.this.lastPage;
+            // the offset after the last record, which is the end of the page if the last record fills the page
+            this.lastOffset = maxId > 0L ? offsetForId(maxId - 1L, pageSize, recordSize) + recordSize : 0;
             this.pageCursor = pageCursor;
             this.record = record;
             this.offset = pageSize; // trigger page load as first action
@@ -234,12 +254,14 @@ public class AbstractStorePageCacheScanner<Record extends AbstractBaseRecord> {
             long startPage = nextPageId.getAndAdd(prefetchSize);
             long endPage = Math.min(lastPage, startPage + prefetchSize);
             long preFetchedPage = startPage;
+            long start = System.nanoTime();
             while (preFetchedPage < endPage) {
                 if (!pageCursor.next(preFetchedPage)) {
                     break;
                 }
                 ++preFetchedPage;
             }
+            this.stallNanos += System.nanoTime() - start;
             this.currentPage = startPage;
             this.fetchedUntilPage = preFetchedPage;
         }
@@ -263,6 +285,8 @@ public class AbstractStorePageCacheScanner<Record extends AbstractBaseRecord> {
                 pageCursor.close();
                 pageCursor = null;
                 record = null;
+                totalStallNanos.add(stallNanos);
+                maxStallNanos.accumulateAndGet(stallNanos, Math::max);
 
                 final Cursor localCursor = cursors.get();
                 // sanity check, should always be called from the same thread
@@ -273,12 +297,17 @@ public class AbstractStorePageCacheScanner<Record extends AbstractBaseRecord> {
         }
     }
 
+    private static final ThreadFactory READ_AHEAD_THREADS = NamedThreadFactory.daemon("algo-read-ahead");
+
     // fetch this many pages at once
     private final int prefetchSize;
     // global pointer which block of pages need to be fetched next
     private final AtomicLong nextPageId;
     // global cursor pool to return this one to
     private final ThreadLocal<Cursor> cursors;
+    // the time that all cursors and the slowest cursor have been waiting for pages to be pinned
+    private final LongAdder totalStallNanos;
+    private final AtomicLong maxStallNanos;
 
     // size in bytes of a single record - advance the offset by this much
     private final int recordSize;
@@ -286,7 +315,11 @@ public class AbstractStorePageCacheScanner<Record extends AbstractBaseRecord> {
     private final int recordsPerPage;
 
     private final long maxId;
+    // last page to contain a value of interest, inclusive
+    private final long lastPage;
     private final int pageSize;
+    // the number of pages that the page cache can hold
+    private final long maxCachedPages;
     // how to read the record
     private final RecordFormat<Record> recordFormat;
     private final RecordStore<Record> store;
@@ -309,6 +342,7 @@ public class AbstractStorePageCacheScanner<Record extends AbstractBaseRecord> {
 
         PagedFile pagedFile = null;
         PageCache pageCache = resolver.resolveDependency(PageCache.class, SelectionStrategy.ONLY);
+        this.maxCachedPages = pageCache.maxCachedPages();
         String storeFileName = access.storeFileName();
         try {
             for (PagedFile pf : pageCache.listExistingMappings()) {
@@ -325,9 +359,12 @@ public class AbstractStorePageCacheScanner<Record extends AbstractBaseRecord> {
         this.prefetchSize = prefetchSize;
         this.nextPageId = new PaddedAtomicLong();
         this.cursors = new ThreadLocal<>();
+        this.totalStallNanos = new LongAdder();
+        this.maxStallNanos = new AtomicLong();
         this.recordSize = recordSize;
         this.recordsPerPage = recordsPerPage;
         this.maxId = 1L + store.getHighestPossibleIdInUse();
+        this.lastPage = Math.max((((maxId - 1L) + ((long) recordsPerPage - 1L)) / (long) recordsPerPage) - 1L, 0L);
         this.pageSize = pageSize;
         this.recordFormat = access.recordFormat(neoStores.getRecordFormats());
         this.store = store;
@@ -343,17 +380,7 @@ public class AbstractStorePageCacheScanner<Record extends AbstractBaseRecord> {
             // of its actual next page.
             long next = nextPageId.get();
 
-            PageCursor pageCursor;
-            try {
-                if (pagedFile != null) {
-                    pageCursor = pagedFile.io(next, PagedFile.PF_READ_AHEAD | PagedFile.PF_SHARED_READ_LOCK);
-                } else {
-                    long recordId = next * (long) recordSize;
-                    pageCursor = store.openPageCursorForReading(recordId);
-                }
-            } catch (IOException e) {
-                throw new UnderlyingStorageException(e);
-            }
+            PageCursor pageCursor = openPageCursor(next);
             Record record = store.newRecord();
             cursor = new Cursor(pageCursor, record);
             cursors.set(cursor);
@@ -361,6 +388,140 @@ public class AbstractStorePageCacheScanner<Record extends AbstractBaseRecord> {
         return cursor;
     }
 
+    private PageCursor openPageCursor(long page) {
+        try {
+            if (pagedFile != null) {
+                return pagedFile.io(page, PagedFile.PF_READ_AHEAD | PagedFile.PF_SHARED_READ_LOCK);
+            }
+            long recordId = page * (long) recordSize;
+            return store.openPageCursorForReading(recordId);
+        } catch (IOException e) {
+            throw new UnderlyingStorageException(e);
+        }
+    }
+
+    /**
+     * Starts to pin the pages ahead of the pages that the cursors have claimed in a background thread,
+     * so that the cursors find them in the page cache instead of waiting for them to be read from disk.
+     * Returns null if the store is too small to benefit from reading ahead.
+     */
+    final ReadAhead startReadAhead() {
+        if (lastPage < (long) MIN_READ_AHEAD_BLOCKS * prefetchSize) {
+            return null;
+        }
+        ReadAhead readAhead = new ReadAhead();
+        Thread thread = READ_AHEAD_THREADS.newThread(readAhead);
+        readAhead.thread = thread;
+        thread.start();
+        return readAhead;
+    }
+
+    /**
+     * The total time in nanoseconds that the closed cursors have been waiting for pages to be pinned.
+     */
+    final long stallNanos() {
+        return totalStallNanos.sum();
+    }
+
+    /**
+     * The longest time in nanoseconds that a single closed cursor has been waiting for pages to be pinned.
+     */
+    final long maxStallNanos() {
+        return maxStallNanos.get();
+    }
+
+    /**
+     * Pins the pages after the last claimed page, so that they are in the page cache by the time they are claimed.
+     * <p>
+     * The window of pages that are read ahead starts at the prefetch size and is doubled whenever
+     * the cursors have caught up with the read ahead, up to a fraction of the page cache.
+     * When the read ahead is a full window ahead, it waits for the cursors to claim more pages.
+     * If almost all pages have already been in the page cache, the store is warm and the read ahead stops.
+     */
+    final class ReadAhead implements Runnable {
+
+        private volatile boolean stopped;
+        private volatile Thread thread;
+        private volatile long pagesRead;
+        private volatile long pageHits;
+        private volatile long maxWindow;
+
+        @Override
+        public void run() {
+            long maxWindow = Math.max(prefetchSize, maxCachedPages / PAGE_CACHE_READ_AHEAD_FRACTION);
+            long window = prefetchSize;
+            long readUntil = 0L;
+            long pages = 0L;
+            long hits = 0L;
+            try (PageCursor pageCursor = openPageCursor(0L)) {
+                while (!stopped) {
+                    long claimed = nextPageId.get();
+                    if (claimed > lastPage) {
+                        break;
+                    }
+                    if (readUntil < claimed) {
+                        // the cursors have caught up, read further ahead
+                        readUntil = claimed;
+                        window = Math.min(maxWindow, window << 1);
+                    }
+                    long endPage = Math.min(lastPage + 1L, claimed + window);
+                    if (readUntil >= endPage) {
+                        LockSupport.parkNanos(this, READ_AHEAD_PARK_NANOS);
+                        continue;
+                    }
+                    while (readUntil < endPage && !stopped) {
+                        long start = System.nanoTime();
+                        if (!pageCursor.next(readUntil)) {
+                            stopped = true;
+                            break;
+                        }
+                        if (System.nanoTime() - start < PAGE_HIT_NANOS) {
+                            ++hits;
+                        }
+                        ++pages;
+                        ++readUntil;
+                    }
+                    this.pagesRead = pages;
+                    this.pageHits = hits;
+                    this.maxWindow = Math.max(this.maxWindow, window);
+                    if (pages >= HIT_RATE_SAMPLE && hits >= WARM_HIT_RATE * pages) {
+                        break;
+                    }
+                }
+            } catch (IOException | UnderlyingStorageException ignored) {
+                // reading ahead is only an optimization, the cursors will report any failure to read the store
+            }
+        }
+
+        /**
+         * Stops the read ahead and waits for its thread to finish.
+         */
+        void stop() {
+            stopped = true;
+            Thread thread = this.thread;
+            if (thread != null) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        long pagesRead() {
+            return pagesRead;
+        }
+
+        double hitRate() {
+            long pages = pagesRead;
+            return pages == 0L ? 0.0 : (double) pageHits / pages;
+        }
+
+        long maxWindow() {
+            return maxWindow;
+        }
+    }
+
     final long storeSize() {
         if (pagedFile != null) {
             return pagedFile.file().length();
@@ -21,16 +21,20 @@ package org.neo4j.graphalgo.core.huge.loader;
 import org.apache.lucene.util.LongsRef;
 import org.neo4j.graphalgo.core.huge.HugeAdjacencyOffsets;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.kernel.api.StatementConstants;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfIntArray;
 import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfLongArray;
 import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfObjectArray;
 
 abstract class AdjacencyBuilder {
 
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
     abstract void addAdjacencyImporter(
             AllocationTracker tracker,
             boolean loadDegrees,
@@ -38,15 +42,30 @@ abstract class AdjacencyBuilder {
 
     abstract void finishPreparation();
 
+    /**
+     * Returns the property key of the relationship weights that are stored together with this adjacency
+     * or {@link StatementConstants#NO_SUCH_PROPERTY_KEY} if no weights are stored.
+     */
+    abstract int weightProperty();
+
+    abstract double defaultWeight();
+
     abstract void addAll(
             long[] batch,
             long[] targets,
+            long[] weights,
             int[] offsets,
             int length,
             AllocationTracker tracker);
 
     abstract Collection<Runnable> flushTasks();
 
+    /**
+     * Returns the builder that receives the relationships of a first scan, which only counts the degrees.
+     * Builders that don't use the degrees return a builder that ignores all relationships.
+     */
+    abstract AdjacencyBuilder degreeCounter();
+
     static AdjacencyBuilder compressing(
             HugeAdjacencyBuilder adjacency,
             int numPages,
@@ -60,7 +79,47 @@ abstract class AdjacencyBuilder {
         final CompressedLongArray[][] targets = new CompressedLongArray[numPages][];
         LongsRef[] buffers = new LongsRef[numPages];
         long[][] degrees = new long[numPages][];
-        return new CompressingPagedAdjacency(adjacency, builders, targets, buffers, degrees, pageSize);
+        LongsRef[] weightBuffers = null;
+        long[][] weightOffsets = null;
+        if (adjacency.loadsWeights()) {
+            tracker.add(sizeOfObjectArray(numPages) << 1);
+            weightBuffers = new LongsRef[numPages];
+            weightOffsets = new long[numPages][];
+        }
+        return new CompressingPagedAdjacency(
+                adjacency, builders, targets, buffers, degrees, weightBuffers, weightOffsets, pageSize);
+    }
+
+    /**
+     * Returns a builder that writes the targets of every node into a buffer of its exact degree,
+     * which must have been counted by a scan into the {@link #degreeCounter()} before.
+     * A node is compressed as soon as its buffer is full, so that the buffer can be released while the scan continues.
+     * Relationships that exceed the counted degree, because they have been created after the degrees were counted,
+     * are ignored like relationships that are created after the import.
+     */
+    static AdjacencyBuilder preallocating(
+            HugeAdjacencyBuilder adjacency,
+            int numPages,
+            int pageSize,
+            AllocationTracker tracker) {
+        if (adjacency == null) {
+            return NoAdjacency.INSTANCE;
+        }
+        tracker.add(sizeOfObjectArray(numPages) * 5L);
+        HugeAdjacencyBuilder[] builders = new HugeAdjacencyBuilder[numPages];
+        long[][][] targets = new long[numPages][][];
+        int[][] filled = new int[numPages][];
+        long[][] degrees = new long[numPages][];
+        byte[][] storages = new byte[numPages][];
+        long[][][] weights = null;
+        long[][] weightOffsets = null;
+        if (adjacency.loadsWeights()) {
+            tracker.add(sizeOfObjectArray(numPages) << 1);
+            weights = new long[numPages][][];
+            weightOffsets = new long[numPages][];
+        }
+        return new PreallocatingPagedAdjacency(
+                adjacency, builders, targets, filled, degrees, storages, weights, weightOffsets, pageSize, tracker);
     }
 
     private static final class CompressingPagedAdjacency extends AdjacencyBuilder {
@@ -70,6 +129,8 @@ abstract class AdjacencyBuilder {
         private final CompressedLongArray[][] targets;
         private final LongsRef[] buffers;
         private final long[][] degrees;
+        private final LongsRef[] weightBuffers;
+        private final long[][] weightOffsets;
         private final int pageSize;
         private final int pageShift;
         private final long pageMask;
@@ -82,12 +143,16 @@ abstract class AdjacencyBuilder {
                 CompressedLongArray[][] targets,
                 LongsRef[] buffers,
                 long[][] degrees,
+                LongsRef[] weightBuffers,
+                long[][] weightOffsets,
                 int pageSize) {
             this.adjacency = adjacency;
             this.builders = builders;
             this.targets = targets;
             this.buffers = buffers;
             this.degrees = degrees;
+            this.weightBuffers = weightBuffers;
+            this.weightOffsets = weightOffsets;
             this.pageSize = pageSize;
             this.pageShift = Integer.numberOfTrailingZeros(pageSize);
             this.pageMask = (long) (pageSize - 1);
@@ -103,19 +168,39 @@ abstract class AdjacencyBuilder {
             targets[pageIndex] = new CompressedLongArray[pageSize];
             buffers[pageIndex] = new LongsRef();
             long[] offsets = degrees[pageIndex] = new long[pageSize];
-            builders[pageIndex] = adjacency.threadLocalCopy(offsets, loadDegrees);
+            long[] weightOffsets = null;
+            if (this.weightOffsets != null) {
+                tracker.add(sizeOfLongPage);
+                weightBuffers[pageIndex] = new LongsRef();
+                weightOffsets = this.weightOffsets[pageIndex] = new long[pageSize];
+            }
+            builders[pageIndex] = adjacency.threadLocalCopy(offsets, weightOffsets, loadDegrees);
             builders[pageIndex].prepare();
         }
 
         @Override
         void finishPreparation() {
             adjacency.setGlobalOffsets(HugeAdjacencyOffsets.of(degrees, pageSize));
+            if (weightOffsets != null) {
+                adjacency.setGlobalWeightOffsets(HugeAdjacencyOffsets.of(weightOffsets, pageSize));
+            }
+        }
+
+        @Override
+        int weightProperty() {
+            return adjacency.weightProperty();
+        }
+
+        @Override
+        double defaultWeight() {
+            return adjacency.defaultWeight();
         }
 
         @Override
         void addAll(
                 long[] batch,
                 long[] targets,
+                long[] weights,
                 int[] offsets,
                 int length,
                 AllocationTracker tracker) {
@@ -156,9 +241,12 @@ abstract class AdjacencyBuilder {
                     }
 
                     compressedTargets.addDeltas(targets, startOffset, endOffset);
+                    if (weights != null) {
+                        compressedTargets.addWeights(weights, startOffset, endOffset);
+                    }
                     int currentDegree = compressedTargets.length();
                     if (currentDegree >= degree) {
-                        builder.applyVariableDeltaEncoding(compressedTargets, this.buffers[pageIndex], localId);
+                        applyVariableDeltaEncoding(builder, compressedTargets, pageIndex, localId);
                         this.targets[pageIndex][localId] = null;
                     }
 
@@ -177,17 +265,320 @@ abstract class AdjacencyBuilder {
             Arrays.setAll(runnables, index -> () -> {
                 HugeAdjacencyBuilder builder = builders[index];
                 CompressedLongArray[] allTargets = targets[index];
-                LongsRef buffer = buffers[index];
                 for (int localId = 0; localId < allTargets.length; ++localId) {
                     CompressedLongArray target = allTargets[localId];
                     if (target != null) {
-                        builder.applyVariableDeltaEncoding(target, buffer, localId);
+                        applyVariableDeltaEncoding(builder, target, index, localId);
                         allTargets[localId] = null;
                     }
                 }
             });
             return Arrays.asList(runnables);
         }
+
+        private void applyVariableDeltaEncoding(
+                HugeAdjacencyBuilder builder,
+                CompressedLongArray targets,
+                int pageIndex,
+                int localId) {
+            if (weightBuffers != null) {
+                builder.applyVariableDeltaEncoding(
+                        targets,
+                        buffers[pageIndex],
+                        weightBuffers[pageIndex],
+                        localId);
+            } else {
+                builder.applyVariableDeltaEncoding(targets, buffers[pageIndex], localId);
+            }
+        }
+
+        @Override
+        AdjacencyBuilder degreeCounter() {
+            return NoAdjacency.INSTANCE;
+        }
+    }
+
+    private static final class PreallocatingPagedAdjacency extends AdjacencyBuilder {
+
+        // marks nodes whose targets have already been compressed
+        private static final int COMPRESSED = -1;
+
+        private final HugeAdjacencyBuilder adjacency;
+        private final HugeAdjacencyBuilder[] builders;
+        private final long[][][] targets;
+        private final int[][] filled;
+        private final long[][] degrees;
+        private final byte[][] storages;
+        private final long[][][] weights;
+        private final long[][] weightOffsets;
+        private final int pageSize;
+        private final int pageShift;
+        private final long pageMask;
+        private final AllocationTracker tracker;
+        private final AdjacencyBuilder degreeCounter;
+
+        private PreallocatingPagedAdjacency(
+                HugeAdjacencyBuilder adjacency,
+                HugeAdjacencyBuilder[] builders,
+                long[][][] targets,
+                int[][] filled,
+                long[][] degrees,
+                byte[][] storages,
+                long[][][] weights,
+                long[][] weightOffsets,
+                int pageSize,
+                AllocationTracker tracker) {
+            this.adjacency = adjacency;
+            this.builders = builders;
+            this.targets = targets;
+            this.filled = filled;
+            this.degrees = degrees;
+            this.storages = storages;
+            this.weights = weights;
+            this.weightOffsets = weightOffsets;
+            this.pageSize = pageSize;
+            this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+            this.pageMask = (long) (pageSize - 1);
+            this.tracker = tracker;
+            this.degreeCounter = new DegreeCounter();
+        }
+
+        @Override
+        void addAdjacencyImporter(AllocationTracker tracker, boolean loadDegrees, int pageIndex) {
+            tracker.add(sizeOfObjectArray(pageSize));
+            tracker.add(sizeOfIntArray(pageSize));
+            tracker.add(sizeOfLongArray(pageSize));
+            targets[pageIndex] = new long[pageSize][];
+            filled[pageIndex] = new int[pageSize];
+            // the offsets hold the degree of every node until it is compressed
+            long[] offsets = degrees[pageIndex] = new long[pageSize];
+            storages[pageIndex] = EMPTY_BYTES;
+            long[] weightOffsets = null;
+            if (this.weightOffsets != null) {
+                tracker.add(sizeOfObjectArray(pageSize));
+                tracker.add(sizeOfLongArray(pageSize));
+                weights[pageIndex] = new long[pageSize][];
+                weightOffsets = this.weightOffsets[pageIndex] = new long[pageSize];
+            }
+            builders[pageIndex] = adjacency.threadLocalCopy(offsets, weightOffsets, true);
+            builders[pageIndex].prepare();
+        }
+
+        @Override
+        void finishPreparation() {
+            adjacency.setGlobalOffsets(HugeAdjacencyOffsets.of(degrees, pageSize));
+            if (weightOffsets != null) {
+                adjacency.setGlobalWeightOffsets(HugeAdjacencyOffsets.of(weightOffsets, pageSize));
+            }
+        }
+
+        @Override
+        int weightProperty() {
+            return adjacency.weightProperty();
+        }
+
+        @Override
+        double defaultWeight() {
+            return adjacency.defaultWeight();
+        }
+
+        @Override
+        void addAll(
+                long[] batch,
+                long[] targets,
+                long[] weights,
+                int[] offsets,
+                int length,
+                AllocationTracker tracker) {
+            int pageShift = this.pageShift;
+            long pageMask = this.pageMask;
+
+            HugeAdjacencyBuilder builder = null;
+            int lastPageIndex = -1;
+            int endOffset, startOffset = 0;
+            try {
+                for (int i = 0; i < length; ++i) {
+                    endOffset = offsets[i];
+
+                    if (endOffset <= startOffset) {
+                        continue;
+                    }
+
+                    long source = batch[startOffset << 2];
+                    int pageIndex = (int) (source >>> pageShift);
+
+                    if (pageIndex > lastPageIndex) {
+                        if (builder != null) {
+                            builder.unlock();
+                        }
+                        builder = builders[pageIndex];
+                        builder.lock();
+                        lastPageIndex = pageIndex;
+                    }
+
+                    int localId = (int) (source & pageMask);
+                    int[] filled = this.filled[pageIndex];
+                    int position = filled[localId];
+                    if (position != COMPRESSED) {
+                        int degree = builder.degree(localId);
+                        int count = Math.min(endOffset - startOffset, degree - position);
+                        if (count > 0) {
+                            long[] nodeTargets = this.targets[pageIndex][localId];
+                            if (nodeTargets == null) {
+                                tracker.add(sizeOfLongArray(degree));
+                                nodeTargets = this.targets[pageIndex][localId] = new long[degree];
+                            }
+                            System.arraycopy(targets, startOffset, nodeTargets, position, count);
+                            if (weights != null) {
+                                long[] nodeWeights = this.weights[pageIndex][localId];
+                                if (nodeWeights == null) {
+                                    tracker.add(sizeOfLongArray(degree));
+                                    nodeWeights = this.weights[pageIndex][localId] = new long[degree];
+                                }
+                                System.arraycopy(weights, startOffset, nodeWeights, position, count);
+                            }
+                            position += count;
+                            filled[localId] = position;
+                            if (position == degree) {
+                                compress(builder, pageIndex, localId, position, tracker);
+                            }
+                        }
+                    }
+
+                    startOffset = endOffset;
+                }
+            } finally {
+                if (builder != null) {
+                    builder.unlock();
+                }
+            }
+        }
+
+        @Override
+        Collection<Runnable> flushTasks() {
+            Runnable[] runnables = new Runnable[builders.length];
+            Arrays.setAll(runnables, index -> () -> {
+                HugeAdjacencyBuilder builder = builders[index];
+                int[] filled = this.filled[index];
+                long[] offsets = degrees[index];
+                for (int localId = 0; localId < filled.length; ++localId) {
+                    int position = filled[localId];
+                    if (position > 0) {
+                        // fewer relationships than counted, some have been deleted in between
+                        compress(builder, index, localId, position, tracker);
+                    } else if (position == 0) {
+                        offsets[localId] = 0L;
+                    }
+                }
+                storages[index] = null;
+            });
+            return Arrays.asList(runnables);
+        }
+
+        private void compress(
+                HugeAdjacencyBuilder builder,
+                int pageIndex,
+                int localId,
+                int length,
+                AllocationTracker tracker) {
+            long[] nodeTargets = targets[pageIndex][localId];
+            targets[pageIndex][localId] = null;
+            tracker.remove(sizeOfLongArray(nodeTargets.length));
+            LongsRef weightBuffer = null;
+            if (weights != null) {
+                long[] nodeWeights = weights[pageIndex][localId];
+                weights[pageIndex][localId] = null;
+                tracker.remove(sizeOfLongArray(nodeWeights.length));
+                weightBuffer = new LongsRef(nodeWeights, 0, length);
+            }
+            storages[pageIndex] = builder.applyVariableDeltaEncoding(
+                    new LongsRef(nodeTargets, 0, length),
+                    weightBuffer,
+                    storages[pageIndex],
+                    localId);
+            filled[pageIndex][localId] = COMPRESSED;
+        }
+
+        @Override
+        AdjacencyBuilder degreeCounter() {
+            return degreeCounter;
+        }
+
+        private final class DegreeCounter extends AdjacencyBuilder {
+
+            @Override
+            void addAdjacencyImporter(AllocationTracker tracker, boolean loadDegrees, int pageIndex) {
+            }
+
+            @Override
+            void finishPreparation() {
+            }
+
+            @Override
+            int weightProperty() {
+                return StatementConstants.NO_SUCH_PROPERTY_KEY;
+            }
+
+            @Override
+            double defaultWeight() {
+                return adjacency.defaultWeight();
+            }
+
+            @Override
+            void addAll(
+                    long[] batch,
+                    long[] targets,
+                    long[] weights,
+                    int[] offsets,
+                    int length,
+                    AllocationTracker tracker) {
+                int pageShift = PreallocatingPagedAdjacency.this.pageShift;
+                long pageMask = PreallocatingPagedAdjacency.this.pageMask;
+
+                HugeAdjacencyBuilder builder = null;
+                int lastPageIndex = -1;
+                int endOffset, startOffset = 0;
+                try {
+                    for (int i = 0; i < length; ++i) {
+                        endOffset = offsets[i];
+
+                        if (endOffset <= startOffset) {
+                            continue;
+                        }
+
+                        long source = batch[startOffset << 2];
+                        int pageIndex = (int) (source >>> pageShift);
+
+                        if (pageIndex > lastPageIndex) {
+                            if (builder != null) {
+                                builder.unlock();
+                            }
+                            builder = builders[pageIndex];
+                            builder.lock();
+                            lastPageIndex = pageIndex;
+                        }
+
+                        degrees[pageIndex][(int) (source & pageMask)] += endOffset - startOffset;
+
+                        startOffset = endOffset;
+                    }
+                } finally {
+                    if (builder != null) {
+                        builder.unlock();
+                    }
+                }
+            }
+
+            @Override
+            Collection<Runnable> flushTasks() {
+                return Collections.emptyList();
+            }
+
+            @Override
+            AdjacencyBuilder degreeCounter() {
+                return this;
+            }
+        }
     }
 
     private static final class NoAdjacency extends AdjacencyBuilder {
@@ -206,12 +597,33 @@ abstract class AdjacencyBuilder {
         }
 
         @Override
-        void addAll(long[] batch, long[] targets, int[] offsets, int length, AllocationTracker tracker) {
+        int weightProperty() {
+            return StatementConstants.NO_SUCH_PROPERTY_KEY;
+        }
+
+        @Override
+        double defaultWeight() {
+            return 0.0;
+        }
+
+        @Override
+        void addAll(
+                long[] batch,
+                long[] targets,
+                long[] weights,
+                int[] offsets,
+                int length,
+                AllocationTracker tracker) {
         }
 
         @Override
         Collection<Runnable> flushTasks() {
             return Collections.emptyList();
         }
+
+        @Override
+        AdjacencyBuilder degreeCounter() {
+            return this;
+        }
     }
 }
@@ -19,10 +19,13 @@
 package org.neo4j.graphalgo.core.huge.loader;
 
 import org.apache.lucene.util.LongsRef;
+import org.neo4j.graphalgo.core.huge.AdjacencyCodec;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencySkipIndex;
 
 import java.util.Arrays;
 
 import static org.neo4j.graphalgo.core.huge.loader.VarLongEncoding.encodeVLongs;
+import static org.neo4j.graphalgo.core.huge.loader.VarLongEncoding.encodedVLongSize;
 
 final class AdjacencyCompression {
 
@@ -49,11 +52,72 @@ final class AdjacencyCompression {
         return data.length = applyDelta(data.longs, data.length);
     }
 
+    static void copyWeightsFrom(LongsRef into, CompressedLongArray array) {
+        into.longs = growWithDestroy(into.longs, array.length());
+        into.length = array.uncompressWeights(into.longs);
+    }
+
+    /**
+     * Sorts the targets together with their weights and delta encodes the targets.
+     * Duplicate targets are dropped and keep the weight that has been added last, just like
+     * {@link HugeWeightMap} keeps the last weight that is put for a relationship.
+     */
+    static int applyDeltaEncoding(LongsRef data, LongsRef weights) {
+        stableSortWithWeights(data.longs, weights.longs, data.length);
+        return data.length = weights.length = applyDelta(data.longs, weights.longs, data.length);
+    }
+
     static int compress(LongsRef data, byte[] out) {
         return encodeVLongs(data.longs, data.length, out, 0);
     }
 
+    /**
+     * Returns the number of bytes that {@link #compress(LongsRef, byte[])} writes for the given delta encoded values.
+     */
+    static int compressedSize(LongsRef data) {
+        long[] values = data.longs;
+        int size = 0;
+        for (int i = 0; i < data.length; i++) {
+            size += encodedVLongSize(values[i]);
+        }
+        return size;
+    }
+
     //@formatter:off
+    /**
+     * Returns the skip points of the given delta encoded values, as they are stored in a {@link HugeAdjacencySkipIndex}.
+     * The offsets are relative to the start of the list, which begins with the degree.
+     */
+    static long[] skipPoints(long[] values, int length, AdjacencyCodec codec) {
+        int interval = HugeAdjacencySkipIndex.SKIP_INTERVAL;
+        long[] points = new long[((length - 1) / interval) << 1];
+        int point = 0;
+        long value = 0L;
+        int offset = 4;
+        if (codec == AdjacencyCodec.BLOCK_PACKED) {
+            for (int start = 0; start < length; start += BlockPackedEncoding.BLOCK_SIZE) {
+                if (start > 0 && start % interval == 0) {
+                    points[point++] = value;
+                    points[point++] = offset;
+                }
+                offset += BlockPackedEncoding.encodedBlockSize(values, start, length);
+                for (int i = start, end = Math.min(length, start + BlockPackedEncoding.BLOCK_SIZE); i < end; i++) {
+                    value += values[i];
+                }
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                if (i > 0 && i % interval == 0) {
+                    points[point++] = value;
+                    points[point++] = offset;
+                }
+                value += values[i];
+                offset += encodedVLongSize(values[i]);
+            }
+        }
+        return points;
+    }
+
     static int writeDegree(byte[] out, int offset, int degree) {
         out[    offset] = (byte) (degree);
         out[1 + offset] = (byte) (degree >>> 8);
@@ -63,6 +127,157 @@ final class AdjacencyCompression {
     }
     //@formatter:on
 
+    //@formatter:off
+    static int writeLong(byte[] out, int offset, long value) {
+        out[    offset] = (byte) (value);
+        out[1 + offset] = (byte) (value >>> 8);
+        out[2 + offset] = (byte) (value >>> 16);
+        out[3 + offset] = (byte) (value >>> 24);
+        out[4 + offset] = (byte) (value >>> 32);
+        out[5 + offset] = (byte) (value >>> 40);
+        out[6 + offset] = (byte) (value >>> 48);
+        out[7 + offset] = (byte) (value >>> 56);
+        return 8 + offset;
+    }
+    //@formatter:on
+
+    private static int applyDelta(long[] values, long[] weights, int length) {
+        long value = values[0], delta;
+        int in = 1, out = 1;
+        for (; in < length; ++in) {
+            delta = values[in] - value;
+            value = values[in];
+            if (delta > 0L) {
+                weights[out] = weights[in];
+                values[out++] = delta;
+            } else {
+                // duplicate targets are sorted in the order they have been added, the last weight wins
+                weights[out - 1] = weights[in];
+            }
+        }
+        return out;
+    }
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /**
+     * Sorts the values together with their weights, keeping equal values in the order in which they have been added.
+     * Runs of values are sorted by insertion and then merged, which needs a copy of lists that are longer than a run.
+     */
+    static void stableSortWithWeights(long[] values, long[] weights, int length) {
+        for (int lo = 0; lo < length; lo += INSERTION_SORT_THRESHOLD) {
+            insertionSort(values, weights, lo, Math.min(lo + INSERTION_SORT_THRESHOLD, length) - 1);
+        }
+        if (length <= INSERTION_SORT_THRESHOLD) {
+            return;
+        }
+        long[] fromValues = values, fromWeights = weights;
+        long[] toValues = new long[length], toWeights = new long[length];
+        for (int width = INSERTION_SORT_THRESHOLD; width < length; width <<= 1) {
+            for (int lo = 0; lo < length; lo += width << 1) {
+                int mid = Math.min(lo + width, length);
+                int hi = Math.min(mid + width, length);
+                merge(fromValues, fromWeights, toValues, toWeights, lo, mid, hi);
+            }
+            long[] swap = fromValues;
+            fromValues = toValues;
+            toValues = swap;
+            swap = fromWeights;
+            fromWeights = toWeights;
+            toWeights = swap;
+        }
+        if (fromValues != values) {
+            System.arraycopy(fromValues, 0, values, 0, length);
+            System.arraycopy(fromWeights, 0, weights, 0, length);
+        }
+    }
+
+    private static void merge(
+            long[] values,
+            long[] weights,
+            long[] toValues,
+            long[] toWeights,
+            int lo,
+            int mid,
+            int hi) {
+        int left = lo, right = mid, out = lo;
+        while (left < mid && right < hi) {
+            // equal values are taken from the left run first, which keeps them in order
+            if (values[right] < values[left]) {
+                toWeights[out] = weights[right];
+                toValues[out++] = values[right++];
+            } else {
+                toWeights[out] = weights[left];
+                toValues[out++] = values[left++];
+            }
+        }
+        System.arraycopy(values, left, toValues, out, mid - left);
+        System.arraycopy(weights, left, toWeights, out, mid - left);
+        out += mid - left;
+        System.arraycopy(values, right, toValues, out, hi - right);
+        System.arraycopy(weights, right, toWeights, out, hi - right);
+    }
+
+    /**
+     * Sorts the values together with their weights. The sort is not stable, so equal values
+     * may end up with their weights in any order.
+     */
+    static void sortWithWeights(long[] values, long[] weights, int lo, int hi) {
+        while (hi - lo >= INSERTION_SORT_THRESHOLD) {
+            int mid = (lo + hi) >>> 1;
+            // median of three as pivot, moved to the front
+            if (values[mid] < values[lo]) swap(values, weights, mid, lo);
+            if (values[hi] < values[lo]) swap(values, weights, hi, lo);
+            if (values[hi] < values[mid]) swap(values, weights, hi, mid);
+            swap(values, weights, lo, mid);
+            long pivot = values[lo];
+            int i = lo, j = hi + 1;
+            while (true) {
+                while (values[++i] < pivot) {
+                    if (i == hi) break;
+                }
+                while (pivot < values[--j]) {
+                    if (j == lo) break;
+                }
+                if (i >= j) break;
+                swap(values, weights, i, j);
+            }
+            swap(values, weights, lo, j);
+            // recurse into the smaller half to bound the stack depth
+            if (j - lo < hi - j) {
+                sortWithWeights(values, weights, lo, j - 1);
+                lo = j + 1;
+            } else {
+                sortWithWeights(values, weights, j + 1, hi);
+                hi = j - 1;
+            }
+        }
+        insertionSort(values, weights, lo, hi);
+    }
+
+    private static void insertionSort(long[] values, long[] weights, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            long value = values[i], weight = weights[i];
+            int j = i - 1;
+            while (j >= lo && values[j] > value) {
+                values[j + 1] = values[j];
+                weights[j + 1] = weights[j];
+                --j;
+            }
+            values[j + 1] = value;
+            weights[j + 1] = weight;
+        }
+    }
+
+    private static void swap(long[] values, long[] weights, int i, int j) {
+        long tmp = values[i];
+        values[i] = values[j];
+        values[j] = tmp;
+        tmp = weights[i];
+        weights[i] = weights[j];
+        weights[j] = tmp;
+    }
+
     private static int applyDelta(long[] values, int length) {
         long value = values[0], delta;
         int in = 1, out = 1;
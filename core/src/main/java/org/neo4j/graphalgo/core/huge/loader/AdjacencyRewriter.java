@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.LongsRef;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
+import org.neo4j.graphalgo.core.huge.AdjacencyCodec;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencyList;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencyOffsets;
+import org.neo4j.graphalgo.core.utils.ParallelUtil;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphdb.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.function.DoublePredicate;
+
+import static org.neo4j.graphalgo.core.huge.loader.AdjacencyCompression.writeDegree;
+import static org.neo4j.graphalgo.core.huge.loader.AdjacencyCompression.writeLong;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfLongArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfObjectArray;
+
+/**
+ * Writes the adjacency of one direction of a graph into new pages, after the nodes have been renumbered.
+ * <p>
+ * The new ids are visited in ascending order and the targets of the node that had the id before are translated,
+ * sorted and compressed in the same format as the loader writes them. Targets without a new id ({@code -1}) are dropped,
+ * as are relationships whose weight is rejected by the optional relationship filter.
+ * Relationship weights can be written as well, aligned with the targets like {@link org.neo4j.graphalgo.core.huge.HugeColumnarWeights}.
+ * <p>
+ * {@link #run()} reads the graph with a single thread, rewriters for different directions can run in parallel
+ * on concurrent copies of the graph. {@link #run(int, ExecutorService)} splits the new ids into ranges that are
+ * rewritten in parallel. Every range reads the neighbours in batches through its own {@link HugeNeighbourCursor}.
+ */
+final class AdjacencyRewriter implements Runnable {
+
+    private static final int OFFSET_PAGE_SHIFT = 14;
+    static final int OFFSET_PAGE_SIZE = 1 << OFFSET_PAGE_SHIFT;
+    // ranges per thread, so that threads that finish early can pick up more work
+    private static final int RANGES_PER_THREAD = 4;
+
+    private final HugeGraph graph;
+    private final Direction direction;
+    private final HugeLongArray oldIds;
+    private final HugeLongArray newIds;
+    private final long newNodeCount;
+    private final AdjacencyCodec codec;
+    private final boolean weighted;
+    private final DoublePredicate relationshipFilter;
+    private final AllocationTracker tracker;
+    private final HugeAdjacencyListBuilder adjacency;
+    private final HugeAdjacencyListBuilder weights;
+
+    private long[][] pages;
+    private long[][] weightPages;
+    private HugeAdjacencyOffsets offsets;
+    private HugeAdjacencyOffsets weightOffsets;
+
+    /**
+     * @param oldIds       the previous id of every new id, the size of the array is the new node count
+     * @param newIds       the new id of every previous id, or {@code -1} if the node has been dropped
+     */
+    AdjacencyRewriter(
+            HugeGraph graph,
+            Direction direction,
+            HugeLongArray oldIds,
+            long newNodeCount,
+            HugeLongArray newIds,
+            AdjacencyCodec codec,
+            int skipIndexThreshold,
+            boolean weighted,
+            AllocationTracker tracker) {
+        this(graph, direction, oldIds, newNodeCount, newIds, codec, skipIndexThreshold, weighted, null, PageBackend.HEAP, tracker);
+    }
+
+    /**
+     * @param oldIds             the previous id of every new id, the size of the array is the new node count
+     * @param newIds             the new id of every previous id, or {@code -1} if the node has been dropped
+     * @param relationshipFilter accepts the weights of the relationships to keep, {@code null} keeps all relationships
+     * @param backend            the backend that the new pages are moved to while they are written
+     */
+    AdjacencyRewriter(
+            HugeGraph graph,
+            Direction direction,
+            HugeLongArray oldIds,
+            long newNodeCount,
+            HugeLongArray newIds,
+            AdjacencyCodec codec,
+            int skipIndexThreshold,
+            boolean weighted,
+            DoublePredicate relationshipFilter,
+            PageBackend backend,
+            AllocationTracker tracker) {
+        this.graph = graph;
+        this.direction = direction;
+        this.oldIds = oldIds;
+        this.newIds = newIds;
+        this.newNodeCount = newNodeCount;
+        this.codec = codec;
+        this.weighted = weighted;
+        this.relationshipFilter = relationshipFilter;
+        this.tracker = tracker;
+        this.adjacency = HugeAdjacencyListBuilder.newBuilder(tracker, skipIndexThreshold, backend);
+        this.weights = weighted ? HugeAdjacencyListBuilder.newBuilder(tracker, 0, backend) : null;
+    }
+
+    @Override
+    public void run() {
+        prepare();
+        new Range(0L, newNodeCount).run();
+        finish();
+    }
+
+    void run(int concurrency, ExecutorService executor) {
+        if (concurrency <= 1 || !ParallelUtil.canRunInParallel(executor)) {
+            run();
+            return;
+        }
+        prepare();
+        long rangeSize = ParallelUtil.adjustBatchSize(
+                newNodeCount,
+                concurrency * RANGES_PER_THREAD,
+                OFFSET_PAGE_SIZE);
+        List<Range> ranges = new ArrayList<>();
+        for (long start = 0L; start < newNodeCount; start += rangeSize) {
+            ranges.add(new Range(start, Math.min(newNodeCount, start + rangeSize)));
+        }
+        ParallelUtil.run(ranges, executor);
+        finish();
+    }
+
+    HugeAdjacencyList adjacency() {
+        return adjacency.build(codec);
+    }
+
+    HugeAdjacencyOffsets offsets() {
+        return offsets;
+    }
+
+    HugeAdjacencyList weights() {
+        return weighted ? weights.build() : null;
+    }
+
+    HugeAdjacencyOffsets weightOffsets() {
+        return weightOffsets;
+    }
+
+    private void prepare() {
+        pages = newOffsetPages();
+        if (weighted) {
+            weightPages = newOffsetPages();
+        }
+    }
+
+    private void finish() {
+        offsets = HugeAdjacencyOffsets.of(pages, OFFSET_PAGE_SIZE);
+        if (weighted) {
+            weightOffsets = HugeAdjacencyOffsets.of(weightPages, OFFSET_PAGE_SIZE);
+        }
+    }
+
+    static int numberOfOffsetPages(long nodeCount) {
+        return Math.max(1, (int) ((nodeCount + OFFSET_PAGE_SIZE - 1) >>> OFFSET_PAGE_SHIFT));
+    }
+
+    private long[][] newOffsetPages() {
+        int numPages = numberOfOffsetPages(newNodeCount);
+        tracker.add(sizeOfObjectArray(numPages) + numPages * sizeOfLongArray(OFFSET_PAGE_SIZE));
+        return new long[numPages][OFFSET_PAGE_SIZE];
+    }
+
+    static void add(LongsRef into, long value) {
+        if (into.length == into.longs.length) {
+            into.longs = ArrayUtil.grow(into.longs, into.length + 1);
+        }
+        into.longs[into.length++] = value;
+    }
+
+    /**
+     * Rewrites the nodes with the new ids from {@code start} (inclusive) until {@code end} (exclusive).
+     */
+    private final class Range implements Runnable {
+        private final HugeNeighbourCursor neighbours;
+        private final long[] targets;
+        private final double[] targetWeights;
+        private final long start;
+        private final long end;
+        private final HugeAdjacencyListBuilder.Allocator allocator;
+        private final HugeAdjacencyListBuilder.Allocator weightAllocator;
+        private final LongsRef buffer;
+        private final LongsRef weightBuffer;
+        private byte[] storage;
+
+        private Range(long start, long end) {
+            this.neighbours = graph.neighbourCursor(direction);
+            this.targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+            this.targetWeights = weighted || relationshipFilter != null ? new double[HugeNeighbourCursor.BATCH_SIZE] : null;
+            this.start = start;
+            this.end = end;
+            this.allocator = adjacency.newAllocator();
+            this.weightAllocator = weighted ? weights.newAllocator() : null;
+            this.buffer = new LongsRef(16);
+            this.weightBuffer = weighted ? new LongsRef(16) : null;
+            this.storage = new byte[0];
+        }
+
+        @Override
+        public void run() {
+            allocator.prepare();
+            if (weighted) {
+                weightAllocator.prepare();
+            }
+
+            for (long newId = start; newId < end; newId++) {
+                long node = oldIds.get(newId);
+                buffer.length = 0;
+                if (weighted) {
+                    weightBuffer.length = 0;
+                }
+                neighbours.init(node);
+                int count;
+                while ((count = nextNeighbours()) > 0) {
+                    for (int i = 0; i < count; i++) {
+                        long newTarget = newIds.get(targets[i]);
+                        if (newTarget == -1L || (relationshipFilter != null && !relationshipFilter.test(targetWeights[i]))) {
+                            continue;
+                        }
+                        add(buffer, newTarget);
+                        if (weighted) {
+                            add(weightBuffer, Double.doubleToRawLongBits(targetWeights[i]));
+                        }
+                    }
+                }
+                if (buffer.length > 0) {
+                    int page = (int) (newId >>> OFFSET_PAGE_SHIFT);
+                    int indexInPage = (int) (newId & (OFFSET_PAGE_SIZE - 1));
+                    if (weighted) {
+                        int degree = AdjacencyCompression.applyDeltaEncoding(buffer, weightBuffer);
+                        pages[page][indexInPage] = copyIds(degree);
+                        weightPages[page][indexInPage] = copyWeights(degree);
+                    } else {
+                        pages[page][indexInPage] = copyIds(AdjacencyCompression.applyDeltaEncoding(buffer));
+                    }
+                }
+            }
+        }
+
+        private int nextNeighbours() {
+            return targetWeights != null ? neighbours.next(targets, targetWeights) : neighbours.next(targets);
+        }
+
+        private long copyIds(int degree) {
+            int requiredBytes;
+            if (codec == AdjacencyCodec.BLOCK_PACKED) {
+                int size = BlockPackedEncoding.encodedSize(buffer.longs, degree);
+                if (storage.length < size) {
+                    storage = new byte[ArrayUtil.oversize(size, Byte.BYTES)];
+                }
+                requiredBytes = BlockPackedEncoding.encodeBlocks(buffer.longs, degree, storage, 0);
+            } else {
+                // a vlong needs at most 10 bytes
+                if (storage.length < degree * 10) {
+                    storage = new byte[ArrayUtil.oversize(degree * 10, Byte.BYTES)];
+                }
+                requiredBytes = AdjacencyCompression.compress(buffer, storage);
+            }
+            long address = allocator.allocate(4 + requiredBytes);
+            int offset = writeDegree(allocator.page, allocator.offset, degree);
+            System.arraycopy(storage, 0, allocator.page, offset, requiredBytes);
+            allocator.offset = offset + requiredBytes;
+            adjacency.addSkipPoints(address, buffer.longs, degree, codec);
+            return address;
+        }
+
+        private long copyWeights(int degree) {
+            long address = weightAllocator.allocate(degree << 3);
+            byte[] page = weightAllocator.page;
+            int offset = weightAllocator.offset;
+            long[] values = weightBuffer.longs;
+            for (int i = 0; i < degree; i++) {
+                offset = writeLong(page, offset, values[i]);
+            }
+            weightAllocator.offset = offset;
+            return address;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import static org.neo4j.graphalgo.core.huge.loader.VarLongEncoding.encodeVLong;
+import static org.neo4j.graphalgo.core.huge.loader.VarLongEncoding.encodedVLongSize;
+
+/**
+ * Writes delta encoded targets in blocks of {@link #BLOCK_SIZE} values.
+ * <p>
+ * Every block starts with the number of bits per value, followed by the first value as a vlong.
+ * All blocks except the last one store the difference between their last and their first value as vlong,
+ * so that a reader can skip the block without decoding it. The remaining values of the block are bit packed
+ * in little endian order with the same number of bits, which is the bit length of the largest of them.
+ * Keeping the first value out of the packed values means that the absolute id at the start of every
+ * adjacency list does not increase the bit width of the first block.
+ */
+final class BlockPackedEncoding {
+
+    static final int BLOCK_SIZE = 64;
+
+    /**
+     * Returns the number of bytes that {@link #encodeBlocks(long[], int, byte[], int)} writes for the given values.
+     */
+    static int encodedSize(long[] values, int length) {
+        int size = 0;
+        for (int start = 0; start < length; start += BLOCK_SIZE) {
+            size += encodedBlockSize(values, start, length);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of bytes of the block that starts with the value at {@code start}.
+     */
+    static int encodedBlockSize(long[] values, int start, int length) {
+        int end = Math.min(length, start + BLOCK_SIZE);
+        int bits = bitsRequired(values, start + 1, end);
+        int size = 1 + encodedVLongSize(values[start]);
+        if (end < length) {
+            size += encodedVLongSize(span(values, start + 1, end));
+        }
+        return size + packedBytes(end - start - 1, bits);
+    }
+
+    static int encodeBlocks(long[] values, int length, byte[] out, int into) {
+        for (int start = 0; start < length; start += BLOCK_SIZE) {
+            int end = Math.min(length, start + BLOCK_SIZE);
+            int bits = bitsRequired(values, start + 1, end);
+            out[into++] = (byte) bits;
+            into = encodeVLong(out, values[start], into);
+            if (end < length) {
+                into = encodeVLong(out, span(values, start + 1, end), into);
+            }
+            into = pack(values, start + 1, end, bits, out, into);
+        }
+        return into;
+    }
+
+    static int packedBytes(int count, int bits) {
+        return (count * bits + 7) >>> 3;
+    }
+
+    private static int bitsRequired(long[] values, int start, int end) {
+        long or = 0L;
+        for (int i = start; i < end; i++) {
+            or |= values[i];
+        }
+        return 64 - Long.numberOfLeadingZeros(or);
+    }
+
+    private static long span(long[] values, int start, int end) {
+        long span = 0L;
+        for (int i = start; i < end; i++) {
+            span += values[i];
+        }
+        return span;
+    }
+
+    private static int pack(long[] values, int start, int end, int bits, byte[] out, int into) {
+        long word = 0L;
+        int used = 0;
+        for (int i = start; i < end; i++) {
+            long value = values[i];
+            word |= value << used;
+            used += bits;
+            if (used >= 64) {
+                into = AdjacencyCompression.writeLong(out, into, word);
+                used -= 64;
+                // the bits of the value that did not fit into the full word
+                word = used == 0 ? 0L : value >>> (bits - used);
+            }
+        }
+        for (; used > 0; used -= 8) {
+            out[into++] = (byte) word;
+            word >>>= 8;
+        }
+        return into;
+    }
+
+    private BlockPackedEncoding() {
+        throw new UnsupportedOperationException("No instances");
+    }
+}
@@ -28,13 +28,16 @@ import static org.neo4j.graphalgo.core.huge.loader.VarLongEncoding.encodeVLongs;
 import static org.neo4j.graphalgo.core.huge.loader.VarLongEncoding.encodedVLongSize;
 import static org.neo4j.graphalgo.core.huge.loader.VarLongEncoding.zigZag;
 import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfByteArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfLongArray;
 
 final class CompressedLongArray {
 
     private static final byte[] EMPTY_BYTES = new byte[0];
+    private static final long[] EMPTY_LONGS = new long[0];
 
     private final AllocationTracker tracker;
     private byte[] storage;
+    private long[] weights;
     private int pos;
     private long lastValue;
     private int length;
@@ -50,6 +53,7 @@ final class CompressedLongArray {
         } else {
             storage = EMPTY_BYTES;
         }
+        weights = EMPTY_LONGS;
     }
 
     void addDeltas(long[] deltas, int start, int end) {
@@ -67,6 +71,23 @@ final class CompressedLongArray {
         length += (end - start);
     }
 
+    /**
+     * Adds the weights that belong to the targets of the last {@link #addDeltas(long[], int, int)} call.
+     * Must be called after that call, with the same range.
+     */
+    void addWeights(long[] weights, int start, int end) {
+        int length = end - start;
+        int from = this.length - length;
+        long[] storage = this.weights;
+        if (storage.length < this.length) {
+            int newLength = ArrayUtil.oversize(this.length, Long.BYTES);
+            tracker.remove(sizeOfLongArray(storage.length));
+            tracker.add(sizeOfLongArray(newLength));
+            this.weights = storage = Arrays.copyOf(storage, newLength);
+        }
+        System.arraycopy(weights, start, storage, from, length);
+    }
+
     private void ensureCapacity(int pos, int required, byte[] storage) {
         if (storage.length <= pos + required) {
             int newLength = ArrayUtil.oversize(pos + required, Byte.BYTES);
@@ -85,6 +106,12 @@ final class CompressedLongArray {
         return zigZagUncompress(storage, pos, into);
     }
 
+    int uncompressWeights(long[] into) {
+        assert into.length >= length;
+        System.arraycopy(weights, 0, into, 0, length);
+        return length;
+    }
+
     byte[] internalStorage() {
         return storage;
     }
@@ -93,7 +120,11 @@ final class CompressedLongArray {
         if (storage.length > 0) {
             tracker.remove(sizeOfByteArray(storage.length));
         }
+        if (weights.length > 0) {
+            tracker.remove(sizeOfLongArray(weights.length));
+        }
         storage = null;
+        weights = null;
         pos = 0;
         length = 0;
     }
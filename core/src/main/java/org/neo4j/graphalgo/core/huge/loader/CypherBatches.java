@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import org.neo4j.graphalgo.api.GraphSetup;
+import org.neo4j.graphalgo.core.heavyweight.CypherLoadingUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a Cypher statement in batches of {@code skip} and {@code limit}, several batches at once.
+ * <p>
+ * Statements that do not use both parameters, or setups that do not load concurrently, run as a single batch.
+ * Batches are submitted in waves of {@code concurrency} and the loading stops after the first wave
+ * that contains a batch that returned fewer rows than the batch size.
+ */
+final class CypherBatches {
+
+    static final int NO_BATCH = -1;
+
+    interface BatchLoader<T extends Batch> {
+        T load(long offset, int batchSize);
+    }
+
+    interface Batch {
+        long rows();
+    }
+
+    /**
+     * Returns the results of all batches, ordered by their offset.
+     */
+    static <T extends Batch> List<T> load(GraphSetup setup, String statement, String type, BatchLoader<T> loader) {
+        List<T> batches = new ArrayList<>();
+        int batchSize = setup.batchSize;
+        if (!CypherLoadingUtils.canBatchLoad(setup.loadConcurrent(), batchSize, statement)) {
+            batches.add(loader.load(0L, NO_BATCH));
+            return batches;
+        }
+
+        ExecutorService pool = setup.executor;
+        int threads = setup.concurrency();
+        List<Future<T>> futures = new ArrayList<>(threads);
+        long offset = 0L;
+        boolean working = true;
+        while (working) {
+            for (int i = 0; i < threads; i++) {
+                long skip = offset;
+                futures.add(pool.submit(() -> loader.load(skip, batchSize)));
+                offset += batchSize;
+            }
+            long waveOffset = offset - (long) threads * batchSize;
+            for (Future<T> future : futures) {
+                T batch = CypherLoadingUtils.get("Error during loading " + type + " offset: " + waveOffset, future);
+                batches.add(batch);
+                working &= batch.rows() >= batchSize;
+                waveOffset += batchSize;
+            }
+            futures.clear();
+        }
+        return batches;
+    }
+
+    private CypherBatches() {
+    }
+}
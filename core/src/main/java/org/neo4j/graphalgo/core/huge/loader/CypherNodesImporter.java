@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.LongArrayList;
+import org.neo4j.graphalgo.PropertyMapping;
+import org.neo4j.graphalgo.api.GraphSetup;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.core.GraphDimensions;
+import org.neo4j.graphalgo.core.heavyweight.CypherLoadingUtils;
+import org.neo4j.graphalgo.core.utils.ImportProgress;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.SparseLongArray;
+import org.neo4j.graphdb.Result;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Imports the nodes of a Cypher projection into a {@link HugeIdMap}.
+ * <p>
+ * The node statement returns the node id in the column {@code id} and the node properties in the columns
+ * that are named by the property keys of the property mappings.
+ * Nodes that are returned more than once are only imported once.
+ */
+final class CypherNodesImporter {
+
+    private final GraphDatabaseAPI api;
+    private final GraphSetup setup;
+    private final GraphDimensions dimensions;
+    private final ImportProgress progress;
+    private final AllocationTracker tracker;
+
+    CypherNodesImporter(
+            GraphDatabaseAPI api,
+            GraphSetup setup,
+            GraphDimensions dimensions,
+            ImportProgress progress,
+            AllocationTracker tracker) {
+        this.api = api;
+        this.setup = setup;
+        this.dimensions = dimensions;
+        this.progress = progress;
+        this.tracker = tracker;
+    }
+
+    IdsAndProperties call() {
+        List<NodesBatch> batches = CypherBatches.load(setup, setup.startLabel, "nodes", this::loadNodes);
+
+        long rows = 0L;
+        long highestNodeId = -1L;
+        for (NodesBatch batch : batches) {
+            rows += batch.ids.size();
+            highestNodeId = Math.max(highestNodeId, batch.highestNodeId);
+        }
+
+        PropertyMapping[] propertyMappings = setup.nodePropertyMappings;
+        HugeNodePropertiesBuilder[] properties = new HugeNodePropertiesBuilder[propertyMappings.length];
+        for (int i = 0; i < propertyMappings.length; i++) {
+            properties[i] = HugeNodePropertiesBuilder.of(
+                    rows,
+                    tracker,
+                    propertyMappings[i].defaultValue,
+                    dimensions.nodePropertyKeyId(i));
+        }
+
+        HugeLongArray graphIds = HugeLongArray.newArray(rows, tracker);
+        SparseLongArray nodeToGraphIds = SparseLongArray.newArray(highestNodeId + 1L, tracker);
+        long nodeCount = 0L;
+        for (NodesBatch batch : batches) {
+            long[] ids = batch.ids.buffer;
+            for (int row = 0, length = batch.ids.size(); row < length; row++) {
+                long id = ids[row];
+                if (nodeToGraphIds.contains(id)) {
+                    continue;
+                }
+                nodeToGraphIds.set(id, nodeCount);
+                graphIds.set(nodeCount, id);
+                for (int i = 0; i < propertyMappings.length; i++) {
+                    double value = batch.properties[i].get(row);
+                    if (value != propertyMappings[i].defaultValue) {
+                        properties[i].set(nodeCount, value);
+                    }
+                }
+                ++nodeCount;
+            }
+        }
+
+        Map<String, HugeWeightMapping> nodeProperties = new HashMap<>();
+        for (int i = 0; i < propertyMappings.length; i++) {
+            nodeProperties.put(propertyMappings[i].propertyName, properties[i].build());
+        }
+        return new IdsAndProperties(
+                new HugeIdMap.Lookup(graphIds, nodeToGraphIds, nodeCount),
+                Collections.unmodifiableMap(nodeProperties));
+    }
+
+    private NodesBatch loadNodes(long offset, int batchSize) {
+        int capacity = batchSize == CypherBatches.NO_BATCH ? 1024 : batchSize;
+        NodesBatch batch = new NodesBatch(setup.nodePropertyMappings, capacity, progress);
+        api.execute(setup.startLabel, CypherLoadingUtils.params(setup.params, offset, batchSize)).accept(batch);
+        return batch;
+    }
+
+    private static final class NodesBatch implements CypherBatches.Batch, Result.ResultVisitor<RuntimeException> {
+        private final PropertyMapping[] propertyMappings;
+        private final ImportProgress progress;
+        private final LongArrayList ids;
+        private final DoubleArrayList[] properties;
+        private long highestNodeId = -1L;
+
+        private NodesBatch(PropertyMapping[] propertyMappings, int capacity, ImportProgress progress) {
+            this.propertyMappings = propertyMappings;
+            this.progress = progress;
+            this.ids = new LongArrayList(capacity);
+            this.properties = new DoubleArrayList[propertyMappings.length];
+            for (int i = 0; i < propertyMappings.length; i++) {
+                properties[i] = new DoubleArrayList(capacity);
+            }
+        }
+
+        @Override
+        public boolean visit(Result.ResultRow row) throws RuntimeException {
+            long id = row.getNumber("id").longValue();
+            ids.add(id);
+            highestNodeId = Math.max(highestNodeId, id);
+            for (int i = 0; i < propertyMappings.length; i++) {
+                Object value = CypherLoadingUtils.getProperty(row, propertyMappings[i].propertyKey);
+                properties[i].add(value instanceof Number
+                        ? ((Number) value).doubleValue()
+                        : propertyMappings[i].defaultValue);
+            }
+            progress.nodeImported();
+            return true;
+        }
+
+        @Override
+        public long rows() {
+            return ids.size();
+        }
+    }
+}
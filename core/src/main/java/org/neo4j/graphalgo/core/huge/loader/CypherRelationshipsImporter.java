@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import org.neo4j.graphalgo.api.GraphSetup;
+import org.neo4j.graphalgo.api.HugeIdMapping;
+import org.neo4j.graphalgo.core.heavyweight.CypherLoadingUtils;
+import org.neo4j.graphalgo.core.utils.ImportProgress;
+import org.neo4j.graphalgo.core.utils.ParallelUtil;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphdb.Result;
+import org.neo4j.kernel.api.StatementConstants;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Imports the relationships of a Cypher projection into the adjacency of a huge graph.
+ * <p>
+ * The relationship statement returns the node ids in the columns {@code source} and {@code target}
+ * and optionally the weight in the column {@code weight}.
+ * Rows are collected in a {@link RelationshipsBatchBuffer}, which is sorted and added to the adjacency
+ * whenever it is full, so that every batch of the statement only holds a fixed amount of rows at once.
+ */
+final class CypherRelationshipsImporter {
+
+    static final int BUFFER_SIZE = 10_000;
+
+    private final GraphDatabaseAPI api;
+    private final GraphSetup setup;
+    private final ImportProgress progress;
+    private final AllocationTracker tracker;
+    private final HugeIdMapping idMap;
+    private final WeightBuilder weights;
+    private final AdjacencyBuilder outAdjacency;
+    private final AdjacencyBuilder inAdjacency;
+
+    CypherRelationshipsImporter(
+            GraphDatabaseAPI api,
+            GraphSetup setup,
+            ImportProgress progress,
+            AllocationTracker tracker,
+            HugeIdMapping idMap,
+            HugeWeightMapBuilder weights,
+            HugeAdjacencyBuilder outAdjacency,
+            HugeAdjacencyBuilder inAdjacency) {
+        this.api = api;
+        this.setup = setup;
+        this.progress = progress;
+        this.tracker = tracker;
+        this.idMap = idMap;
+
+        long nodeCount = idMap.nodeCount();
+        ImportSizing sizing = ImportSizing.of(setup.concurrency(), nodeCount);
+        int pageSize = sizing.pageSize();
+        int numberOfPages = sizing.numberOfPages();
+
+        this.weights = WeightBuilder.of(weights, numberOfPages, pageSize, nodeCount, tracker);
+        this.outAdjacency = AdjacencyBuilder.compressing(outAdjacency, numberOfPages, pageSize, tracker);
+        this.inAdjacency = setup.loadAsUndirected
+                ? this.outAdjacency
+                : AdjacencyBuilder.compressing(inAdjacency, numberOfPages, pageSize, tracker);
+        for (int idx = 0; idx < numberOfPages; idx++) {
+            this.weights.addWeightImporter(idx);
+            this.outAdjacency.addAdjacencyImporter(tracker, false, idx);
+            if (this.inAdjacency != this.outAdjacency) {
+                this.inAdjacency.addAdjacencyImporter(tracker, false, idx);
+            }
+        }
+        this.weights.finish();
+        this.outAdjacency.finishPreparation();
+        if (this.inAdjacency != this.outAdjacency) {
+            this.inAdjacency.finishPreparation();
+        }
+    }
+
+    /**
+     * Runs the relationship statement and returns the number of rows that it returned.
+     */
+    long call() {
+        long rows = 0L;
+        for (RelationshipsBatch batch : CypherBatches.load(setup, setup.relationshipType, "relationships", this::loadRelationships)) {
+            rows += batch.rows();
+        }
+        Collection<Runnable> flushTasks = new ArrayList<>(outAdjacency.flushTasks());
+        if (inAdjacency != outAdjacency) {
+            flushTasks.addAll(inAdjacency.flushTasks());
+        }
+        ParallelUtil.run(flushTasks, setup.executor);
+        return rows;
+    }
+
+    private RelationshipsBatch loadRelationships(long offset, int batchSize) {
+        int capacity = batchSize == CypherBatches.NO_BATCH ? BUFFER_SIZE : Math.min(batchSize, BUFFER_SIZE);
+        RelationshipsBatch batch = new RelationshipsBatch(
+                new RelationshipsBatchBuffer(idMap, 0, capacity),
+                setup.shouldLoadRelationshipWeight(),
+                setup.relationDefaultWeight);
+        api.execute(setup.relationshipType, CypherLoadingUtils.params(setup.params, offset, batchSize)).accept(batch);
+        batch.flush();
+        return batch;
+    }
+
+    private int importBuffer(RelationshipsBatchBuffer buffer) {
+        int length = buffer.length();
+        if (length == 0) {
+            return 0;
+        }
+        boolean loadOutgoing = setup.loadAsUndirected || setup.loadOutgoing;
+        boolean loadIncoming = setup.loadAsUndirected || setup.loadIncoming;
+        int imported = 0;
+        if (loadOutgoing || weights.loadsWeights()) {
+            long[] batch = buffer.sortBySource();
+            importWeights(batch, length);
+            if (loadOutgoing) {
+                imported += importRelationships(buffer, batch, length, outAdjacency);
+            }
+        }
+        if (loadIncoming) {
+            // swaps source and target, so it has to come after sorting by source
+            long[] batch = buffer.sortByTarget();
+            imported += importRelationships(buffer, batch, length, inAdjacency);
+        }
+        return imported;
+    }
+
+    private int importRelationships(
+            RelationshipsBatchBuffer buffer,
+            long[] batch,
+            int batchLength,
+            AdjacencyBuilder adjacency) {
+        long[] weights = null;
+        if (adjacency.weightProperty() != StatementConstants.NO_SUCH_PROPERTY_KEY) {
+            weights = buffer.spareWeights();
+            for (int i = 0, offset = 0; i < batchLength; i += 4) {
+                weights[offset++] = batch[3 + i];
+            }
+        }
+        return RelationshipsScanner.importRelationships(buffer, batch, batchLength, adjacency, weights, tracker);
+    }
+
+    private void importWeights(long[] batch, int batchLength) {
+        if (!weights.loadsWeights()) {
+            return;
+        }
+        for (int i = 0; i < batchLength; i += 4) {
+            long source = batch[i];
+            long target = batch[1 + i];
+            double weight = Double.longBitsToDouble(batch[3 + i]);
+            weights.addWeight(source, target, weight);
+            if (setup.loadAsUndirected) {
+                weights.addWeight(target, source, weight);
+            }
+        }
+    }
+
+    private final class RelationshipsBatch implements CypherBatches.Batch, Result.ResultVisitor<RuntimeException> {
+        private final RelationshipsBatchBuffer buffer;
+        private final boolean loadWeights;
+        private final long defaultWeight;
+        private long lastSourceId = -1L, lastTargetId = -1L;
+        private long source = -1L, target = -1L;
+        private long rows;
+
+        private RelationshipsBatch(RelationshipsBatchBuffer buffer, boolean loadWeights, double defaultWeight) {
+            this.buffer = buffer;
+            this.loadWeights = loadWeights;
+            this.defaultWeight = Double.doubleToRawLongBits(defaultWeight);
+        }
+
+        @Override
+        public boolean visit(Result.ResultRow row) throws RuntimeException {
+            rows++;
+            long sourceId = row.getNumber("source").longValue();
+            if (sourceId != lastSourceId) {
+                source = idMap.toHugeMappedNodeId(sourceId);
+                lastSourceId = sourceId;
+            }
+            if (source == -1L) {
+                return true;
+            }
+            long targetId = row.getNumber("target").longValue();
+            if (targetId != lastTargetId) {
+                target = idMap.toHugeMappedNodeId(targetId);
+                lastTargetId = targetId;
+            }
+            if (target == -1L) {
+                return true;
+            }
+            // the weight takes the place of the property reference, there is no relationship reference
+            buffer.add(source, target, -1L, loadWeights ? weight(row) : defaultWeight);
+            if (buffer.isFull()) {
+                flush();
+            }
+            return true;
+        }
+
+        private long weight(Result.ResultRow row) {
+            Object weight = CypherLoadingUtils.getProperty(row, "weight");
+            return weight instanceof Number
+                    ? Double.doubleToRawLongBits(((Number) weight).doubleValue())
+                    : defaultWeight;
+        }
+
+        void flush() {
+            progress.relationshipsImported(importBuffer(buffer));
+            buffer.reset();
+        }
+
+        @Override
+        public long rows() {
+            return rows;
+        }
+    }
+}
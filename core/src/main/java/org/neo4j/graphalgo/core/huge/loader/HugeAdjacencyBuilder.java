@@ -18,67 +18,122 @@
  */
 package org.neo4j.graphalgo.core.huge.loader;
 
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.LongsRef;
-import org.neo4j.graphalgo.api.HugeGraph;
 import org.neo4j.graphalgo.api.HugeWeightMapping;
 
+import org.neo4j.graphalgo.core.huge.AdjacencyCodec;
 import org.neo4j.graphalgo.core.huge.HugeAdjacencyList;
 import org.neo4j.graphalgo.core.huge.HugeAdjacencyOffsets;
+import org.neo4j.graphalgo.core.huge.HugeColumnarWeights;
 import org.neo4j.graphalgo.core.huge.HugeGraphImpl;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.OffHeapPageAllocator;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.kernel.api.StatementConstants;
 
 import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static org.neo4j.graphalgo.core.huge.loader.AdjacencyCompression.writeDegree;
+import static org.neo4j.graphalgo.core.huge.loader.AdjacencyCompression.writeLong;
 
 class HugeAdjacencyBuilder {
 
     private final HugeAdjacencyListBuilder adjacency;
+    private final HugeAdjacencyListBuilder weights;
+    private final int weightProperty;
+    private final double defaultWeight;
+    private final AdjacencyCodec codec;
 
     private ReentrantLock lock;
     private HugeAdjacencyListBuilder.Allocator allocator;
+    private HugeAdjacencyListBuilder.Allocator weightAllocator;
     private HugeAdjacencyOffsets globalOffsets;
+    private HugeAdjacencyOffsets globalWeightOffsets;
     private long[] offsets;
+    private long[] weightOffsets;
 
     private final AllocationTracker tracker;
 
     HugeAdjacencyBuilder(AllocationTracker tracker) {
-        adjacency = HugeAdjacencyListBuilder.newBuilder(tracker);
+        this(tracker, StatementConstants.NO_SUCH_PROPERTY_KEY, 0.0, AdjacencyCodec.VAR_LONG, 0, PageBackend.HEAP);
+    }
+
+    /**
+     * Creates a builder that also stores the given relationship property as weights,
+     * aligned with the adjacency list, and writes the targets with the given codec.
+     * Lists with at least {@code skipIndexThreshold} targets get skip pointers, 0 disables them.
+     * Full pages are moved to the given backend while the relationships are still being imported.
+     */
+    HugeAdjacencyBuilder(
+            AllocationTracker tracker,
+            int weightProperty,
+            double defaultWeight,
+            AdjacencyCodec codec,
+            int skipIndexThreshold,
+            PageBackend backend) {
+        adjacency = HugeAdjacencyListBuilder.newBuilder(tracker, skipIndexThreshold, backend);
+        weights = weightProperty == StatementConstants.NO_SUCH_PROPERTY_KEY
+                ? null
+                : HugeAdjacencyListBuilder.newBuilder(tracker, 0, backend);
+        this.weightProperty = weightProperty;
+        this.defaultWeight = defaultWeight;
+        this.codec = codec;
         this.tracker = tracker;
     }
 
     HugeAdjacencyBuilder(
-            HugeAdjacencyListBuilder adjacency,
-            HugeAdjacencyListBuilder.Allocator allocator,
+            HugeAdjacencyBuilder global,
             long[] offsets,
-            AllocationTracker tracker) {
-        this.adjacency = adjacency;
-        this.allocator = allocator;
+            long[] weightOffsets) {
+        this.adjacency = global.adjacency;
+        this.weights = global.weights;
+        this.weightProperty = global.weightProperty;
+        this.defaultWeight = global.defaultWeight;
+        this.codec = global.codec;
+        this.allocator = adjacency.newAllocator();
+        this.weightAllocator = weights != null ? weights.newAllocator() : null;
         this.offsets = offsets;
-        this.tracker = tracker;
+        this.weightOffsets = weightOffsets;
+        this.tracker = global.tracker;
         this.lock = new ReentrantLock();
     }
 
-    final HugeAdjacencyBuilder threadLocalCopy(long[] offsets, boolean loadDegrees) {
+    final HugeAdjacencyBuilder threadLocalCopy(long[] offsets, long[] weightOffsets, boolean loadDegrees) {
         if (loadDegrees) {
-            return new HugeAdjacencyBuilder(
-                    adjacency,
-                    adjacency.newAllocator(),
-                    offsets,
-                    tracker);
+            return new HugeAdjacencyBuilder(this, offsets, weightOffsets);
         }
-        return new NoDegreeHAB(adjacency, adjacency.newAllocator(), offsets, tracker);
+        return new NoDegreeHAB(this, offsets, weightOffsets);
+    }
+
+    final boolean loadsWeights() {
+        return weights != null;
+    }
+
+    final int weightProperty() {
+        return weightProperty;
+    }
+
+    final double defaultWeight() {
+        return defaultWeight;
     }
 
     final void prepare() {
         allocator.prepare();
+        if (weightAllocator != null) {
+            weightAllocator.prepare();
+        }
     }
 
     final void setGlobalOffsets(HugeAdjacencyOffsets globalOffsets) {
         this.globalOffsets = globalOffsets;
     }
 
+    final void setGlobalWeightOffsets(HugeAdjacencyOffsets globalWeightOffsets) {
+        this.globalWeightOffsets = globalWeightOffsets;
+    }
+
     final void lock() {
         lock.lock();
     }
@@ -94,12 +149,67 @@ class HugeAdjacencyBuilder {
         byte[] storage = array.internalStorage();
         AdjacencyCompression.copyFrom(buffer, array);
         int degree = AdjacencyCompression.applyDeltaEncoding(buffer);
-        int requiredBytes = AdjacencyCompression.compress(buffer, storage);
-        long address = copyIds(storage, requiredBytes, degree);
+        long address = compressIds(storage, buffer, degree);
+        offsets[localId] = address;
+        array.release();
+    }
+
+    final void applyVariableDeltaEncoding(
+            CompressedLongArray array,
+            LongsRef buffer,
+            LongsRef weightBuffer,
+            int localId) {
+        byte[] storage = array.internalStorage();
+        AdjacencyCompression.copyFrom(buffer, array);
+        AdjacencyCompression.copyWeightsFrom(weightBuffer, array);
+        int degree = AdjacencyCompression.applyDeltaEncoding(buffer, weightBuffer);
+        long address = compressIds(storage, buffer, degree);
         offsets[localId] = address;
+        weightOffsets[localId] = copyWeights(weightBuffer.longs, degree);
         array.release();
     }
 
+    /**
+     * Compresses targets that have been collected in an array instead of a {@link CompressedLongArray}.
+     * The targets and weights are sorted in place, the weights are null if this builder doesn't load any.
+     * Returns the storage that the targets have been encoded in, which is replaced if the given one is too small.
+     */
+    final byte[] applyVariableDeltaEncoding(
+            LongsRef targets,
+            LongsRef weights,
+            byte[] storage,
+            int localId) {
+        int degree = weights == null
+                ? AdjacencyCompression.applyDeltaEncoding(targets)
+                : AdjacencyCompression.applyDeltaEncoding(targets, weights);
+        int requiredBytes = AdjacencyCompression.compressedSize(targets);
+        if (storage.length < requiredBytes) {
+            storage = new byte[ArrayUtil.oversize(requiredBytes, Byte.BYTES)];
+        }
+        offsets[localId] = compressIds(storage, targets, degree);
+        if (weights != null) {
+            weightOffsets[localId] = copyWeights(weights.longs, degree);
+        }
+        return storage;
+    }
+
+    private long compressIds(byte[] storage, LongsRef buffer, int degree) {
+        int requiredBytes;
+        if (codec == AdjacencyCodec.BLOCK_PACKED) {
+            // bit packing can take more space than the vlongs of the storage, e.g. for a single large delta
+            int size = BlockPackedEncoding.encodedSize(buffer.longs, degree);
+            if (storage.length < size) {
+                storage = new byte[size];
+            }
+            requiredBytes = BlockPackedEncoding.encodeBlocks(buffer.longs, degree, storage, 0);
+        } else {
+            requiredBytes = AdjacencyCompression.compress(buffer, storage);
+        }
+        long address = copyIds(storage, requiredBytes, degree);
+        adjacency.addSkipPoints(address, buffer.longs, degree, codec);
+        return address;
+    }
+
     private synchronized long copyIds(byte[] targets, int requiredBytes, int degree) {
         // sizeOf(degree) + compression bytes
         long address = allocator.allocate(4 + requiredBytes);
@@ -110,29 +220,113 @@ class HugeAdjacencyBuilder {
         return address;
     }
 
+    private synchronized long copyWeights(long[] weights, int degree) {
+        long address = weightAllocator.allocate(degree << 3);
+        byte[] page = weightAllocator.page;
+        int offset = weightAllocator.offset;
+        for (int i = 0; i < degree; i++) {
+            offset = writeLong(page, offset, weights[i]);
+        }
+        weightAllocator.offset = offset;
+        return address;
+    }
+
     int degree(int localId) {
         return (int) offsets[localId];
     }
 
-    static HugeGraph apply(
+    static HugeGraphImpl apply(
             final AllocationTracker tracker,
+            final PageBackend backend,
             final HugeIdMap idMapping,
-            final HugeWeightMapping weights,
+            HugeWeightMapping weights,
             final Map<String, HugeWeightMapping> nodeProperties,
             final HugeAdjacencyBuilder inAdjacency,
             final HugeAdjacencyBuilder outAdjacency) {
 
         HugeAdjacencyList outAdjacencyList = null;
         HugeAdjacencyOffsets outOffsets = null;
+        HugeAdjacencyList outWeights = null;
+        HugeAdjacencyOffsets outWeightOffsets = null;
         if (outAdjacency != null) {
-            outAdjacencyList = outAdjacency.adjacency.build();
+            outAdjacencyList = outAdjacency.adjacency.build(outAdjacency.codec);
             outOffsets = outAdjacency.globalOffsets;
+            if (outAdjacency.loadsWeights()) {
+                outWeights = outAdjacency.weights.build();
+                outWeightOffsets = outAdjacency.globalWeightOffsets;
+            }
         }
         HugeAdjacencyList inAdjacencyList = null;
         HugeAdjacencyOffsets inOffsets = null;
+        HugeAdjacencyList inWeights = null;
+        HugeAdjacencyOffsets inWeightOffsets = null;
         if (inAdjacency != null) {
-            inAdjacencyList = inAdjacency.adjacency.build();
+            inAdjacencyList = inAdjacency.adjacency.build(inAdjacency.codec);
             inOffsets = inAdjacency.globalOffsets;
+            if (inAdjacency.loadsWeights()) {
+                inWeights = inAdjacency.weights.build();
+                inWeightOffsets = inAdjacency.globalWeightOffsets;
+            }
+        }
+
+        HugeAdjacencyBuilder weighted = outWeights != null ? outAdjacency : inAdjacency;
+        double defaultWeight = weighted != null ? weighted.defaultWeight : 0.0;
+        return newGraph(
+                tracker, backend, idMapping, weights, nodeProperties,
+                inAdjacencyList, outAdjacencyList, inOffsets, outOffsets,
+                inWeights, outWeights, inWeightOffsets, outWeightOffsets,
+                defaultWeight);
+    }
+
+    /**
+     * Creates a graph from the given adjacency lists. Lists and offsets that are still on the heap are moved
+     * to the given backend first, lists that have been built for that backend are used as they are.
+     * Weights that are aligned with the adjacency replace the given weights.
+     */
+    static HugeGraphImpl newGraph(
+            final AllocationTracker tracker,
+            final PageBackend backend,
+            final HugeIdMap idMapping,
+            HugeWeightMapping weights,
+            final Map<String, HugeWeightMapping> nodeProperties,
+            HugeAdjacencyList inAdjacencyList,
+            HugeAdjacencyList outAdjacencyList,
+            HugeAdjacencyOffsets inOffsets,
+            HugeAdjacencyOffsets outOffsets,
+            HugeAdjacencyList inWeights,
+            HugeAdjacencyList outWeights,
+            HugeAdjacencyOffsets inWeightOffsets,
+            HugeAdjacencyOffsets outWeightOffsets,
+            double defaultWeight) {
+
+        if (backend != PageBackend.HEAP) {
+            try (OffHeapPageAllocator allocator = OffHeapPageAllocator.of(backend, tracker)) {
+                if (outAdjacencyList != null) {
+                    outAdjacencyList = outAdjacencyList.moveOffHeap(allocator, tracker);
+                    outOffsets = outOffsets.moveOffHeap(allocator, tracker);
+                }
+                if (inAdjacencyList != null) {
+                    inAdjacencyList = inAdjacencyList.moveOffHeap(allocator, tracker);
+                    inOffsets = inOffsets.moveOffHeap(allocator, tracker);
+                }
+                if (outWeights != null) {
+                    outWeights = outWeights.moveOffHeap(allocator, tracker);
+                    outWeightOffsets = outWeightOffsets.moveOffHeap(allocator, tracker);
+                }
+                if (inWeights != null) {
+                    inWeights = inWeights.moveOffHeap(allocator, tracker);
+                    inWeightOffsets = inWeightOffsets.moveOffHeap(allocator, tracker);
+                }
+            }
+        }
+
+        if (outWeights != null || inWeights != null) {
+            weights = new HugeColumnarWeights(
+                    inAdjacencyList, outAdjacencyList,
+                    inOffsets, outOffsets,
+                    inWeights, outWeights,
+                    inWeightOffsets, outWeightOffsets,
+                    defaultWeight);
         }
 
         return new HugeGraphImpl(
@@ -143,11 +337,10 @@ class HugeAdjacencyBuilder {
 
     private static final class NoDegreeHAB extends HugeAdjacencyBuilder {
         private NoDegreeHAB(
-                HugeAdjacencyListBuilder adjacency,
-                HugeAdjacencyListBuilder.Allocator allocator,
+                HugeAdjacencyBuilder global,
                 long[] offsets,
-                AllocationTracker tracker) {
-            super(adjacency, allocator, offsets, tracker);
+                long[] weightOffsets) {
+            super(global, offsets, weightOffsets);
         }
 
         @Override
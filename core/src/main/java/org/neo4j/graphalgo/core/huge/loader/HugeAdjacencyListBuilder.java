@@ -18,10 +18,16 @@
  */
 package org.neo4j.graphalgo.core.huge.loader;
 
+import com.carrotsearch.hppc.LongObjectHashMap;
+import org.neo4j.graphalgo.core.huge.AdjacencyCodec;
 import org.neo4j.graphalgo.core.huge.HugeAdjacencyList;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencySkipIndex;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.OffHeapPageAllocator;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
 import org.neo4j.graphalgo.core.utils.paged.PageUtil;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
@@ -30,6 +36,7 @@ import static org.neo4j.graphalgo.core.huge.HugeAdjacencyList.PAGE_MASK;
 import static org.neo4j.graphalgo.core.huge.HugeAdjacencyList.PAGE_SHIFT;
 import static org.neo4j.graphalgo.core.huge.HugeAdjacencyList.PAGE_SIZE;
 import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfByteArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfLongArray;
 import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfObjectArray;
 import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfObjectArrayElements;
 
@@ -50,12 +57,43 @@ final class HugeAdjacencyListBuilder {
 
     private byte[][] pages;
 
+    // pages that have been moved off-heap, only used for a backend other than PageBackend.HEAP
+    private final OffHeapPageAllocator offHeap;
+    private ByteBuffer[] buffers;
+    private long offHeapBytes;
+
+    // skip points of the lists with at least skipIndexThreshold targets, keyed by address, null if disabled
+    private final int skipIndexThreshold;
+    private final LongObjectHashMap<long[]> skipPoints;
+    private long skipPointsMemory;
+
     static HugeAdjacencyListBuilder newBuilder(AllocationTracker tracker) {
-        return new HugeAdjacencyListBuilder(tracker);
+        return new HugeAdjacencyListBuilder(tracker, 0, PageBackend.HEAP);
+    }
+
+    /**
+     * Creates a builder that records skip points for every list with at least {@code skipIndexThreshold} targets,
+     * see {@link HugeAdjacencySkipIndex}. A threshold of 0 disables the skip index.
+     */
+    static HugeAdjacencyListBuilder newBuilder(AllocationTracker tracker, int skipIndexThreshold) {
+        return new HugeAdjacencyListBuilder(tracker, skipIndexThreshold, PageBackend.HEAP);
+    }
+
+    /**
+     * Creates a builder whose pages end up in the given backend. For a backend other than {@link PageBackend#HEAP},
+     * every page is written on the heap and moved off-heap as soon as its allocator has moved on to the next page,
+     * so that the heap holds at most the pages that are currently written to.
+     */
+    static HugeAdjacencyListBuilder newBuilder(AllocationTracker tracker, int skipIndexThreshold, PageBackend backend) {
+        return new HugeAdjacencyListBuilder(tracker, skipIndexThreshold, backend);
     }
 
-    private HugeAdjacencyListBuilder(AllocationTracker tracker) {
+    private HugeAdjacencyListBuilder(AllocationTracker tracker, int skipIndexThreshold, PageBackend backend) {
         this.tracker = tracker;
+        this.offHeap = backend != PageBackend.HEAP ? OffHeapPageAllocator.of(backend, tracker) : null;
+        this.buffers = new ByteBuffer[0];
+        this.skipIndexThreshold = skipIndexThreshold;
+        this.skipPoints = skipIndexThreshold > 0 ? new LongObjectHashMap<>() : null;
         growLock = new ReentrantLock(true);
         size = new AtomicLong();
         capacity = new AtomicLong();
@@ -69,7 +107,77 @@ final class HugeAdjacencyListBuilder {
     }
 
     public HugeAdjacencyList build() {
-        return new HugeAdjacencyList(pages);
+        return build(AdjacencyCodec.VAR_LONG, null);
+    }
+
+    public HugeAdjacencyList build(AdjacencyCodec codec) {
+        return build(codec, skipIndex());
+    }
+
+    private HugeAdjacencyList build(AdjacencyCodec codec, HugeAdjacencySkipIndex skipIndex) {
+        if (offHeap == null) {
+            return new HugeAdjacencyList(pages, codec, skipIndex);
+        }
+        // the pages that were still being written to when the import ended
+        for (int i = 0; i < pages.length; i++) {
+            if (pages[i] != null) {
+                moveOffHeap(i);
+            }
+        }
+        offHeap.close();
+        return new HugeAdjacencyList(buffers, offHeapBytes, codec, skipIndex);
+    }
+
+    /**
+     * Moves the page at {@code pageIndex} off-heap, if this builder has an off-heap backend.
+     * The page must no longer be written to.
+     */
+    private void moveOffHeap(int pageIndex) {
+        if (offHeap == null) {
+            return;
+        }
+        growLock.lock();
+        try {
+            byte[] page = pages[pageIndex];
+            if (page == null) {
+                return;
+            }
+            ByteBuffer buffer = offHeap.allocate(page.length);
+            buffer.duplicate().put(page);
+            buffers[pageIndex] = buffer;
+            pages[pageIndex] = null;
+            offHeapBytes += page.length;
+            tracker.remove(sizeOfByteArray(page.length));
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    /**
+     * Records the skip points of the delta encoded {@code values} that have been written as the list at {@code address},
+     * if the list has at least as many targets as the skip index threshold.
+     * Can be called concurrently.
+     */
+    void addSkipPoints(long address, long[] values, int degree, AdjacencyCodec codec) {
+        if (skipPoints == null || degree < skipIndexThreshold || degree <= HugeAdjacencySkipIndex.SKIP_INTERVAL) {
+            return;
+        }
+        long[] points = AdjacencyCompression.skipPoints(values, degree, codec);
+        long memory = sizeOfLongArray(points.length);
+        tracker.add(memory);
+        synchronized (skipPoints) {
+            skipPoints.put(address, points);
+            skipPointsMemory += memory;
+        }
+    }
+
+    private HugeAdjacencySkipIndex skipIndex() {
+        if (skipPoints == null || skipPoints.isEmpty()) {
+            return null;
+        }
+        long mapMemory = sizeOfLongArray(skipPoints.keys.length) + sizeOfObjectArray(skipPoints.values.length);
+        tracker.add(mapMemory);
+        return new HugeAdjacencySkipIndex(skipIndexThreshold, skipPoints, skipPointsMemory + mapMemory);
     }
 
     private long allocateNewPages(Allocator into) {
@@ -84,8 +192,13 @@ final class HugeAdjacencyListBuilder {
         int pageIndex = PageUtil.pageIndex(intoIndex, PAGE_SHIFT);
         grow(intoIndex + PAGE_SIZE, pageIndex);
         tracker.add(sizeOfByteArray(page.length));
-        pages[pageIndex] = page;
-        into.insertPage(page);
+        growLock.lock();
+        try {
+            pages[pageIndex] = page;
+        } finally {
+            growLock.unlock();
+        }
+        into.insertPage(page, pageIndex);
         return intoIndex;
     }
 
@@ -137,6 +250,9 @@ final class HugeAdjacencyListBuilder {
             AllocationTracker tracker = this.tracker;
             tracker.add(sizeOfObjectArrayElements(newPages));
             byte[][] pages = Arrays.copyOf(this.pages, newNumPages);
+            if (offHeap != null) {
+                buffers = Arrays.copyOf(buffers, newNumPages);
+            }
             for (int i = currentNumPages; i < newNumPages; i++) {
                 if (i != skipPage) {
                     tracker.add(PAGE_SIZE_IN_BYTES);
@@ -157,6 +273,8 @@ final class HugeAdjacencyListBuilder {
         private int prevOffset;
         private int toPageIndex;
         private int currentPageIndex;
+        // the page index of the oversized page that is currently written to, -1 if there is none
+        private int largePageIndex = -1;
 
         public byte[] page;
         public int offset;
@@ -196,6 +314,7 @@ final class HugeAdjacencyListBuilder {
                 return address;
             }
             address = top += (long) (PAGE_SIZE - offset);
+            builder.moveOffHeap(currentPageIndex);
             if (next()) {
                 // TODO: store and reuse fragments
                 // branch: huge-alloc-fragmentation-recycle
@@ -223,6 +342,8 @@ final class HugeAdjacencyListBuilder {
 
         private boolean reset() {
             if (prevOffset != -1) {
+                builder.moveOffHeap(largePageIndex);
+                largePageIndex = -1;
                 page = pages[currentPageIndex];
                 offset = prevOffset;
                 prevOffset = -1;
@@ -250,10 +371,13 @@ final class HugeAdjacencyListBuilder {
             offset = 0;
         }
 
-        private void insertPage(byte[] page) {
+        private void insertPage(byte[] page, int pageIndex) {
             if (prevOffset == -1) {
                 prevOffset = offset;
+            } else {
+                builder.moveOffHeap(largePageIndex);
             }
+            largePageIndex = pageIndex;
             this.page = page;
             offset = 0;
         }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import org.neo4j.graphalgo.api.GraphFactory;
+import org.neo4j.graphalgo.api.GraphSetup;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.core.huge.HugeGraphImpl;
+import org.neo4j.graphalgo.core.huge.NodeOrder;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.kernel.api.StatementConstants;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+/**
+ * Loads a {@link HugeGraph} from a Cypher projection.
+ * <p>
+ * The node and relationship statements are the same as for {@code graph:'cypher'}.
+ * Statements that use the {@code skip} and {@code limit} parameters are loaded in parallel batches.
+ * The rows are written straight into the id map and the compressed adjacency,
+ * so the graph is not limited to 2^31 nodes and uses as little memory as a graph that is loaded by label and type.
+ */
+public final class HugeCypherGraphFactory extends GraphFactory {
+
+    public static final String TYPE = "huge-cypher";
+
+    // the weights are read from the rows and not from a property key,
+    // any key other than NO_SUCH_PROPERTY_KEY lets the adjacency store them
+    private static final int WEIGHT_COLUMN = Integer.MAX_VALUE;
+
+    public HugeCypherGraphFactory(GraphDatabaseAPI api, GraphSetup setup) {
+        super(api, setup);
+    }
+
+    @Override
+    public HugeGraph build() {
+        AllocationTracker tracker = setup.tracker;
+        IdsAndProperties idsAndProperties = new CypherNodesImporter(api, setup, dimensions, progress, tracker).call();
+        HugeGraph graph = loadRelationships(idsAndProperties, tracker);
+        progressLogger.logDone(tracker);
+        return graph;
+    }
+
+    private HugeGraph loadRelationships(IdsAndProperties idsAndProperties, AllocationTracker tracker) {
+        boolean weighted = setup.shouldLoadRelationshipWeight();
+        boolean columnarWeights = setup.columnarRelationshipWeights && weighted;
+        int adjacencyWeightProperty = columnarWeights ? WEIGHT_COLUMN : StatementConstants.NO_SUCH_PROPERTY_KEY;
+        // reordering rebuilds the adjacency, only the rebuilt pages are moved to the page backend
+        boolean reorder = setup.nodeOrder != NodeOrder.NONE;
+        PageBackend backend = reorder ? PageBackend.HEAP : setup.pageBackend;
+
+        HugeAdjacencyBuilder outAdjacency = null;
+        HugeAdjacencyBuilder inAdjacency = null;
+        if (setup.loadAsUndirected || setup.loadOutgoing) {
+            outAdjacency = new HugeAdjacencyBuilder(tracker, adjacencyWeightProperty, setup.relationDefaultWeight, setup.adjacencyCodec, setup.skipIndexThreshold, backend);
+        }
+        if (!setup.loadAsUndirected && setup.loadIncoming) {
+            inAdjacency = new HugeAdjacencyBuilder(tracker, adjacencyWeightProperty, setup.relationDefaultWeight, setup.adjacencyCodec, setup.skipIndexThreshold, backend);
+        }
+        HugeWeightMapBuilder weights = !weighted || columnarWeights
+                ? new HugeWeightMapBuilder.NullBuilder(setup.relationDefaultWeight)
+                : new HugeWeightMapBuilder(tracker, WEIGHT_COLUMN, setup.relationDefaultWeight);
+
+        long rows = new CypherRelationshipsImporter(
+                api, setup, progress, tracker, idsAndProperties.hugeIdMap, weights, outAdjacency, inAdjacency)
+                .call();
+        setup.log.info("Cypher Projection: Imported %,d nodes from %,d relationship rows", idsAndProperties.hugeIdMap.nodeCount(), rows);
+
+        HugeGraphImpl graph = HugeAdjacencyBuilder.apply(
+                tracker,
+                backend,
+                idsAndProperties.hugeIdMap,
+                weights.build(),
+                idsAndProperties.properties,
+                inAdjacency,
+                outAdjacency);
+        if (reorder) {
+            return HugeNodeReordering.reorder(new HugeGraphImpl[]{graph}, idsAndProperties, setup, weighted, tracker)[0];
+        }
+        return graph;
+    }
+}
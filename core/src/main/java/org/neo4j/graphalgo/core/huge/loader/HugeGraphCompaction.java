@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.core.huge.AdjacencyCodec;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencyList;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencyOffsets;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencySkipIndex;
+import org.neo4j.graphalgo.core.huge.HugeDeltaGraph;
+import org.neo4j.graphalgo.core.huge.HugeGraphImpl;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphdb.Direction;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Merges the changes of a {@link HugeDeltaGraph} into a new {@link HugeGraphImpl}.
+ * <p>
+ * Deleted nodes are dropped and the remaining nodes get new, dense ids. The adjacency is compressed
+ * in the same format as the loader writes it, node by node into new pages on the heap.
+ * Only unweighted graphs can be compacted, node properties are copied for the remaining nodes.
+ */
+public final class HugeGraphCompaction {
+
+    public static HugeGraphImpl compact(HugeDeltaGraph graph, AllocationTracker tracker) {
+        long nodeCount = graph.nodeCount();
+        long remainingNodes = nodeCount - countRemoved(graph);
+        HugeLongArray newIds = HugeLongArray.newArray(nodeCount, AllocationTracker.EMPTY);
+        HugeLongArray oldIds = HugeLongArray.newArray(remainingNodes, AllocationTracker.EMPTY);
+        HugeLongArray graphIds = HugeLongArray.newArray(remainingNodes, tracker);
+        long highestNodeId = 0L;
+        long newNodeCount = 0L;
+        for (long node = 0L; node < nodeCount; node++) {
+            if (graph.isRemoved(node)) {
+                newIds.set(node, -1L);
+                continue;
+            }
+            long originalId = graph.toOriginalNodeId(node);
+            highestNodeId = Math.max(highestNodeId, originalId);
+            graphIds.set(newNodeCount, originalId);
+            oldIds.set(newNodeCount, node);
+            newIds.set(node, newNodeCount++);
+        }
+        HugeIdMap idMap = HugeIdMapBuilder.build(graphIds, newNodeCount, highestNodeId + 1L, tracker);
+
+        HugeAdjacencyList outAdjacency = null;
+        HugeAdjacencyOffsets outOffsets = null;
+        HugeAdjacencyList inAdjacency = null;
+        HugeAdjacencyOffsets inOffsets = null;
+        if (graph.hasAdjacency(Direction.OUTGOING)) {
+            AdjacencyRewriter rewriter = rewriter(graph, Direction.OUTGOING, oldIds, newNodeCount, newIds, tracker);
+            outOffsets = rewriter.offsets();
+            outAdjacency = rewriter.adjacency();
+        }
+        if (graph.hasAdjacency(Direction.INCOMING)) {
+            AdjacencyRewriter rewriter = rewriter(graph, Direction.INCOMING, oldIds, newNodeCount, newIds, tracker);
+            inOffsets = rewriter.offsets();
+            inAdjacency = rewriter.adjacency();
+        }
+        oldIds.release();
+        newIds.release();
+
+        Map<String, HugeWeightMapping> nodeProperties = new HashMap<>();
+        for (String type : graph.availableNodeProperties()) {
+            nodeProperties.put(type, compactProperties(graph, type, newNodeCount, tracker));
+        }
+
+        double defaultWeight = graph.base().relationshipWeights().defaultValue();
+        return new HugeGraphImpl(
+                tracker,
+                idMap,
+                new HugeNullWeightMap(defaultWeight),
+                nodeProperties,
+                inAdjacency,
+                outAdjacency,
+                inOffsets,
+                outOffsets);
+    }
+
+    private static AdjacencyRewriter rewriter(
+            HugeDeltaGraph graph,
+            Direction direction,
+            HugeLongArray oldIds,
+            long newNodeCount,
+            HugeLongArray newIds,
+            AllocationTracker tracker) {
+        AdjacencyRewriter rewriter = new AdjacencyRewriter(
+                graph, direction, oldIds, newNodeCount, newIds,
+                AdjacencyCodec.VAR_LONG, HugeAdjacencySkipIndex.DEFAULT_THRESHOLD, false, tracker);
+        rewriter.run();
+        return rewriter;
+    }
+
+    private static long countRemoved(HugeDeltaGraph graph) {
+        long removed = 0L;
+        long nodeCount = graph.nodeCount();
+        for (long node = 0L; node < nodeCount; node++) {
+            if (graph.isRemoved(node)) {
+                ++removed;
+            }
+        }
+        return removed;
+    }
+
+    private static HugeWeightMapping compactProperties(
+            HugeDeltaGraph graph,
+            String type,
+            long newNodeCount,
+            AllocationTracker tracker) {
+        HugeWeightMapping properties = graph.base().hugeNodeProperties(type);
+        if (!(properties instanceof HugeNodePropertyMap)) {
+            return properties;
+        }
+        HugeNodePropertyMap propertyMap = (HugeNodePropertyMap) properties;
+        HugeNodePropertiesBuilder builder = HugeNodePropertiesBuilder.of(
+                Math.max(1L, newNodeCount),
+                tracker,
+                propertyMap.defaultValue(),
+                propertyMap.propertyId());
+        // nodes that have been added after loading have the default value
+        long baseNodeCount = graph.base().nodeCount();
+        long nodeCount = graph.nodeCount();
+        long newId = 0L;
+        for (long node = 0L; node < nodeCount; node++) {
+            if (graph.isRemoved(node)) {
+                continue;
+            }
+            if (node < baseNodeCount) {
+                propertyMap.copyTo(node, builder, newId);
+            }
+            ++newId;
+        }
+        return builder.build();
+    }
+
+    private HugeGraphCompaction() {
+    }
+}
@@ -23,22 +23,268 @@ import org.neo4j.graphalgo.api.GraphSetup;
 import org.neo4j.graphalgo.api.HugeGraph;
 import org.neo4j.graphalgo.api.HugeWeightMapping;
 import org.neo4j.graphalgo.core.GraphDimensions;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencyList;
+import org.neo4j.graphalgo.core.huge.HugeGraphImpl;
+import org.neo4j.graphalgo.core.huge.HugeMultiGraph;
+import org.neo4j.graphalgo.core.huge.NodeOrder;
 import org.neo4j.graphalgo.core.utils.ApproximatedImportProgress;
 import org.neo4j.graphalgo.core.utils.ImportProgress;
 import org.neo4j.graphalgo.core.utils.ProgressLogger;
+import org.neo4j.graphalgo.core.utils.container.TrackingLongDoubleHashMap;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.MemoryEstimation;
+import org.neo4j.graphalgo.core.utils.paged.MemoryRange;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphalgo.core.utils.paged.SparseLongArray;
+import org.neo4j.internal.kernel.api.Read;
 import org.neo4j.kernel.api.StatementConstants;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.BYTES_OBJECT_REF;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.shallowSizeOfInstance;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfByteArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfDoubleArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfIntArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfLongArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfObjectArray;
+
 public final class HugeGraphFactory extends GraphFactory {
 
-    // TODO: make this configurable from somewhere
-    private static final boolean LOAD_DEGREES = false;
+    /**
+     * Labels that are carried by fewer than this fraction of all nodes are loaded from the label index
+     * instead of scanning the node store, and their relationships are loaded by traversing their
+     * relationship chains instead of scanning the relationship store.
+     */
+    static final double LABEL_INDEX_SELECTIVITY = 0.1;
 
     public HugeGraphFactory(GraphDatabaseAPI api, GraphSetup setup) {
         super(api, setup);
     }
 
+    /**
+     * Estimates the memory that a graph loaded with the given setup will occupy, based on the counts of the store.
+     * <p>
+     * The estimation covers the id mapping, the adjacency lists and their offsets, relationship weights, node properties,
+     * and the buffers that are used while importing the relationships.
+     * For an off-heap {@link PageBackend}, adjacency pages are moved off-heap while they are written, so only the page
+     * that every importer currently writes to counts towards the heap. Offsets are built on the heap and moved afterwards,
+     * so they count towards both.
+     * <p>
+     * If the nodes are reordered, the graph is imported on the heap and rewritten afterwards. At the peak of the rewrite
+     * the imported and the rewritten adjacency, offsets and weights exist at the same time, next to the id arrays of the
+     * order and a second copy of one node property.
+     */
+    public static MemoryEstimation memoryEstimation(GraphSetup setup, GraphDimensions dimensions) {
+        long nodeCount = dimensions.hugeNodeCount();
+        long relCount = dimensions.maxRelCount();
+        int concurrency = setup.concurrency();
+        boolean weighted = dimensions.relWeightId() != StatementConstants.NO_SUCH_PROPERTY_KEY;
+        boolean columnarWeights = setup.columnarRelationshipWeights && weighted;
+        boolean reorder = setup.nodeOrder != NodeOrder.NONE;
+        // reordering imports into the heap and only moves the rewritten pages to the page backend
+        boolean offHeap = setup.pageBackend != PageBackend.HEAP && !reorder;
+        boolean countDegrees = setup.countDegrees;
+        // every relationship type has its own adjacency and offsets
+        int types = Math.max(1, dimensions.relationshipTypeIds().length);
+
+        MemoryEstimation.Builder builder = MemoryEstimation.builder("HugeGraph")
+                .add("instance", MemoryRange.of(types * shallowSizeOfInstance(HugeGraphImpl.class)))
+                .add("id map", MemoryRange.of(HugeLongArray.estimateMemoryUsage(nodeCount))
+                        .add(SparseLongArray.estimateMemoryUsage(dimensions.allNodesCount(), nodeCount)));
+
+        MemoryRange weightMaps = MemoryRange.empty();
+        if (setup.loadAsUndirected) {
+            addDirection(builder, "outgoing", nodeCount, relCount << 1, types, concurrency, columnarWeights, countDegrees, offHeap);
+            weightMaps = weightMaps.add(hashMapMemory(nodeCount, relCount << 1, TrackingLongDoubleHashMap.class, Long.BYTES));
+        } else {
+            if (setup.loadOutgoing) {
+                addDirection(builder, "outgoing", nodeCount, relCount, types, concurrency, columnarWeights, countDegrees, offHeap);
+                weightMaps = weightMaps.add(hashMapMemory(nodeCount, relCount, TrackingLongDoubleHashMap.class, Long.BYTES));
+            }
+            if (setup.loadIncoming) {
+                addDirection(builder, "incoming", nodeCount, relCount, types, concurrency, columnarWeights, countDegrees, offHeap);
+                weightMaps = weightMaps.add(hashMapMemory(nodeCount, relCount, TrackingLongDoubleHashMap.class, Long.BYTES));
+            }
+        }
+        if (weighted && !columnarWeights) {
+            // one map reference per node in the pages of the weight map
+            builder.add("relationship weights", weightMaps.add(types * nodeCount * BYTES_OBJECT_REF));
+        }
+
+        boolean nodeProperties = false;
+        for (int i = 0; i < setup.nodePropertyMappings.length; i++) {
+            if (dimensions.nodePropertyKeyId(i) != StatementConstants.NO_SUCH_PROPERTY_KEY) {
+                builder.add(
+                        "node property '" + setup.nodePropertyMappings[i].propertyName + "'",
+                        HugeNodePropertiesBuilder.estimateMemoryUsage(nodeCount));
+                nodeProperties = true;
+            }
+        }
+
+        if (reorder) {
+            boolean rewrittenOffHeap = setup.pageBackend != PageBackend.HEAP;
+            if (setup.loadAsUndirected) {
+                addRewrittenDirection(builder, "outgoing", nodeCount, relCount << 1, types, columnarWeights, rewrittenOffHeap);
+            } else {
+                if (setup.loadOutgoing) {
+                    addRewrittenDirection(builder, "outgoing", nodeCount, relCount, types, columnarWeights, rewrittenOffHeap);
+                }
+                if (setup.loadIncoming) {
+                    addRewrittenDirection(builder, "incoming", nodeCount, relCount, types, columnarWeights, rewrittenOffHeap);
+                }
+            }
+            if (weighted && !columnarWeights) {
+                builder.add("reordered relationship weights", weightMaps.add(types * nodeCount * BYTES_OBJECT_REF));
+            }
+            // the old and the new id of every node, computing the order needs up to two more arrays of the same size
+            long idArray = HugeLongArray.estimateMemoryUsage(nodeCount);
+            builder.add("node order", MemoryRange.of(2L * idArray, 4L * idArray));
+            if (nodeProperties) {
+                // properties are reordered one after another and the old values are released right after
+                builder.add("reordered node property", HugeNodePropertiesBuilder.estimateMemoryUsage(nodeCount));
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static void addDirection(
+            MemoryEstimation.Builder builder,
+            String direction,
+            long nodeCount,
+            long relCount,
+            int types,
+            int concurrency,
+            boolean columnarWeights,
+            boolean countDegrees,
+            boolean offHeap) {
+        ImportSizing sizing = ImportSizing.of(concurrency, nodeCount);
+        int numberOfPages = sizing.numberOfPages();
+        int pageSize = sizing.pageSize();
+        long offsets = types * (sizeOfObjectArray(numberOfPages) + numberOfPages * sizeOfLongArray(pageSize));
+
+        // every node with relationships stores its degree, followed by the delta encoded targets
+        // that take at least 1 byte and at most as many bytes as the largest id needs as a vlong
+        long nodesWithRels = Math.min(nodeCount * types, relCount);
+        long maxIdBytes = vLongSize(nodeCount);
+        long minBytes = (relCount > 0L ? Integer.BYTES : 0L) + relCount;
+        long maxBytes = nodesWithRels * Integer.BYTES + relCount * maxIdBytes;
+        // every page of the offsets has its own importer, which reserves a page of the adjacency up front
+        addPages(builder, direction + " adjacency", minBytes, maxBytes, numberOfPages * types, offHeap);
+        addPages(builder, direction + " offsets", offsets, offsets, 0, offHeap);
+
+        if (countDegrees) {
+            // targets are written into buffers of the exact degree,
+            // that are released as soon as all targets of a node have been scanned
+            long importers = types * (sizeOfObjectArray(numberOfPages) * 5L
+                    + numberOfPages * (sizeOfObjectArray(pageSize) + sizeOfIntArray(pageSize) + sizeOfLongArray(pageSize)));
+            long maxBuffers = nodesWithRels * sizeOfLongArray(0) + relCount * Long.BYTES;
+            if (columnarWeights) {
+                importers += types * (sizeOfObjectArray(numberOfPages) * 2L
+                        + numberOfPages * (sizeOfObjectArray(pageSize) + sizeOfLongArray(pageSize)));
+                maxBuffers <<= 1;
+            }
+            builder.add(direction + " import buffers", MemoryRange.of(importers, importers + maxBuffers));
+        } else {
+            // targets are buffered per node until all relationships have been scanned,
+            // the buffers grow by doubling and are released once the adjacency is compressed
+            long importers = types * (sizeOfObjectArray(numberOfPages) * 4L
+                    + numberOfPages * ((sizeOfObjectArray(pageSize) << 1) + sizeOfLongArray(pageSize)));
+            long maxBuffers = nodesWithRels * sizeOfByteArray(0) + ((relCount * maxIdBytes) << 1);
+            if (columnarWeights) {
+                importers += types * (sizeOfObjectArray(numberOfPages) * 2L + numberOfPages * sizeOfLongArray(pageSize));
+                maxBuffers += nodesWithRels * sizeOfLongArray(0) + ((relCount * Long.BYTES) << 1);
+            }
+            builder.add(direction + " import buffers", MemoryRange.of(importers + relCount, importers + maxBuffers));
+        }
+
+        if (columnarWeights) {
+            long weightBytes = relCount * Double.BYTES;
+            addPages(builder, direction + " weights", weightBytes, weightBytes, numberOfPages * types, offHeap);
+            addPages(builder, direction + " weight offsets", offsets, offsets, 0, offHeap);
+        }
+    }
+
+    /**
+     * The adjacency of one direction as rewritten by {@link AdjacencyRewriter}, one rewriter per type and direction.
+     */
+    private static void addRewrittenDirection(
+            MemoryEstimation.Builder builder,
+            String direction,
+            long nodeCount,
+            long relCount,
+            int types,
+            boolean columnarWeights,
+            boolean offHeap) {
+        int numberOfPages = AdjacencyRewriter.numberOfOffsetPages(nodeCount);
+        long offsets = types * (sizeOfObjectArray(numberOfPages) + numberOfPages * sizeOfLongArray(AdjacencyRewriter.OFFSET_PAGE_SIZE));
+        long nodesWithRels = Math.min(nodeCount * types, relCount);
+        long minBytes = (relCount > 0L ? Integer.BYTES : 0L) + relCount;
+        long maxBytes = nodesWithRels * Integer.BYTES + relCount * vLongSize(nodeCount);
+        addPages(builder, "reordered " + direction + " adjacency", minBytes, maxBytes, types, offHeap);
+        addPages(builder, "reordered " + direction + " offsets", offsets, offsets, 0, offHeap);
+        if (columnarWeights) {
+            long weightBytes = relCount * Double.BYTES;
+            addPages(builder, "reordered " + direction + " weights", weightBytes, weightBytes, types, offHeap);
+            addPages(builder, "reordered " + direction + " weight offsets", offsets, offsets, 0, offHeap);
+        }
+    }
+
+    private static void addPages(
+            MemoryEstimation.Builder builder,
+            String description,
+            long minBytes,
+            long maxBytes,
+            int prefetchedPages,
+            boolean offHeap) {
+        if (prefetchedPages == 0) {
+            MemoryRange memory = MemoryRange.of(minBytes, maxBytes);
+            builder.add(description, memory, offHeap ? memory : MemoryRange.empty());
+            return;
+        }
+        // pages are only partially filled when an importer moves on to the next one
+        long minPages = Math.max(1L, (minBytes + HugeAdjacencyList.PAGE_MASK) >>> HugeAdjacencyList.PAGE_SHIFT);
+        long maxPages = ((maxBytes + HugeAdjacencyList.PAGE_MASK) >>> HugeAdjacencyList.PAGE_SHIFT) + prefetchedPages;
+        long pageBytes = sizeOfByteArray(HugeAdjacencyList.PAGE_SIZE);
+        if (offHeap) {
+            // at most the pages that the importers are writing to are on the heap at the same time
+            long heapPages = Math.min(maxPages, prefetchedPages);
+            builder.add(
+                    description,
+                    MemoryRange.of(
+                            Math.min(minPages, heapPages) * pageBytes + sizeOfObjectArray((int) minPages),
+                            heapPages * pageBytes + sizeOfObjectArray((int) maxPages)),
+                    MemoryRange.of(minPages << HugeAdjacencyList.PAGE_SHIFT, maxPages << HugeAdjacencyList.PAGE_SHIFT));
+            return;
+        }
+        builder.add(description, MemoryRange.of(
+                minPages * pageBytes + sizeOfObjectArray((int) minPages),
+                maxPages * pageBytes + sizeOfObjectArray((int) maxPages)));
+    }
+
+    private static long vLongSize(long nodeCount) {
+        int bits = Long.SIZE - Long.numberOfLeadingZeros(Math.max(1L, nodeCount - 1L));
+        return (bits + 6) / 7;
+    }
+
+    /**
+     * Estimates a set of hppc hash maps that hold {@code entries} values, distributed over at most {@code maxMaps} maps.
+     * Buffers are sized to the next power of two above the load factor, so that they are between 1/3 and 2/3 empty.
+     */
+    static MemoryRange hashMapMemory(long maxMaps, long entries, Class<?> mapClass, int keyBytes) {
+        if (entries == 0L) {
+            return MemoryRange.empty();
+        }
+        // default expected elements (4) with the default load factor (0.75) give 8 slots plus one for the empty key
+        long emptyMap = shallowSizeOfInstance(mapClass) + sizeOfArray(9, keyBytes) + sizeOfDoubleArray(9);
+        long entryBytes = keyBytes + Double.BYTES;
+        return MemoryRange.of(
+                emptyMap + entries * entryBytes * 4L / 3L,
+                Math.min(maxMaps, entries) * emptyMap + entries * entryBytes * 8L / 3L);
+    }
+
     @Override
     public HugeGraph build() {
         return importGraph();
@@ -50,10 +296,8 @@ public final class HugeGraphFactory extends GraphFactory {
             final GraphDimensions dimensions,
             final GraphSetup setup) {
 
-        // ops for scanning degrees
-        long relOperations = LOAD_DEGREES ? dimensions.maxRelCount() : 0L;
-
         // batching for undirected double the amount of rels imported
+        long relOperations = 0L;
         if (setup.loadIncoming || setup.loadAsUndirected) {
             relOperations += dimensions.maxRelCount();
         }
@@ -61,6 +305,11 @@ public final class HugeGraphFactory extends GraphFactory {
             relOperations += dimensions.maxRelCount();
         }
 
+        // counting the degrees visits every relationship as often as importing it
+        if (setup.countDegrees) {
+            relOperations <<= 1;
+        }
+
         return new ApproximatedImportProgress(
                 progressLogger,
                 setup.tracker,
@@ -87,46 +336,78 @@ public final class HugeGraphFactory extends GraphFactory {
                 tracker,
                 threadPool,
                 concurrency,
-                setup.nodePropertyMappings)
+                setup.nodePropertyMappings,
+                useLabelIndex(dimensions))
                 .call(setup.log);
     }
 
+    static boolean useLabelIndex(GraphDimensions dimensions) {
+        return dimensions.labelId() != Read.ANY_LABEL
+                && dimensions.hugeNodeCount() < LABEL_INDEX_SELECTIVITY * dimensions.allNodesCount();
+    }
+
     private HugeGraph loadRelationships(
             GraphDimensions dimensions,
             AllocationTracker tracker,
             IdsAndProperties idsAndProperties,
             int concurrency) {
-        HugeAdjacencyBuilder outAdjacency = null;
-        HugeAdjacencyBuilder inAdjacency = null;
-        if (setup.loadAsUndirected) {
-            outAdjacency = new HugeAdjacencyBuilder(tracker);
-        } else {
-            if (setup.loadOutgoing) {
-                outAdjacency = new HugeAdjacencyBuilder(tracker);
-            }
-            if (setup.loadIncoming) {
-                inAdjacency = new HugeAdjacencyBuilder(tracker);
+        int weightProperty = dimensions.relWeightId();
+        boolean columnarWeights = setup.columnarRelationshipWeights
+                && weightProperty != StatementConstants.NO_SUCH_PROPERTY_KEY;
+        int adjacencyWeightProperty = columnarWeights ? weightProperty : StatementConstants.NO_SUCH_PROPERTY_KEY;
+
+        int[] relTypes = dimensions.relationshipTypeIds().length > 1
+                ? dimensions.relationshipTypeIds()
+                : new int[]{dimensions.singleRelationshipTypeId()};
+        int types = relTypes.length;
+        // reordering rebuilds the adjacency, only the rebuilt pages are moved to the page backend
+        boolean reorder = setup.nodeOrder != NodeOrder.NONE;
+        PageBackend backend = reorder ? PageBackend.HEAP : setup.pageBackend;
+
+        HugeAdjacencyBuilder[] outAdjacency = new HugeAdjacencyBuilder[types];
+        HugeAdjacencyBuilder[] inAdjacency = new HugeAdjacencyBuilder[types];
+        HugeWeightMapBuilder[] weightsBuilder = new HugeWeightMapBuilder[types];
+        for (int type = 0; type < types; type++) {
+            if (setup.loadAsUndirected) {
+                outAdjacency[type] = new HugeAdjacencyBuilder(tracker, adjacencyWeightProperty, setup.relationDefaultWeight, setup.adjacencyCodec, setup.skipIndexThreshold, backend);
+            } else {
+                if (setup.loadOutgoing) {
+                    outAdjacency[type] = new HugeAdjacencyBuilder(tracker, adjacencyWeightProperty, setup.relationDefaultWeight, setup.adjacencyCodec, setup.skipIndexThreshold, backend);
+                }
+                if (setup.loadIncoming) {
+                    inAdjacency[type] = new HugeAdjacencyBuilder(tracker, adjacencyWeightProperty, setup.relationDefaultWeight, setup.adjacencyCodec, setup.skipIndexThreshold, backend);
+                }
             }
+            weightsBuilder[type] = weightProperty == StatementConstants.NO_SUCH_PROPERTY_KEY || columnarWeights
+                    ? new HugeWeightMapBuilder.NullBuilder(setup.relationDefaultWeight)
+                    : new HugeWeightMapBuilder(tracker, weightProperty, setup.relationDefaultWeight);
         }
 
-        int weightProperty = dimensions.relWeightId();
-        HugeWeightMapBuilder weightsBuilder = weightProperty == StatementConstants.NO_SUCH_PROPERTY_KEY
-                ? new HugeWeightMapBuilder.NullBuilder(setup.relationDefaultWeight)
-                : new HugeWeightMapBuilder(tracker, weightProperty, setup.relationDefaultWeight);
-
         new ScanningRelationshipsImporter(
-                setup, api, dimensions, progress, tracker, idsAndProperties.hugeIdMap, weightsBuilder,
-                LOAD_DEGREES, outAdjacency, inAdjacency, threadPool, concurrency)
+                setup, api, dimensions, progress, tracker, idsAndProperties.hugeIdMap, relTypes, weightsBuilder,
+                setup.countDegrees, outAdjacency, inAdjacency, threadPool, concurrency, useLabelIndex(dimensions))
                 .call(setup.log);
 
-        HugeWeightMapping weights = weightsBuilder.build();
-        return HugeAdjacencyBuilder.apply(
-                tracker,
-                idsAndProperties.hugeIdMap,
-                weights,
-                idsAndProperties.properties,
-                inAdjacency,
-                outAdjacency);
+        HugeGraphImpl[] graphs = new HugeGraphImpl[types];
+        for (int type = 0; type < types; type++) {
+            HugeWeightMapping weights = weightsBuilder[type].build();
+            graphs[type] = HugeAdjacencyBuilder.apply(
+                    tracker,
+                    backend,
+                    idsAndProperties.hugeIdMap,
+                    weights,
+                    idsAndProperties.properties,
+                    inAdjacency[type],
+                    outAdjacency[type]);
+        }
+        if (reorder) {
+            boolean weighted = weightProperty != StatementConstants.NO_SUCH_PROPERTY_KEY;
+            graphs = HugeNodeReordering.reorder(graphs, idsAndProperties, setup, weighted, tracker);
+        }
+        if (types == 1) {
+            return graphs[0];
+        }
+        return new HugeMultiGraph(dimensions.relationshipTypes(), graphs);
     }
 
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.core.huge.AdjacencyCodec;
+import org.neo4j.graphalgo.core.huge.HugeAdjacencySkipIndex;
+import org.neo4j.graphalgo.core.huge.HugeGraphImpl;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphdb.Direction;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.function.DoublePredicate;
+import java.util.function.LongPredicate;
+
+/**
+ * Derives a new {@link HugeGraphImpl} from a subset of the nodes and relationships of a loaded graph, without reading the store.
+ * <p>
+ * The nodes that are accepted by the node filter get new, dense ids in the order of their current ids.
+ * The adjacency of every loaded direction is rewritten in parallel, dropping relationships to filtered nodes
+ * and relationships whose weight is rejected by the relationship filter.
+ * Relationship weights are kept in the columnar layout, node properties are copied for the remaining nodes.
+ * The parent graph is only read and can still be used or released independently.
+ */
+public final class HugeGraphFilter {
+
+    /**
+     * @param nodeFilter         accepts the nodes to keep, by their id in {@code graph}
+     * @param relationshipFilter accepts the weights of the relationships to keep, {@code null} keeps all relationships between the remaining nodes
+     */
+    public static HugeGraphImpl filter(
+            HugeGraphImpl graph,
+            LongPredicate nodeFilter,
+            DoublePredicate relationshipFilter,
+            PageBackend backend,
+            int concurrency,
+            ExecutorService executor,
+            AllocationTracker tracker) {
+        long nodeCount = graph.nodeCount();
+        HugeLongArray newIds = HugeLongArray.newArray(nodeCount, AllocationTracker.EMPTY);
+        long newNodeCount = 0L;
+        for (long node = 0L; node < nodeCount; node++) {
+            newIds.set(node, nodeFilter.test(node) ? newNodeCount++ : -1L);
+        }
+        HugeLongArray oldIds = HugeLongArray.newArray(newNodeCount, AllocationTracker.EMPTY);
+        HugeLongArray graphIds = HugeLongArray.newArray(newNodeCount, tracker);
+        long highestNodeId = 0L;
+        for (long node = 0L; node < nodeCount; node++) {
+            long newId = newIds.get(node);
+            if (newId != -1L) {
+                long originalId = graph.toOriginalNodeId(node);
+                highestNodeId = Math.max(highestNodeId, originalId);
+                graphIds.set(newId, originalId);
+                oldIds.set(newId, node);
+            }
+        }
+        HugeIdMap idMap = HugeIdMapBuilder.build(graphIds, newNodeCount, highestNodeId + 1L, tracker);
+
+        AdjacencyCodec codec = graph.adjacencyCodec() != null ? graph.adjacencyCodec() : AdjacencyCodec.VAR_LONG;
+        boolean weighted = graph.hasRelationshipWeights();
+        AdjacencyRewriter out = null;
+        AdjacencyRewriter in = null;
+        if (graph.hasAdjacency(Direction.OUTGOING)) {
+            out = new AdjacencyRewriter(
+                    graph, Direction.OUTGOING, oldIds, newNodeCount, newIds,
+                    codec, HugeAdjacencySkipIndex.DEFAULT_THRESHOLD, weighted, relationshipFilter, backend, tracker);
+            out.run(concurrency, executor);
+        }
+        if (graph.hasAdjacency(Direction.INCOMING)) {
+            in = new AdjacencyRewriter(
+                    graph, Direction.INCOMING, oldIds, newNodeCount, newIds,
+                    codec, HugeAdjacencySkipIndex.DEFAULT_THRESHOLD, weighted, relationshipFilter, backend, tracker);
+            in.run(concurrency, executor);
+        }
+
+        Map<String, HugeWeightMapping> nodeProperties = new HashMap<>();
+        for (String type : graph.availableNodeProperties()) {
+            nodeProperties.put(type, filterProperties(graph.hugeNodeProperties(type), oldIds, newNodeCount, tracker));
+        }
+        oldIds.release();
+        newIds.release();
+
+        double defaultWeight = graph.relationshipWeights().defaultValue();
+        return HugeAdjacencyBuilder.newGraph(
+                tracker,
+                backend,
+                idMap,
+                new HugeNullWeightMap(defaultWeight),
+                nodeProperties,
+                in != null ? in.adjacency() : null,
+                out != null ? out.adjacency() : null,
+                in != null ? in.offsets() : null,
+                out != null ? out.offsets() : null,
+                in != null ? in.weights() : null,
+                out != null ? out.weights() : null,
+                in != null ? in.weightOffsets() : null,
+                out != null ? out.weightOffsets() : null,
+                defaultWeight);
+    }
+
+    private static HugeWeightMapping filterProperties(
+            HugeWeightMapping properties,
+            HugeLongArray oldIds,
+            long newNodeCount,
+            AllocationTracker tracker) {
+        if (!(properties instanceof HugeNodePropertyMap)) {
+            return properties;
+        }
+        HugeNodePropertyMap propertyMap = (HugeNodePropertyMap) properties;
+        HugeNodePropertiesBuilder builder = HugeNodePropertiesBuilder.of(
+                Math.max(1L, newNodeCount),
+                tracker,
+                propertyMap.defaultValue(),
+                propertyMap.propertyId());
+        for (long newId = 0L; newId < newNodeCount; newId++) {
+            propertyMap.copyTo(oldIds.get(newId), builder, newId);
+        }
+        return builder.build();
+    }
+
+    private HugeGraphFilter() {
+    }
+}
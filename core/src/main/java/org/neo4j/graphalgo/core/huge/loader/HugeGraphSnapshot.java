@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.core.huge.AdjacencySnapshot;
+import org.neo4j.graphalgo.core.huge.HugeGraphImpl;
+import org.neo4j.graphalgo.core.huge.HugeMultiGraph;
+import org.neo4j.graphalgo.core.huge.SnapshotInput;
+import org.neo4j.graphalgo.core.huge.SnapshotOutput;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.kernel.api.StatementConstants;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a {@link HugeGraph} to a binary snapshot file and restores it without touching the store.
+ * <p>
+ * The format is versioned and little-endian:
+ * <ol>
+ * <li>magic number, format version and node count</li>
+ * <li>the original node id of every node, followed by the highest original node id</li>
+ * <li>the node properties, only values that differ from the default are stored, either as doubles or as longs</li>
+ * <li>the adjacency pages and offsets per direction and the relationship weights, see {@link AdjacencySnapshot}</li>
+ * </ol>
+ * Restoring reads all large arrays sequentially, or maps the adjacency directly from the file for
+ * {@link PageBackend#MAPPED}, so it is bounded by disk bandwidth instead of record decoding.
+ */
+public final class HugeGraphSnapshot {
+
+    private static final int MAGIC = 0x47414853; // "GAHS"
+    public static final int VERSION = 2;
+
+    private static final int ID_CHUNK_SIZE = 1 << 14;
+    private static final long END_OF_PROPERTIES = -1L;
+    private static final int DOUBLE_VALUES = 0;
+    private static final int LONG_VALUES = 1;
+    // a NaN with a payload that is never produced by arithmetic, used to detect absent properties
+    private static final double MISSING = Double.longBitsToDouble(0x7FF0_0000_DEAD_BEEFL);
+
+    /**
+     * Writes {@code graph} into {@code file} and returns the size of the snapshot in bytes.
+     */
+    public static long write(HugeGraph graph, Path file) throws IOException {
+        if (graph instanceof HugeMultiGraph) {
+            throw new IllegalArgumentException("Graphs with multiple relationship types cannot be saved, got " +
+                    Arrays.toString(((HugeMultiGraph) graph).relationshipTypes()));
+        }
+        if (!(graph instanceof HugeGraphImpl)) {
+            throw new IllegalArgumentException("Only graphs that are loaded with graph:'huge' can be saved, got " + graph.getType());
+        }
+        try (SnapshotOutput out = SnapshotOutput.create(file)) {
+            long nodeCount = graph.nodeCount();
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(nodeCount);
+
+            writeIds(graph, out);
+            writeNodeProperties(graph, out);
+            AdjacencySnapshot.write(graph, out);
+            return out.commit();
+        }
+    }
+
+    /**
+     * Restores a graph that has been written by {@link #write(HugeGraph, Path)}.
+     */
+    public static HugeGraph read(Path file, PageBackend backend, AllocationTracker tracker) throws IOException {
+        try (SnapshotInput in = SnapshotInput.open(file)) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException("File " + file + " is not a graph snapshot");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException(String.format(
+                        "Unsupported snapshot version %d in file %s, expected %d",
+                        version, file, VERSION));
+            }
+            long nodeCount = in.readLong();
+
+            HugeIdMap idMap = readIds(in, nodeCount, tracker);
+            Map<String, HugeWeightMapping> nodeProperties = readNodeProperties(in, nodeCount, tracker);
+            return AdjacencySnapshot.read(in, backend, tracker, idMap, nodeProperties);
+        }
+    }
+
+    private static void writeIds(HugeGraph graph, SnapshotOutput out) throws IOException {
+        long nodeCount = graph.nodeCount();
+        long highestId = 0L;
+        long[] chunk = new long[ID_CHUNK_SIZE];
+        for (long node = 0L; node < nodeCount; ) {
+            int length = (int) Math.min(chunk.length, nodeCount - node);
+            for (int i = 0; i < length; i++) {
+                long originalId = graph.toOriginalNodeId(node++);
+                chunk[i] = originalId;
+                highestId = Math.max(highestId, originalId);
+            }
+            out.writeLongs(chunk, 0, length);
+        }
+        out.writeLong(highestId);
+    }
+
+    private static HugeIdMap readIds(SnapshotInput in, long nodeCount, AllocationTracker tracker) throws IOException {
+        HugeLongArray graphIds = HugeLongArray.newArray(nodeCount, tracker);
+        try (HugeLongArray.Cursor cursor = graphIds.cursor(graphIds.newCursor())) {
+            while (cursor.next()) {
+                in.readLongs(cursor.array, cursor.offset, cursor.limit - cursor.offset);
+            }
+        }
+        long highestId = in.readLong();
+        return HugeIdMapBuilder.build(graphIds, nodeCount, highestId + 1L, tracker);
+    }
+
+    private static void writeNodeProperties(HugeGraph graph, SnapshotOutput out) throws IOException {
+        long nodeCount = graph.nodeCount();
+        Set<String> keys = graph.availableNodeProperties();
+        out.writeInt(keys.size());
+        for (String key : keys) {
+            HugeWeightMapping properties = graph.hugeNodeProperties(key);
+            out.writeString(key);
+            out.writeInt(properties instanceof HugeNodePropertyMap
+                    ? ((HugeNodePropertyMap) properties).propertyId()
+                    : StatementConstants.NO_SUCH_PROPERTY_KEY);
+            out.writeDouble(defaultValue(properties, nodeCount));
+            if (properties instanceof HugeNodePropertyMap && ((HugeNodePropertyMap) properties).isLongValued()) {
+                HugeNodePropertyMap propertyMap = (HugeNodePropertyMap) properties;
+                out.writeByte(LONG_VALUES);
+                for (long node = 0L; node < nodeCount; node++) {
+                    if (propertyMap.contains(node)) {
+                        out.writeLong(node);
+                        out.writeLong(propertyMap.nodeLongValue(node, 0L));
+                    }
+                }
+            } else {
+                out.writeByte(DOUBLE_VALUES);
+                for (long node = 0L; node < nodeCount; node++) {
+                    double value = properties.nodeWeight(node, MISSING);
+                    if (!isMissing(value)) {
+                        out.writeLong(node);
+                        out.writeDouble(value);
+                    }
+                }
+            }
+            out.writeLong(END_OF_PROPERTIES);
+        }
+    }
+
+    private static Map<String, HugeWeightMapping> readNodeProperties(
+            SnapshotInput in,
+            long nodeCount,
+            AllocationTracker tracker) throws IOException {
+        int numProperties = in.readInt();
+        Map<String, HugeWeightMapping> nodeProperties = new HashMap<>(numProperties);
+        for (int i = 0; i < numProperties; i++) {
+            String key = in.readString();
+            int propertyId = in.readInt();
+            double defaultValue = in.readDouble();
+            boolean longValues = in.readByte() == LONG_VALUES;
+            long node = in.readLong();
+            if (node == END_OF_PROPERTIES) {
+                nodeProperties.put(key, new HugeNullWeightMap(defaultValue));
+                continue;
+            }
+            HugeNodePropertiesBuilder properties = HugeNodePropertiesBuilder.of(
+                    nodeCount,
+                    tracker,
+                    defaultValue,
+                    propertyId);
+            while (node != END_OF_PROPERTIES) {
+                if (longValues) {
+                    properties.set(node, in.readLong());
+                } else {
+                    properties.set(node, in.readDouble());
+                }
+                node = in.readLong();
+            }
+            nodeProperties.put(key, properties.build());
+        }
+        return nodeProperties;
+    }
+
+    private static boolean isMissing(double value) {
+        return Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(MISSING);
+    }
+
+    private static double defaultValue(HugeWeightMapping properties, long nodeCount) {
+        if (properties instanceof HugeNodePropertyMap) {
+            return ((HugeNodePropertyMap) properties).defaultValue();
+        }
+        for (long node = 0L; node < nodeCount; node++) {
+            if (isMissing(properties.nodeWeight(node, MISSING))) {
+                return properties.nodeWeight(node);
+            }
+        }
+        return 0.0;
+    }
+
+    private HugeGraphSnapshot() {
+        throw new UnsupportedOperationException("No instances");
+    }
+}
@@ -24,48 +24,36 @@ import org.neo4j.graphalgo.api.HugeBatchNodeIterable;
 import org.neo4j.graphalgo.api.HugeIdMapping;
 import org.neo4j.graphalgo.api.HugeNodeIterator;
 import org.neo4j.graphalgo.core.utils.LazyBatchCollection;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.MemoryUsage;
 import org.neo4j.graphalgo.core.utils.paged.SparseLongArray;
 
 import java.util.Collection;
 import java.util.function.LongPredicate;
 
 /**
- * This is basically a long to int mapper. It sorts the id's in ascending order so its
- * guaranteed that there is no ID greater then nextGraphId / capacity
+ * Maps the original node ids to the dense ids of a huge graph and back.
+ * <p>
+ * The ids are either kept in lookup arrays in both directions, or, if the original ids come in long
+ * runs of consecutive ids, as the ranges of those runs. See {@link HugeIdMapBuilder} for the choice.
  */
-public final class HugeIdMap implements HugeIdMapping, HugeNodeIterator, HugeBatchNodeIterable {
+public abstract class HugeIdMap implements HugeIdMapping, HugeNodeIterator, HugeBatchNodeIterable {
 
-    private long nodeCount;
-    private HugeLongArray graphIds;
-    private SparseLongArray nodeToGraphIds;
+    private final long nodeCount;
 
-    /**
-     * initialize the map with pre-built sub arrays
-     */
-    HugeIdMap(HugeLongArray graphIds, SparseLongArray nodeToGraphIds, long nodeCount) {
+    HugeIdMap(long nodeCount) {
         this.nodeCount = nodeCount;
-        this.graphIds = graphIds;
-        this.nodeToGraphIds = nodeToGraphIds;
-    }
-
-    @Override
-    public long toHugeMappedNodeId(long nodeId) {
-        return nodeToGraphIds.get(nodeId);
-    }
-
-    @Override
-    public long toOriginalNodeId(long nodeId) {
-        return graphIds.get(nodeId);
     }
 
-    @Override
-    public boolean contains(final long nodeId) {
-        return nodeToGraphIds.contains(nodeId);
-    }
+    /**
+     * Returns an id map over the same nodes, where the node with the id {@code oldIds[newId]} gets the id {@code newId}.
+     * This map must not be used afterwards.
+     */
+    abstract HugeIdMap reorder(HugeLongArray oldIds, AllocationTracker tracker);
 
     @Override
-    public long nodeCount() {
+    public final long nodeCount() {
         return nodeCount;
     }
 
@@ -92,6 +80,176 @@ public final class HugeIdMap implements HugeIdMapping, HugeNodeIterator, HugeBat
                 IdIterable::new);
     }
 
+    /**
+     * Keeps the original id of every node in an array and the mapped id of every original id in a sparse array.
+     */
+    static final class Lookup extends HugeIdMap {
+
+        private HugeLongArray graphIds;
+        private final SparseLongArray nodeToGraphIds;
+
+        /**
+         * initialize the map with pre-built sub arrays
+         */
+        Lookup(HugeLongArray graphIds, SparseLongArray nodeToGraphIds, long nodeCount) {
+            super(nodeCount);
+            this.graphIds = graphIds;
+            this.nodeToGraphIds = nodeToGraphIds;
+        }
+
+        /**
+         * The mapping from original ids is updated in place.
+         */
+        @Override
+        HugeIdMap reorder(HugeLongArray oldIds, AllocationTracker tracker) {
+            long nodeCount = nodeCount();
+            HugeLongArray newGraphIds = HugeLongArray.newArray(nodeCount, tracker);
+            for (long newId = 0L; newId < nodeCount; newId++) {
+                long originalId = graphIds.get(oldIds.get(newId));
+                newGraphIds.set(newId, originalId);
+                nodeToGraphIds.set(originalId, newId);
+            }
+            tracker.remove(graphIds.release());
+            graphIds = null;
+            return new Lookup(newGraphIds, nodeToGraphIds, nodeCount);
+        }
+
+        @Override
+        public long toHugeMappedNodeId(long nodeId) {
+            return nodeToGraphIds.get(nodeId);
+        }
+
+        @Override
+        public long toOriginalNodeId(long nodeId) {
+            return graphIds.get(nodeId);
+        }
+
+        @Override
+        public boolean contains(final long nodeId) {
+            return nodeToGraphIds.contains(nodeId);
+        }
+    }
+
+    /**
+     * Keeps the runs of nodes whose mapped ids and original ids are both consecutive.
+     * <p>
+     * The runs are ordered by their first mapped id and, through a permutation, by their first original id.
+     * A directory over buckets of ids points to the first run of every bucket, so that finding the run of an id
+     * only has to search the runs of a single bucket, which are few if the runs are long.
+     */
+    static final class Ranges extends HugeIdMap {
+
+        // the ids are grouped into buckets of this many ids for the directories
+        static final int BUCKET_SHIFT = 12;
+
+        // the first mapped id of every run, followed by the node count
+        private final long[] graphStarts;
+        // the first original id of every run, in the order of graphStarts
+        private final long[] originalStarts;
+        // the first original id of every run, in ascending order
+        private final long[] sortedOriginalStarts;
+        // the run of every entry in sortedOriginalStarts
+        private final int[] sortedRuns;
+        // the last run that starts at or before the first mapped id of the bucket
+        private final int[] graphDirectory;
+        // the last entry in sortedOriginalStarts that starts at or before the first original id of the bucket, or -1
+        private final int[] originalDirectory;
+        // exclusive upper bound of the original ids
+        private final long highestNodeId;
+
+        Ranges(
+                long[] graphStarts,
+                long[] originalStarts,
+                long[] sortedOriginalStarts,
+                int[] sortedRuns,
+                int[] graphDirectory,
+                int[] originalDirectory,
+                long nodeCount,
+                long highestNodeId) {
+            super(nodeCount);
+            this.graphStarts = graphStarts;
+            this.originalStarts = originalStarts;
+            this.sortedOriginalStarts = sortedOriginalStarts;
+            this.sortedRuns = sortedRuns;
+            this.graphDirectory = graphDirectory;
+            this.originalDirectory = originalDirectory;
+            this.highestNodeId = highestNodeId;
+        }
+
+        @Override
+        HugeIdMap reorder(HugeLongArray oldIds, AllocationTracker tracker) {
+            long nodeCount = nodeCount();
+            HugeLongArray newGraphIds = HugeLongArray.newArray(nodeCount, tracker);
+            for (long newId = 0L; newId < nodeCount; newId++) {
+                newGraphIds.set(newId, toOriginalNodeId(oldIds.get(newId)));
+            }
+            tracker.remove(sizeInBytes());
+            return HugeIdMapBuilder.build(newGraphIds, nodeCount, highestNodeId, tracker);
+        }
+
+        private long sizeInBytes() {
+            return MemoryUsage.sizeOfLongArray(graphStarts.length)
+                    + MemoryUsage.sizeOfLongArray(originalStarts.length)
+                    + MemoryUsage.sizeOfLongArray(sortedOriginalStarts.length)
+                    + MemoryUsage.sizeOfIntArray(sortedRuns.length)
+                    + MemoryUsage.sizeOfIntArray(graphDirectory.length)
+                    + MemoryUsage.sizeOfIntArray(originalDirectory.length);
+        }
+
+        @Override
+        public long toHugeMappedNodeId(long nodeId) {
+            int position = originalPosition(nodeId);
+            if (position == -1) {
+                return -1L;
+            }
+            int run = sortedRuns[position];
+            long offset = nodeId - sortedOriginalStarts[position];
+            long graphStart = graphStarts[run];
+            return offset >= 0L && offset < graphStarts[run + 1] - graphStart ? graphStart + offset : -1L;
+        }
+
+        @Override
+        public long toOriginalNodeId(long nodeId) {
+            int bucket = (int) (nodeId >>> BUCKET_SHIFT);
+            int run = floor(graphStarts, graphDirectory[bucket], graphDirectory[bucket + 1], nodeId);
+            return originalStarts[run] + (nodeId - graphStarts[run]);
+        }
+
+        @Override
+        public boolean contains(final long nodeId) {
+            return toHugeMappedNodeId(nodeId) != -1L;
+        }
+
+        private int originalPosition(long nodeId) {
+            if (nodeId < 0L || nodeId >= highestNodeId) {
+                return -1;
+            }
+            int bucket = (int) (nodeId >>> BUCKET_SHIFT);
+            int from = originalDirectory[bucket];
+            int to = originalDirectory[bucket + 1];
+            if (to == -1) {
+                return -1;
+            }
+            return floor(sortedOriginalStarts, Math.max(0, from), to, nodeId);
+        }
+
+        /**
+         * Returns the last index in {@code [from, to]} whose value is at most {@code value},
+         * assuming that the value at {@code from} is at most {@code value}.
+         */
+        static int floor(long[] values, int from, int to, long value) {
+            while (from < to) {
+                int mid = (from + to + 1) >>> 1;
+                if (values[mid] <= value) {
+                    from = mid;
+                } else {
+                    to = mid - 1;
+                }
+            }
+            return from;
+        }
+    }
+
     private static final class IdIterable implements PrimitiveLongIterable {
         private final long start;
         private final long length;
@@ -117,7 +275,7 @@ public final class HugeIdMap implements HugeIdMapping, HugeNodeIterator, HugeBat
             this.limit = length;
         }
 
-        private IdIterator(long start, long length) {
+        public IdIterator(long start, long length) {
             this.current = start;
             this.limit = start + length;
         }
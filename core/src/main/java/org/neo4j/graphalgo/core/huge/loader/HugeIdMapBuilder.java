@@ -21,15 +21,45 @@ package org.neo4j.graphalgo.core.huge.loader;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
 import org.neo4j.graphalgo.core.utils.paged.HugeLongArrayBuilder;
+import org.neo4j.graphalgo.core.utils.paged.MemoryUsage;
 import org.neo4j.graphalgo.core.utils.paged.SparseLongArray;
 
+import java.util.Arrays;
+
 final class HugeIdMapBuilder {
 
+    // ranges are used if the original ids come in runs of at least this many consecutive ids on average
+    static final int MIN_AVERAGE_RUN_LENGTH = 16;
+
     static HugeIdMap build(
             HugeLongArrayBuilder idMapBuilder,
             long highestNodeId,
             AllocationTracker tracker) {
         HugeLongArray graphIds = idMapBuilder.build();
+        return build(graphIds, idMapBuilder.size(), highestNodeId, tracker);
+    }
+
+    /**
+     * Builds the id map for the nodes whose original ids are given in {@code graphIds}.
+     * <p>
+     * If the original ids of consecutive nodes are mostly consecutive as well, which is the case when most nodes
+     * of a store are loaded, only the ranges of those runs are kept and {@code graphIds} is released.
+     * Otherwise, {@code graphIds} is kept to map to the original ids and a sparse array maps them back.
+     *
+     * @param highestNodeId exclusive upper bound of the original ids
+     */
+    static HugeIdMap build(
+            HugeLongArray graphIds,
+            long nodeCount,
+            long highestNodeId,
+            AllocationTracker tracker) {
+        long runs = countRuns(graphIds, nodeCount);
+        if (runs > 0L && runs < Integer.MAX_VALUE && nodeCount / runs >= MIN_AVERAGE_RUN_LENGTH) {
+            HugeIdMap ranges = buildRanges(graphIds, nodeCount, (int) runs, highestNodeId, tracker);
+            tracker.remove(graphIds.release());
+            return ranges;
+        }
+
         SparseLongArray nodeToGraphIds = SparseLongArray.newArray(highestNodeId, tracker);
 
         try (HugeLongArray.Cursor cursor = graphIds.cursor(graphIds.newCursor())) {
@@ -44,7 +74,109 @@ final class HugeIdMapBuilder {
             }
         }
 
-        return new HugeIdMap(graphIds, nodeToGraphIds, idMapBuilder.size());
+        return new HugeIdMap.Lookup(graphIds, nodeToGraphIds, nodeCount);
+    }
+
+    /**
+     * Returns the number of runs of consecutive original ids among the first {@code nodeCount} nodes.
+     */
+    private static long countRuns(HugeLongArray graphIds, long nodeCount) {
+        long runs = 0L;
+        long expected = -1L;
+        try (HugeLongArray.Cursor cursor = graphIds.cursor(graphIds.newCursor())) {
+            while (cursor.next()) {
+                long[] array = cursor.array;
+                int offset = cursor.offset;
+                int limit = limit(cursor, nodeCount);
+                for (int i = offset; i < limit; ++i) {
+                    long id = array[i];
+                    if (id != expected) {
+                        ++runs;
+                    }
+                    expected = id + 1L;
+                }
+            }
+        }
+        return runs;
+    }
+
+    private static HugeIdMap buildRanges(
+            HugeLongArray graphIds,
+            long nodeCount,
+            int runs,
+            long highestNodeId,
+            AllocationTracker tracker) {
+        long[] graphStarts = new long[runs + 1];
+        long[] originalStarts = new long[runs];
+        int run = -1;
+        long expected = -1L;
+        try (HugeLongArray.Cursor cursor = graphIds.cursor(graphIds.newCursor())) {
+            while (cursor.next()) {
+                long[] array = cursor.array;
+                int offset = cursor.offset;
+                int limit = limit(cursor, nodeCount);
+                long internalId = cursor.base + offset;
+                for (int i = offset; i < limit; ++i, ++internalId) {
+                    long id = array[i];
+                    if (id != expected) {
+                        ++run;
+                        graphStarts[run] = internalId;
+                        originalStarts[run] = id;
+                    }
+                    expected = id + 1L;
+                }
+            }
+        }
+        graphStarts[runs] = nodeCount;
+
+        long[] sortedOriginalStarts = Arrays.copyOf(originalStarts, runs);
+        long[] runIds = new long[runs];
+        Arrays.setAll(runIds, i -> i);
+        AdjacencyCompression.sortWithWeights(sortedOriginalStarts, runIds, 0, runs - 1);
+        int[] sortedRuns = new int[runs];
+        Arrays.setAll(sortedRuns, i -> (int) runIds[i]);
+
+        int[] graphDirectory = directory(graphStarts, runs, nodeCount);
+        int[] originalDirectory = directory(sortedOriginalStarts, runs, highestNodeId);
+
+        tracker.add(MemoryUsage.sizeOfLongArray(graphStarts.length));
+        tracker.add(MemoryUsage.sizeOfLongArray(originalStarts.length));
+        tracker.add(MemoryUsage.sizeOfLongArray(sortedOriginalStarts.length));
+        tracker.add(MemoryUsage.sizeOfIntArray(sortedRuns.length));
+        tracker.add(MemoryUsage.sizeOfIntArray(graphDirectory.length));
+        tracker.add(MemoryUsage.sizeOfIntArray(originalDirectory.length));
+
+        return new HugeIdMap.Ranges(
+                graphStarts,
+                originalStarts,
+                sortedOriginalStarts,
+                sortedRuns,
+                graphDirectory,
+                originalDirectory,
+                nodeCount,
+                highestNodeId);
+    }
+
+    /**
+     * Returns, for every bucket of ids below {@code size} and the bucket after them,
+     * the last of the sorted {@code starts} that is at most the first id of the bucket, or -1 if there is none.
+     */
+    private static int[] directory(long[] starts, int length, long size) {
+        int buckets = (int) ((Math.max(1L, size) - 1L) >>> HugeIdMap.Ranges.BUCKET_SHIFT) + 2;
+        int[] directory = new int[buckets];
+        int position = -1;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            long bucketStart = (long) bucket << HugeIdMap.Ranges.BUCKET_SHIFT;
+            while (position + 1 < length && starts[position + 1] <= bucketStart) {
+                ++position;
+            }
+            directory[bucket] = position;
+        }
+        return directory;
+    }
+
+    private static int limit(HugeLongArray.Cursor cursor, long nodeCount) {
+        return (int) Math.min(cursor.limit, cursor.offset + Math.max(0L, nodeCount - (cursor.base + cursor.offset)));
     }
 
     private HugeIdMapBuilder() {
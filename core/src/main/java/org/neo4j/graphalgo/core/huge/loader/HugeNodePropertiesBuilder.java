@@ -18,33 +18,93 @@
  */
 package org.neo4j.graphalgo.core.huge.loader;
 
-import org.neo4j.graphalgo.api.HugeWeightMapping;
+import com.carrotsearch.hppc.IntLongHashMap;
+import com.carrotsearch.hppc.cursors.IntLongCursor;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
-import org.neo4j.kernel.api.StatementConstants;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.MemoryRange;
+import org.neo4j.graphalgo.core.utils.paged.PageUtil;
 
+import java.util.Arrays;
+
+import static org.neo4j.graphalgo.core.huge.loader.HugeNodePropertyMap.UNSET_DOUBLE_BITS;
+import static org.neo4j.graphalgo.core.huge.loader.HugeNodePropertyMap.UNSET_LONG;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.shallowSizeOfInstance;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfIntArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfLongArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfObjectArray;
+
+/**
+ * Collects the values of a node property, indexed by the mapped node id.
+ * <p>
+ * The nodes are split into pages that match the pages of a {@link HugeLongArray}.
+ * Every page starts out as a small hash map and is promoted to a column once more than
+ * {@link #SPARSE_FILL_RATIO} of its nodes have a value, so sparse properties never allocate a full column.
+ * Integral values are stored as longs and floating point values as the raw bits of doubles;
+ * once the first floating point value arrives, the property is double-valued and every page
+ * converts its longs in place when it is next written to or when the property is built.
+ * Values for different nodes can be set concurrently, writes to the same page are serialized.
+ * <p>
+ * {@link #build()} does not scan the values: the pages count them while they are set.
+ * Properties that fewer than {@link #SPARSE_FILL_RATIO} of the nodes have are moved into a {@link PagedPropertyMap},
+ * all others hand their pages over to the column without copying them.
+ */
 final class HugeNodePropertiesBuilder {
 
+    /**
+     * An entry in a hash map page takes 2 to 4 times the memory of a column slot,
+     * below this fraction of nodes with a value the map is clearly smaller than the column.
+     */
+    static final double SPARSE_FILL_RATIO = 0.125;
+
+    // integral values beyond this magnitude cannot be moved into the double valued hash maps without losing precision
+    private static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    private static final int PAGE_SHIFT = HugeLongArray.PAGE_SHIFT;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final long PAGE_MASK = (long) (PAGE_SIZE - 1);
+
+    private final long size;
+    private final AllocationTracker tracker;
     private final double defaultValue;
     private final int propertyId;
-    private final PagedPropertyMap properties;
+    private final Page[] pages;
+    private volatile boolean doubles;
+
+    /**
+     * Estimates the memory of a node property for the given number of nodes,
+     * from no node having the property up to every node having it.
+     * Integral and floating point values share the same column, so a property with mixed values
+     * does not need more memory than one with values of a single kind.
+     */
+    static MemoryRange estimateMemoryUsage(long size) {
+        int numPages = PageUtil.numPagesFor(size, PAGE_SHIFT, PAGE_MASK);
+        return MemoryRange
+                .of(0L, HugeLongArray.estimateMemoryUsage(size))
+                .add(shallowSizeOfInstance(HugeNodePropertiesBuilder.class) + sizeOfObjectArray(numPages))
+                .add(shallowSizeOfInstance(HugeNodePropertyMap.class));
+    }
 
     public static HugeNodePropertiesBuilder of(
             long numberOfNodes,
             AllocationTracker tracker,
             double defaultValue,
             int propertyId) {
-        assert propertyId != StatementConstants.NO_SUCH_PROPERTY_KEY;
-        PagedPropertyMap properties = PagedPropertyMap.of(numberOfNodes, tracker);
-        return new HugeNodePropertiesBuilder(defaultValue, propertyId, properties);
+        return new HugeNodePropertiesBuilder(numberOfNodes, tracker, defaultValue, propertyId);
     }
 
     private HugeNodePropertiesBuilder(
+            final long size,
+            final AllocationTracker tracker,
             final double defaultValue,
-            final int propertyId,
-            final PagedPropertyMap properties) {
+            final int propertyId) {
+        this.size = size;
+        this.tracker = tracker;
         this.defaultValue = defaultValue;
         this.propertyId = propertyId;
-        this.properties = properties;
+        int numPages = PageUtil.numPagesFor(size, PAGE_SHIFT, PAGE_MASK);
+        this.pages = new Page[numPages];
+        tracker.add(sizeOfObjectArray(numPages));
     }
 
     double defaultValue() {
@@ -56,10 +116,235 @@ final class HugeNodePropertiesBuilder {
     }
 
     void set(long index, double value) {
-        properties.put(index, value);
+        doubles = true;
+        page(index).setDouble(indexInPage(index), value, tracker);
+    }
+
+    void set(long index, long value) {
+        page(index).setLong(indexInPage(index), value, doubles, tracker);
+    }
+
+    HugeNodePropertyMap build() {
+        boolean doubles = this.doubles;
+        long count = 0L;
+        boolean exact = true;
+        for (Page page : pages) {
+            if (page != null) {
+                if (doubles) {
+                    page.convertToDoubles();
+                }
+                count += page.count;
+                exact &= !page.inexact;
+            }
+        }
+        tracker.remove(sizeOfObjectArray(pages.length));
+        if (isSparse(count) && (doubles || exact)) {
+            return buildSparse(doubles);
+        }
+        return buildDense(doubles);
+    }
+
+    private HugeNodePropertyMap buildSparse(boolean doubles) {
+        PagedPropertyMap properties = PagedPropertyMap.of(size, tracker);
+        for (int pageIndex = 0; pageIndex < pages.length; pageIndex++) {
+            Page page = pages[pageIndex];
+            if (page != null) {
+                page.moveTo(properties, PageUtil.capacityFor(pageIndex, PAGE_SHIFT), doubles);
+                tracker.remove(page.release());
+                pages[pageIndex] = null;
+            }
+        }
+        return new HugeNodePropertyMap.Sparse(properties, defaultValue, propertyId);
+    }
+
+    private HugeNodePropertyMap buildDense(boolean doubles) {
+        long unset = doubles ? UNSET_DOUBLE_BITS : UNSET_LONG;
+        long[][] columnPages = new long[pages.length][];
+        for (int pageIndex = 0; pageIndex < pages.length; pageIndex++) {
+            Page page = pages[pageIndex];
+            if (page != null) {
+                columnPages[pageIndex] = page.column(tracker);
+                tracker.remove(page.release());
+                pages[pageIndex] = null;
+            } else {
+                long[] column = new long[pageLength(pageIndex)];
+                Arrays.fill(column, unset);
+                columnPages[pageIndex] = column;
+            }
+        }
+        HugeLongArray values = HugeLongArray.of(size, columnPages, tracker);
+        return doubles
+                ? new HugeNodePropertyMap.DenseDoubles(values, defaultValue, propertyId)
+                : new HugeNodePropertyMap.DenseLongs(values, defaultValue, propertyId);
+    }
+
+    private boolean isSparse(long count) {
+        return (double) count < SPARSE_FILL_RATIO * (double) size;
+    }
+
+    private Page page(long index) {
+        int pageIndex = (int) (index >>> PAGE_SHIFT);
+        Page page = pages[pageIndex];
+        if (page != null) {
+            return page;
+        }
+        return forceNewPage(pageIndex);
+    }
+
+    private synchronized Page forceNewPage(int pageIndex) {
+        Page page = pages[pageIndex];
+        if (page == null) {
+            page = new Page(pageLength(pageIndex));
+            tracker.add(shallowSizeOfInstance(Page.class));
+            pages[pageIndex] = page;
+        }
+        return page;
+    }
+
+    private int pageLength(int pageIndex) {
+        return pageIndex == pages.length - 1 ? 1 + (int) ((size - 1L) & PAGE_MASK) : PAGE_SIZE;
     }
 
-    HugeWeightMapping build() {
-        return new HugeNodePropertyMap(properties, defaultValue, propertyId);
+    private static int indexInPage(long index) {
+        return (int) (index & PAGE_MASK);
+    }
+
+    /**
+     * The values of one page of nodes, either in a hash map or, once it got dense enough, in a column.
+     * All access is guarded by the monitor of the page.
+     */
+    private static final class Page {
+        private final int length;
+        private final int promoteAt;
+        private IntLongHashMap sparse;
+        private long sparseBytes;
+        private long[] dense;
+        private boolean doubles;
+        private boolean inexact;
+        private int count;
+
+        private Page(int length) {
+            this.length = length;
+            this.promoteAt = (int) (SPARSE_FILL_RATIO * (double) length);
+        }
+
+        synchronized void setLong(int index, long value, boolean asDouble, AllocationTracker tracker) {
+            if (asDouble || doubles) {
+                convertToDoubles();
+                put(index, Double.doubleToRawLongBits((double) value), tracker);
+            } else {
+                inexact |= value > MAX_EXACT_DOUBLE || value < -MAX_EXACT_DOUBLE;
+                put(index, value, tracker);
+            }
+        }
+
+        synchronized void setDouble(int index, double value, AllocationTracker tracker) {
+            convertToDoubles();
+            put(index, Double.doubleToRawLongBits(value), tracker);
+        }
+
+        synchronized void convertToDoubles() {
+            if (doubles) {
+                return;
+            }
+            doubles = true;
+            if (dense != null) {
+                for (int i = 0; i < length; i++) {
+                    long value = dense[i];
+                    dense[i] = value == UNSET_LONG ? UNSET_DOUBLE_BITS : Double.doubleToRawLongBits((double) value);
+                }
+            } else if (sparse != null) {
+                for (IntLongCursor cursor : sparse) {
+                    sparse.values[cursor.index] = Double.doubleToRawLongBits((double) cursor.value);
+                }
+            }
+        }
+
+        synchronized void moveTo(PagedPropertyMap properties, long base, boolean asDouble) {
+            if (dense != null) {
+                long unset = unset();
+                for (int i = 0; i < length; i++) {
+                    long value = dense[i];
+                    if (value != unset) {
+                        properties.put(base + i, toDouble(value, asDouble));
+                    }
+                }
+            } else if (sparse != null) {
+                for (IntLongCursor cursor : sparse) {
+                    properties.put(base + cursor.key, toDouble(cursor.value, asDouble));
+                }
+            }
+        }
+
+        synchronized long[] column(AllocationTracker tracker) {
+            if (dense == null) {
+                promote(tracker);
+            }
+            return dense;
+        }
+
+        synchronized long release() {
+            long released = shallowSizeOfInstance(Page.class) + sparseBytes;
+            if (dense != null) {
+                released += sizeOfLongArray(length);
+            }
+            sparse = null;
+            sparseBytes = 0L;
+            dense = null;
+            return released;
+        }
+
+        private void put(int index, long value, AllocationTracker tracker) {
+            if (value == unset()) {
+                return;
+            }
+            if (dense != null) {
+                if (dense[index] == unset()) {
+                    ++count;
+                }
+                dense[index] = value;
+                return;
+            }
+            if (sparse == null) {
+                sparse = new IntLongHashMap();
+            }
+            sparse.put(index, value);
+            count = sparse.size();
+            trackSparse(tracker);
+            if (count > promoteAt) {
+                promote(tracker);
+            }
+        }
+
+        private void promote(AllocationTracker tracker) {
+            long[] dense = new long[length];
+            Arrays.fill(dense, unset());
+            tracker.add(sizeOfLongArray(length));
+            if (sparse != null) {
+                for (IntLongCursor cursor : sparse) {
+                    dense[cursor.key] = cursor.value;
+                }
+                tracker.remove(sparseBytes);
+                sparse = null;
+                sparseBytes = 0L;
+            }
+            this.dense = dense;
+        }
+
+        private void trackSparse(AllocationTracker tracker) {
+            long bytes = sizeOfIntArray(sparse.keys.length) + sizeOfLongArray(sparse.values.length);
+            if (bytes != sparseBytes) {
+                tracker.add(bytes - sparseBytes);
+                sparseBytes = bytes;
+            }
+        }
+
+        private long unset() {
+            return doubles ? UNSET_DOUBLE_BITS : UNSET_LONG;
+        }
+
+        private static double toDouble(long value, boolean asDouble) {
+            return asDouble ? Double.longBitsToDouble(value) : (double) value;
+        }
     }
 }
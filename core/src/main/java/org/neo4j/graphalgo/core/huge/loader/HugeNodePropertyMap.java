@@ -19,50 +19,191 @@
 package org.neo4j.graphalgo.core.huge.loader;
 
 import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
 
-final class HugeNodePropertyMap implements HugeWeightMapping {
+/**
+ * The values of a node property, as loaded by {@link HugeNodePropertiesBuilder}.
+ * <p>
+ * Dense properties are stored in a column that is indexed by the mapped node id, either as the raw bits of doubles or,
+ * if all values are integral, as longs. Sparse properties are stored in paged hash maps.
+ */
+public abstract class HugeNodePropertyMap implements HugeWeightMapping {
+
+    // a NaN with a payload that is never produced by arithmetic, marks nodes without a value in a double column
+    static final long UNSET_DOUBLE_BITS = 0x7FF0_0000_BAAD_F00DL;
+    static final double UNSET_DOUBLE = Double.longBitsToDouble(UNSET_DOUBLE_BITS);
+    // marks nodes without a value in a long column, a value of Long.MIN_VALUE is read as the default value
+    static final long UNSET_LONG = Long.MIN_VALUE;
 
-    private PagedPropertyMap properties;
     private final double defaultValue;
     private final int propertyId;
 
-    HugeNodePropertyMap(PagedPropertyMap properties, double defaultValue, int propertyId) {
-        this.properties = properties;
+    HugeNodePropertyMap(double defaultValue, int propertyId) {
         this.defaultValue = defaultValue;
         this.propertyId = propertyId;
     }
 
     @Override
-    public double weight(final long source, final long target) {
+    public final double weight(final long source, final long target) {
         assert target == -1L;
-        return properties.getOrDefault(source, defaultValue);
+        return weight(source, target, defaultValue);
     }
 
     @Override
-    public double weight(final long source, final long target, final double defaultValue) {
-        assert target == -1L;
-        return properties.getOrDefault(source, defaultValue);
-    }
-
     public double defaultValue() {
         return defaultValue;
     }
 
-    public void put(long nodeId, double value) {
-        properties.put(nodeId, value);
+    public int propertyId() {
+        return propertyId;
     }
 
-    @Override
-    public long release() {
-        if (properties != null) {
-            long freed = properties.release();
-            properties = null;
-            return freed;
+    /**
+     * Returns true if the values are stored as longs, in which case {@link #nodeLongValue(long, long)}
+     * returns them without any loss of precision.
+     */
+    public boolean isLongValued() {
+        return false;
+    }
+
+    /**
+     * Returns true if a value has been loaded for the given node.
+     */
+    abstract boolean contains(long nodeId);
+
+    /**
+     * Sets the value of {@code nodeId}, if there is one, as the value of {@code index} in the given builder.
+     */
+    abstract void copyTo(long nodeId, HugeNodePropertiesBuilder builder, long index);
+
+    static boolean isUnset(double value) {
+        return Double.doubleToRawLongBits(value) == UNSET_DOUBLE_BITS;
+    }
+
+    static final class Sparse extends HugeNodePropertyMap {
+        private PagedPropertyMap properties;
+
+        Sparse(PagedPropertyMap properties, double defaultValue, int propertyId) {
+            super(defaultValue, propertyId);
+            this.properties = properties;
+        }
+
+        @Override
+        public double weight(final long source, final long target, final double defaultValue) {
+            assert target == -1L;
+            return properties.getOrDefault(source, defaultValue);
+        }
+
+        @Override
+        boolean contains(long nodeId) {
+            return !isUnset(properties.getOrDefault(nodeId, UNSET_DOUBLE));
+        }
+
+        @Override
+        void copyTo(long nodeId, HugeNodePropertiesBuilder builder, long index) {
+            double value = properties.getOrDefault(nodeId, UNSET_DOUBLE);
+            if (!isUnset(value)) {
+                builder.set(index, value);
+            }
+        }
+
+        @Override
+        public long release() {
+            if (properties != null) {
+                long freed = properties.release();
+                properties = null;
+                return freed;
+            }
+            return 0L;
         }
-        return 0L;
     }
 
-    public int propertyId() {
-        return propertyId;
+    static final class DenseDoubles extends HugeNodePropertyMap {
+        private HugeLongArray values;
+
+        DenseDoubles(HugeLongArray values, double defaultValue, int propertyId) {
+            super(defaultValue, propertyId);
+            this.values = values;
+        }
+
+        @Override
+        public double weight(final long source, final long target, final double defaultValue) {
+            assert target == -1L;
+            long bits = values.get(source);
+            return bits == UNSET_DOUBLE_BITS ? defaultValue : Double.longBitsToDouble(bits);
+        }
+
+        @Override
+        boolean contains(long nodeId) {
+            return values.get(nodeId) != UNSET_DOUBLE_BITS;
+        }
+
+        @Override
+        void copyTo(long nodeId, HugeNodePropertiesBuilder builder, long index) {
+            long bits = values.get(nodeId);
+            if (bits != UNSET_DOUBLE_BITS) {
+                builder.set(index, Double.longBitsToDouble(bits));
+            }
+        }
+
+        @Override
+        public long release() {
+            if (values != null) {
+                long freed = values.release();
+                values = null;
+                return freed;
+            }
+            return 0L;
+        }
+    }
+
+    static final class DenseLongs extends HugeNodePropertyMap {
+        private HugeLongArray values;
+
+        DenseLongs(HugeLongArray values, double defaultValue, int propertyId) {
+            super(defaultValue, propertyId);
+            this.values = values;
+        }
+
+        @Override
+        public double weight(final long source, final long target, final double defaultValue) {
+            assert target == -1L;
+            long value = values.get(source);
+            return value == UNSET_LONG ? defaultValue : (double) value;
+        }
+
+        @Override
+        public long nodeLongValue(final long nodeId, final long defaultValue) {
+            long value = values.get(nodeId);
+            return value == UNSET_LONG ? defaultValue : value;
+        }
+
+        @Override
+        public boolean isLongValued() {
+            return true;
+        }
+
+        @Override
+        boolean contains(long nodeId) {
+            return values.get(nodeId) != UNSET_LONG;
+        }
+
+        @Override
+        void copyTo(long nodeId, HugeNodePropertiesBuilder builder, long index) {
+            long value = values.get(nodeId);
+            if (value != UNSET_LONG) {
+                builder.set(index, value);
+            }
+        }
+
+        @Override
+        public long release() {
+            if (values != null) {
+                long freed = values.release();
+                values = null;
+                return freed;
+            }
+            return 0L;
+        }
     }
 }
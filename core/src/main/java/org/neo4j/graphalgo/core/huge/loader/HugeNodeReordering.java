@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import com.carrotsearch.hppc.LongLongHashMap;
+import com.carrotsearch.hppc.cursors.LongLongCursor;
+import org.apache.lucene.util.LongsRef;
+import org.neo4j.graphalgo.api.GraphSetup;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
+import org.neo4j.graphalgo.api.HugeRelationshipConsumer;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.core.huge.HugeGraphImpl;
+import org.neo4j.graphalgo.core.huge.NodeOrder;
+import org.neo4j.graphalgo.core.utils.ParallelUtil;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.PageUtil;
+import org.neo4j.graphdb.Direction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Renumbers the nodes of freshly loaded huge graphs, so that nodes which are traversed together get ids that are close to each other.
+ * <p>
+ * All orders are computed from the loaded adjacency, which is why the graphs are rebuilt once all relationships have been scanned:
+ * every direction of every relationship type is rewritten with the new ids, node properties are permuted and the id map
+ * is updated, so that every original node id still maps to the same node. The old graphs are released afterwards.
+ * With more than one relationship type, the order is computed over the relationships of all types.
+ * <p>
+ * Cost: node degrees, the rewritten adjacency and the relationship weights are computed in parallel on the
+ * executor of the setup. The traversal orders ({@code BFS}, {@code RCM}) and label propagation are inherently
+ * sequential; they visit every relationship once, label propagation once per iteration, on a single thread.
+ * While the graphs are rewritten, the old and the new adjacency, two id arrays and, one at a time, the old and
+ * the new values of a node property are on the heap, which {@link HugeGraphFactory#memoryEstimation} accounts for.
+ */
+final class HugeNodeReordering {
+
+    private static final int LABEL_PROPAGATION_ITERATIONS = 5;
+    private static final int WEIGHT_PAGE_SHIFT = 14;
+    private static final int WEIGHT_PAGE_SIZE = 1 << WEIGHT_PAGE_SHIFT;
+    // hash maps that have grown larger than this are dropped instead of cleared between nodes
+    private static final int MAX_RETAINED_VOTES = 1024;
+
+    static HugeGraphImpl[] reorder(
+            HugeGraphImpl[] graphs,
+            IdsAndProperties idsAndProperties,
+            GraphSetup setup,
+            boolean weighted,
+            AllocationTracker tracker) {
+        long nodeCount = idsAndProperties.hugeIdMap.nodeCount();
+        Direction[] directions = directions(setup);
+        int concurrency = setup.concurrency();
+        HugeLongArray oldIds = order(new Topology(graphs, directions, nodeCount, concurrency, setup.executor), setup.nodeOrder);
+        HugeLongArray newIds = HugeLongArray.newArray(nodeCount, AllocationTracker.EMPTY);
+        for (long newId = 0L; newId < nodeCount; newId++) {
+            newIds.set(oldIds.get(newId), newId);
+        }
+
+        boolean columnarWeights = weighted && setup.columnarRelationshipWeights;
+        AdjacencyRewriter[][] rewriters = new AdjacencyRewriter[graphs.length][directions.length];
+        List<AdjacencyRewriter> tasks = new ArrayList<>();
+        for (int type = 0; type < graphs.length; type++) {
+            for (int i = 0; i < directions.length; i++) {
+                rewriters[type][i] = new AdjacencyRewriter(
+                        graphs[type].concurrentCopy(),
+                        directions[i],
+                        oldIds,
+                        nodeCount,
+                        newIds,
+                        setup.adjacencyCodec,
+                        setup.skipIndexThreshold,
+                        columnarWeights,
+                        null,
+                        setup.pageBackend,
+                        tracker);
+                tasks.add(rewriters[type][i]);
+            }
+        }
+        ParallelUtil.run(tasks, setup.executor);
+
+        HugeWeightMapping[] weights = new HugeWeightMapping[graphs.length];
+        for (int type = 0; type < graphs.length; type++) {
+            weights[type] = weighted && !columnarWeights
+                    ? rewriteWeights(graphs[type], directions, nodeCount, oldIds, newIds, setup, tracker)
+                    : new HugeNullWeightMap(setup.relationDefaultWeight);
+        }
+
+        Map<String, HugeWeightMapping> nodeProperties = new HashMap<>();
+        for (Map.Entry<String, HugeWeightMapping> entry : idsAndProperties.properties.entrySet()) {
+            nodeProperties.put(entry.getKey(), reorderProperties(entry.getValue(), oldIds, nodeCount, tracker));
+        }
+        HugeIdMap idMap = idsAndProperties.hugeIdMap.reorder(oldIds, tracker);
+        oldIds.release();
+        newIds.release();
+
+        HugeGraphImpl[] reordered = new HugeGraphImpl[graphs.length];
+        for (int type = 0; type < graphs.length; type++) {
+            graphs[type].release();
+            AdjacencyRewriter out = null;
+            AdjacencyRewriter in = null;
+            for (int i = 0; i < directions.length; i++) {
+                if (directions[i] == Direction.OUTGOING) {
+                    out = rewriters[type][i];
+                } else {
+                    in = rewriters[type][i];
+                }
+            }
+            reordered[type] = HugeAdjacencyBuilder.newGraph(
+                    tracker,
+                    setup.pageBackend,
+                    idMap,
+                    weights[type],
+                    nodeProperties,
+                    in != null ? in.adjacency() : null,
+                    out != null ? out.adjacency() : null,
+                    in != null ? in.offsets() : null,
+                    out != null ? out.offsets() : null,
+                    in != null ? in.weights() : null,
+                    out != null ? out.weights() : null,
+                    in != null ? in.weightOffsets() : null,
+                    out != null ? out.weightOffsets() : null,
+                    setup.relationDefaultWeight);
+        }
+        return reordered;
+    }
+
+    private static Direction[] directions(GraphSetup setup) {
+        if (setup.loadAsUndirected || (setup.loadOutgoing && !setup.loadIncoming)) {
+            return new Direction[]{Direction.OUTGOING};
+        }
+        if (!setup.loadOutgoing) {
+            return new Direction[]{Direction.INCOMING};
+        }
+        return new Direction[]{Direction.OUTGOING, Direction.INCOMING};
+    }
+
+    /**
+     * Returns the previous id of every node, indexed by the new id.
+     */
+    private static HugeLongArray order(Topology topology, NodeOrder nodeOrder) {
+        switch (nodeOrder) {
+            case DEGREE:
+                return sortByDegree(topology, true);
+            case BFS:
+                return traverse(topology, null, null);
+            case RCM:
+                HugeLongArray degrees = topology.degrees();
+                HugeLongArray order = traverse(topology, sortByKey(degrees, max(degrees), false), degrees);
+                degrees.release();
+                reverse(order);
+                return order;
+            case LABEL_PROPAGATION:
+                HugeLongArray labels = labelPropagation(topology);
+                HugeLongArray clusters = sortByKey(labels, Math.max(0L, topology.nodeCount - 1L), false);
+                labels.release();
+                return clusters;
+            default:
+                HugeLongArray identity = HugeLongArray.newArray(topology.nodeCount, AllocationTracker.EMPTY);
+                identity.setAll(node -> node);
+                return identity;
+        }
+    }
+
+    private static HugeLongArray sortByDegree(Topology topology, boolean descending) {
+        HugeLongArray degrees = topology.degrees();
+        HugeLongArray order = sortByKey(degrees, max(degrees), descending);
+        degrees.release();
+        return order;
+    }
+
+    /**
+     * Counting sort of all nodes by a key between 0 and {@code maxKey}, nodes with the same key keep their relative order.
+     */
+    private static HugeLongArray sortByKey(HugeLongArray keys, long maxKey, boolean descending) {
+        long nodeCount = keys.size();
+        HugeLongArray starts = HugeLongArray.newArray(maxKey + 2L, AllocationTracker.EMPTY);
+        for (long node = 0L; node < nodeCount; node++) {
+            long key = keys.get(node);
+            starts.addTo((descending ? maxKey - key : key) + 1L, 1L);
+        }
+        for (long bucket = 1L; bucket <= maxKey; bucket++) {
+            starts.addTo(bucket, starts.get(bucket - 1L));
+        }
+        HugeLongArray order = HugeLongArray.newArray(nodeCount, AllocationTracker.EMPTY);
+        for (long node = 0L; node < nodeCount; node++) {
+            long key = keys.get(node);
+            long bucket = descending ? maxKey - key : key;
+            long position = starts.get(bucket);
+            starts.set(bucket, position + 1L);
+            order.set(position, node);
+        }
+        starts.release();
+        return order;
+    }
+
+    /**
+     * Numbers the nodes in the order of breadth first traversals, which are started from the candidates in the given order
+     * or by ascending id. If degrees are given, the neighbours of every node are visited by increasing degree.
+     * The order array doubles as the queue of the traversal.
+     */
+    private static HugeLongArray traverse(Topology topology, HugeLongArray candidates, HugeLongArray degrees) {
+        long nodeCount = topology.nodeCount;
+        HugeLongArray order = HugeLongArray.newArray(nodeCount, AllocationTracker.EMPTY);
+        HugeLongArray visited = HugeLongArray.newArray((nodeCount + 63L) >>> 6, AllocationTracker.EMPTY);
+        LongsRef neighbours = new LongsRef(16);
+        LongsRef keys = new LongsRef(16);
+        HugeRelationshipConsumer collect = (source, target) -> {
+            if ((visited.get(target >>> 6) & (1L << target)) == 0L) {
+                visited.or(target >>> 6, 1L << target);
+                AdjacencyRewriter.add(neighbours, target);
+            }
+            return true;
+        };
+
+        long head = 0L;
+        long tail = 0L;
+        for (long i = 0L; i < nodeCount; i++) {
+            long start = candidates != null ? candidates.get(i) : i;
+            if ((visited.get(start >>> 6) & (1L << start)) != 0L) {
+                continue;
+            }
+            visited.or(start >>> 6, 1L << start);
+            order.set(tail++, start);
+            while (head < tail) {
+                neighbours.length = 0;
+                topology.forEachNeighbour(order.get(head++), collect);
+                if (degrees != null && neighbours.length > 1) {
+                    keys.length = 0;
+                    for (int j = 0; j < neighbours.length; j++) {
+                        AdjacencyRewriter.add(keys, degrees.get(neighbours.longs[j]));
+                    }
+                    AdjacencyCompression.sortWithWeights(keys.longs, neighbours.longs, 0, neighbours.length - 1);
+                }
+                for (int j = 0; j < neighbours.length; j++) {
+                    order.set(tail++, neighbours.longs[j]);
+                }
+            }
+        }
+
+        visited.release();
+        if (candidates != null) {
+            candidates.release();
+        }
+        return order;
+    }
+
+    /**
+     * Runs a few rounds of label propagation, where every node takes the label that most of its neighbours have,
+     * preferring the smallest label in case of a tie. Labels are node ids and updated in place.
+     */
+    private static HugeLongArray labelPropagation(Topology topology) {
+        long nodeCount = topology.nodeCount;
+        HugeLongArray labels = HugeLongArray.newArray(nodeCount, AllocationTracker.EMPTY);
+        labels.setAll(node -> node);
+        LongLongHashMap votes = new LongLongHashMap();
+        HugeRelationshipConsumer vote = (source, target) -> {
+            votes.addTo(labels.get(target), 1L);
+            return true;
+        };
+
+        for (int iteration = 0; iteration < LABEL_PROPAGATION_ITERATIONS; iteration++) {
+            boolean changed = false;
+            for (long node = 0L; node < nodeCount; node++) {
+                topology.forEachNeighbour(node, vote);
+                if (votes.isEmpty()) {
+                    continue;
+                }
+                long label = Long.MAX_VALUE;
+                long maxVotes = 0L;
+                for (LongLongCursor cursor : votes) {
+                    if (cursor.value > maxVotes || (cursor.value == maxVotes && cursor.key < label)) {
+                        label = cursor.key;
+                        maxVotes = cursor.value;
+                    }
+                }
+                if (votes.size() > MAX_RETAINED_VOTES) {
+                    votes.release();
+                } else {
+                    votes.clear();
+                }
+                if (label != labels.get(node)) {
+                    labels.set(node, label);
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                break;
+            }
+        }
+        return labels;
+    }
+
+    private static long max(HugeLongArray values) {
+        long max = 0L;
+        long size = values.size();
+        for (long i = 0L; i < size; i++) {
+            max = Math.max(max, values.get(i));
+        }
+        return max;
+    }
+
+    private static void reverse(HugeLongArray values) {
+        for (long lo = 0L, hi = values.size() - 1L; lo < hi; lo++, hi--) {
+            long value = values.get(lo);
+            values.set(lo, values.get(hi));
+            values.set(hi, value);
+        }
+    }
+
+    /**
+     * Moves the relationship weights to the new ids. The weights are keyed by the start node of a relationship,
+     * so if the outgoing adjacency has been loaded, the new ids are split into ranges of whole weight pages
+     * that are written in parallel without sharing a page. Graphs with only incoming relationships
+     * are rewritten on a single thread.
+     */
+    private static HugeWeightMapping rewriteWeights(
+            HugeGraphImpl graph,
+            Direction[] directions,
+            long nodeCount,
+            HugeLongArray oldIds,
+            HugeLongArray newIds,
+            GraphSetup setup,
+            AllocationTracker tracker) {
+        int numPages = Math.max(1, (int) ((nodeCount + WEIGHT_PAGE_SIZE - 1) >>> WEIGHT_PAGE_SHIFT));
+        HugeWeightMap.Page[] pages = new HugeWeightMap.Page[numPages];
+        double defaultWeight = setup.relationDefaultWeight;
+        if (directions[0] == Direction.OUTGOING) {
+            int concurrency = setup.concurrency();
+            int pagesPerTask = Math.max(1, (numPages + concurrency - 1) / concurrency);
+            List<Runnable> tasks = new ArrayList<>();
+            for (int page = 0; page < numPages; page += pagesPerTask) {
+                long start = PageUtil.capacityFor(page, WEIGHT_PAGE_SHIFT);
+                long end = Math.min(nodeCount, PageUtil.capacityFor(page + pagesPerTask, WEIGHT_PAGE_SHIFT));
+                tasks.add(() -> {
+                    HugeNeighbourCursor neighbours = graph.neighbourCursor(Direction.OUTGOING);
+                    long[] targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+                    double[] weights = new double[HugeNeighbourCursor.BATCH_SIZE];
+                    for (long newId = start; newId < end; newId++) {
+                        neighbours.init(oldIds.get(newId));
+                        int count;
+                        while ((count = neighbours.next(targets, weights)) > 0) {
+                            for (int i = 0; i < count; i++) {
+                                if (weights[i] != defaultWeight) {
+                                    putWeight(pages, newId, newIds.get(targets[i]), weights[i], tracker);
+                                }
+                            }
+                        }
+                    }
+                });
+            }
+            ParallelUtil.run(tasks, setup.executor);
+        } else {
+            HugeNeighbourCursor neighbours = graph.neighbourCursor(Direction.INCOMING);
+            long[] sources = new long[HugeNeighbourCursor.BATCH_SIZE];
+            double[] weights = new double[HugeNeighbourCursor.BATCH_SIZE];
+            for (long node = 0L; node < nodeCount; node++) {
+                neighbours.init(node);
+                long end = newIds.get(node);
+                int count;
+                while ((count = neighbours.next(sources, weights)) > 0) {
+                    for (int i = 0; i < count; i++) {
+                        if (weights[i] != defaultWeight) {
+                            putWeight(pages, newIds.get(sources[i]), end, weights[i], tracker);
+                        }
+                    }
+                }
+            }
+        }
+        if (pages[0] == null) {
+            pages[0] = new HugeWeightMap.Page(WEIGHT_PAGE_SIZE, tracker);
+        }
+        return HugeWeightMap.of(pages, WEIGHT_PAGE_SIZE, defaultWeight, tracker);
+    }
+
+    private static void putWeight(HugeWeightMap.Page[] pages, long start, long end, double weight, AllocationTracker tracker) {
+        int pageIndex = (int) (start >>> WEIGHT_PAGE_SHIFT);
+        if (pages[pageIndex] == null) {
+            pages[pageIndex] = new HugeWeightMap.Page(WEIGHT_PAGE_SIZE, tracker);
+        }
+        pages[pageIndex].put((int) (start & (WEIGHT_PAGE_SIZE - 1)), end, weight);
+    }
+
+    private static HugeWeightMapping reorderProperties(
+            HugeWeightMapping properties,
+            HugeLongArray oldIds,
+            long nodeCount,
+            AllocationTracker tracker) {
+        if (!(properties instanceof HugeNodePropertyMap)) {
+            return properties;
+        }
+        HugeNodePropertyMap propertyMap = (HugeNodePropertyMap) properties;
+        HugeNodePropertiesBuilder builder = HugeNodePropertiesBuilder.of(
+                Math.max(1L, nodeCount),
+                tracker,
+                propertyMap.defaultValue(),
+                propertyMap.propertyId());
+        for (long newId = 0L; newId < nodeCount; newId++) {
+            propertyMap.copyTo(oldIds.get(newId), builder, newId);
+        }
+        tracker.remove(propertyMap.release());
+        return builder.build();
+    }
+
+    /**
+     * The neighbourhood of every node over all loaded relationship types and directions.
+     */
+    private static final class Topology {
+        private final HugeGraphImpl[] graphs;
+        private final Direction[] directions;
+        private final long nodeCount;
+        private final int concurrency;
+        private final ExecutorService executor;
+
+        Topology(HugeGraphImpl[] graphs, Direction[] directions, long nodeCount, int concurrency, ExecutorService executor) {
+            this.graphs = graphs;
+            this.directions = directions;
+            this.nodeCount = nodeCount;
+            this.concurrency = concurrency;
+            this.executor = executor;
+        }
+
+        HugeLongArray degrees() {
+            HugeLongArray degrees = HugeLongArray.newArray(nodeCount, AllocationTracker.EMPTY);
+            long batchSize = ParallelUtil.adjustBatchSize(nodeCount, concurrency, WEIGHT_PAGE_SIZE);
+            List<Runnable> tasks = new ArrayList<>();
+            for (long start = 0L; start < nodeCount; start += batchSize) {
+                long from = start;
+                long to = Math.min(nodeCount, start + batchSize);
+                tasks.add(() -> {
+                    for (long node = from; node < to; node++) {
+                        long degree = 0L;
+                        for (HugeGraphImpl graph : graphs) {
+                            for (Direction direction : directions) {
+                                degree += graph.degree(node, direction);
+                            }
+                        }
+                        degrees.set(node, degree);
+                    }
+                });
+            }
+            ParallelUtil.run(tasks, executor);
+            return degrees;
+        }
+
+        void forEachNeighbour(long node, HugeRelationshipConsumer consumer) {
+            for (HugeGraphImpl graph : graphs) {
+                for (Direction direction : directions) {
+                    graph.forEachRelationship(node, direction, consumer);
+                }
+            }
+        }
+    }
+
+    private HugeNodeReordering() {
+    }
+}
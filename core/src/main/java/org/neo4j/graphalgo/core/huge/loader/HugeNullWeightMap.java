@@ -26,11 +26,11 @@ import org.neo4j.graphalgo.api.HugeWeightMapping;
  *
  * @author mknblch
  */
-class HugeNullWeightMap implements HugeWeightMapping {
+public class HugeNullWeightMap implements HugeWeightMapping {
 
     private final double defaultValue;
 
-    HugeNullWeightMap(double defaultValue) {
+    public HugeNullWeightMap(double defaultValue) {
         this.defaultValue = defaultValue;
     }
 
@@ -79,6 +79,11 @@ class HugeNullWeightMap implements HugeWeightMapping {
         return defaultValue;
     }
 
+    @Override
+    public double defaultValue() {
+        return defaultValue;
+    }
+
     @Override
     public long release() {
         return 0L;
@@ -89,6 +89,11 @@ abstract class HugeWeightMap {
             return 0L;
         }
 
+        @Override
+        public double defaultValue() {
+            return defaultValue;
+        }
+
         private void setDefaultValue(double defaultValue) {
             this.defaultValue = defaultValue;
         }
@@ -137,6 +142,7 @@ abstract class HugeWeightMap {
             return defaultValue;
         }
 
+        @Override
         public double defaultValue() {
             return defaultValue;
         }
@@ -98,6 +98,12 @@ class HugeWeightMapBuilder {
         }
     }
 
+    void add(int localSource, long target, double weight) {
+        if (weight != defaultWeight) {
+            addWeight(localSource, target, weight);
+        }
+    }
+
     private synchronized void addWeight(int localIndex, long target, double weight) {
         page.put(localIndex, target, weight);
     }
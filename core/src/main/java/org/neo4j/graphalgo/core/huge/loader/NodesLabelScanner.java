@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import com.carrotsearch.hppc.IntObjectHashMap;
+import com.carrotsearch.hppc.IntObjectMap;
+import org.neo4j.graphalgo.core.utils.ImportProgress;
+import org.neo4j.graphalgo.core.utils.StatementAction;
+import org.neo4j.graphalgo.core.utils.TransactionWrapper;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArrayBuilder;
+import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.NodeLabelIndexCursor;
+import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports the nodes of a label from the label scan store instead of scanning the whole node store.
+ * The label scan store is read by a single thread, the node properties are then read in parallel ranges of the found nodes.
+ */
+final class NodesLabelScanner extends StatementAction implements RecordScanner {
+
+    // the number of nodes that are added to the id map or read by a scanner at once
+    private static final int BATCH_SIZE = 10_000;
+
+    /**
+     * Adds all nodes with the given label to the id map, in the order of the label scan store, which is ordered by node id.
+     * Nodes that don't fit into the id map, because the counts store reported fewer nodes than there are, are ignored.
+     * Returns the number of nodes that have been added.
+     */
+    static long scanLabel(
+            GraphDatabaseAPI api,
+            int label,
+            ImportProgress progress,
+            HugeLongArrayBuilder idMapBuilder) {
+        return new TransactionWrapper(api).apply(transaction -> {
+            long imported = 0L;
+            long[] batch = new long[BATCH_SIZE];
+            int length = 0;
+            try (NodeLabelIndexCursor cursor = transaction.cursors().allocateNodeLabelIndexCursor()) {
+                transaction.dataRead().nodeLabelScan(label, cursor);
+                while (cursor.next()) {
+                    batch[length++] = cursor.nodeReference();
+                    if (length == BATCH_SIZE) {
+                        int added = addNodes(batch, length, idMapBuilder);
+                        progress.relationshipsImported(added);
+                        imported += added;
+                        if (added < length) {
+                            return imported;
+                        }
+                        length = 0;
+                    }
+                }
+            }
+            int added = addNodes(batch, length, idMapBuilder);
+            progress.relationshipsImported(added);
+            return imported + added;
+        });
+    }
+
+    private static int addNodes(long[] batch, int length, HugeLongArrayBuilder idMapBuilder) {
+        if (length == 0) {
+            return 0;
+        }
+        HugeLongArrayBuilder.BulkAdder adder = idMapBuilder.allocate((long) length);
+        if (adder == null) {
+            return 0;
+        }
+        int batchOffset = 0;
+        while (adder.nextBuffer()) {
+            System.arraycopy(batch, batchOffset, adder.buffer, adder.offset, adder.length);
+            batchOffset += adder.length;
+        }
+        return batchOffset;
+    }
+
+    /**
+     * Returns the scanners that read the properties of the nodes that have been added by {@link #scanLabel}.
+     */
+    static ImportingThreadPool.CreateScanner of(
+            GraphDatabaseAPI api,
+            HugeLongArrayBuilder idMapBuilder,
+            Collection<HugeNodePropertiesBuilder> nodePropertyBuilders) {
+        if (nodePropertyBuilders == null || nodePropertyBuilders.isEmpty()) {
+            return ImportingThreadPool.createEmptyScanner();
+        }
+        return new NodesLabelScanner.Creator(api, idMapBuilder, nodePropertyBuilders);
+    }
+
+    static final class Creator implements ImportingThreadPool.CreateScanner {
+        private final GraphDatabaseAPI api;
+        private final HugeLongArrayBuilder idMapBuilder;
+        private final IntObjectMap<HugeNodePropertiesBuilder> nodePropertyBuilders;
+        private final AtomicLong nextNode;
+
+        Creator(
+                GraphDatabaseAPI api,
+                HugeLongArrayBuilder idMapBuilder,
+                Collection<HugeNodePropertiesBuilder> nodePropertyBuilders) {
+            this.api = api;
+            this.idMapBuilder = idMapBuilder;
+            this.nodePropertyBuilders = new IntObjectHashMap<>(nodePropertyBuilders.size());
+            for (HugeNodePropertiesBuilder builder : nodePropertyBuilders) {
+                this.nodePropertyBuilders.put(builder.propertyId(), builder);
+            }
+            this.nextNode = new AtomicLong();
+        }
+
+        @Override
+        public RecordScanner create(final int index) {
+            return new NodesLabelScanner(api, index, idMapBuilder, nodePropertyBuilders, nextNode);
+        }
+
+        @Override
+        public Collection<Runnable> flushTasks() {
+            return Collections.emptyList();
+        }
+    }
+
+    private final int scannerIndex;
+    private final HugeLongArrayBuilder idMapBuilder;
+    private final IntObjectMap<HugeNodePropertiesBuilder> nodePropertyBuilders;
+    private final AtomicLong nextNode;
+
+    private volatile long nodesImported;
+
+    private NodesLabelScanner(
+            GraphDatabaseAPI api,
+            int threadIndex,
+            HugeLongArrayBuilder idMapBuilder,
+            IntObjectMap<HugeNodePropertiesBuilder> nodePropertyBuilders,
+            AtomicLong nextNode) {
+        super(api);
+        this.scannerIndex = threadIndex;
+        this.idMapBuilder = idMapBuilder;
+        this.nodePropertyBuilders = nodePropertyBuilders;
+        this.nextNode = nextNode;
+    }
+
+    @Override
+    public String threadName() {
+        return "node-label-scan-" + scannerIndex;
+    }
+
+    @Override
+    public void accept(final KernelTransaction transaction) {
+        Read read = transaction.dataRead();
+        CursorFactory cursors = transaction.cursors();
+        HugeLongArray nodeIds = idMapBuilder.build();
+        long nodeCount = idMapBuilder.size();
+        long allImported = 0L;
+        try (NodeCursor nodeCursor = cursors.allocateNodeCursor()) {
+            long start;
+            while ((start = nextNode.getAndAdd(BATCH_SIZE)) < nodeCount) {
+                long end = Math.min(nodeCount, start + BATCH_SIZE);
+                for (long graphId = start; graphId < end; graphId++) {
+                    long nodeId = nodeIds.get(graphId);
+                    read.singleNode(nodeId, nodeCursor);
+                    if (nodeCursor.next()) {
+                        NodesScanner.readWeight(
+                                nodeId,
+                                nodeCursor.propertiesReference(),
+                                nodePropertyBuilders,
+                                graphId,
+                                cursors,
+                                read);
+                    }
+                }
+                allImported += end - start;
+            }
+        }
+        nodesImported = allImported;
+    }
+
+    @Override
+    public long recordsImported() {
+        return nodesImported;
+    }
+}
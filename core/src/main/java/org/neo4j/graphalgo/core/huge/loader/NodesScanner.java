@@ -31,6 +31,7 @@ import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.impl.store.NodeStore;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.values.storable.IntegralValue;
 import org.neo4j.values.storable.Value;
 
 import java.util.Collection;
@@ -196,7 +197,7 @@ final class NodesScanner extends StatementAction implements RecordScanner {
         return batchLength;
     }
 
-    private void readWeight(
+    static void readWeight(
             long nodeReference,
             long propertiesReference,
             IntObjectMap<HugeNodePropertiesBuilder> nodeProperties,
@@ -210,9 +211,17 @@ final class NodesScanner extends StatementAction implements RecordScanner {
                 if (props != null) {
                     Value value = pc.propertyValue();
                     double defaultValue = props.defaultValue();
-                    double weight = ReadHelper.extractValue(value, defaultValue);
-                    if (weight != defaultValue) {
-                        props.set(localIndex, weight);
+                    if (value instanceof IntegralValue) {
+                        // integral values are kept as longs, so that they don't lose precision
+                        long longValue = ((IntegralValue) value).longValue();
+                        if ((double) longValue != defaultValue || longValue != (long) defaultValue) {
+                            props.set(localIndex, longValue);
+                        }
+                    } else {
+                        double weight = ReadHelper.extractValue(value, defaultValue);
+                        if (weight != defaultValue) {
+                            props.set(localIndex, weight);
+                        }
                     }
                 }
             }
@@ -20,6 +20,7 @@ package org.neo4j.graphalgo.core.huge.loader;
 
 import org.neo4j.graphalgo.api.HugeIdMapping;
 import org.neo4j.graphalgo.core.huge.loader.AbstractStorePageCacheScanner.RecordConsumer;
+import org.neo4j.internal.kernel.api.Read;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
 
 
@@ -33,6 +34,7 @@ final class RelationshipsBatchBuffer implements RecordConsumer<RelationshipRecor
     private final long[] buffer;
     private final long[] sortCopy;
     private final int[] histogram;
+    private long[] weights;
 
     private int length;
 
@@ -53,23 +55,39 @@ final class RelationshipsBatchBuffer implements RecordConsumer<RelationshipRecor
 
     @Override
     public void add(final RelationshipRecord record) {
-        if ((type & record.getType()) == record.getType()) {
+        if (type == Read.ANY_RELATIONSHIP_TYPE || type == record.getType()) {
             long source = idMap.toHugeMappedNodeId(record.getFirstNode());
             if (source != -1L) {
                 long target = idMap.toHugeMappedNodeId(record.getSecondNode());
                 if (target != -1L) {
-                    int position = this.length;
-                    long[] buffer = this.buffer;
-                    buffer[position] = source;
-                    buffer[1 + position] = target;
-                    buffer[2 + position] = record.getId();
-                    buffer[3 + position] = record.getNextProp();
-                    this.length = 4 + position;
+                    add(source, target, record.getId(), record.getNextProp());
                 }
             }
         }
     }
 
+    /**
+     * Adds a relationship between two already mapped nodes.
+     * The references are not interpreted by the buffer and are only carried along while sorting.
+     */
+    void add(long source, long target, long relationshipReference, long propertyReference) {
+        int position = this.length;
+        long[] buffer = this.buffer;
+        buffer[position] = source;
+        buffer[1 + position] = target;
+        buffer[2 + position] = relationshipReference;
+        buffer[3 + position] = propertyReference;
+        this.length = 4 + position;
+    }
+
+    boolean isFull() {
+        return length >= buffer.length;
+    }
+
+    void reset() {
+        length = 0;
+    }
+
     long[] sortBySource() {
         RadixSort.radixSort(buffer, sortCopy, histogram, length);
         return buffer;
@@ -91,4 +109,51 @@ final class RelationshipsBatchBuffer implements RecordConsumer<RelationshipRecor
     int[] spareInts() {
         return histogram;
     }
+
+    long[] spareWeights() {
+        if (weights == null) {
+            weights = new long[histogram.length];
+        }
+        return weights;
+    }
+
+    /**
+     * Distributes the scanned records into one buffer per relationship type.
+     */
+    static final class ByType implements RecordConsumer<RelationshipRecord> {
+
+        private final int[] types;
+        private final RelationshipsBatchBuffer[] buffers;
+
+        ByType(HugeIdMapping idMap, int[] types, int capacity) {
+            this.types = types;
+            this.buffers = new RelationshipsBatchBuffer[types.length];
+            for (int i = 0; i < types.length; i++) {
+                buffers[i] = new RelationshipsBatchBuffer(idMap, types[i], capacity);
+            }
+        }
+
+        boolean scan(AbstractStorePageCacheScanner<RelationshipRecord>.Cursor cursor) {
+            for (RelationshipsBatchBuffer buffer : buffers) {
+                buffer.reset();
+            }
+            return cursor.bulkNext(this);
+        }
+
+        RelationshipsBatchBuffer buffer(int typeIndex) {
+            return buffers[typeIndex];
+        }
+
+        @Override
+        public void add(final RelationshipRecord record) {
+            int type = record.getType();
+            int[] types = this.types;
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] == type) {
+                    buffers[i].add(record);
+                    return;
+                }
+            }
+        }
+    }
 }
@@ -20,86 +20,146 @@ package org.neo4j.graphalgo.core.huge.loader;
 
 import org.neo4j.graphalgo.api.GraphSetup;
 import org.neo4j.graphalgo.api.HugeIdMapping;
+import org.neo4j.graphalgo.core.loading.ReadHelper;
 import org.neo4j.graphalgo.core.utils.ImportProgress;
 import org.neo4j.graphalgo.core.utils.StatementAction;
 import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
 import org.neo4j.internal.kernel.api.CursorFactory;
+import org.neo4j.internal.kernel.api.NodeCursor;
+import org.neo4j.internal.kernel.api.PropertyCursor;
 import org.neo4j.internal.kernel.api.Read;
+import org.neo4j.internal.kernel.api.RelationshipTraversalCursor;
 import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.StatementConstants;
 import org.neo4j.kernel.impl.store.record.RelationshipRecord;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
 
 final class RelationshipsScanner extends StatementAction implements RecordScanner {
 
+    // the number of nodes whose relationships are traversed by a scanner at once
+    private static final int TRAVERSAL_NODES = 1024;
+    // the capacity of the batches that are filled by traversing relationships
+    private static final int TRAVERSAL_BATCH_SIZE = 10_000;
+
+    /**
+     * Creates the scanners that import the relationships, either by scanning the whole relationship store or,
+     * if the scanner is null, by traversing the relationship chains of the nodes in the id map.
+     */
     static ImportingThreadPool.CreateScanner of(
             GraphDatabaseAPI api,
             GraphSetup setup,
             ImportProgress progress,
             HugeIdMapping idMap,
             AbstractStorePageCacheScanner<RelationshipRecord> scanner,
-            int relType,
+            int[] relTypes,
             AllocationTracker tracker,
-            WeightBuilder weights,
-            AdjacencyBuilder outAdjacency,
-            AdjacencyBuilder inAdjacency) {
-        final Imports imports = imports(setup, weights.loadsWeights());
+            WeightBuilder[] weights,
+            AdjacencyBuilder[] outAdjacency,
+            AdjacencyBuilder[] inAdjacency) {
+        final Imports imports = imports(setup, weights[0].loadsWeights());
         if (imports == null) {
             return ImportingThreadPool.createEmptyScanner();
         }
-        final AdjacencyBuilder actualInAdjacency = setup.loadAsUndirected ? outAdjacency : inAdjacency;
+        final AdjacencyBuilder[] actualInAdjacency = setup.loadAsUndirected ? outAdjacency : inAdjacency;
         return new RelationshipsScanner.Creator(
-                api, progress, idMap, scanner, relType, tracker,
+                api, progress, idMap, scanner, relTypes, tracker,
                 weights, outAdjacency, actualInAdjacency, imports);
     }
 
+    /**
+     * Creates the scanners of a first scan that only counts the degrees into the
+     * {@link AdjacencyBuilder#degreeCounter() degree counters} of the given adjacency builders.
+     * Neither the weights nor any other property of the relationships are read.
+     */
+    static ImportingThreadPool.CreateScanner countingDegrees(
+            GraphDatabaseAPI api,
+            GraphSetup setup,
+            ImportProgress progress,
+            HugeIdMapping idMap,
+            AbstractStorePageCacheScanner<RelationshipRecord> scanner,
+            int[] relTypes,
+            AllocationTracker tracker,
+            WeightBuilder[] weights,
+            AdjacencyBuilder[] outAdjacency,
+            AdjacencyBuilder[] inAdjacency) {
+        final Imports imports = imports(setup, false);
+        if (imports == null) {
+            return ImportingThreadPool.createEmptyScanner();
+        }
+        final AdjacencyBuilder[] outCounters = degreeCounters(outAdjacency);
+        final AdjacencyBuilder[] inCounters = setup.loadAsUndirected ? outCounters : degreeCounters(inAdjacency);
+        return new RelationshipsScanner.Creator(
+                api, progress, idMap, scanner, relTypes, tracker,
+                weights, outCounters, inCounters, imports);
+    }
+
+    private static AdjacencyBuilder[] degreeCounters(AdjacencyBuilder[] adjacency) {
+        AdjacencyBuilder[] counters = new AdjacencyBuilder[adjacency.length];
+        for (int i = 0; i < adjacency.length; i++) {
+            counters[i] = adjacency[i].degreeCounter();
+        }
+        return counters;
+    }
+
     static final class Creator implements ImportingThreadPool.CreateScanner {
         private final GraphDatabaseAPI api;
         private final ImportProgress progress;
         private final HugeIdMapping idMap;
         private final AbstractStorePageCacheScanner<RelationshipRecord> scanner;
-        private final int relType;
+        private final int[] relTypes;
         private final AllocationTracker tracker;
-        private final WeightBuilder weights;
-        private final AdjacencyBuilder outAdjacency;
-        private final AdjacencyBuilder inAdjacency;
+        private final WeightBuilder[] weights;
+        private final AdjacencyBuilder[] outAdjacency;
+        private final AdjacencyBuilder[] inAdjacency;
         private final Imports imports;
+        private final AtomicLong nextNode;
 
         Creator(
                 GraphDatabaseAPI api,
                 ImportProgress progress,
                 HugeIdMapping idMap,
                 AbstractStorePageCacheScanner<RelationshipRecord> scanner,
-                int relType,
+                int[] relTypes,
                 AllocationTracker tracker,
-                WeightBuilder weights,
-                AdjacencyBuilder outAdjacency,
-                AdjacencyBuilder inAdjacency,
+                WeightBuilder[] weights,
+                AdjacencyBuilder[] outAdjacency,
+                AdjacencyBuilder[] inAdjacency,
                 Imports imports) {
             this.api = api;
             this.progress = progress;
             this.idMap = idMap;
             this.scanner = scanner;
-            this.relType = relType;
+            this.relTypes = relTypes;
             this.tracker = tracker;
             this.weights = weights;
             this.outAdjacency = outAdjacency;
             this.inAdjacency = inAdjacency;
             this.imports = imports;
+            this.nextNode = new AtomicLong();
         }
 
         @Override
         public RecordScanner create(final int index) {
             return new RelationshipsScanner(
-                    api, progress, idMap, scanner, relType, index,
-                    tracker, weights, outAdjacency, inAdjacency, imports);
+                    api, progress, idMap, scanner, relTypes, index,
+                    tracker, weights, outAdjacency, inAdjacency, imports, nextNode);
         }
 
         @Override
         public Collection<Runnable> flushTasks() {
+            Collection<Runnable> tasks = new ArrayList<>();
+            for (int i = 0; i < relTypes.length; i++) {
+                tasks.addAll(flushTasks(outAdjacency[i], inAdjacency[i]));
+            }
+            return tasks;
+        }
+
+        private static Collection<Runnable> flushTasks(AdjacencyBuilder outAdjacency, AdjacencyBuilder inAdjacency) {
             if (outAdjacency != null) {
                 if (inAdjacency == null || inAdjacency == outAdjacency) {
                     return outAdjacency.flushTasks();
@@ -118,14 +178,15 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
     private final ImportProgress progress;
     private final HugeIdMapping idMap;
     private final AbstractStorePageCacheScanner<RelationshipRecord> scanner;
-    private final int relType;
+    private final int[] relTypes;
     private final int scannerIndex;
 
     private final AllocationTracker tracker;
-    private final WeightBuilder weights;
-    private final AdjacencyBuilder outAdjacency;
-    private final AdjacencyBuilder inAdjacency;
+    private final WeightBuilder[] weights;
+    private final AdjacencyBuilder[] outAdjacency;
+    private final AdjacencyBuilder[] inAdjacency;
     private final Imports imports;
+    private final AtomicLong nextNode;
 
     private volatile long relationshipsImported;
 
@@ -134,24 +195,26 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
             ImportProgress progress,
             HugeIdMapping idMap,
             AbstractStorePageCacheScanner<RelationshipRecord> scanner,
-            int relType,
+            int[] relTypes,
             int threadIndex,
             AllocationTracker tracker,
-            WeightBuilder weights,
-            AdjacencyBuilder outAdjacency,
-            AdjacencyBuilder inAdjacency,
-            Imports imports) {
+            WeightBuilder[] weights,
+            AdjacencyBuilder[] outAdjacency,
+            AdjacencyBuilder[] inAdjacency,
+            Imports imports,
+            AtomicLong nextNode) {
         super(api);
         this.progress = progress;
         this.idMap = idMap;
         this.scanner = scanner;
-        this.relType = relType;
+        this.relTypes = relTypes;
         this.scannerIndex = threadIndex;
         this.tracker = tracker;
         this.weights = weights;
         this.outAdjacency = outAdjacency;
         this.inAdjacency = inAdjacency;
         this.imports = imports;
+        this.nextNode = nextNode;
     }
 
     @Override
@@ -165,13 +228,21 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
     }
 
     private void scanRelationships(final Read read, final CursorFactory cursors) {
+        if (scanner == null) {
+            traverseRelationships(read, cursors);
+            return;
+        }
+        if (relTypes.length > 1) {
+            scanRelationshipsByType(read, cursors);
+            return;
+        }
         try (AbstractStorePageCacheScanner<RelationshipRecord>.Cursor cursor = scanner.getCursor()) {
-            RelationshipsBatchBuffer batches = new RelationshipsBatchBuffer(idMap, relType, cursor.bulkSize());
+            RelationshipsBatchBuffer batches = new RelationshipsBatchBuffer(idMap, relTypes[0], cursor.bulkSize());
 
-            final WeightBuilder weights = this.weights;
+            final WeightBuilder weights = this.weights[0];
             final ImportProgress progress = this.progress;
-            final AdjacencyBuilder outAdjacency = this.outAdjacency;
-            final AdjacencyBuilder inAdjacency = this.inAdjacency;
+            final AdjacencyBuilder outAdjacency = this.outAdjacency[0];
+            final AdjacencyBuilder inAdjacency = this.inAdjacency[0];
             final AllocationTracker tracker = this.tracker;
             final Imports imports = this.imports;
 
@@ -188,6 +259,115 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
         }
     }
 
+    /**
+     * Scans the store once and imports every relationship into the adjacency of its type.
+     */
+    private void scanRelationshipsByType(final Read read, final CursorFactory cursors) {
+        try (AbstractStorePageCacheScanner<RelationshipRecord>.Cursor cursor = scanner.getCursor()) {
+            RelationshipsBatchBuffer.ByType batches = new RelationshipsBatchBuffer.ByType(idMap, relTypes, cursor.bulkSize());
+
+            final ImportProgress progress = this.progress;
+            final AllocationTracker tracker = this.tracker;
+            final Imports imports = this.imports;
+
+            long allImported = 0L;
+            while (batches.scan(cursor)) {
+                for (int i = 0; i < relTypes.length; i++) {
+                    RelationshipsBatchBuffer batch = batches.buffer(i);
+                    int batchLength = batch.length();
+                    if (batchLength == 0) {
+                        continue;
+                    }
+                    int imported = imports.importRels(
+                            batch, batchLength, weights[i], cursors, read, tracker, outAdjacency[i], inAdjacency[i]
+                    );
+                    progress.relationshipsImported(imported);
+                    allImported += imported;
+                }
+            }
+            relationshipsImported = allImported;
+        }
+    }
+
+    /**
+     * Imports the outgoing relationships of the nodes in the id map, which visits every relationship
+     * between two nodes of the id map exactly once, without scanning the relationship store.
+     * The scanners traverse the next range of nodes until all nodes have been visited.
+     */
+    private void traverseRelationships(final Read read, final CursorFactory cursors) {
+        int types = relTypes.length;
+        RelationshipsBatchBuffer[] batches = new RelationshipsBatchBuffer[types];
+        for (int i = 0; i < types; i++) {
+            batches[i] = new RelationshipsBatchBuffer(idMap, relTypes[i], TRAVERSAL_BATCH_SIZE);
+        }
+
+        final HugeIdMapping idMap = this.idMap;
+        final long nodeCount = idMap.nodeCount();
+        long allImported = 0L;
+        try (NodeCursor nodeCursor = cursors.allocateNodeCursor();
+             RelationshipTraversalCursor relationshipCursor = cursors.allocateRelationshipTraversalCursor()) {
+            long start;
+            while ((start = nextNode.getAndAdd(TRAVERSAL_NODES)) < nodeCount) {
+                long end = Math.min(nodeCount, start + TRAVERSAL_NODES);
+                for (long node = start; node < end; node++) {
+                    long nodeId = idMap.toOriginalNodeId(node);
+                    read.singleNode(nodeId, nodeCursor);
+                    if (!nodeCursor.next()) {
+                        continue;
+                    }
+                    nodeCursor.allRelationships(relationshipCursor);
+                    while (relationshipCursor.next()) {
+                        if (relationshipCursor.sourceNodeReference() != nodeId) {
+                            continue;
+                        }
+                        int typeIndex = typeIndex(relationshipCursor.type());
+                        if (typeIndex == -1) {
+                            continue;
+                        }
+                        long target = idMap.toHugeMappedNodeId(relationshipCursor.targetNodeReference());
+                        if (target == -1L) {
+                            continue;
+                        }
+                        RelationshipsBatchBuffer batch = batches[typeIndex];
+                        if (batch.isFull()) {
+                            allImported += importBatch(batch, typeIndex, read, cursors);
+                            batch.reset();
+                        }
+                        batch.add(
+                                node,
+                                target,
+                                relationshipCursor.relationshipReference(),
+                                relationshipCursor.propertiesReference());
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < types; i++) {
+            if (batches[i].length() > 0) {
+                allImported += importBatch(batches[i], i, read, cursors);
+            }
+        }
+        relationshipsImported = allImported;
+    }
+
+    private int typeIndex(int type) {
+        int[] relTypes = this.relTypes;
+        for (int i = 0; i < relTypes.length; i++) {
+            if (relTypes[i] == type || relTypes[i] == Read.ANY_RELATIONSHIP_TYPE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int importBatch(RelationshipsBatchBuffer batch, int typeIndex, Read read, CursorFactory cursors) {
+        int imported = imports.importRels(
+                batch, batch.length(), weights[typeIndex], cursors, read, tracker,
+                outAdjacency[typeIndex], inAdjacency[typeIndex]);
+        progress.relationshipsImported(imported);
+        return imported;
+    }
+
     @Override
     public long recordsImported() {
         return relationshipsImported;
@@ -240,9 +420,9 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
             AdjacencyBuilder outAdjacency,
             AdjacencyBuilder inAdjacency) {
         long[] batch = buffer.sortBySource();
-        int importedOut = importRelationships(buffer, batch, batchLength, outAdjacency, tracker);
+        int importedOut = importRelationships(buffer, batch, batchLength, outAdjacency, cursors, read, tracker);
         batch = buffer.sortByTarget();
-        int importedIn = importRelationships(buffer, batch, batchLength, inAdjacency, tracker);
+        int importedIn = importRelationships(buffer, batch, batchLength, inAdjacency, cursors, read, tracker);
         return importedOut + importedIn;
     }
 
@@ -256,10 +436,10 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
             AdjacencyBuilder outAdjacency,
             AdjacencyBuilder inAdjacency) {
         long[] batch = buffer.sortBySource();
-        int importedOut = importRelationships(buffer, batch, batchLength, outAdjacency, tracker);
+        int importedOut = importRelationships(buffer, batch, batchLength, outAdjacency, cursors, read, tracker);
         importWeights(batch, batchLength, weights, cursors, read);
         batch = buffer.sortByTarget();
-        int importedIn = importRelationships(buffer, batch, batchLength, inAdjacency, tracker);
+        int importedIn = importRelationships(buffer, batch, batchLength, inAdjacency, cursors, read, tracker);
         importWeights(batch, batchLength, weights, cursors, read);
         return importedOut + importedIn;
     }
@@ -274,10 +454,10 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
             AdjacencyBuilder outAdjacency,
             AdjacencyBuilder inAdjacency) {
         long[] batch = buffer.sortBySource();
-        int importedOut = importRelationships(buffer, batch, batchLength, outAdjacency, tracker);
+        int importedOut = importRelationships(buffer, batch, batchLength, outAdjacency, cursors, read, tracker);
         importWeights(batch, batchLength, weights, cursors, read);
         batch = buffer.sortByTarget();
-        int importedIn = importRelationships(buffer, batch, batchLength, inAdjacency, tracker);
+        int importedIn = importRelationships(buffer, batch, batchLength, inAdjacency, cursors, read, tracker);
         return importedOut + importedIn;
     }
 
@@ -291,7 +471,7 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
             AdjacencyBuilder outAdjacency,
             AdjacencyBuilder inAdjacency) {
         long[] batch = buffer.sortBySource();
-        return importRelationships(buffer, batch, batchLength, outAdjacency, tracker);
+        return importRelationships(buffer, batch, batchLength, outAdjacency, cursors, read, tracker);
     }
 
     private static int importOutgoingWithWeight(
@@ -304,7 +484,7 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
             AdjacencyBuilder outAdjacency,
             AdjacencyBuilder inAdjacency) {
         long[] batch = buffer.sortBySource();
-        int imported = importRelationships(buffer, batch, batchLength, outAdjacency, tracker);
+        int imported = importRelationships(buffer, batch, batchLength, outAdjacency, cursors, read, tracker);
         importWeights(batch, batchLength, weights, cursors, read);
         return imported;
     }
@@ -319,7 +499,7 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
             AdjacencyBuilder outAdjacency,
             AdjacencyBuilder inAdjacency) {
         long[] batch = buffer.sortByTarget();
-        return importRelationships(buffer, batch, batchLength, inAdjacency, tracker);
+        return importRelationships(buffer, batch, batchLength, inAdjacency, cursors, read, tracker);
     }
 
     private static int importIncomingWithWeight(
@@ -334,7 +514,7 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
         long[] batch = buffer.sortBySource();
         importWeights(batch, batchLength, weights, cursors, read);
         batch = buffer.sortByTarget();
-        return importRelationships(buffer, batch, batchLength, inAdjacency, tracker);
+        return importRelationships(buffer, batch, batchLength, inAdjacency, cursors, read, tracker);
     }
 
     private static int importRelationships(
@@ -342,6 +522,28 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
             long[] batch,
             int batchLength,
             AdjacencyBuilder adjacency,
+            CursorFactory cursors,
+            Read read,
+            AllocationTracker tracker) {
+        long[] weights = null;
+        int weightProperty = adjacency.weightProperty();
+        if (weightProperty != StatementConstants.NO_SUCH_PROPERTY_KEY) {
+            weights = buffer.spareWeights();
+            readWeights(batch, batchLength, weightProperty, adjacency.defaultWeight(), weights, cursors, read);
+        }
+        return importRelationships(buffer, batch, batchLength, adjacency, weights, tracker);
+    }
+
+    /**
+     * Adds a batch that is sorted by source to the adjacency.
+     * The weights, if any, are the raw long bits of the double weights in the order of the batch.
+     */
+    static int importRelationships(
+            RelationshipsBatchBuffer buffer,
+            long[] batch,
+            int batchLength,
+            AdjacencyBuilder adjacency,
+            long[] weights,
             AllocationTracker tracker) {
 
         int[] offsets = buffer.spareInts();
@@ -364,6 +566,7 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
         adjacency.addAll(
                 batch,
                 targets,
+                weights,
                 offsets,
                 nodesLength,
                 tracker
@@ -372,6 +575,23 @@ final class RelationshipsScanner extends StatementAction implements RecordScanne
         return batchLength >> 2;
     }
 
+    private static void readWeights(
+            long[] batch,
+            int batchLength,
+            int weightProperty,
+            double defaultWeight,
+            long[] weights,
+            CursorFactory cursors,
+            Read read) {
+        try (PropertyCursor pc = cursors.allocatePropertyCursor()) {
+            for (int i = 0, offset = 0; i < batchLength; i += 4) {
+                read.relationshipProperties(/* rel ref */ batch[2 + i], /* prop ref */ batch[3 + i], pc);
+                double weight = ReadHelper.readProperty(pc, weightProperty, defaultWeight);
+                weights[offset++] = Double.doubleToRawLongBits(weight);
+            }
+        }
+    }
+
     private static void importWeights(
             long[] batch,
             int batchLength,
@@ -39,6 +39,7 @@ final class ScanningNodesImporter extends ScanningRecordsImporter<NodeRecord, Id
     private final ImportProgress progress;
     private final AllocationTracker tracker;
     private final PropertyMapping[] propertyMappings;
+    private final boolean scanLabelIndex;
 
     private Map<String, HugeNodePropertiesBuilder> builders;
     private HugeLongArrayBuilder idMapBuilder;
@@ -50,11 +51,18 @@ final class ScanningNodesImporter extends ScanningRecordsImporter<NodeRecord, Id
             AllocationTracker tracker,
             ExecutorService threadPool,
             int concurrency,
-            PropertyMapping[] propertyMappings) {
+            PropertyMapping[] propertyMappings,
+            boolean scanLabelIndex) {
         super(NodeStoreScanner.NODE_ACCESS, "Node", api, dimensions, threadPool, concurrency);
         this.progress = progress;
         this.tracker = tracker;
         this.propertyMappings = propertyMappings;
+        this.scanLabelIndex = scanLabelIndex;
+    }
+
+    @Override
+    boolean scansStore() {
+        return !scanLabelIndex;
     }
 
     @Override
@@ -64,6 +72,10 @@ final class ScanningNodesImporter extends ScanningRecordsImporter<NodeRecord, Id
             AbstractStorePageCacheScanner<NodeRecord> scanner) {
         idMapBuilder = HugeLongArrayBuilder.of(nodeCount, tracker);
         builders = propertyBuilders(nodeCount);
+        if (scanLabelIndex) {
+            NodesLabelScanner.scanLabel(api, dimensions.labelId(), progress, idMapBuilder);
+            return NodesLabelScanner.of(api, idMapBuilder, builders.values());
+        }
         return NodesScanner.of(
                 api,
                 scanner,
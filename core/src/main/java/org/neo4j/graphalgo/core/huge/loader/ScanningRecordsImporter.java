@@ -41,7 +41,7 @@ abstract class ScanningRecordsImporter<Record extends AbstractBaseRecord, T> {
     private final String label;
     final GraphDatabaseAPI api;
     final GraphDimensions dimensions;
-    private final ExecutorService threadPool;
+    final ExecutorService threadPool;
     private final int concurrency;
 
     ScanningRecordsImporter(
@@ -64,19 +64,40 @@ abstract class ScanningRecordsImporter<Record extends AbstractBaseRecord, T> {
         final ImportSizing sizing = ImportSizing.of(concurrency, nodeCount);
         int numberOfThreads = sizing.numberOfThreads();
 
-        AbstractStorePageCacheScanner<Record> scanner =
-                new AbstractStorePageCacheScanner<>(DEFAULT_PREFETCH_SIZE, api, access);
+        AbstractStorePageCacheScanner<Record> scanner = scansStore()
+                ? new AbstractStorePageCacheScanner<>(DEFAULT_PREFETCH_SIZE, api, access)
+                : null;
 
         ImportingThreadPool.CreateScanner creator = creator(nodeCount, sizing, scanner);
         ImportingThreadPool pool = new ImportingThreadPool(numberOfThreads, creator);
-        ImportResult importResult = pool.run(threadPool);
+        AbstractStorePageCacheScanner<Record>.ReadAhead readAhead = scanner != null ? scanner.startReadAhead() : null;
+        ImportResult importResult;
+        try {
+            importResult = pool.run(threadPool);
+        } finally {
+            if (readAhead != null) {
+                readAhead.stop();
+            }
+        }
 
-        long requiredBytes = scanner.storeSize();
         long nodesImported = importResult.recordsImported;
-        BigInteger bigNanos = BigInteger.valueOf(importResult.tookNanos);
+        BigInteger bigNanos = BigInteger.valueOf(Math.max(1L, importResult.tookNanos));
         double tookInSeconds = new BigDecimal(bigNanos)
                 .divide(new BigDecimal(A_BILLION), 9, RoundingMode.CEILING)
                 .doubleValue();
+
+        if (scanner == null) {
+            log.info(
+                    "%s Import: Imported %,d records without a store scan; took %.3f s, %,.2f %1$ss/s",
+                    label,
+                    nodesImported,
+                    tookInSeconds,
+                    (double) nodesImported / tookInSeconds
+            );
+            return build();
+        }
+
+        long requiredBytes = scanner.storeSize();
         long bytesPerSecond = A_BILLION.multiply(BigInteger.valueOf(requiredBytes)).divide(bigNanos).longValueExact();
 
         log.info(
@@ -93,10 +114,39 @@ abstract class ScanningRecordsImporter<Record extends AbstractBaseRecord, T> {
                 humanReadable(bytesPerSecond / numberOfThreads),
                 bytesPerSecond / numberOfThreads
         );
+        logStalls(log, scanner, readAhead);
 
         return build();
     }
 
+    private void logStalls(
+            Log log,
+            AbstractStorePageCacheScanner<Record> scanner,
+            AbstractStorePageCacheScanner<Record>.ReadAhead readAhead) {
+        String readAheadStats = readAhead == null
+                ? "no read ahead"
+                : String.format(
+                        "read ahead %,d pages with a page cache hit rate of %.1f%% and a window of up to %,d pages",
+                        readAhead.pagesRead(),
+                        readAhead.hitRate() * 100.0,
+                        readAhead.maxWindow());
+        log.info(
+                "%s Store Scan: Waited %.3f s for pages in total, at most %.3f s per scanner; %s",
+                label,
+                scanner.stallNanos() / 1e9,
+                scanner.maxStallNanos() / 1e9,
+                readAheadStats
+        );
+    }
+
+    /**
+     * Returns whether the records are imported by scanning the whole store.
+     * Otherwise, the scanner that is passed to {@link #creator} is null and the records are read by other means.
+     */
+    boolean scansStore() {
+        return true;
+    }
+
     abstract ImportingThreadPool.CreateScanner creator(
             long nodeCount,
             ImportSizing sizing,
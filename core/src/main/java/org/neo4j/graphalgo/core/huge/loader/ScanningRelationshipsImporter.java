@@ -28,6 +28,8 @@ import org.neo4j.kernel.internal.GraphDatabaseAPI;
 
 import java.util.concurrent.ExecutorService;
 
+import static org.neo4j.graphalgo.core.huge.loader.AbstractStorePageCacheScanner.DEFAULT_PREFETCH_SIZE;
+
 
 final class ScanningRelationshipsImporter extends ScanningRecordsImporter<RelationshipRecord, Void> {
 
@@ -35,10 +37,12 @@ final class ScanningRelationshipsImporter extends ScanningRecordsImporter<Relati
     private final ImportProgress progress;
     private final AllocationTracker tracker;
     private final HugeIdMapping idMap;
-    private final HugeWeightMapBuilder weights;
+    private final int[] relTypes;
+    private final HugeWeightMapBuilder[] weights;
     private final boolean loadDegrees;
-    private final HugeAdjacencyBuilder outAdjacency;
-    private final HugeAdjacencyBuilder inAdjacency;
+    private final HugeAdjacencyBuilder[] outAdjacency;
+    private final HugeAdjacencyBuilder[] inAdjacency;
+    private final boolean traverseRelationships;
 
     ScanningRelationshipsImporter(
             GraphSetup setup,
@@ -47,12 +51,14 @@ final class ScanningRelationshipsImporter extends ScanningRecordsImporter<Relati
             ImportProgress progress,
             AllocationTracker tracker,
             HugeIdMapping idMap,
-            HugeWeightMapBuilder weights,
+            int[] relTypes,
+            HugeWeightMapBuilder[] weights,
             boolean loadDegrees,
-            HugeAdjacencyBuilder outAdjacency,
-            HugeAdjacencyBuilder inAdjacency,
+            HugeAdjacencyBuilder[] outAdjacency,
+            HugeAdjacencyBuilder[] inAdjacency,
             ExecutorService threadPool,
-            int concurrency) {
+            int concurrency,
+            boolean traverseRelationships) {
         super(
                 RelationshipStoreScanner.RELATIONSHIP_ACCESS,
                 "Relationship",
@@ -64,10 +70,17 @@ final class ScanningRelationshipsImporter extends ScanningRecordsImporter<Relati
         this.progress = progress;
         this.tracker = tracker;
         this.idMap = idMap;
+        this.relTypes = relTypes;
         this.weights = weights;
         this.loadDegrees = loadDegrees;
         this.outAdjacency = outAdjacency;
         this.inAdjacency = inAdjacency;
+        this.traverseRelationships = traverseRelationships;
+    }
+
+    @Override
+    boolean scansStore() {
+        return !traverseRelationships;
     }
 
     @Override
@@ -79,23 +92,73 @@ final class ScanningRelationshipsImporter extends ScanningRecordsImporter<Relati
         int pageSize = sizing.pageSize();
         int numberOfPages = sizing.numberOfPages();
 
-        WeightBuilder weightBuilder = WeightBuilder.of(weights, numberOfPages, pageSize, nodeCount, tracker);
-        AdjacencyBuilder outBuilder = AdjacencyBuilder.compressing(outAdjacency, numberOfPages, pageSize, tracker);
-        AdjacencyBuilder inBuilder = AdjacencyBuilder.compressing(inAdjacency, numberOfPages, pageSize, tracker);
+        int types = relTypes.length;
+        WeightBuilder[] weightBuilders = new WeightBuilder[types];
+        AdjacencyBuilder[] outBuilders = new AdjacencyBuilder[types];
+        AdjacencyBuilder[] inBuilders = new AdjacencyBuilder[types];
+
+        for (int type = 0; type < types; type++) {
+            WeightBuilder weightBuilder = WeightBuilder.of(weights[type], numberOfPages, pageSize, nodeCount, tracker);
+            AdjacencyBuilder outBuilder = adjacencyBuilder(outAdjacency[type], numberOfPages, pageSize);
+            AdjacencyBuilder inBuilder = adjacencyBuilder(inAdjacency[type], numberOfPages, pageSize);
+
+            for (int idx = 0; idx < numberOfPages; idx++) {
+                weightBuilder.addWeightImporter(idx);
+                outBuilder.addAdjacencyImporter(tracker, loadDegrees, idx);
+                inBuilder.addAdjacencyImporter(tracker, loadDegrees, idx);
+            }
+
+            weightBuilder.finish();
+            outBuilder.finishPreparation();
+            inBuilder.finishPreparation();
 
-        for (int idx = 0; idx < numberOfPages; idx++) {
-            weightBuilder.addWeightImporter(idx);
-            outBuilder.addAdjacencyImporter(tracker, loadDegrees, idx);
-            inBuilder.addAdjacencyImporter(tracker, loadDegrees, idx);
+            weightBuilders[type] = weightBuilder;
+            outBuilders[type] = outBuilder;
+            inBuilders[type] = inBuilder;
         }
 
-        weightBuilder.finish();
-        outBuilder.finishPreparation();
-        inBuilder.finishPreparation();
+        if (loadDegrees) {
+            countDegrees(sizing, weightBuilders, outBuilders, inBuilders);
+        }
 
         return RelationshipsScanner.of(
-                api, setup, progress, idMap, scanner, dimensions.singleRelationshipTypeId(),
-                tracker, weightBuilder, outBuilder, inBuilder);
+                api, setup, progress, idMap, scanner, relTypes,
+                tracker, weightBuilders, outBuilders, inBuilders);
+    }
+
+    private AdjacencyBuilder adjacencyBuilder(HugeAdjacencyBuilder adjacency, int numberOfPages, int pageSize) {
+        return loadDegrees
+                ? AdjacencyBuilder.preallocating(adjacency, numberOfPages, pageSize, tracker)
+                : AdjacencyBuilder.compressing(adjacency, numberOfPages, pageSize, tracker);
+    }
+
+    /**
+     * Reads all relationships once before the actual import to count the degrees of all nodes.
+     */
+    private void countDegrees(
+            ImportSizing sizing,
+            WeightBuilder[] weightBuilders,
+            AdjacencyBuilder[] outBuilders,
+            AdjacencyBuilder[] inBuilders) {
+        AbstractStorePageCacheScanner<RelationshipRecord> scanner = traverseRelationships
+                ? null
+                : new AbstractStorePageCacheScanner<>(DEFAULT_PREFETCH_SIZE, api, RelationshipStoreScanner.RELATIONSHIP_ACCESS);
+        ImportingThreadPool.CreateScanner creator = RelationshipsScanner.countingDegrees(
+                api, setup, progress, idMap, scanner, relTypes,
+                tracker, weightBuilders, outBuilders, inBuilders);
+        AbstractStorePageCacheScanner<RelationshipRecord>.ReadAhead readAhead = scanner != null ? scanner.startReadAhead() : null;
+        ImportingThreadPool.ImportResult result;
+        try {
+            result = new ImportingThreadPool(sizing.numberOfThreads(), creator).run(threadPool);
+        } finally {
+            if (readAhead != null) {
+                readAhead.stop();
+            }
+        }
+        setup.log.info(
+                "Relationship Degree Scan: Counted %,d relationships; took %.3f s",
+                result.recordsImported,
+                result.tookNanos / 1e9);
     }
 
     @Override
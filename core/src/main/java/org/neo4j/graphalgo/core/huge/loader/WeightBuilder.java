@@ -41,6 +41,11 @@ abstract class WeightBuilder {
             long sourceNodeId,
             long targetNodeId);
 
+    /**
+     * Adds a weight that has already been read, for relationships that do not come from the store.
+     */
+    abstract void addWeight(long sourceNodeId, long targetNodeId, double weight);
+
     static WeightBuilder of(
             HugeWeightMapBuilder weights,
             int numPages,
@@ -126,6 +131,13 @@ abstract class WeightBuilder {
                     read
             );
         }
+
+        @Override
+        void addWeight(final long sourceNodeId, final long targetNodeId, final double weight) {
+            int pageIdx = (int) (sourceNodeId >>> pageShift);
+            int localId = (int) (sourceNodeId & pageMask);
+            builders[pageIdx].add(localId, targetNodeId, weight);
+        }
     }
 
     private static final class NoWeights extends WeightBuilder {
@@ -154,5 +166,9 @@ abstract class WeightBuilder {
                 final long sourceNodeId,
                 final long targetNodeId) {
         }
+
+        @Override
+        void addWeight(final long sourceNodeId, final long targetNodeId, final double weight) {
+        }
     }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.loading;
+
+import org.neo4j.graphalgo.core.huge.HugeGraphUpdates;
+import org.neo4j.graphalgo.core.huge.IncrementalHugeGraph;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+/**
+ * Applies the nodes and relationships that are created or deleted by committed transactions to an {@link IncrementalHugeGraph}.
+ * <p>
+ * The changes are collected before the commit, while the deleted relationships can still be read,
+ * and are applied once the transaction has been committed. Label changes of existing nodes and
+ * property changes are ignored.
+ * <p>
+ * Like the loader, the graph keeps a single relationship for parallel relationships. A deleted relationship
+ * is only passed on once no other relationship of the loaded type connects the same nodes anymore.
+ * <p>
+ * Changes of the same node or relationship are applied in commit order. Neo4j keeps the exclusive locks of
+ * deleted nodes and of both nodes of created or deleted relationships until the after commit callbacks
+ * have returned, so a later transaction that changes any of them waits until the earlier changes are applied.
+ * Creating a node takes no lock, but the new node may reuse the id of a node whose deletion has not been applied
+ * yet, so the updater locks created nodes itself. Changes of unrelated nodes and relationships may be applied
+ * in any order.
+ */
+public final class IncrementalGraphUpdater implements TransactionEventHandler<HugeGraphUpdates> {
+
+    private final GraphDatabaseAPI api;
+    private final IncrementalHugeGraph graph;
+    private final Label label;
+    private final RelationshipType relationshipType;
+    private final Direction parallelDirection;
+
+    private IncrementalGraphUpdater(
+            GraphDatabaseAPI api,
+            IncrementalHugeGraph graph,
+            String label,
+            String relationshipType) {
+        this.api = api;
+        this.graph = graph;
+        // relationships in both directions are the same relationship of an undirected graph
+        this.parallelDirection = graph.snapshot().isUndirected() ? Direction.BOTH : Direction.OUTGOING;
+        this.label = label == null || label.isEmpty() ? null : Label.label(label);
+        this.relationshipType = relationshipType == null || relationshipType.isEmpty()
+                ? null
+                : RelationshipType.withName(relationshipType);
+    }
+
+    /**
+     * Keeps the graph up to date with all transactions that are committed to the given database,
+     * until the graph is closed or released.
+     *
+     * @param label            the label of the nodes in the graph, {@code null} or empty for all nodes
+     * @param relationshipType the type of the relationships in the graph, {@code null} or empty for all relationships
+     */
+    public static void register(
+            GraphDatabaseAPI api,
+            IncrementalHugeGraph graph,
+            String label,
+            String relationshipType) {
+        IncrementalGraphUpdater updater = new IncrementalGraphUpdater(api, graph, label, relationshipType);
+        api.registerTransactionEventHandler(updater);
+        graph.onClose(() -> api.unregisterTransactionEventHandler(updater));
+    }
+
+    @Override
+    public HugeGraphUpdates beforeCommit(TransactionData data) {
+        HugeGraphUpdates updates = new HugeGraphUpdates();
+        try (Transaction tx = api.beginTx()) {
+            for (Node node : data.createdNodes()) {
+                if (label == null || node.hasLabel(label)) {
+                    // waits for a pending deletion of a node with the same id
+                    tx.acquireWriteLock(node);
+                    updates.createNode(node.getId());
+                }
+            }
+            tx.success();
+        }
+        for (Node node : data.deletedNodes()) {
+            updates.deleteNode(node.getId());
+        }
+        for (Relationship relationship : data.createdRelationships()) {
+            if (relationshipType == null || relationship.isType(relationshipType)) {
+                updates.createRelationship(relationship.getStartNodeId(), relationship.getEndNodeId());
+            }
+        }
+        for (Relationship relationship : data.deletedRelationships()) {
+            if ((relationshipType == null || relationship.isType(relationshipType))
+                    && !hasParallelRelationship(data, relationship)) {
+                updates.deleteRelationship(relationship.getStartNodeId(), relationship.getEndNodeId());
+            }
+        }
+        return updates.isEmpty() ? null : updates;
+    }
+
+    /**
+     * Returns true if another relationship of the loaded type connects the nodes of the deleted
+     * relationship after the transaction, in which case the graph keeps the relationship.
+     */
+    private boolean hasParallelRelationship(TransactionData data, Relationship deleted) {
+        Node source = deleted.getStartNode();
+        Node target = deleted.getEndNode();
+        if (data.isDeleted(source) || data.isDeleted(target)) {
+            return false;
+        }
+        Iterable<Relationship> relationships = relationshipType == null
+                ? source.getRelationships(parallelDirection)
+                : source.getRelationships(parallelDirection, relationshipType);
+        long sourceId = source.getId();
+        long targetId = target.getId();
+        for (Relationship relationship : relationships) {
+            if (relationship.getId() != deleted.getId() && relationship.getOtherNodeId(sourceId) == targetId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void afterCommit(TransactionData data, HugeGraphUpdates updates) {
+        if (updates != null) {
+            graph.apply(updates);
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionData data, HugeGraphUpdates updates) {
+    }
+}
@@ -21,13 +21,55 @@ package org.neo4j.graphalgo.core.loading;
 import org.neo4j.graphalgo.api.Graph;
 import org.neo4j.graphalgo.api.GraphFactory;
 import org.neo4j.graphalgo.api.GraphSetup;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.core.huge.HugeGraphImpl;
+import org.neo4j.graphalgo.core.huge.HugeMultiGraph;
+import org.neo4j.graphalgo.core.huge.IncrementalHugeGraph;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphSnapshot;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * The catalog of named graphs.
+ * <p>
+ * The catalog has a memory budget, which is unlimited by default. The budget is configured by the administrator
+ * with the system properties {@value #MAX_BYTES_PROPERTY} and {@value #SNAPSHOT_DIRECTORY_PROPERTY}, or from Java
+ * with {@link #setMemoryBudget(long, Path)}, but not by procedures. The size of a graph is taken from the
+ * {@link AllocationTracker} that has been used to load it. Graphs without a tracker, such as those that are
+ * added with {@link AllocationTracker#EMPTY} or heavy graphs, are neither accounted for nor ever evicted.
+ * <p>
+ * Whenever a new graph exceeds the budget, the least recently used graphs are evicted until the catalog fits again.
+ * If a snapshot directory is configured, evicted graphs are written into that directory and are restored from
+ * there on their next use, with the page backend they have been added with. Only huge graphs with a single
+ * relationship type can be written, other graphs are kept when a snapshot directory is configured and are only
+ * dropped without one. Snapshots are written and read outside of the catalog lock; a graph stays in the
+ * catalog until its snapshot is complete and stays there for good if the snapshot cannot be written.
+ * Evicted graphs are only dropped from the catalog and not released, algorithms that are still running on
+ * them can finish and the memory is reclaimed afterwards.
+ */
 public final class LoadGraphFactory extends GraphFactory {
 
-    private final static ConcurrentHashMap<String, Graph> graphs = new ConcurrentHashMap<>();
+    public static final String MAX_BYTES_PROPERTY = "neo4j.graphalgo.catalog.maxBytes";
+    public static final String SNAPSHOT_DIRECTORY_PROPERTY = "neo4j.graphalgo.catalog.snapshotDirectory";
+
+    private static final Map<String, Entry> graphs = new HashMap<>();
+    private static final Map<String, Snapshot> snapshots = new HashMap<>();
+    private static long maxBytes = defaultMaxBytes();
+    private static Path snapshotDirectory = defaultSnapshotDirectory();
+    private static long accessClock = 0L;
+    private static long evictions = 0L;
 
     public LoadGraphFactory(
             final GraphDatabaseAPI api,
@@ -35,43 +77,495 @@ public final class LoadGraphFactory extends GraphFactory {
         super(api, setup);
     }
 
+    /**
+     * Returns the named graph. If it has been loaded with multiple relationship types and
+     * the setup asks for one or more of these types, only a view on the requested types is returned.
+     * Graphs that are maintained incrementally return their latest version, which does not change
+     * while the algorithm is running.
+     */
     @Override
     public Graph build() {
-        return get(setup.name);
+        Graph graph = get(setup.name);
+        if (graph instanceof IncrementalHugeGraph) {
+            return ((IncrementalHugeGraph) graph).snapshot();
+        }
+        if (graph instanceof HugeMultiGraph) {
+            String[] types = setup.relationshipTypes();
+            if (types.length > 0) {
+                return ((HugeMultiGraph) graph).relationshipTypes(types);
+            }
+        }
+        return graph;
     }
 
     public static void set(String name, Graph graph) {
+        set(name, graph, AllocationTracker.EMPTY);
+    }
+
+    /**
+     * Adds a named graph, whose memory is tracked by the given tracker, and evicts
+     * the least recently used graphs if the catalog exceeds its memory budget.
+     * The graph is restored on the heap after it has been evicted.
+     */
+    public static void set(String name, Graph graph, AllocationTracker tracker) {
+        set(name, graph, tracker, PageBackend.HEAP);
+    }
+
+    /**
+     * Adds a named graph, whose memory is tracked by the given tracker, and evicts
+     * the least recently used graphs if the catalog exceeds its memory budget.
+     *
+     * @param backend the page backend the graph has been loaded with, which is used to restore it after an eviction
+     */
+    public static void set(String name, Graph graph, AllocationTracker tracker, PageBackend backend) {
         if (name == null || graph == null) {
             throw new IllegalArgumentException("Both name and graph must be not null");
         }
-        if (graphs.putIfAbsent(name, graph) != null) {
-            throw new IllegalStateException("Graph name " + name + " already loaded");
+        List<Eviction> evicted;
+        synchronized (LoadGraphFactory.class) {
+            if (graphs.containsKey(name)) {
+                throw new IllegalStateException("Graph name " + name + " already loaded");
+            }
+            deleteSnapshot(name);
+            graph.canRelease(false);
+            graphs.put(name, new Entry(graph, tracker, backend, ++accessClock));
+            evicted = evict(name);
         }
-        graph.canRelease(false);
+        writeSnapshots(evicted);
     }
 
     public static Graph get(String name) {
-        return name == null ? null : graphs.get(name);
+        if (name == null) return null;
+        Snapshot snapshot;
+        synchronized (LoadGraphFactory.class) {
+            Entry entry = graphs.get(name);
+            if (entry != null) {
+                return access(entry);
+            }
+            snapshot = snapshots.get(name);
+        }
+        return snapshot == null ? null : restore(name, snapshot);
     }
 
-    public static boolean check(String name) {
-        return name != null && graphs.containsKey(name);
+    private static Graph access(Entry entry) {
+        entry.hits++;
+        entry.lastAccess = System.currentTimeMillis();
+        entry.accessOrder = ++accessClock;
+        return entry.graph;
     }
 
-    public static boolean remove(String name) {
+    public static synchronized boolean check(String name) {
+        return name != null && (graphs.containsKey(name) || snapshots.containsKey(name));
+    }
+
+    public static synchronized boolean remove(String name) {
         if (name == null) return false;
-        Graph graph = graphs.remove(name);
-        if (graph != null) {
-            graph.canRelease(true);
-            graph.release();
+        boolean hadSnapshot = deleteSnapshot(name);
+        Entry entry = graphs.remove(name);
+        if (entry != null) {
+            if (entry.evicting) {
+                // the snapshot that is being written releases the graph once it is done
+                entry.removed = true;
+            } else {
+                entry.graph.canRelease(true);
+                entry.graph.release();
+            }
             return true;
         }
-        return false;
+        return hadSnapshot;
+    }
+
+    public static synchronized String getType(String name) {
+        if (name == null) return null;
+        Entry entry = graphs.get(name);
+        if (entry != null) {
+            return entry.graph.getType();
+        }
+        return snapshots.containsKey(name) ? HugeGraph.TYPE : null;
     }
 
-    public static String getType(String name) {
+    /**
+     * Returns usage statistics of a named graph without counting as an access,
+     * or {@code null} if there is no such graph.
+     */
+    public static synchronized Stats stats(String name) {
         if (name == null) return null;
-        Graph graph = graphs.get(name);
-        return graph == null ? null : graph.getType();
+        Entry entry = graphs.get(name);
+        if (entry != null) {
+            return new Stats(
+                    entry.graph.getType(),
+                    entry.graph.nodeCount(),
+                    entry.tracker.tracked(),
+                    entry.tracker.trackedOffHeap(),
+                    entry.loadedAt,
+                    entry.lastAccess,
+                    entry.hits,
+                    null);
+        }
+        Snapshot snapshot = snapshots.get(name);
+        if (snapshot != null) {
+            return new Stats(HugeGraph.TYPE, 0L, 0L, 0L, 0L, 0L, 0L, snapshot.file.toString());
+        }
+        return null;
+    }
+
+    /**
+     * Sets the memory budget of the catalog and evicts graphs right away if they do not fit anymore.
+     *
+     * @param maxBytes          the maximum number of heap bytes of all named graphs, a negative value disables the budget
+     * @param snapshotDirectory the directory into which evicted graphs are written, may be null to just drop them
+     */
+    public static void setMemoryBudget(long maxBytes, Path snapshotDirectory) {
+        List<Eviction> evicted;
+        synchronized (LoadGraphFactory.class) {
+            LoadGraphFactory.maxBytes = maxBytes < 0L ? Long.MAX_VALUE : maxBytes;
+            LoadGraphFactory.snapshotDirectory = snapshotDirectory;
+            evicted = evict(null);
+        }
+        writeSnapshots(evicted);
+    }
+
+    public static synchronized long maxBytes() {
+        return maxBytes;
+    }
+
+    public static synchronized Path snapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    /**
+     * Sets the directory into which evicted graphs are written and that {@link #resolveSnapshot(String)}
+     * resolves snapshot files against, {@code null} disables both.
+     */
+    public static synchronized void setSnapshotDirectory(Path snapshotDirectory) {
+        LoadGraphFactory.snapshotDirectory = snapshotDirectory;
+    }
+
+    /**
+     * Resolves the name of a snapshot file against the snapshot directory.
+     *
+     * @throws IllegalStateException    if no snapshot directory has been configured
+     * @throws IllegalArgumentException if the file is not within the snapshot directory
+     */
+    public static Path resolveSnapshot(String file) {
+        Path directory = snapshotDirectory();
+        if (directory == null) {
+            throw new IllegalStateException("Graph snapshots are disabled, the snapshot directory can be configured " +
+                    "with the system property " + SNAPSHOT_DIRECTORY_PROPERTY);
+        }
+        directory = directory.toAbsolutePath().normalize();
+        Path resolved = directory.resolve(file).normalize();
+        try {
+            if (resolved.startsWith(directory) && !resolved.equals(directory)) {
+                Path parent = resolved.getParent();
+                // symbolic links must not lead out of the directory either
+                if (!Files.exists(parent) || !Files.exists(directory) ||
+                        parent.toRealPath().startsWith(directory.toRealPath())) {
+                    return resolved;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        throw new IllegalArgumentException("Snapshot file " + file + " is not within the snapshot directory");
+    }
+
+    public static synchronized long usedBytes() {
+        long used = 0L;
+        for (Entry entry : graphs.values()) {
+            used += entry.tracker.tracked();
+        }
+        return used;
+    }
+
+    public static synchronized int size() {
+        return graphs.size();
+    }
+
+    public static synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * Drops the least recently used graphs until the catalog fits into its budget. With a snapshot directory,
+     * the graphs are only marked as evicting and stay in the catalog until {@link #writeSnapshots(List)}
+     * has written them, which must be called after the catalog lock has been released.
+     */
+    private static List<Eviction> evict(String keep) {
+        long used = 0L;
+        for (Entry entry : graphs.values()) {
+            if (!entry.evicting) {
+                used += entry.tracker.tracked();
+            }
+        }
+        List<Eviction> evicted = Collections.emptyList();
+        while (used > maxBytes) {
+            String victim = null;
+            Entry lru = null;
+            for (Map.Entry<String, Entry> candidate : graphs.entrySet()) {
+                Entry entry = candidate.getValue();
+                if (candidate.getKey().equals(keep) || !evictable(entry)) {
+                    continue;
+                }
+                if (lru == null || entry.accessOrder < lru.accessOrder) {
+                    victim = candidate.getKey();
+                    lru = entry;
+                }
+            }
+            if (lru == null) {
+                break;
+            }
+            used -= lru.tracker.tracked();
+            if (snapshotDirectory == null) {
+                graphs.remove(victim);
+                evictions++;
+                if (lru.graph instanceof IncrementalHugeGraph) {
+                    // evicted graphs are no longer maintained
+                    ((IncrementalHugeGraph) lru.graph).close();
+                }
+            } else {
+                lru.evicting = true;
+                if (evicted.isEmpty()) {
+                    evicted = new ArrayList<>();
+                }
+                evicted.add(new Eviction(victim, lru, snapshotDirectory));
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Graphs without tracked memory are never evicted. With a snapshot directory, only graphs
+     * that can be written into a snapshot are evicted, all others are kept rather than lost.
+     */
+    private static boolean evictable(Entry entry) {
+        if (entry.evicting || entry.tracker.tracked() == 0L) {
+            return false;
+        }
+        return snapshotDirectory == null || entry.graph instanceof HugeGraphImpl;
+    }
+
+    /**
+     * Writes the snapshots of evicted graphs without holding the catalog lock and only drops a graph from the
+     * catalog once its snapshot is complete. Graphs whose snapshot fails stay in the catalog.
+     *
+     * @throws UncheckedIOException if any of the snapshots could not be written
+     */
+    private static void writeSnapshots(List<Eviction> evicted) {
+        UncheckedIOException failure = null;
+        for (Eviction eviction : evicted) {
+            Entry entry = eviction.entry;
+            Path file = null;
+            IOException error = null;
+            try {
+                Files.createDirectories(eviction.directory);
+                file = Files.createTempFile(eviction.directory, "graph-", ".bin");
+                HugeGraphSnapshot.write((HugeGraph) ((HugeGraphImpl) entry.graph).concurrentCopy(), file);
+            } catch (IOException e) {
+                error = e;
+            }
+            boolean kept = false;
+            boolean release;
+            synchronized (LoadGraphFactory.class) {
+                entry.evicting = false;
+                release = entry.removed;
+                if (error == null && graphs.get(eviction.name) == entry) {
+                    graphs.remove(eviction.name);
+                    snapshots.put(eviction.name, new Snapshot(file, entry.backend));
+                    evictions++;
+                    kept = true;
+                }
+            }
+            if (release) {
+                entry.graph.canRelease(true);
+                entry.graph.release();
+            }
+            try {
+                if (!kept && file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+            if (error != null) {
+                if (failure == null) {
+                    failure = new UncheckedIOException("Could not evict graph " + eviction.name, error);
+                } else {
+                    failure.addSuppressed(error);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Reads an evicted graph back into the catalog. The file is read outside of the catalog lock, concurrent
+     * restores of the same graph wait for each other and only the first one reads it.
+     */
+    private static Graph restore(String name, Snapshot snapshot) {
+        List<Eviction> evicted;
+        Graph graph;
+        synchronized (snapshot) {
+            synchronized (LoadGraphFactory.class) {
+                Entry entry = graphs.get(name);
+                if (entry != null) {
+                    return access(entry);
+                }
+                if (snapshots.get(name) != snapshot) {
+                    return null;
+                }
+            }
+            AllocationTracker tracker = new AllocationTracker();
+            try {
+                graph = HugeGraphSnapshot.read(snapshot.file, snapshot.backend, tracker);
+            } catch (IOException e) {
+                synchronized (LoadGraphFactory.class) {
+                    if (snapshots.get(name) != snapshot) {
+                        // the graph has been removed while it was read
+                        return null;
+                    }
+                }
+                throw new UncheckedIOException(e);
+            }
+            synchronized (LoadGraphFactory.class) {
+                if (snapshots.get(name) != snapshot) {
+                    graph.release();
+                    return null;
+                }
+                snapshots.remove(name);
+                graph.canRelease(false);
+                Entry entry = new Entry(graph, tracker, snapshot.backend, ++accessClock);
+                graphs.put(name, entry);
+                access(entry);
+                evicted = evict(name);
+            }
+            try {
+                Files.deleteIfExists(snapshot.file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        writeSnapshots(evicted);
+        return graph;
+    }
+
+    private static boolean deleteSnapshot(String name) {
+        Snapshot snapshot = snapshots.remove(name);
+        if (snapshot == null) {
+            return false;
+        }
+        try {
+            Files.deleteIfExists(snapshot.file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    private static long defaultMaxBytes() {
+        try {
+            Long bytes = Long.getLong(MAX_BYTES_PROPERTY);
+            if (bytes != null && bytes >= 0L) {
+                return bytes;
+            }
+        } catch (SecurityException ignored) {
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private static Path defaultSnapshotDirectory() {
+        try {
+            String directory = System.getProperty(SNAPSHOT_DIRECTORY_PROPERTY);
+            if (directory != null && !directory.isEmpty()) {
+                return Paths.get(directory);
+            }
+        } catch (SecurityException ignored) {
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        private final Graph graph;
+        private final AllocationTracker tracker;
+        private final PageBackend backend;
+        private final long loadedAt;
+        private long lastAccess;
+        private long accessOrder;
+        private long hits;
+        // a snapshot of the graph is being written, it is dropped from the catalog afterwards
+        private boolean evicting;
+        // the graph has been removed while it was evicting and must be released once the snapshot is done
+        private boolean removed;
+
+        private Entry(Graph graph, AllocationTracker tracker, PageBackend backend, long accessOrder) {
+            this.graph = graph;
+            this.tracker = tracker;
+            this.backend = backend;
+            this.loadedAt = System.currentTimeMillis();
+            this.lastAccess = loadedAt;
+            this.accessOrder = accessOrder;
+        }
+    }
+
+    private static final class Snapshot {
+        private final Path file;
+        private final PageBackend backend;
+
+        private Snapshot(Path file, PageBackend backend) {
+            this.file = file;
+            this.backend = backend;
+        }
+    }
+
+    private static final class Eviction {
+        private final String name;
+        private final Entry entry;
+        private final Path directory;
+
+        private Eviction(String name, Entry entry, Path directory) {
+            this.name = name;
+            this.entry = entry;
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * Usage statistics of a named graph. A graph that has been evicted into a snapshot
+     * only has its type and the snapshot file.
+     */
+    public static final class Stats {
+        public final String type;
+        public final long nodes;
+        public final long bytes;
+        public final long offHeapBytes;
+        public final long loadedAt;
+        public final long lastAccess;
+        public final long hits;
+        public final String snapshot;
+
+        Stats(
+                String type,
+                long nodes,
+                long bytes,
+                long offHeapBytes,
+                long loadedAt,
+                long lastAccess,
+                long hits,
+                String snapshot) {
+            this.type = type;
+            this.nodes = nodes;
+            this.bytes = bytes;
+            this.offHeapBytes = offHeapBytes;
+            this.loadedAt = loadedAt;
+            this.lastAccess = lastAccess;
+            this.hits = hits;
+            this.snapshot = snapshot;
+        }
     }
 }
@@ -75,6 +75,35 @@ public class AtomicDoubleArray {
         } while (!data.compareAndSet(index, currentBits, newBits));
     }
 
+    /**
+     * add argument to value at index and return the value before the addition.
+     *
+     * @param index index
+     * @param value value to add
+     * @return the previous value at index
+     */
+    public double getAndAdd(int index, double value) {
+        long newBits, currentBits;
+        double current;
+        do {
+            currentBits = data.get(index);
+            current = Double.longBitsToDouble(currentBits);
+            newBits = Double.doubleToLongBits(current + value);
+        } while (!data.compareAndSet(index, currentBits, newBits));
+        return current;
+    }
+
+    /**
+     * Sets the element at position i to the given value and returns the old value.
+     *
+     * @param index the index
+     * @param value the value
+     * @return the previous value at index
+     */
+    public double getAndSet(int index, double value) {
+        return Double.longBitsToDouble(data.getAndSet(index, Double.doubleToLongBits(value)));
+    }
+
     /**
      * return capacity
      *
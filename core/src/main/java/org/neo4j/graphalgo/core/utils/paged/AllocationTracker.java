@@ -36,6 +36,19 @@ public class AllocationTracker implements Supplier<String> {
             return 0L;
         }
 
+        @Override
+        public void addOffHeap(long delta) {
+        }
+
+        @Override
+        public void removeOffHeap(long delta) {
+        }
+
+        @Override
+        public long trackedOffHeap() {
+            return 0L;
+        }
+
         @Override
         public String get() {
             return "";
@@ -55,6 +68,7 @@ public class AllocationTracker implements Supplier<String> {
     private static final String[] UNITS = new String[]{" Bytes", " KiB", " MiB", " GiB", " TiB", " PiB", " EiB", " ZiB", " YiB"};
 
     private final AtomicLong count = new AtomicLong();
+    private final AtomicLong offHeapCount = new AtomicLong();
 
     public void add(long delta) {
         count.addAndGet(delta);
@@ -68,12 +82,35 @@ public class AllocationTracker implements Supplier<String> {
         return count.get();
     }
 
+    /**
+     * Tracks memory that is allocated outside of the Java heap,
+     * e.g. direct buffers or memory mapped files.
+     */
+    public void addOffHeap(long delta) {
+        offHeapCount.addAndGet(delta);
+    }
+
+    public void removeOffHeap(long delta) {
+        offHeapCount.addAndGet(-delta);
+    }
+
+    public long trackedOffHeap() {
+        return offHeapCount.get();
+    }
+
     public String getUsageString() {
-        return humanReadable(tracked());
+        return usageString(tracked(), trackedOffHeap());
     }
 
     public String getUsageString(String label) {
-        return label + humanReadable(tracked());
+        return label + usageString(tracked(), trackedOffHeap());
+    }
+
+    private static String usageString(long heap, long offHeap) {
+        if (offHeap == 0L) {
+            return humanReadable(heap);
+        }
+        return humanReadable(heap) + " (off-heap: " + humanReadable(offHeap) + ")";
     }
 
     @Override
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.utils.paged;
+
+import org.neo4j.graphalgo.core.write.PropertyTranslator;
+
+import java.util.Arrays;
+
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.shallowSizeOfInstance;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfDoubleArray;
+import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfObjectArray;
+
+/**
+ * A long-indexable version of a primitive double array ({@code double[]}) that can contain more than 2 bn. elements.
+ * <p>
+ * It is implemented by paging of smaller double-arrays ({@code double[][]}) to support approx. 32k bn. elements.
+ * If the the provided size is small enough, an optimized view of a single {@code double[]} might be used.
+ * <p>
+ * <ul>
+ * <li>The array is of a fixed size and cannot grow or shrink dynamically.</li>
+ * <li>The array is not optimized for sparseness and has a large memory overhead if the values written to it are very sparse.</li>
+ * <li>The array does not support default values and returns the same default for unset values that a regular {@code double[]} does ({@code 0.0}).</li>
+ * </ul>
+ * <p>
+ * <h3>Basic Usage</h3>
+ * <pre>
+ * {@code}
+ * AllocationTracker tracker = ...;
+ * long arraySize = 42L;
+ * HugeDoubleArray array = HugeDoubleArray.newArray(arraySize, tracker);
+ * array.set(13L, 37.0);
+ * double value = array.get(13L);
+ * // value = 37.0
+ * {@code}
+ * </pre>
+ *
+ * @see HugeLongArray
+ */
+public abstract class HugeDoubleArray {
+
+    /**
+     * @return the double value at the given index
+     * @throws ArrayIndexOutOfBoundsException if the index is not within {@link #size()}
+     */
+    abstract public double get(long index);
+
+    /**
+     * Sets the double value at the given index to the given value.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the index is not within {@link #size()}
+     */
+    abstract public void set(long index, double value);
+
+    /**
+     * Adds ({@code +}) the existing value and the provided value at the given index and stored the result into the given index.
+     * If there was no previous value, the final result is set to the provided value ({@code x + 0.0 == x}).
+     *
+     * @throws ArrayIndexOutOfBoundsException if the index is not within {@link #size()}
+     */
+    abstract public void addTo(long index, double value);
+
+    /**
+     * Assigns the specified double value to each element.
+     * <p>
+     * The behavior is identical to {@link Arrays#fill(double[], double)}.
+     */
+    abstract public void fill(double value);
+
+    /**
+     * Returns the length of this array.
+     * <p>
+     * If the size is greater than zero, the highest supported index is {@code size() - 1}
+     * <p>
+     * The behavior is identical to calling {@code array.length} on primitive arrays.
+     */
+    abstract public long size();
+
+    /**
+     * Destroys the data, allowing the underlying storage arrays to be collected as garbage.
+     * The array is unusable after calling this method and will throw {@link NullPointerException}s on virtually every method invocation.
+     * <p>
+     * The amount is not removed from the {@link AllocationTracker} that had been provided in the {@link #newArray(long, AllocationTracker) Constructor}.
+     *
+     * @return the amount of memory freed, in bytes.
+     */
+    abstract public long release();
+
+    /**
+     * Creates a new array if the given size, tracking the memory requirements into the given {@link AllocationTracker}.
+     * The tracker is no longer referenced, as the arrays do not dynamically change their size.
+     */
+    public static HugeDoubleArray newArray(long size, AllocationTracker tracker) {
+        if (size <= SingleHugeDoubleArray.PAGE_SIZE) {
+            try {
+                return SingleHugeDoubleArray.of(size, tracker);
+            } catch (OutOfMemoryError ignored) {
+                // OOM is very likely because we just tried to create a single array that is too large
+                // in which case we're just going the paged way. If the OOM had any other reason, we're
+                // probably triggering it again in the construction of the paged array, where it will be thrown.
+            }
+        }
+        return PagedHugeDoubleArray.of(size, tracker);
+    }
+
+    /**
+     * Returns the number of bytes that an array of the given size will occupy, as created by {@link #newArray(long, AllocationTracker)}.
+     */
+    public static long estimateMemoryUsage(long size) {
+        if (size <= SingleHugeDoubleArray.PAGE_SIZE) {
+            return shallowSizeOfInstance(HugeDoubleArray.class) + sizeOfDoubleArray((int) size);
+        }
+        return shallowSizeOfInstance(HugeDoubleArray.class) + PagedHugeDoubleArray.memoryUsageOf(size);
+    }
+
+    /* test-only */
+    static HugeDoubleArray newPagedArray(long size, AllocationTracker tracker) {
+        return PagedHugeDoubleArray.of(size, tracker);
+    }
+
+    /* test-only */
+    static HugeDoubleArray newSingleArray(int size, AllocationTracker tracker) {
+        return SingleHugeDoubleArray.of(size, tracker);
+    }
+
+    /**
+     * A {@link PropertyTranslator} for instances of {@link HugeDoubleArray}s.
+     */
+    public static class Translator implements PropertyTranslator.OfDouble<HugeDoubleArray> {
+
+        public static final Translator INSTANCE = new Translator();
+
+        @Override
+        public double toDouble(final HugeDoubleArray data, final long nodeId) {
+            return data.get(nodeId);
+        }
+    }
+
+    private static final class SingleHugeDoubleArray extends HugeDoubleArray {
+
+        private static final int PAGE_SHIFT = 30;
+        private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+        private static HugeDoubleArray of(long size, AllocationTracker tracker) {
+            assert size <= PAGE_SIZE;
+            final int intSize = (int) size;
+            double[] page = new double[intSize];
+
+            tracker.add(shallowSizeOfInstance(HugeDoubleArray.class));
+            tracker.add(sizeOfDoubleArray(intSize));
+
+            return new SingleHugeDoubleArray(intSize, page);
+        }
+
+        private final int size;
+        private double[] page;
+
+        private SingleHugeDoubleArray(int size, double[] page) {
+            this.size = size;
+            this.page = page;
+        }
+
+        @Override
+        public double get(long index) {
+            assert index < size;
+            return page[(int) index];
+        }
+
+        @Override
+        public void set(long index, double value) {
+            assert index < size;
+            page[(int) index] = value;
+        }
+
+        @Override
+        public void addTo(long index, double value) {
+            assert index < size;
+            page[(int) index] += value;
+        }
+
+        @Override
+        public void fill(double value) {
+            Arrays.fill(page, value);
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public long release() {
+            if (page != null) {
+                page = null;
+                return sizeOfDoubleArray(size);
+            }
+            return 0L;
+        }
+    }
+
+    private static final class PagedHugeDoubleArray extends HugeDoubleArray {
+
+        private static final int PAGE_SHIFT = 14;
+        private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+        private static final long PAGE_MASK = (long) (PAGE_SIZE - 1);
+
+        private static long memoryUsageOf(long size) {
+            int numPages = PageUtil.numPagesFor(size, PAGE_SHIFT, PAGE_MASK);
+            int lastPageSize = exclusiveIndexOfPage(size);
+            return sizeOfObjectArray(numPages)
+                    + (numPages - 1) * sizeOfDoubleArray(PAGE_SIZE)
+                    + sizeOfDoubleArray(lastPageSize);
+        }
+
+        private static HugeDoubleArray of(long size, AllocationTracker tracker) {
+            int numPages = PageUtil.numPagesFor(size, PAGE_SHIFT, PAGE_MASK);
+            double[][] pages = new double[numPages][];
+
+            long memoryUsed = sizeOfObjectArray(numPages);
+            final long pageBytes = sizeOfDoubleArray(PAGE_SIZE);
+            for (int i = 0; i < numPages - 1; i++) {
+                memoryUsed += pageBytes;
+                pages[i] = new double[PAGE_SIZE];
+            }
+            final int lastPageSize = exclusiveIndexOfPage(size);
+            pages[numPages - 1] = new double[lastPageSize];
+            memoryUsed += sizeOfDoubleArray(lastPageSize);
+
+            tracker.add(shallowSizeOfInstance(HugeDoubleArray.class));
+            tracker.add(memoryUsed);
+
+            return new PagedHugeDoubleArray(size, pages, memoryUsed);
+        }
+
+        private final long size;
+        private double[][] pages;
+        private final long memoryUsed;
+
+        private PagedHugeDoubleArray(long size, double[][] pages, long memoryUsed) {
+            this.size = size;
+            this.pages = pages;
+            this.memoryUsed = memoryUsed;
+        }
+
+        @Override
+        public double get(long index) {
+            assert index < size;
+            final int pageIndex = pageIndex(index);
+            final int indexInPage = indexInPage(index);
+            return pages[pageIndex][indexInPage];
+        }
+
+        @Override
+        public void set(long index, double value) {
+            assert index < size;
+            final int pageIndex = pageIndex(index);
+            final int indexInPage = indexInPage(index);
+            pages[pageIndex][indexInPage] = value;
+        }
+
+        @Override
+        public void addTo(long index, double value) {
+            assert index < size;
+            final int pageIndex = pageIndex(index);
+            final int indexInPage = indexInPage(index);
+            pages[pageIndex][indexInPage] += value;
+        }
+
+        @Override
+        public void fill(double value) {
+            for (double[] page : pages) {
+                Arrays.fill(page, value);
+            }
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public long release() {
+            if (pages != null) {
+                pages = null;
+                return memoryUsed;
+            }
+            return 0L;
+        }
+
+        private static int pageIndex(long index) {
+            return (int) (index >>> PAGE_SHIFT);
+        }
+
+        private static int indexInPage(long index) {
+            return (int) (index & PAGE_MASK);
+        }
+
+        private static int exclusiveIndexOfPage(long index) {
+            return 1 + (int) ((index - 1L) & PAGE_MASK);
+        }
+    }
+}
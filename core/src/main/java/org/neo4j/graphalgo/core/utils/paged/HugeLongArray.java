@@ -56,6 +56,11 @@ import static org.neo4j.graphalgo.core.utils.paged.MemoryUsage.sizeOfObjectArray
  */
 public abstract class HugeLongArray {
 
+    /**
+     * The page size of arrays that are created with {@link #of(long, long[][], AllocationTracker)}, as a power of two.
+     */
+    public static final int PAGE_SHIFT = 14;
+
     /**
      * @return the long value at the given index
      * @throws ArrayIndexOutOfBoundsException if the index is not within {@link #size()}
@@ -181,6 +186,25 @@ public abstract class HugeLongArray {
         return PagedHugeLongArray.of(size, tracker);
     }
 
+    /**
+     * Creates an array of the given size that is backed by the given pages, without copying them.
+     * Every page must hold {@code 1 << PAGE_SHIFT} values, except for the last one, which holds the remaining values.
+     * The memory of the pages is tracked into the given {@link AllocationTracker}.
+     */
+    public static HugeLongArray of(long size, long[][] pages, AllocationTracker tracker) {
+        return PagedHugeLongArray.wrap(size, pages, tracker);
+    }
+
+    /**
+     * Returns the number of bytes that an array of the given size will occupy, as created by {@link #newArray(long, AllocationTracker)}.
+     */
+    public static long estimateMemoryUsage(long size) {
+        if (size <= SingleHugeLongArray.PAGE_SIZE) {
+            return shallowSizeOfInstance(HugeLongArray.class) + sizeOfLongArray((int) size);
+        }
+        return shallowSizeOfInstance(HugeLongArray.class) + PagedHugeLongArray.memoryUsageOf(size);
+    }
+
     /* test-only */
     static HugeLongArray newPagedArray(long size, AllocationTracker tracker) {
         return PagedHugeLongArray.of(size, tracker);
@@ -421,10 +445,18 @@ public abstract class HugeLongArray {
 
     private static final class PagedHugeLongArray extends HugeLongArray {
 
-        private static final int PAGE_SHIFT = 14;
+        private static final int PAGE_SHIFT = HugeLongArray.PAGE_SHIFT;
         private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
         private static final long PAGE_MASK = (long) (PAGE_SIZE - 1);
 
+        private static long memoryUsageOf(long size) {
+            int numPages = PageUtil.numPagesFor(size, PAGE_SHIFT, PAGE_MASK);
+            int lastPageSize = exclusiveIndexOfPage(size);
+            return sizeOfObjectArray(numPages)
+                    + (numPages - 1) * sizeOfLongArray(PAGE_SIZE)
+                    + sizeOfLongArray(lastPageSize);
+        }
+
         private static HugeLongArray of(long size, AllocationTracker tracker) {
             int numPages = PageUtil.numPagesFor(size, PAGE_SHIFT, PAGE_MASK);
             long[][] pages = new long[numPages][];
@@ -445,6 +477,15 @@ public abstract class HugeLongArray {
             return new PagedHugeLongArray(size, pages, memoryUsed);
         }
 
+        private static HugeLongArray wrap(long size, long[][] pages, AllocationTracker tracker) {
+            assert pages.length == PageUtil.numPagesFor(size, PAGE_SHIFT, PAGE_MASK);
+            assert pages[pages.length - 1].length == exclusiveIndexOfPage(size);
+            long memoryUsed = memoryUsageOf(size);
+            tracker.add(shallowSizeOfInstance(HugeLongArray.class));
+            tracker.add(memoryUsed);
+            return new PagedHugeLongArray(size, pages, memoryUsed);
+        }
+
         private final long size;
         private long[][] pages;
         private final long memoryUsed;
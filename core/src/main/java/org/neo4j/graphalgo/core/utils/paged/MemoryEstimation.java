@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.utils.paged;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A named tree of {@link MemoryRange memory ranges}.
+ * <p>
+ * Inner nodes sum up their components, leafs describe a single data structure.
+ * Memory that is allocated outside of the Java heap (see {@link PageBackend}) is tracked separately
+ * and is not counted towards the {@link #heap() heap usage}.
+ */
+public final class MemoryEstimation {
+
+    private final String description;
+    private final MemoryRange heap;
+    private final MemoryRange offHeap;
+    private final List<MemoryEstimation> components;
+
+    private MemoryEstimation(
+            String description,
+            MemoryRange heap,
+            MemoryRange offHeap,
+            List<MemoryEstimation> components) {
+        this.description = description;
+        this.heap = heap;
+        this.offHeap = offHeap;
+        this.components = components;
+    }
+
+    public static MemoryEstimation of(String description, MemoryRange heap) {
+        return new MemoryEstimation(description, heap, MemoryRange.empty(), Collections.emptyList());
+    }
+
+    public static MemoryEstimation of(String description, MemoryRange heap, MemoryRange offHeap) {
+        return new MemoryEstimation(description, heap, offHeap, Collections.emptyList());
+    }
+
+    public static Builder builder(String description) {
+        return new Builder(description);
+    }
+
+    public String description() {
+        return description;
+    }
+
+    /**
+     * Returns the amount of memory that will be allocated on the Java heap.
+     */
+    public MemoryRange heap() {
+        return heap;
+    }
+
+    /**
+     * Returns the amount of memory that will be allocated outside of the Java heap.
+     */
+    public MemoryRange offHeap() {
+        return offHeap;
+    }
+
+    public List<MemoryEstimation> components() {
+        return components;
+    }
+
+    /**
+     * Renders the estimation as an indented tree, one component per line.
+     */
+    public String render() {
+        StringBuilder sb = new StringBuilder();
+        render(sb, 0);
+        return sb.toString();
+    }
+
+    private void render(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth; i++) {
+            sb.append("    ");
+        }
+        sb.append(description).append(": ").append(heap);
+        if (!offHeap.isEmpty()) {
+            sb.append(" (off-heap: ").append(offHeap).append(')');
+        }
+        sb.append(System.lineSeparator());
+        for (MemoryEstimation component : components) {
+            component.render(sb, depth + 1);
+        }
+    }
+
+    /**
+     * Renders the estimation as nested maps that can be returned from a procedure.
+     */
+    public Map<String, Object> renderMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("name", description);
+        map.put("memoryUsage", heap.toString());
+        if (!offHeap.isEmpty()) {
+            map.put("offHeapUsage", offHeap.toString());
+        }
+        if (!components.isEmpty()) {
+            List<Map<String, Object>> children = new ArrayList<>(components.size());
+            for (MemoryEstimation component : components) {
+                children.add(component.renderMap());
+            }
+            map.put("components", children);
+        }
+        return map;
+    }
+
+    @Override
+    public String toString() {
+        return render();
+    }
+
+    public static final class Builder {
+        private final String description;
+        private final List<MemoryEstimation> components = new ArrayList<>();
+
+        private Builder(String description) {
+            this.description = description;
+        }
+
+        public Builder add(MemoryEstimation component) {
+            components.add(component);
+            return this;
+        }
+
+        public Builder add(String description, MemoryRange heap) {
+            return add(MemoryEstimation.of(description, heap));
+        }
+
+        public Builder add(String description, MemoryRange heap, MemoryRange offHeap) {
+            return add(MemoryEstimation.of(description, heap, offHeap));
+        }
+
+        public MemoryEstimation build() {
+            MemoryRange heap = MemoryRange.empty();
+            MemoryRange offHeap = MemoryRange.empty();
+            for (MemoryEstimation component : components) {
+                heap = heap.add(component.heap);
+                offHeap = offHeap.add(component.offHeap);
+            }
+            return new MemoryEstimation(
+                    description,
+                    heap,
+                    offHeap,
+                    Collections.unmodifiableList(new ArrayList<>(components)));
+        }
+    }
+}
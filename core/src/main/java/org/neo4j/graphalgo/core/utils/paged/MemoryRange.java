@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.utils.paged;
+
+import static org.neo4j.graphalgo.core.utils.paged.AllocationTracker.humanReadable;
+
+/**
+ * An inclusive range of bytes that a data structure is expected to occupy.
+ * <p>
+ * The lower bound is what the structure needs in the best case, e.g. when every node has the smallest possible encoding,
+ * the upper bound is the worst case, e.g. when all pages of a sparse structure are allocated.
+ */
+public final class MemoryRange {
+
+    private static final MemoryRange EMPTY = new MemoryRange(0L, 0L);
+
+    public static MemoryRange of(long value) {
+        return of(value, value);
+    }
+
+    public static MemoryRange of(long min, long max) {
+        if (min < 0L || max < min) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid memory range [%d, %d]",
+                    min,
+                    max));
+        }
+        if (max == 0L) {
+            return EMPTY;
+        }
+        return new MemoryRange(min, max);
+    }
+
+    public static MemoryRange empty() {
+        return EMPTY;
+    }
+
+    private final long min;
+    private final long max;
+
+    private MemoryRange(long min, long max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    public long min() {
+        return min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public boolean isEmpty() {
+        return max == 0L;
+    }
+
+    public MemoryRange add(MemoryRange other) {
+        return of(min + other.min, max + other.max);
+    }
+
+    public MemoryRange add(long value) {
+        return of(min + value, max + value);
+    }
+
+    public MemoryRange times(long count) {
+        return of(min * count, max * count);
+    }
+
+    /**
+     * Returns a range that covers {@code min} times this range as lower bound and {@code max} times as upper bound.
+     */
+    public MemoryRange times(long min, long max) {
+        return of(this.min * min, this.max * max);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MemoryRange that = (MemoryRange) o;
+        return min == that.min && max == that.max;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(min) + Long.hashCode(max);
+    }
+
+    @Override
+    public String toString() {
+        if (min == max) {
+            return humanReadable(min);
+        }
+        return "[" + humanReadable(min) + " ... " + humanReadable(max) + "]";
+    }
+}
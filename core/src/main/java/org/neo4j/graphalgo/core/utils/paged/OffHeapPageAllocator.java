@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.utils.paged;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Allocates little-endian {@link ByteBuffer}s for the non-heap {@link PageBackend}s.
+ * All allocated memory is tracked as off-heap memory in the {@link AllocationTracker}.
+ * Allocators are not thread-safe and should be {@link #close() closed} once all pages have been allocated.
+ */
+public abstract class OffHeapPageAllocator implements AutoCloseable {
+
+    final AllocationTracker tracker;
+
+    private OffHeapPageAllocator(AllocationTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    public static OffHeapPageAllocator of(PageBackend backend, AllocationTracker tracker) {
+        switch (backend) {
+            case OFF_HEAP:
+                return new DirectAllocator(tracker);
+            case MAPPED:
+                return new MappedAllocator(tracker);
+            default:
+                throw new IllegalArgumentException("Backend " + backend + " does not allocate off-heap pages");
+        }
+    }
+
+    /**
+     * Allocates a zeroed, little-endian buffer with a capacity of exactly {@code bytes}.
+     */
+    public abstract ByteBuffer allocate(int bytes);
+
+    @Override
+    public void close() {
+    }
+
+    private static final class DirectAllocator extends OffHeapPageAllocator {
+
+        private DirectAllocator(AllocationTracker tracker) {
+            super(tracker);
+        }
+
+        @Override
+        public ByteBuffer allocate(int bytes) {
+            tracker.addOffHeap(bytes);
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private static final class MappedAllocator extends OffHeapPageAllocator {
+
+        private static final int CHUNK_SIZE = 1 << 26;
+
+        private final File file;
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+
+        private long fileSize;
+        private MappedByteBuffer chunk;
+
+        private MappedAllocator(AllocationTracker tracker) {
+            super(tracker);
+            try {
+                file = File.createTempFile("graph-algorithms-", ".pages");
+                raf = new RandomAccessFile(file, "rw");
+                channel = raf.getChannel();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // the mapping stays valid after the file has been unlinked
+            if (!file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+
+        @Override
+        public ByteBuffer allocate(int bytes) {
+            if (chunk == null || chunk.remaining() < bytes) {
+                mapChunk(Math.max(CHUNK_SIZE, bytes));
+            }
+            int position = chunk.position();
+            chunk.limit(position + bytes);
+            ByteBuffer page = chunk.slice().order(ByteOrder.LITTLE_ENDIAN);
+            chunk.limit(chunk.capacity());
+            chunk.position(position + bytes);
+            tracker.addOffHeap(bytes);
+            return page;
+        }
+
+        private void mapChunk(int size) {
+            try {
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, fileSize, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            fileSize += size;
+        }
+
+        @Override
+        public void close() {
+            chunk = null;
+            try {
+                raf.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
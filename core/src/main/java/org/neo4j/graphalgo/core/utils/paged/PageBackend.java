@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.utils.paged;
+
+/**
+ * Selects where the pages of the huge graph adjacency lists and offsets are stored.
+ */
+public enum PageBackend {
+    /**
+     * Plain {@code byte[]} and {@code long[]} pages on the Java heap.
+     */
+    HEAP,
+    /**
+     * Direct {@link java.nio.ByteBuffer}s outside of the Java heap.
+     */
+    OFF_HEAP,
+    /**
+     * Memory mapped pages of a temporary file, the operating system is free to page them out.
+     */
+    MAPPED;
+
+    public static PageBackend parse(String backend) {
+        return backend == null ? HEAP : valueOf(backend.toUpperCase().replace('-', '_'));
+    }
+}
@@ -68,4 +68,18 @@ public final class PagedAtomicDoubleArray extends PagedDataStructure<AtomicDoubl
         final int indexInPage = indexInPage(index);
         pages[pageIndex].add(indexInPage, delta);
     }
+
+    public double getAndAdd(long index, double delta) {
+        assert index < capacity();
+        final int pageIndex = pageIndex(index);
+        final int indexInPage = indexInPage(index);
+        return pages[pageIndex].getAndAdd(indexInPage, delta);
+    }
+
+    public double getAndSet(long index, double value) {
+        assert index < capacity();
+        final int pageIndex = pageIndex(index);
+        final int indexInPage = indexInPage(index);
+        return pages[pageIndex].getAndSet(indexInPage, value);
+    }
 }
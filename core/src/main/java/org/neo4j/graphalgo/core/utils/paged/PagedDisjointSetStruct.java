@@ -33,6 +33,11 @@ public final class PagedDisjointSetStruct {
     private final HugeLongArray depth;
     private final long capacity;
 
+    public static long estimateMemoryUsage(long capacity) {
+        return MemoryUsage.shallowSizeOfInstance(PagedDisjointSetStruct.class)
+                + 2L * HugeLongArray.estimateMemoryUsage(capacity);
+    }
+
     public PagedDisjointSetStruct(long capacity, AllocationTracker tracker) {
         parent = HugeLongArray.newArray(capacity, tracker);
         depth = HugeLongArray.newArray(capacity, tracker);
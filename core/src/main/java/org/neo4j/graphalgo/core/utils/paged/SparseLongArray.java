@@ -33,6 +33,21 @@ public final class SparseLongArray {
     private final long[][] pages;
     private final AllocationTracker tracker;
 
+    /**
+     * Returns the range of bytes that an array of the given size will occupy once {@code elements} entries are set.
+     * The lower bound assumes that the entries are dense and share as few pages as possible,
+     * the upper bound assumes that every entry lives on its own page.
+     */
+    public static MemoryRange estimateMemoryUsage(long size, long elements) {
+        int numPages = PageUtil.numPagesFor(size, PAGE_SHIFT, (int) PAGE_MASK);
+        long fixed = MemoryUsage.shallowSizeOfInstance(SparseLongArray.class) + MemoryUsage.sizeOfObjectArray(numPages);
+        long minPages = (elements + PAGE_MASK) >>> PAGE_SHIFT;
+        long maxPages = Math.min(numPages, elements);
+        return MemoryRange.of(
+                fixed + minPages * PAGE_SIZE_IN_BYTES,
+                fixed + maxPages * PAGE_SIZE_IN_BYTES);
+    }
+
     public static SparseLongArray newArray(
             long size,
             AllocationTracker tracker) {
@@ -18,6 +18,7 @@
  */
 package org.neo4j.graphalgo.core.write;
 
+import com.carrotsearch.hppc.sorting.IndirectSort;
 import org.neo4j.graphalgo.api.Graph;
 import org.neo4j.graphalgo.api.HugeGraph;
 import org.neo4j.graphalgo.api.HugeIdMapping;
@@ -29,17 +30,27 @@ import org.neo4j.graphalgo.core.utils.ProgressLogger;
 import org.neo4j.graphalgo.core.utils.ProgressLoggerAdapter;
 import org.neo4j.graphalgo.core.utils.StatementApi;
 import org.neo4j.graphalgo.core.utils.TerminationFlag;
+import org.neo4j.helpers.Exceptions;
+import org.neo4j.helpers.NamedThreadFactory;
 import org.neo4j.internal.kernel.api.Write;
 import org.neo4j.internal.kernel.api.exceptions.KernelException;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
 import org.neo4j.logging.Log;
 import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.IntFunction;
 import java.util.function.LongUnaryOperator;
 
@@ -47,6 +58,8 @@ public final class Exporter extends StatementApi {
 
     private static final long MIN_BATCH_SIZE = 10_000L;
     private static final long MAX_BATCH_SIZE = 100_000L;
+    private static final int PIPELINE_BATCH_SIZE = (int) MIN_BATCH_SIZE;
+    private static final ThreadFactory PIPELINE_THREADS = NamedThreadFactory.daemon("algo-export");
     public static final String TASK_EXPORT = "EXPORT";
 
     private final TerminationFlag terminationFlag;
@@ -223,6 +236,21 @@ public final class Exporter extends StatementApi {
         acceptInTransaction(stmt -> writer.accept(stmt.dataWrite(), relationshipId, propertyId));
     }
 
+    /**
+     * Starts writing a node property while it is still being computed.
+     * The returned pipeline must be marked as {@link Pipeline#success() successful} once the computation is done
+     * and closed afterwards, which waits for all writes to finish.
+     *
+     * @see Pipeline
+     */
+    public Pipeline pipeline(String property) {
+        final int propertyId = getOrCreatePropertyId(property);
+        if (propertyId == -1) {
+            throw new IllegalStateException("no write property id is set");
+        }
+        return new Pipeline(propertyId, concurrency);
+    }
+
     private <T> void writeSequential(
             int propertyId,
             T data,
@@ -353,6 +381,254 @@ public final class Exporter extends StatementApi {
         }
     }
 
+    /**
+     * Writes the values of nodes as soon as they are final, so that the writes overlap with the computation.
+     * <p>
+     * Every compute task takes a {@link Writer} from the pipeline, adds its values to it and closes it when done,
+     * which hands the writer back for the next task. A writer collects its values in a batch of its own,
+     * so that its batch keeps filling up across the tasks that use it.
+     * Full batches are sorted by node id and handed to the write workers over a bounded queue,
+     * which commit every batch in its own transaction.
+     * Once the queue is full, the computing threads wait for the writers to catch up.
+     * The write workers run on threads of their own, as the computation may occupy the executor of the exporter.
+     * <p>
+     * Similar to a transaction, the batches that are not yet full are only written on {@link #close()}
+     * if the pipeline has been marked as {@link #success() successful}, so that a failed computation
+     * does not write its partial results.
+     * If a write fails, the next {@link Writer#add(long, double)} rethrows the failure and the remaining batches
+     * are dropped, as they are once the termination flag is no longer running.
+     */
+    public final class Pipeline implements AutoCloseable {
+
+        private final int propertyId;
+        private final BlockingQueue<Batch> queue;
+        private final Collection<Writer> allWriters;
+        private final Queue<Writer> idleWriters;
+        private final Thread[] workers;
+        private final AtomicReference<Throwable> error;
+        private final AtomicLong written;
+        private volatile boolean success;
+        private boolean closed;
+
+        private Pipeline(int propertyId, int concurrency) {
+            this.propertyId = propertyId;
+            this.queue = new ArrayBlockingQueue<>(concurrency << 1);
+            this.allWriters = new ConcurrentLinkedQueue<>();
+            this.idleWriters = new ConcurrentLinkedQueue<>();
+            this.error = new AtomicReference<>();
+            this.written = new AtomicLong();
+            this.workers = new Thread[concurrency];
+            for (int i = 0; i < concurrency; i++) {
+                workers[i] = PIPELINE_THREADS.newThread(this::writeBatches);
+                workers[i].start();
+            }
+        }
+
+        /**
+         * Returns a writer for the values of a single compute task, may be called from any thread.
+         * The writer must only be used by that task and has to be closed at the end of it.
+         */
+        public Writer writer() {
+            Writer writer = idleWriters.poll();
+            if (writer == null) {
+                writer = new Writer();
+                allWriters.add(writer);
+            }
+            return writer;
+        }
+
+        /**
+         * Marks the computation as successful, so that {@link #close()} writes the remaining values.
+         */
+        public void success() {
+            success = true;
+        }
+
+        /**
+         * Writes all remaining values if the pipeline has been marked as {@link #success() successful}
+         * and waits until all submitted values have been committed.
+         * Must only be called once all compute tasks have closed their writers.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (success) {
+                    for (Writer writer : allWriters) {
+                        if (writer.batch.length > 0 && error.get() == null) {
+                            submit(writer.batch);
+                        }
+                    }
+                }
+            } finally {
+                allWriters.clear();
+                idleWriters.clear();
+                for (Thread ignored : workers) {
+                    put(Batch.END);
+                }
+                for (Thread worker : workers) {
+                    join(worker);
+                }
+            }
+            rethrowError();
+            if (success) {
+                progressLogger.logDone();
+            }
+        }
+
+        private void submit(Batch batch) {
+            rethrowError();
+            put(batch.sortedCopy());
+            batch.length = 0;
+        }
+
+        private void writeBatches() {
+            Batch batch;
+            while ((batch = take()) != Batch.END) {
+                if (error.get() != null || !terminationFlag.running()) {
+                    continue;
+                }
+                try {
+                    writeBatch(batch);
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            }
+        }
+
+        private void writeBatch(Batch batch) {
+            acceptInTransaction(stmt -> {
+                Write ops = stmt.dataWrite();
+                long[] nodeIds = batch.nodeIds;
+                double[] values = batch.values;
+                for (int i = 0; i < batch.length; i++) {
+                    ops.nodeSetProperty(
+                            toOriginalId.applyAsLong(nodeIds[i]),
+                            propertyId,
+                            Values.doubleValue(values[i]));
+                }
+            });
+            progressLogger.logProgress(written.addAndGet(batch.length), nodeCount);
+        }
+
+        private void rethrowError() {
+            Throwable failure = error.get();
+            if (failure != null) {
+                throw Exceptions.launderedException(failure);
+            }
+        }
+
+        private void put(Batch batch) {
+            try {
+                queue.put(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        private Batch take() {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error.compareAndSet(null, e);
+                return Batch.END;
+            }
+        }
+
+        private void join(Thread worker) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error.compareAndSet(null, e);
+            }
+        }
+
+        /**
+         * Collects the values of one compute task at a time for a pipeline.
+         */
+        public final class Writer implements AutoCloseable {
+
+            private final Batch batch;
+
+            private Writer() {
+                this.batch = new Batch(PIPELINE_BATCH_SIZE);
+            }
+
+            /**
+             * Adds the final value of a node.
+             */
+            public void add(long nodeId, double value) {
+                batch.add(nodeId, value);
+                if (batch.isFull()) {
+                    submit(batch);
+                }
+            }
+
+            /**
+             * Hands the writer back to the pipeline, the values that it collected so far are kept for the next task.
+             */
+            @Override
+            public void close() {
+                idleWriters.offer(this);
+            }
+        }
+    }
+
+    private static final class Batch {
+
+        private static final Batch END = new Batch(0);
+
+        private final long[] nodeIds;
+        private final double[] values;
+        private int length;
+
+        private Batch(int capacity) {
+            this(new long[capacity], new double[capacity], 0);
+        }
+
+        private Batch(long[] nodeIds, double[] values, int length) {
+            this.nodeIds = nodeIds;
+            this.values = values;
+            this.length = length;
+        }
+
+        private void add(long nodeId, double value) {
+            nodeIds[length] = nodeId;
+            values[length++] = value;
+        }
+
+        private boolean isFull() {
+            return length == nodeIds.length;
+        }
+
+        private Batch sortedCopy() {
+            int length = this.length;
+            long[] nodeIds = this.nodeIds;
+            double[] values = this.values;
+            int i = 1;
+            while (i < length && nodeIds[i - 1] <= nodeIds[i]) {
+                ++i;
+            }
+            if (i >= length) {
+                return new Batch(Arrays.copyOf(nodeIds, length), Arrays.copyOf(values, length), length);
+            }
+            int[] order = IndirectSort.mergesort(0, length, (a, b) -> Long.compare(nodeIds[a], nodeIds[b]));
+            long[] sortedIds = new long[length];
+            double[] sortedValues = new double[length];
+            for (int j = 0; j < length; j++) {
+                sortedIds[j] = nodeIds[order[j]];
+                sortedValues[j] = values[order[j]];
+            }
+            return new Batch(sortedIds, sortedValues, length);
+        }
+    }
+
     private int getOrCreatePropertyId(String propertyName) {
         return applyInTransaction(stmt -> stmt
                 .tokenWrite()
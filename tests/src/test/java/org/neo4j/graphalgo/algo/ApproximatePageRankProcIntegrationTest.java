@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.algo;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.neo4j.graphalgo.PageRankProc;
+import org.neo4j.graphalgo.TestDatabaseCreator;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ApproximatePageRankProcIntegrationTest {
+
+    private static GraphDatabaseAPI db;
+    private static long source;
+    private static Map<Long, Double> exact = new HashMap<>();
+
+    @Rule
+    public ExpectedException exceptions = ExpectedException.none();
+
+    private static final String DB_CYPHER = "" +
+            "CREATE (a:Label1 {name:\"a\"})\n" +
+            "CREATE (b:Label1 {name:\"b\"})\n" +
+            "CREATE (c:Label1 {name:\"c\"})\n" +
+            "CREATE (d:Label1 {name:\"d\"})\n" +
+            "CREATE (e:Label1 {name:\"e\"})\n" +
+            "CREATE (f:Label1 {name:\"f\"})\n" +
+            "CREATE (g:Label1 {name:\"g\"})\n" +
+            "CREATE (h:Label1 {name:\"h\"})\n" +
+            "CREATE (i:Label1 {name:\"i\"})\n" +
+            "CREATE (j:Label1 {name:\"j\"})\n" +
+            "CREATE\n" +
+            "  (b)-[:TYPE1]->(c),\n" +
+            "  (c)-[:TYPE1]->(b),\n" +
+            "  (d)-[:TYPE1]->(a),\n" +
+            "  (d)-[:TYPE1]->(b),\n" +
+            "  (e)-[:TYPE1]->(b),\n" +
+            "  (e)-[:TYPE1]->(d),\n" +
+            "  (e)-[:TYPE1]->(f),\n" +
+            "  (f)-[:TYPE1]->(b),\n" +
+            "  (f)-[:TYPE1]->(e),\n" +
+            "  (g)-[:TYPE1]->(b),\n" +
+            "  (g)-[:TYPE1]->(e),\n" +
+            "  (h)-[:TYPE1]->(b),\n" +
+            "  (h)-[:TYPE1]->(e),\n" +
+            "  (i)-[:TYPE1]->(b),\n" +
+            "  (i)-[:TYPE1]->(e),\n" +
+            "  (j)-[:TYPE1]->(e)\n";
+
+    @BeforeClass
+    public static void setup() throws KernelException {
+        db = TestDatabaseCreator.createTestDatabase();
+        try (Transaction tx = db.beginTx()) {
+            db.execute(DB_CYPHER).close();
+            tx.success();
+        }
+
+        db.getDependencyResolver()
+                .resolveDependency(Procedures.class)
+                .registerProcedure(PageRankProc.class);
+
+        try (Transaction tx = db.beginTx()) {
+            source = db.findNode(Label.label("Label1"), "name", "e").getId();
+            tx.success();
+        }
+
+        runQuery(
+                "MATCH (n) WHERE id(n) = $source " +
+                "CALL algo.pageRank.stream('Label1', 'TYPE1', {sourceNodes:[n], graph:'huge', iterations:200}) " +
+                "YIELD nodeId, score RETURN nodeId, score",
+                row -> exact.put(row.getNumber("nodeId").longValue(), row.getNumber("score").doubleValue()));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (db != null) db.shutdown();
+    }
+
+    @Test
+    public void shouldApproximateByForwardPush() {
+        Map<Long, Double> approx = new HashMap<>();
+        double[] errorBound = {0.0};
+        runQuery(
+                "MATCH (n) WHERE id(n) = $source " +
+                "CALL algo.pageRank.approx.stream('Label1', 'TYPE1', {sourceNodes:[n], method:'push', epsilon:0.00001}) " +
+                "YIELD nodeId, score, errorBound RETURN nodeId, score, errorBound",
+                row -> {
+                    approx.put(row.getNumber("nodeId").longValue(), row.getNumber("score").doubleValue());
+                    errorBound[0] = row.getNumber("errorBound").doubleValue();
+                });
+
+        assertTrue("error bound " + errorBound[0], errorBound[0] > 0.0 && errorBound[0] < 0.01);
+        assertWithinBound(approx, errorBound[0]);
+    }
+
+    @Test
+    public void shouldEstimateByRandomWalks() {
+        Map<Long, Double> approx = new HashMap<>();
+        double[] errorBound = {0.0};
+        runQuery(
+                "MATCH (n) WHERE id(n) = $source " +
+                "CALL algo.pageRank.approx.stream('Label1', 'TYPE1', {sourceNodes:[n], method:'monteCarlo', walks:100000, confidence:0.999}) " +
+                "YIELD nodeId, score, errorBound RETURN nodeId, score, errorBound",
+                row -> {
+                    approx.put(row.getNumber("nodeId").longValue(), row.getNumber("score").doubleValue());
+                    errorBound[0] = row.getNumber("errorBound").doubleValue();
+                });
+
+        assertEquals(Math.sqrt(Math.log(2.0 / 0.001) / 200000.0), errorBound[0], 1e-9);
+        assertWithinBound(approx, errorBound[0]);
+    }
+
+    @Test
+    public void shouldRejectUnknownMethods() {
+        exceptions.expect(QueryExecutionException.class);
+        exceptions.expectMessage("Unknown method 'foo'");
+        db.execute(
+                "MATCH (n) WHERE id(n) = $source " +
+                "CALL algo.pageRank.approx.stream('Label1', 'TYPE1', {sourceNodes:[n], method:'foo'}) YIELD nodeId RETURN nodeId",
+                Collections.singletonMap("source", source)).resultAsString();
+    }
+
+    private static void assertWithinBound(Map<Long, Double> approx, double errorBound) {
+        for (Map.Entry<Long, Double> entry : exact.entrySet()) {
+            double score = approx.getOrDefault(entry.getKey(), 0.0);
+            assertEquals("node " + entry.getKey(), entry.getValue(), score, errorBound);
+        }
+    }
+
+    private static void runQuery(
+            String query,
+            Consumer<Result.ResultRow> check) {
+        try (Result result = db.execute(query, Collections.singletonMap("source", source))) {
+            result.accept(row -> {
+                check.accept(row);
+                return true;
+            });
+        }
+    }
+}
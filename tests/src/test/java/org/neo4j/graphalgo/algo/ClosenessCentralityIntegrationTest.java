@@ -133,6 +133,27 @@ public class ClosenessCentralityIntegrationTest {
         verifyMock();
     }
 
+    @Test
+    public void testClosenessWritePipelined() throws Exception {
+        DB.execute("CALL algo.closeness('','', {graph:'huge', write:true, writePipelined:true, writeProperty:'pipelinedCentrality'}) YIELD " +
+                "nodes, loadMillis, computeMillis, writeMillis")
+                .accept((Result.ResultVisitor<Exception>) row -> {
+                    assertNotEquals(-1L, row.getNumber("computeMillis"));
+                    assertNotEquals(-1L, row.getNumber("nodes"));
+                    return true;
+                });
+
+        DB.execute("MATCH (n) WHERE exists(n.pipelinedCentrality) RETURN id(n) as id, n.pipelinedCentrality as centrality")
+                .accept(row -> {
+                    consumer.accept(
+                            row.getNumber("id").longValue(),
+                            row.getNumber("centrality").doubleValue());
+                    return true;
+                });
+
+        verifyMock();
+    }
+
     private void verifyMock() {
         verify(consumer, times(1)).accept(eq(centerNodeId), AdditionalMatchers.eq(1.0, 0.01));
         verify(consumer, times(10)).accept(anyLong(), AdditionalMatchers.eq(0.588, 0.01));
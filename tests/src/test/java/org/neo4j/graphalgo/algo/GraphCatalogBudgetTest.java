@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.algo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.neo4j.graphalgo.LoadGraphProc;
+import org.neo4j.graphalgo.PageRankProc;
+import org.neo4j.graphalgo.core.loading.LoadGraphFactory;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.Result;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GraphCatalogBudgetTest {
+
+    private static final String DB_CYPHER = "" +
+            "UNWIND range(0, 99) AS i " +
+            "CREATE (a:Node {id: i})-[:X]->(b:Node {id: i + 100}) " +
+            "CREATE (b)-[:X]->(a)";
+
+    @Rule
+    public ImpermanentDatabaseRule db = new ImpermanentDatabaseRule();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setup() throws KernelException {
+        Procedures procedures = db.resolveDependency(Procedures.class);
+        procedures.registerProcedure(LoadGraphProc.class);
+        procedures.registerProcedure(PageRankProc.class);
+        db.execute(DB_CYPHER).close();
+    }
+
+    @After
+    public void tearDown() {
+        LoadGraphFactory.setMemoryBudget(-1L, null);
+        LoadGraphFactory.remove("foo");
+        LoadGraphFactory.remove("bar");
+        LoadGraphFactory.remove("multi");
+    }
+
+    @Test
+    public void shouldReportUsageStatistics() {
+        load("foo");
+        long[] loadedAt = new long[1];
+        runQuery("CALL algo.graph.info('foo')", row -> {
+            assertTrue(row.getBoolean("exists"));
+            assertEquals(200L, row.getNumber("nodes").longValue());
+            assertTrue(row.getNumber("bytes").longValue() > 0L);
+            assertEquals(0L, row.getNumber("hits").longValue());
+            assertNull(row.getString("snapshot"));
+            loadedAt[0] = row.getNumber("loadedAt").longValue();
+        });
+
+        pageRank("foo");
+        pageRank("foo");
+
+        runQuery("CALL algo.graph.info('foo')", row -> {
+            assertEquals(2L, row.getNumber("hits").longValue());
+            assertTrue(row.getNumber("lastAccess").longValue() >= loadedAt[0]);
+        });
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedGraphIntoSnapshot() {
+        long evictions = LoadGraphFactory.evictions();
+        load("foo");
+        long bytes = LoadGraphFactory.stats("foo").bytes;
+        LoadGraphFactory.setMemoryBudget(bytes + bytes / 2, folder.getRoot().toPath());
+        runQuery("CALL algo.graph.budget()", row -> {
+            assertEquals(bytes + bytes / 2, row.getNumber("maxBytes").longValue());
+            assertEquals(bytes, row.getNumber("usedBytes").longValue());
+            assertEquals(1L, row.getNumber("graphs").longValue());
+            assertEquals(folder.getRoot().toPath().toString(), row.getString("snapshotDirectory"));
+        });
+
+        load("bar");
+
+        runQuery("CALL algo.graph.info('foo')", row -> {
+            assertTrue(row.getBoolean("exists"));
+            assertNotNull(row.getString("snapshot"));
+            assertTrue(new File(row.getString("snapshot")).exists());
+        });
+        assertNull(LoadGraphFactory.stats("bar").snapshot);
+        assertEquals(1, LoadGraphFactory.size());
+
+        // using an evicted graph restores it and evicts the other one
+        pageRank("foo");
+
+        assertNull(LoadGraphFactory.stats("foo").snapshot);
+        assertNotNull(LoadGraphFactory.stats("bar").snapshot);
+        assertEquals(evictions + 2L, LoadGraphFactory.evictions());
+    }
+
+    @Test
+    public void shouldDropEvictedGraphsWithoutSnapshotDirectory() {
+        load("foo");
+        long bytes = LoadGraphFactory.stats("foo").bytes;
+        LoadGraphFactory.setMemoryBudget(bytes + bytes / 2, null);
+
+        pageRank("foo");
+        load("bar");
+
+        runQuery("CALL algo.graph.info('foo')", row -> assertFalse(row.getBoolean("exists")));
+        runQuery("CALL algo.graph.info('bar')", row -> assertTrue(row.getBoolean("exists")));
+    }
+
+    @Test
+    public void shouldRestoreEvictedGraphsWithTheirPageBackend() {
+        db.execute("CALL algo.graph.load('foo', 'Node', 'X', {graph:'huge', pageBackend:'off_heap'})").close();
+        long bytes = LoadGraphFactory.stats("foo").bytes;
+        assertTrue(LoadGraphFactory.stats("foo").offHeapBytes > 0L);
+        LoadGraphFactory.setMemoryBudget(bytes + bytes / 2, folder.getRoot().toPath());
+
+        load("bar");
+        assertNotNull(LoadGraphFactory.stats("foo").snapshot);
+
+        pageRank("foo");
+        assertNull(LoadGraphFactory.stats("foo").snapshot);
+        assertTrue(LoadGraphFactory.stats("foo").offHeapBytes > 0L);
+    }
+
+    @Test
+    public void shouldKeepGraphsWhoseSnapshotCannotBeWritten() throws IOException {
+        long evictions = LoadGraphFactory.evictions();
+        load("foo");
+        long bytes = LoadGraphFactory.stats("foo").bytes;
+        File notADirectory = folder.newFile();
+        LoadGraphFactory.setMemoryBudget(bytes + bytes / 2, notADirectory.toPath());
+
+        try {
+            load("bar");
+            fail("the eviction should have failed");
+        } catch (QueryExecutionException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains(notADirectory.getPath()));
+        }
+
+        assertNull(LoadGraphFactory.stats("foo").snapshot);
+        assertEquals(2, LoadGraphFactory.size());
+        assertEquals(evictions, LoadGraphFactory.evictions());
+        pageRank("foo");
+    }
+
+    @Test
+    public void shouldKeepGraphsThatCannotBeWrittenIntoASnapshot() {
+        long evictions = LoadGraphFactory.evictions();
+        db.execute("CALL algo.graph.load('multi', 'Node', 'X|Y', {graph:'huge'})").close();
+        long bytes = LoadGraphFactory.stats("multi").bytes;
+        LoadGraphFactory.setMemoryBudget(bytes + bytes / 2, folder.getRoot().toPath());
+
+        load("foo");
+
+        assertNull(LoadGraphFactory.stats("multi").snapshot);
+        assertNull(LoadGraphFactory.stats("foo").snapshot);
+        assertEquals(evictions, LoadGraphFactory.evictions());
+    }
+
+    private void load(String name) {
+        db.execute("CALL algo.graph.load($name, 'Node', 'X', {graph:'huge'})", singletonMap("name", name)).close();
+    }
+
+    private void pageRank(String name) {
+        runQuery("CALL algo.pageRank(null, null, {graph:$name, write:false})", singletonMap("name", name), row ->
+                assertEquals(200L, row.getNumber("nodes").longValue()));
+    }
+
+    private void runQuery(String query, Consumer<Result.ResultRow> check) {
+        runQuery(query, new HashMap<>(), check);
+    }
+
+    private void runQuery(String query, Map<String, Object> params, Consumer<Result.ResultRow> check) {
+        try (Result result = db.execute(query, params)) {
+            result.accept(row -> {
+                check.accept(row);
+                return true;
+            });
+        }
+    }
+}
@@ -174,6 +174,28 @@ public class HarmonicCentralityIntegrationTest {
         verifyMock();
     }
 
+    @Test
+    public void testHugeHarmonicWritePipelined() throws Exception {
+
+        db.execute("CALL algo.closeness.harmonic('','', {write:true, writePipelined:true, writeProperty:'pipelinedCentrality', graph:'huge'}) YIELD " +
+                "nodes, loadMillis, computeMillis, writeMillis")
+                .accept((Result.ResultVisitor<Exception>) row -> {
+                    assertNotEquals(-1L, row.getNumber("computeMillis"));
+                    assertNotEquals(-1L, row.getNumber("nodes"));
+                    return true;
+                });
+
+        db.execute("MATCH (n) WHERE exists(n.pipelinedCentrality) RETURN id(n) as id, n.pipelinedCentrality as centrality")
+                .accept(row -> {
+                    consumer.accept(
+                            row.getNumber("id").longValue(),
+                            row.getNumber("centrality").doubleValue());
+                    return true;
+                });
+
+        verifyMock();
+    }
+
     private void verifyMock() {
         verify(consumer, times(1)).accept(eq(centerNodeId), AdditionalMatchers.eq(1.0, 0.1));
         verify(consumer, times(10)).accept(anyLong(), AdditionalMatchers.eq(0.65, 0.1));
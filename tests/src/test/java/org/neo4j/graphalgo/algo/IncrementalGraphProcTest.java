@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.algo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.graphalgo.LoadGraphProc;
+import org.neo4j.graphalgo.PageRankProc;
+import org.neo4j.graphalgo.api.Graph;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.RelationshipIntersect;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.HugeGraphImpl;
+import org.neo4j.graphalgo.core.huge.HugeGraphUpdates;
+import org.neo4j.graphalgo.core.huge.IncrementalHugeGraph;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.impl.ProgressLoggingTest;
+import org.neo4j.graphalgo.core.loading.LoadGraphFactory;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.event.TransactionData;
+import org.neo4j.graphdb.event.TransactionEventHandler;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalGraphProcTest {
+
+    private static final String DB_CYPHER = "" +
+            "UNWIND range(0, 9) AS i " +
+            "CREATE (a:Node {id: i})-[:X]->(b:Node {id: i + 10}) " +
+            "CREATE (b)-[:Y]->(a)";
+
+    @Rule
+    public ImpermanentDatabaseRule db = new ImpermanentDatabaseRule();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @Before
+    public void setup() throws KernelException {
+        Procedures procedures = db.resolveDependency(Procedures.class);
+        procedures.registerProcedure(LoadGraphProc.class);
+        procedures.registerProcedure(PageRankProc.class);
+        db.execute(DB_CYPHER).close();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        LoadGraphFactory.remove("foo");
+    }
+
+    @Test
+    public void shouldApplyCommittedChanges() {
+        load("{graph:'huge', incremental:true}");
+        assertEquals(20L, graph().nodeCount());
+
+        db.execute("MATCH (a:Node {id: 0}) CREATE (a)-[:X]->(:Node {id: 20})-[:X]->(:Node {id: 21})").close();
+        db.execute("CREATE (:Other)-[:X]->(:Other)").close();
+        db.execute("MATCH (a:Node {id: 1}), (b:Node {id: 2}) CREATE (a)-[:Y]->(b)").close();
+
+        HugeGraph graph = graph();
+        assertEquals(22L, graph.nodeCount());
+        assertEquals(2, graph.degree(node(graph, 0), Direction.OUTGOING));
+        assertEquals(1, graph.degree(node(graph, 20), Direction.OUTGOING));
+        assertEquals(0, graph.degree(node(graph, 21), Direction.OUTGOING));
+        assertEquals(1, graph.degree(node(graph, 1), Direction.OUTGOING));
+        assertTrue(graph.exists(node(graph, 20), node(graph, 21), Direction.OUTGOING));
+
+        db.execute("MATCH (:Node {id: 0})-[r:X]->(:Node {id: 10}) DELETE r").close();
+        graph = graph();
+        assertEquals(1, graph.degree(node(graph, 0), Direction.OUTGOING));
+        assertFalse(graph.exists(node(graph, 0), node(graph, 10), Direction.OUTGOING));
+        assertTrue(graph.exists(node(graph, 0), node(graph, 20), Direction.OUTGOING));
+
+        long nodes = (Long) db.execute("CALL algo.pageRank(null, null, {graph:'foo', write:false}) YIELD nodes")
+                .columnAs("nodes").next();
+        assertEquals(22L, nodes);
+    }
+
+    @Test
+    public void shouldCompactChanges() {
+        load("{graph:'huge', incremental:true, compactionThreshold:1000}");
+        db.execute("MATCH (a:Node {id: 0}) CREATE (a)-[:X]->(:Node {id: 20})").close();
+        db.execute("MATCH (:Node {id: 1})-[r:X]->() DELETE r").close();
+        long deleted = nodeId(19);
+        db.execute("MATCH (n:Node {id: 19}) DETACH DELETE n").close();
+
+        IncrementalHugeGraph incremental = (IncrementalHugeGraph) LoadGraphFactory.get("foo");
+        assertTrue(incremental.pendingChanges() > 0L);
+        HugeGraph before = incremental.snapshot();
+        long[] degrees = degrees(before);
+
+        incremental.compact();
+
+        assertEquals(0L, incremental.pendingChanges());
+        assertEquals(1L, incremental.compactions());
+        HugeGraph after = graph();
+        assertEquals(20L, after.nodeCount());
+        assertEquals(-1L, after.toHugeMappedNodeId(deleted));
+        for (int id = 0; id <= 20; id++) {
+            if (id != 19) {
+                assertEquals(degrees[id], after.degree(node(after, id), Direction.OUTGOING));
+            }
+        }
+
+        // changes after the compaction still apply
+        db.execute("MATCH (a:Node {id: 20}), (b:Node {id: 0}) CREATE (a)-[:X]->(b)").close();
+        assertEquals(1, graph().degree(node(graph(), 20), Direction.OUTGOING));
+    }
+
+    @Test
+    public void shouldKeepParallelRelationshipsUntilTheLastOneIsDeleted() {
+        load("{graph:'huge', incremental:true}");
+        db.execute("MATCH (a:Node {id: 0}), (b:Node {id: 10}) CREATE (a)-[:X]->(b)").close();
+        HugeGraph graph = graph();
+        assertEquals(1, graph.degree(node(graph, 0), Direction.OUTGOING));
+
+        db.execute("MATCH (:Node {id: 0})-[r:X]->(:Node {id: 10}) WITH r LIMIT 1 DELETE r").close();
+        graph = graph();
+        assertTrue(graph.exists(node(graph, 0), node(graph, 10), Direction.OUTGOING));
+
+        db.execute("MATCH (:Node {id: 0})-[r:X]->(:Node {id: 10}) DELETE r").close();
+        graph = graph();
+        assertFalse(graph.exists(node(graph, 0), node(graph, 10), Direction.OUTGOING));
+    }
+
+    @Test
+    public void shouldApplyChangesOfTheSameRelationshipInCommitOrder() throws Exception {
+        // registered before the graph, so it delays the commit before the graph sees the changes
+        AfterCommitBarrier barrier = new AfterCommitBarrier();
+        db.registerTransactionEventHandler(barrier);
+        load("{graph:'huge', incremental:true}");
+
+        Future<?> create = barrier.blockCommitOf(
+                "MATCH (a:Node {id: 0}) CREATE (a)-[:X]->(:Node {id: 20})");
+        Future<?> delete = executor.submit(() ->
+                db.execute("MATCH (:Node {id: 0})-[r:X]->(:Node {id: 20}) DELETE r").close());
+
+        // the deleting transaction waits for the locks of the creating one
+        assertFalse(isDone(delete));
+        barrier.release();
+        create.get(10, TimeUnit.SECONDS);
+        delete.get(10, TimeUnit.SECONDS);
+
+        HugeGraph graph = graph();
+        assertFalse(graph.exists(node(graph, 0), node(graph, 20), Direction.OUTGOING));
+        assertEquals(1, graph.degree(node(graph, 0), Direction.OUTGOING));
+    }
+
+    @Test
+    public void shouldApplyChangesOfTheSameNodeIdInCommitOrder() throws Exception {
+        AfterCommitBarrier barrier = new AfterCommitBarrier();
+        db.registerTransactionEventHandler(barrier);
+        load("{graph:'huge', incremental:true}");
+        long deleted = nodeId(19);
+
+        Future<?> delete = barrier.blockCommitOf("MATCH (n:Node {id: 19}) DETACH DELETE n");
+        // the new node reuses the id of the deleted one
+        Future<?> create = executor.submit(() -> db.execute("CREATE (:Node {id: 30})").close());
+
+        assertFalse(isDone(create));
+        barrier.release();
+        delete.get(10, TimeUnit.SECONDS);
+        create.get(10, TimeUnit.SECONDS);
+
+        assertEquals(deleted, nodeId(30));
+        HugeGraph graph = graph();
+        assertEquals(20L, graph.nodeCount());
+        assertNotEquals(-1L, node(graph, 30));
+    }
+
+    @Test
+    public void shouldIntersectTheChangedGraph() {
+        load("{graph:'huge', incremental:true, undirected:true}");
+        db.execute("MATCH (a:Node {id: 0}), (b:Node {id: 1}), (c:Node {id: 10}) " +
+                "CREATE (a)-[:X]->(b), (b)-[:X]->(c)").close();
+        HugeGraph graph = graph();
+
+        long[] triangles = {0L};
+        RelationshipIntersect intersect = graph.intersection();
+        for (long node = 0L; node < graph.nodeCount(); node++) {
+            intersect.intersectAll(node, (a, b, c) -> triangles[0]++);
+        }
+        assertEquals(1L, triangles[0]);
+    }
+
+    @Test
+    public void shouldLogAndKeepFailedBackgroundCompactions() {
+        HugeGraphImpl base = (HugeGraphImpl) new GraphLoader(db)
+                .withLabel("Node")
+                .withRelationshipType("X")
+                .withOptionalNodeProperty("id", 0.0)
+                .load(HugeGraphFactory.class);
+        StringWriter buffer = new StringWriter();
+        IncrementalHugeGraph incremental = new IncrementalHugeGraph(
+                base, false, new AllocationTracker(), 1L, Runnable::run, ProgressLoggingTest.testLogger(buffer));
+        // the compaction can't copy released node properties
+        base.release();
+
+        HugeGraphUpdates updates = new HugeGraphUpdates();
+        updates.createNode(1000L);
+        incremental.apply(updates);
+
+        assertNotNull(incremental.compactionFailure());
+        assertTrue(buffer.toString(), buffer.toString().contains("Compaction of an incrementally maintained graph failed"));
+        assertEquals(0L, incremental.compactions());
+        assertEquals(21L, incremental.nodeCount());
+
+        // no further compactions are started in the background, changes are still applied
+        HugeGraphUpdates more = new HugeGraphUpdates();
+        more.createNode(1001L);
+        incremental.apply(more);
+        assertEquals(22L, incremental.nodeCount());
+    }
+
+    @Test
+    public void shouldStopMaintenanceOnRemove() {
+        load("{graph:'huge', incremental:true}");
+        LoadGraphFactory.remove("foo");
+        // must not fail without the graph
+        db.execute("CREATE (:Node {id: 20})").close();
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void shouldRejectHeavyGraphs() {
+        load("{graph:'heavy', incremental:true}");
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void shouldRejectRelationshipWeights() {
+        load("{graph:'huge', incremental:true, relationshipWeight:'id'}");
+    }
+
+    private static boolean isDone(Future<?> future) throws InterruptedException {
+        Thread.sleep(500L);
+        return future.isDone();
+    }
+
+    /**
+     * Blocks the after commit callbacks of a single transaction, until it is released.
+     */
+    private final class AfterCommitBarrier extends TransactionEventHandler.Adapter<Object> {
+        private final CountDownLatch committed = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private volatile Thread blocked;
+
+        Future<?> blockCommitOf(String query) throws InterruptedException {
+            Future<?> future = executor.submit(() -> {
+                blocked = Thread.currentThread();
+                db.execute(query).close();
+            });
+            assertTrue(committed.await(10, TimeUnit.SECONDS));
+            return future;
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        @Override
+        public void afterCommit(TransactionData data, Object state) {
+            if (Thread.currentThread() == blocked) {
+                blocked = null;
+                committed.countDown();
+                try {
+                    released.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void load(String config) {
+        db.execute("CALL algo.graph.load('foo', 'Node', 'X', " + config + ")").close();
+    }
+
+    private long[] degrees(HugeGraph graph) {
+        long[] degrees = new long[21];
+        for (int id = 0; id <= 20; id++) {
+            if (id != 19) {
+                degrees[id] = graph.degree(node(graph, id), Direction.OUTGOING);
+            }
+        }
+        return degrees;
+    }
+
+    private HugeGraph graph() {
+        Graph graph = LoadGraphFactory.get("foo");
+        return ((IncrementalHugeGraph) graph).snapshot();
+    }
+
+    private long node(HugeGraph graph, int id) {
+        return graph.toHugeMappedNodeId(nodeId(id));
+    }
+
+    private long nodeId(int id) {
+        return (Long) db.execute("MATCH (n:Node {id: $id}) RETURN id(n) AS id", singletonMap("id", (Object) id))
+                .columnAs("id").next();
+    }
+}
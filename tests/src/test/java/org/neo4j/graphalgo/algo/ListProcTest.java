@@ -49,7 +49,7 @@ import static org.junit.Assert.assertEquals;
 public class ListProcTest {
     @ClassRule
     public static ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
-    public static final List<String> PROCEDURES = asList("algo.pageRank", "algo.pageRank.stream");
+    public static final List<String> PROCEDURES = asList("algo.pageRank", "algo.pageRank.approx.stream", "algo.pageRank.multiSource.stream", "algo.pageRank.stream");
     public static final List<String> FUNCTIONS = Arrays.asList("algo.linkprediction.adamicAdar", "algo.linkprediction.commonNeighbors", "algo.linkprediction.preferentialAttachment", "algo.linkprediction.resourceAllocation", "algo.linkprediction.sameCommunity",
             "algo.linkprediction.totalNeighbors");
     public static final List<String> ALL = Stream.of(PROCEDURES, FUNCTIONS).flatMap(Collection::stream).collect(Collectors.toList());
@@ -71,7 +71,7 @@ public class ListProcTest {
     public void listProcedures() throws Exception {
         assertEquals(ALL, listProcs(null));
         assertEquals(PROCEDURES, listProcs("page"));
-        assertEquals(singletonList("algo.pageRank.stream"), listProcs("stream"));
+        assertEquals(asList("algo.pageRank.approx.stream", "algo.pageRank.multiSource.stream", "algo.pageRank.stream"), listProcs("stream"));
         assertEquals(emptyList(), listProcs("foo"));
     }
 
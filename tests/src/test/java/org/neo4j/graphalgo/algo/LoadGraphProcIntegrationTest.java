@@ -19,10 +19,12 @@
 package org.neo4j.graphalgo.algo;
 
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.neo4j.graphalgo.LabelPropagationProc;
@@ -35,11 +37,14 @@ import org.neo4j.internal.kernel.api.exceptions.KernelException;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.test.rule.ImpermanentDatabaseRule;
 
+import java.io.File;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Collection;
 import java.util.Map;
 import java.util.function.Consumer;
 
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonMap;
 import static org.junit.Assert.*;
 
@@ -78,6 +83,9 @@ public class LoadGraphProcIntegrationTest {
     @Rule
     public ExpectedException exceptions = ExpectedException.none();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private final String graph;
 
     public LoadGraphProcIntegrationTest(String graph) {
@@ -91,11 +99,14 @@ public class LoadGraphProcIntegrationTest {
         procedures.registerProcedure(PageRankProc.class);
         procedures.registerProcedure(LabelPropagationProc.class);
         db.execute(DB_CYPHER);
+        LoadGraphFactory.setSnapshotDirectory(folder.getRoot().toPath());
     }
 
     @After
     public void tearDown() throws Exception {
         LoadGraphFactory.remove("foo");
+        LoadGraphFactory.remove("bar");
+        LoadGraphFactory.setSnapshotDirectory(null);
     }
 
     @Test
@@ -177,6 +188,82 @@ public class LoadGraphProcIntegrationTest {
         });
     }
 
+    @Test
+    public void saveAndRestoreGraph() throws Exception {
+        Assume.assumeTrue("huge".equals(graph));
+        db.execute("CALL algo.graph.load('foo',null,null,{graph:$graph,relationshipWeight:'weight'})", singletonMap("graph", graph)).close();
+        File file = new File(folder.getRoot(), "foo.bin");
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", "foo");
+        params.put("file", "foo.bin");
+        runQuery("CALL algo.graph.save($name, $file)", params, row -> {
+            assertEquals(12, row.getNumber("nodes").intValue());
+            assertEquals(file.length(), row.getNumber("bytes").longValue());
+        });
+
+        params.put("name", "bar");
+        runQuery("CALL algo.graph.restore($name, $file, {pageBackend:'mapped'})", params, row -> {
+            assertEquals(12, row.getNumber("nodes").intValue());
+            assertFalse(row.getBoolean("alreadyLoaded"));
+        });
+        runQuery("CALL algo.pageRank(null,null,{graph:$name,write:false})", singletonMap("name", "bar"), row -> {
+            assertEquals(12, row.getNumber("nodes").intValue());
+        });
+    }
+
+    @Test
+    public void shouldNotSaveOutsideOfTheSnapshotDirectory() {
+        Assume.assumeTrue("huge".equals(graph));
+        db.execute("CALL algo.graph.load('foo',null,null,{graph:$graph})", singletonMap("graph", graph)).close();
+
+        exceptions.expect(QueryExecutionException.class);
+        exceptions.expectMessage("is not within the snapshot directory");
+        db.execute("CALL algo.graph.save('foo', '../foo.bin')").close();
+    }
+
+    @Test
+    public void shouldNotSaveNonHugeGraph() {
+        Assume.assumeFalse("huge".equals(graph));
+        db.execute("CALL algo.graph.load('foo',null,null,{graph:$graph})", singletonMap("graph", graph)).close();
+
+        exceptions.expect(QueryExecutionException.class);
+        exceptions.expectMessage("Only graphs that are loaded with graph:'huge' can be saved");
+        db.execute("CALL algo.graph.save('foo', $file)", singletonMap("file", new File(folder.getRoot(), "foo.bin").getAbsolutePath())).close();
+    }
+
+    @Test
+    public void filterGraph() {
+        Assume.assumeTrue("huge".equals(graph));
+        db.execute("CALL algo.graph.load('foo',null,null,{graph:$graph,nodeProperty:'partition'})", singletonMap("graph", graph)).close();
+
+        runQuery("CALL algo.graph.filter('bar', 'foo', {nodeProperty:'property', maxValue:2})", emptyMap(), row -> {
+            assertEquals("foo", row.getString("source"));
+            assertEquals(10, row.getNumber("nodes").intValue());
+            assertEquals(0, row.getNumber("relationships").intValue());
+            assertFalse(row.getBoolean("alreadyLoaded"));
+        });
+        runQuery("CALL algo.pageRank(null,null,{graph:'bar',write:false})", emptyMap(), row -> {
+            assertEquals(10, row.getNumber("nodes").intValue());
+        });
+        LoadGraphFactory.remove("bar");
+
+        runQuery("CALL algo.graph.filter('bar', 'foo', {nodeProperty:'property', minValue:2, concurrency:4})", emptyMap(), row -> {
+            assertEquals(4, row.getNumber("nodes").intValue());
+            assertEquals(2, row.getNumber("relationships").intValue());
+        });
+    }
+
+    @Test
+    public void shouldNotFilterNonHugeGraph() {
+        Assume.assumeFalse("huge".equals(graph));
+        db.execute("CALL algo.graph.load('foo',null,null,{graph:$graph})", singletonMap("graph", graph)).close();
+
+        exceptions.expect(QueryExecutionException.class);
+        exceptions.expectMessage("Only graphs that are loaded with graph:'huge' and a single relationship type can be filtered");
+        db.execute("CALL algo.graph.filter('bar', 'foo')").close();
+    }
+
     private void runQuery(String query, Map<String, Object> params, Consumer<Result.ResultRow> check) {
         try (Result result = db.execute(query, params)) {
             result.accept(row -> {
@@ -349,6 +349,49 @@ public class LouvainClusteringIntegrationTest {
         });
     }
 
+    @Test
+    public void testHugeStreamIncludingIntermediateCommunities() {
+        final String cypher = "CALL algo.louvain.stream('', '', {graph:'huge', includeIntermediateCommunities: true}) " +
+                "YIELD nodeId, community, communities";
+        final IntIntScatterMap testMap = new IntIntScatterMap();
+        DB.execute(cypher).accept(row -> {
+            final long community = (long) row.get("community");
+            assertEquals(community, (long) ((List<Long>) row.get("communities")).get(0));
+            testMap.addTo((int) community, 1);
+            return true;
+        });
+        assertEquals(3, testMap.size());
+    }
+
+    @Test
+    public void testHugePredefinedCommunities() {
+        final String cypher = "CALL algo.louvain.stream('', '', {graph:'huge', communityProperty:'c'}) " +
+                "YIELD nodeId, community";
+        final IntIntScatterMap testMap = new IntIntScatterMap();
+        DB.execute(cypher).accept(row -> {
+            testMap.addTo(row.getNumber("community").intValue(), 1);
+            return true;
+        });
+        assertEquals(1, testMap.size());
+    }
+
+    @Test
+    public void testHugeWriteIncludingIntermediateCommunities() {
+        final String cypher = "CALL algo.louvain('', '', {graph:'huge', includeIntermediateCommunities: true}) YIELD communityCount";
+        DB.execute(cypher).close();
+
+        final IntIntScatterMap testMap = new IntIntScatterMap();
+        String readQuery = "MATCH (n) RETURN n.community AS community, n.communities AS communities";
+        DB.execute(readQuery).accept(row -> {
+            final long community = (long) row.get("community");
+            assertEquals(community, ((long[]) row.get("communities"))[0]);
+            testMap.addTo((int) community, 1);
+            return true;
+        });
+
+        assertEquals(3, testMap.size());
+    }
+
     @Test
     public void shouldAllowCypherGraph() {
         final String cypher = "CALL algo.louvain('MATCH (n) RETURN id(n) as id', 'MATCH (s)-->(t) RETURN id(s) as source, id(t) as target', {graph:'cypher'}) YIELD nodes, communityCount";
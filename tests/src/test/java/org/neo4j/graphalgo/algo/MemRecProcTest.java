@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.algo;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.graphalgo.MemRecProc;
+import org.neo4j.graphalgo.PageRankProc;
+import org.neo4j.graphalgo.api.Graph;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.Result;
+import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MemRecProcTest {
+
+    private static final int NODES = 5000;
+
+    @ClassRule
+    public static ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        Procedures procedures = DB.getDependencyResolver().resolveDependency(Procedures.class);
+        procedures.registerProcedure(MemRecProc.class);
+        procedures.registerProcedure(PageRankProc.class);
+        DB.execute("UNWIND range(0, " + (NODES - 1) + ") AS id CREATE (:Node {id: id})").close();
+        DB.execute("MATCH (a:Node), (b:Node) WHERE b.id = (a.id + 1) % " + NODES + " OR b.id = (a.id * 7) % " + NODES + " " +
+                "CREATE (a)-[:TYPE {weight: a.id}]->(b)").close();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        DB.shutdown();
+    }
+
+    @Test
+    public void shouldEstimateGraphLoad() {
+        Map<String, Object> row = memrec("graph.load", Collections.emptyMap());
+
+        assertEquals((long) NODES, row.get("nodeCount"));
+        assertEquals(2L * NODES, row.get("relationshipCount"));
+        long min = (long) row.get("bytesMin");
+        long max = (long) row.get("bytesMax");
+        assertTrue("min must be positive but was " + min, min > 0L);
+        assertTrue("min " + min + " must not exceed max " + max, min <= max);
+        assertEquals(0L, row.get("offHeapMax"));
+        assertThat((String) row.get("treeView"), containsString("outgoing adjacency"));
+    }
+
+    @Test
+    public void shouldCoverTheLoadedGraph() {
+        Map<String, Object> row = memrec("graph.load", Collections.emptyMap());
+        AllocationTracker tracker = AllocationTracker.create();
+        Graph graph = new GraphLoader(DB, Pools.DEFAULT)
+                .withLabel("Node")
+                .withRelationshipType("TYPE")
+                .withDirection(Direction.OUTGOING)
+                .withAllocationTracker(tracker)
+                .load(HugeGraphFactory.class);
+        long tracked = tracker.tracked();
+        graph.release();
+
+        long min = (long) row.get("bytesMin");
+        long max = (long) row.get("bytesMax");
+        assertTrue("tracked " + tracked + " must be within [" + min + ", " + max + "]", min <= tracked && tracked <= max);
+    }
+
+    @Test
+    public void shouldEstimateAlgorithmsOnTopOfTheGraph() {
+        Map<String, Object> load = memrec("graph.load", Collections.singletonMap("concurrency", 4));
+        Map<String, Object> pageRank = memrec("pageRank", Collections.singletonMap("concurrency", 4));
+        Map<String, Object> unionFind = memrec("unionFind", Collections.singletonMap("concurrency", 4));
+
+        assertTrue((long) pageRank.get("bytesMin") > (long) load.get("bytesMin"));
+        assertTrue((long) pageRank.get("bytesMax") > (long) pageRank.get("bytesMin"));
+        assertTrue((long) unionFind.get("bytesMin") > (long) load.get("bytesMin"));
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> mapView = (Map<String, Object>) pageRank.get("mapView");
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> components = (List<Map<String, Object>>) mapView.get("components");
+        assertEquals("HugeGraph", components.get(0).get("name"));
+        assertEquals("HugePageRank", components.get(1).get("name"));
+    }
+
+    @Test
+    public void shouldEstimateColumnarWeightsAndOffHeapBackends() {
+        Map<String, Object> config = new HashMap<>();
+        config.put("weightProperty", "weight");
+        config.put("columnarWeights", true);
+        config.put("pageBackend", "off_heap");
+        Map<String, Object> row = memrec("graph.load", config);
+
+        assertTrue((long) row.get("offHeapMin") > 0L);
+        assertThat((String) row.get("treeView"), containsString("outgoing weights"));
+    }
+
+    @Test
+    public void shouldEstimateTheRewriteOfReorderedGraphs() {
+        Map<String, Object> storeOrder = memrec("graph.load", Collections.emptyMap());
+        Map<String, Object> reordered = memrec("graph.load", Collections.singletonMap("nodeOrder", "degree"));
+
+        // the imported and the rewritten adjacency exist at the same time
+        assertTrue((long) reordered.get("bytesMax") > (long) storeOrder.get("bytesMax"));
+        assertThat((String) reordered.get("treeView"), containsString("reordered outgoing adjacency"));
+        assertThat((String) reordered.get("treeView"), containsString("node order"));
+    }
+
+    @Test
+    public void shouldFailForUnknownAlgorithms() {
+        try {
+            memrec("foo", Collections.emptyMap());
+            fail("expected estimation to fail");
+        } catch (QueryExecutionException e) {
+            assertThat(e.getMessage(), containsString("No memory estimation available for 'foo'"));
+        }
+    }
+
+    @Test
+    public void shouldRunPageRankWhenTheGraphFits() {
+        Result result = DB.execute("CALL algo.pageRank('Node', 'TYPE', {graph: 'huge', write: false}) YIELD nodes");
+        assertEquals((long) NODES, result.next().get("nodes"));
+        result.close();
+    }
+
+    private Map<String, Object> memrec(String algo, Map<String, Object> config) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("algo", algo);
+        params.put("config", config);
+        try (Result result = DB.execute("CALL algo.memrec('Node', 'TYPE', $algo, $config)", params)) {
+            return result.next();
+        }
+    }
+}
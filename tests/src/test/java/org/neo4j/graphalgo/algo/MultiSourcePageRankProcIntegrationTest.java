@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.algo;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.neo4j.graphalgo.PageRankProc;
+import org.neo4j.graphalgo.TestDatabaseCreator;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.impl.proc.Procedures;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MultiSourcePageRankProcIntegrationTest {
+
+    private static GraphDatabaseAPI db;
+
+    @Rule
+    public ExpectedException exceptions = ExpectedException.none();
+
+    private static final String DB_CYPHER = "" +
+            "CREATE (a:Label1 {name:\"a\"})\n" +
+            "CREATE (b:Label1 {name:\"b\"})\n" +
+            "CREATE (c:Label1 {name:\"c\"})\n" +
+            "CREATE (d:Label1 {name:\"d\"})\n" +
+            "CREATE (e:Label1 {name:\"e\"})\n" +
+            "CREATE (f:Label1 {name:\"f\"})\n" +
+            "CREATE (g:Label1 {name:\"g\"})\n" +
+            "CREATE (h:Label1 {name:\"h\"})\n" +
+            "CREATE (i:Label1 {name:\"i\"})\n" +
+            "CREATE (j:Label1 {name:\"j\"})\n" +
+            "CREATE\n" +
+            "  (b)-[:TYPE1]->(c),\n" +
+            "  (c)-[:TYPE1]->(b),\n" +
+            "  (d)-[:TYPE1]->(a),\n" +
+            "  (d)-[:TYPE1]->(b),\n" +
+            "  (e)-[:TYPE1]->(b),\n" +
+            "  (e)-[:TYPE1]->(d),\n" +
+            "  (e)-[:TYPE1]->(f),\n" +
+            "  (f)-[:TYPE1]->(b),\n" +
+            "  (f)-[:TYPE1]->(e),\n" +
+            "  (g)-[:TYPE1]->(b),\n" +
+            "  (g)-[:TYPE1]->(e),\n" +
+            "  (h)-[:TYPE1]->(b),\n" +
+            "  (h)-[:TYPE1]->(e),\n" +
+            "  (i)-[:TYPE1]->(b),\n" +
+            "  (i)-[:TYPE1]->(e),\n" +
+            "  (j)-[:TYPE1]->(e)\n";
+
+    @BeforeClass
+    public static void setup() throws KernelException {
+        db = TestDatabaseCreator.createTestDatabase();
+        try (Transaction tx = db.beginTx()) {
+            db.execute(DB_CYPHER).close();
+            tx.success();
+        }
+
+        db.getDependencyResolver()
+                .resolveDependency(Procedures.class)
+                .registerProcedure(PageRankProc.class);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        if (db != null) db.shutdown();
+    }
+
+    @Test
+    public void shouldStreamTheTopNodesOfEverySource() {
+        final Map<Long, List<Double>> actual = new HashMap<>();
+        final Map<Long, List<Long>> actualNodes = new HashMap<>();
+        runQuery(
+                "MATCH (n:Label1) WITH collect(n) AS sources " +
+                "CALL algo.pageRank.multiSource.stream('Label1', 'TYPE1', {sourceNodes:sources, topN:3, sourceBatchSize:4, iterations:40}) " +
+                "YIELD sourceNodeId, nodeId, score RETURN sourceNodeId, nodeId, score",
+                Collections.emptyMap(),
+                row -> {
+                    long source = row.getNumber("sourceNodeId").longValue();
+                    actual.computeIfAbsent(source, k -> new ArrayList<>()).add(row.getNumber("score").doubleValue());
+                    actualNodes.computeIfAbsent(source, k -> new ArrayList<>()).add(row.getNumber("nodeId").longValue());
+                });
+
+        assertEquals(10, actual.size());
+        for (Map.Entry<Long, List<Double>> entry : actual.entrySet()) {
+            List<Double> expected = new ArrayList<>();
+            runQuery(
+                    "MATCH (n) WHERE id(n) = $source " +
+                    "CALL algo.pageRank.stream('Label1', 'TYPE1', {sourceNodes:[n], graph:'huge', iterations:40}) " +
+                    "YIELD score WHERE score > 0 RETURN score ORDER BY score DESC LIMIT 3",
+                    Collections.singletonMap("source", entry.getKey()),
+                    row -> expected.add(row.getNumber("score").doubleValue()));
+
+            List<Double> scores = entry.getValue();
+            assertEquals("source " + entry.getKey(), expected.size(), scores.size());
+            for (int i = 0; i < scores.size(); i++) {
+                assertEquals("source " + entry.getKey(), expected.get(i), scores.get(i), 1e-4);
+            }
+        }
+
+        // every source ranks itself, as it starts with the whole teleport probability
+        for (Map.Entry<Long, List<Long>> entry : actualNodes.entrySet()) {
+            assertTrue("source " + entry.getKey(), entry.getValue().contains(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void shouldOnlySupportHugeGraphs() {
+        exceptions.expect(QueryExecutionException.class);
+        exceptions.expectMessage("The graph algorithm only supports these graph types; [huge]");
+        db.execute("CALL algo.pageRank.multiSource.stream('Label1', 'TYPE1', {graph:'heavy'})").close();
+    }
+
+    @Test
+    public void shouldRejectNonPositiveTopN() {
+        exceptions.expect(QueryExecutionException.class);
+        exceptions.expectMessage("topN must be at least 1, but was 0");
+        db.execute(
+                "MATCH (n:Label1) WITH collect(n) AS sources " +
+                "CALL algo.pageRank.multiSource.stream('Label1', 'TYPE1', {sourceNodes:sources, topN:0}) " +
+                "YIELD nodeId RETURN nodeId").resultAsString();
+    }
+
+    @Test
+    public void shouldRejectNonPositiveSourceBatchSize() {
+        exceptions.expect(QueryExecutionException.class);
+        exceptions.expectMessage("sourceBatchSize must be at least 1, but was -1");
+        db.execute(
+                "MATCH (n:Label1) WITH collect(n) AS sources " +
+                "CALL algo.pageRank.multiSource.stream('Label1', 'TYPE1', {sourceNodes:sources, sourceBatchSize:-1}) " +
+                "YIELD nodeId RETURN nodeId").resultAsString();
+    }
+
+    private static void runQuery(
+            String query,
+            Map<String, Object> params,
+            Consumer<Result.ResultRow> check) {
+        try (Result result = db.execute(query, params)) {
+            result.accept(row -> {
+                check.accept(row);
+                return true;
+            });
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.junit.runners.Parameterized;
 import org.neo4j.graphalgo.PageRankProc;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.Result;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.internal.kernel.api.exceptions.KernelException;
@@ -166,6 +167,24 @@ public class PageRankProcIntegrationTest {
         assertMapEquals(expected, actual);
     }
 
+    @Test
+    public void testPageRankStreamWithEpsilon() throws Exception {
+        final Map<Long, Double> actual = new HashMap<>();
+        runQuery(
+                "CALL algo.pageRank.stream('Label1', 'TYPE1', {epsilon:0.0001, iterations:100, graph:'"+graphImpl+"'}) YIELD nodeId, score",
+                row -> actual.put(
+                        (Long)row.get("nodeId"),
+                        (Double) row.get("score")));
+
+        assertMapEquals(expected, actual);
+    }
+
+    @Test(expected = QueryExecutionException.class)
+    public void shouldRejectNonPositiveEpsilon() {
+        db.execute("CALL algo.pageRank.stream('Label1', 'TYPE1', {epsilon:0.0, graph:'" + graphImpl + "'}) YIELD nodeId")
+                .resultAsString();
+    }
+
     @Test
     public void testWeightedPageRankStream() throws Exception {
         final Map<Long, Double> actual = new HashMap<>();
@@ -271,6 +290,36 @@ public class PageRankProcIntegrationTest {
         assertMapEquals(expected, actual);
     }
 
+    @Test
+    public void testPageRankStopsOnceConverged() throws Exception {
+        runQuery(
+                "CALL algo.pageRank('Label1', 'TYPE1', {write:false, graph:'"+graphImpl+"'}) YIELD iterations, residual",
+                row -> {
+                    assertEquals(20L, row.getNumber("iterations").longValue());
+                    assertTrue(row.getNumber("residual").doubleValue() > 0.0);
+                });
+
+        final long[] iterations = {0L};
+        runQuery(
+                "CALL algo.pageRank('Label1', 'TYPE1', {write:false, tolerance:0.1, graph:'"+graphImpl+"'}) YIELD iterations, residual",
+                row -> {
+                    iterations[0] = row.getNumber("iterations").longValue();
+                    assertTrue(row.getNumber("residual").doubleValue() < 0.1);
+                });
+        assertTrue("iterations: " + iterations[0], iterations[0] > 1L && iterations[0] < 20L);
+
+        // stopping early yields the same scores as asking for fewer iterations
+        final Map<Long, Double> expected = new HashMap<>();
+        runQuery(
+                "CALL algo.pageRank.stream('Label1', 'TYPE1', {iterations:" + iterations[0] + ", graph:'"+graphImpl+"'}) YIELD nodeId, score",
+                row -> expected.put(row.getNumber("nodeId").longValue(), (Double) row.get("score")));
+        final Map<Long, Double> actual = new HashMap<>();
+        runQuery(
+                "CALL algo.pageRank.stream('Label1', 'TYPE1', {tolerance:0.1, graph:'"+graphImpl+"'}) YIELD nodeId, score",
+                row -> actual.put(row.getNumber("nodeId").longValue(), (Double) row.get("score")));
+        assertMapEquals(expected, actual);
+    }
+
     private static void runQuery(
             String query,
             Consumer<Result.ResultRow> check) {
@@ -330,6 +330,36 @@ public class JaccardTest {
         assertFalse(result.hasNext());
     }
 
+    @Test
+    public void parallelJaccardWriteTest() {
+        Map<String, Object> params = map("config", map(
+                "write", true,
+                "similarityCutoff", 0.1,
+                "writeRelationshipType", "SIMILAR_PARALLEL",
+                "writeBatchSize", 1L,
+                "writeConcurrency", 4));
+
+        Map<String, Object> writeRow = db.execute(STATEMENT, params).next();
+        assertEquals(2L, (long) writeRow.get("similarityPairs"));
+
+        String checkSimilaritiesQuery = "MATCH (a)-[similar:SIMILAR_PARALLEL]->(b)" +
+                "RETURN a.name AS node1, b.name as node2, similar.score AS score " +
+                "ORDER BY id(a), id(b)";
+        Result result = db.execute(checkSimilaritiesQuery);
+
+        Map<String, Object> row = result.next();
+        assertEquals("Alice", row.get("node1"));
+        assertEquals("Bob", row.get("node2"));
+        assertEquals((double) row.get("score"), 0.66, 0.01);
+
+        row = result.next();
+        assertEquals("Alice", row.get("node1"));
+        assertEquals("Charlie", row.get("node2"));
+        assertEquals((double) row.get("score"), 0.33, 0.01);
+
+        assertFalse(result.hasNext());
+    }
+
     @Test
     public void dontComputeComputationsByDefault() {
         Map<String, Object> params = map("config", map(
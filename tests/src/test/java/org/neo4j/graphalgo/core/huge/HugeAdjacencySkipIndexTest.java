@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import com.carrotsearch.hppc.LongArrayList;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(Parameterized.class)
+public final class HugeAdjacencySkipIndexTest {
+
+    private static final int NODES = 5000;
+    private static final double DEFAULT_WEIGHT = -1.0;
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setupGraph() {
+        DB.executeAndCommit((GraphDatabaseService db) -> {
+            Random random = new Random(42L);
+            RelationshipType type = RelationshipType.withName("TYPE");
+            Node[] nodes = new Node[NODES];
+            for (int i = 0; i < NODES; i++) {
+                nodes[i] = db.createNode();
+            }
+            // the weight of every relationship is the id of its target
+            Node hub = nodes[random.nextInt(NODES)];
+            hubId = hub.getId();
+            for (Node node : nodes) {
+                if (random.nextInt(10) < 6) {
+                    hub.createRelationshipTo(node, type).setProperty("weight", (double) node.getId());
+                }
+                if (node != hub && random.nextInt(10) < 3) {
+                    node.createRelationshipTo(hub, type).setProperty("weight", (double) hub.getId());
+                }
+                // low degree nodes that stay below the threshold
+                if (node != hub) {
+                    Node other = nodes[random.nextInt(NODES)];
+                    if (other != hub) {
+                        node.createRelationshipTo(other, type).setProperty("weight", (double) other.getId());
+                    }
+                }
+            }
+        });
+    }
+
+    @Parameterized.Parameters(name = "{0}, {1}, threshold={2}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(
+                new Object[]{AdjacencyCodec.VAR_LONG, PageBackend.HEAP, HugeAdjacencySkipIndex.DEFAULT_THRESHOLD},
+                new Object[]{AdjacencyCodec.VAR_LONG, PageBackend.OFF_HEAP, HugeAdjacencySkipIndex.DEFAULT_THRESHOLD},
+                new Object[]{AdjacencyCodec.BLOCK_PACKED, PageBackend.HEAP, HugeAdjacencySkipIndex.DEFAULT_THRESHOLD},
+                new Object[]{AdjacencyCodec.BLOCK_PACKED, PageBackend.OFF_HEAP, HugeAdjacencySkipIndex.DEFAULT_THRESHOLD},
+                new Object[]{AdjacencyCodec.VAR_LONG, PageBackend.HEAP, 0}
+        );
+    }
+
+    @Parameterized.Parameter
+    public AdjacencyCodec codec;
+
+    @Parameterized.Parameter(1)
+    public PageBackend backend;
+
+    @Parameterized.Parameter(2)
+    public int threshold;
+
+    private static long hubId;
+
+    @Test
+    public void shouldOnlyIndexHighDegreeNodes() {
+        HugeGraphImpl graph = loadGraph(false);
+        for (Direction direction : new Direction[]{Direction.OUTGOING, Direction.INCOMING}) {
+            HugeAdjacencySkipIndex skipIndex = graph.adjacency(direction).skipIndex();
+            if (threshold == 0) {
+                assertNull(skipIndex);
+            } else {
+                assertNotNull(skipIndex);
+                assertEquals(1, skipIndex.size());
+                assertNotNull(skipIndex.points(graph.offsets(direction).get(hub(graph))));
+            }
+        }
+    }
+
+    @Test
+    public void shouldFindExistingRelationships() {
+        HugeGraphImpl graph = loadGraph(false);
+        long hub = hub(graph);
+        long[] outgoing = targets(graph, hub, Direction.OUTGOING);
+        long[] incoming = targets(graph, hub, Direction.INCOMING);
+        for (long node = 0L; node < graph.nodeCount(); node++) {
+            boolean out = Arrays.binarySearch(outgoing, node) >= 0;
+            boolean in = Arrays.binarySearch(incoming, node) >= 0;
+            assertEquals(out, graph.exists(hub, node, Direction.OUTGOING));
+            assertEquals(in, graph.exists(hub, node, Direction.INCOMING));
+            assertEquals(out || in, graph.exists(hub, node, Direction.BOTH));
+            assertEquals(out, graph.exists((int) hub, (int) node, Direction.OUTGOING));
+            assertEquals(out, graph.exists(node, hub, Direction.INCOMING));
+        }
+    }
+
+    @Test
+    public void shouldGetTargetsByIndex() {
+        HugeGraphImpl graph = loadGraph(false);
+        long hub = hub(graph);
+        long[] outgoing = targets(graph, hub, Direction.OUTGOING);
+        long[] incoming = targets(graph, hub, Direction.INCOMING);
+        for (int index = 0; index < outgoing.length; index++) {
+            assertEquals(outgoing[index], graph.getTarget(hub, index, Direction.OUTGOING));
+            assertEquals(outgoing[index], graph.getTarget(hub, index, Direction.BOTH));
+        }
+        for (int index = 0; index < incoming.length; index++) {
+            assertEquals(incoming[index], graph.getTarget(hub, index, Direction.INCOMING));
+            assertEquals(incoming[index], graph.getTarget(hub, outgoing.length + index, Direction.BOTH));
+        }
+        assertEquals(-1L, graph.getTarget(hub, outgoing.length, Direction.OUTGOING));
+        assertEquals(-1L, graph.getTarget(hub, outgoing.length + incoming.length, Direction.BOTH));
+    }
+
+    @Test
+    public void shouldAdvanceCursor() {
+        HugeGraphImpl graph = loadGraph(false);
+        long hub = hub(graph);
+        Random random = new Random(42L);
+        for (Direction direction : new Direction[]{Direction.OUTGOING, Direction.INCOMING}) {
+            long[] targets = targets(graph, hub, direction);
+            HugeAdjacencyList adjacency = graph.adjacency(direction);
+            long offset = graph.offsets(direction).get(hub);
+            HugeAdjacencyList.Cursor cursor = adjacency.newCursor();
+            for (int run = 0; run < 50; run++) {
+                adjacency.deltaCursor(cursor, offset);
+                boolean strictly = random.nextBoolean();
+                int position = 0;
+                long target = random.nextInt(NODES / 10);
+                while (position < targets.length) {
+                    if (random.nextInt(5) == 0) {
+                        assertEquals(targets[position++], cursor.nextVLong());
+                        continue;
+                    }
+                    int expected = position;
+                    while (expected < targets.length
+                            && (strictly ? targets[expected] <= target : targets[expected] < target)) {
+                        ++expected;
+                    }
+                    long actual = strictly ? cursor.skipUntil(target) : cursor.advance(target);
+                    if (expected == targets.length) {
+                        assertEquals(targets[targets.length - 1], actual);
+                        position = targets.length;
+                    } else {
+                        assertEquals(targets[expected], actual);
+                        position = expected + 1;
+                    }
+                    assertEquals(targets.length - position, cursor.remaining());
+                    target += random.nextInt(NODES / 5);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldLookupColumnarWeights() {
+        HugeGraphImpl graph = loadGraph(true);
+        long hub = hub(graph);
+        long[] outgoing = targets(graph, hub, Direction.OUTGOING);
+        long[] incoming = targets(graph, hub, Direction.INCOMING);
+        for (long node = 0L; node < graph.nodeCount(); node++) {
+            double expectedOut = Arrays.binarySearch(outgoing, node) >= 0 ? graph.toOriginalNodeId(node) : DEFAULT_WEIGHT;
+            double expectedIn = Arrays.binarySearch(incoming, node) >= 0 ? graph.toOriginalNodeId(hub) : DEFAULT_WEIGHT;
+            assertEquals(expectedOut, graph.weightOf(hub, node), 0.0);
+            assertEquals(expectedIn, graph.weightOf(node, hub), 0.0);
+        }
+    }
+
+    private static long[] targets(HugeGraphImpl graph, long node, Direction direction) {
+        LongArrayList targets = new LongArrayList();
+        graph.forEachRelationship(node, direction, (long source, long target) -> {
+            targets.add(target);
+            return true;
+        });
+        return targets.toArray();
+    }
+
+    private static long hub(HugeGraphImpl graph) {
+        return graph.toHugeMappedNodeId(hubId);
+    }
+
+    private HugeGraphImpl loadGraph(boolean columnarWeights) {
+        return (HugeGraphImpl) new GraphLoader(DB)
+                .withAnyLabel()
+                .withRelationshipType("TYPE")
+                .withDirection(Direction.BOTH)
+                .withRelationshipWeightsFromProperty("weight", DEFAULT_WEIGHT)
+                .withColumnarRelationshipWeights(columnarWeights)
+                .withAdjacencyCodec(codec)
+                .withPageBackend(backend)
+                .withSkipIndexThreshold(threshold)
+                .withAllocationTracker(AllocationTracker.create())
+                .withExecutorService(Pools.DEFAULT)
+                .load(HugeGraphFactory.class);
+    }
+}
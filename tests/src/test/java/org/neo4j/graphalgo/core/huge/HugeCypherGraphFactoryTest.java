@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.neo4j.graphalgo.PropertyMapping;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeCypherGraphFactory;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.graphalgo.core.huge.RandomGraph.originalRelationships;
+
+@RunWith(Parameterized.class)
+public final class HugeCypherGraphFactoryTest {
+
+    private static final int NODES = 1000;
+    private static final int MAX_DEGREE = 10;
+
+    private static final String NODE_STATEMENT =
+            "MATCH (n:Node) RETURN id(n) AS id, n.score AS score";
+    private static final String BATCHED_NODE_STATEMENT =
+            "MATCH (n:Node) WITH n ORDER BY id(n) SKIP $skip LIMIT $limit RETURN id(n) AS id, n.score AS score";
+    private static final String RELATIONSHIP_STATEMENT =
+            "MATCH (a:Node)-[r:TYPE]->(b:Node) RETURN id(a) AS source, id(b) AS target, r.weight AS weight";
+    private static final String BATCHED_RELATIONSHIP_STATEMENT =
+            "MATCH (a:Node)-[r:TYPE]->(b:Node) WITH a, r, b ORDER BY id(r) SKIP $skip LIMIT $limit " +
+            "RETURN id(a) AS source, id(b) AS target, r.weight AS weight";
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setupGraph() {
+        DB.executeAndCommit((GraphDatabaseService db) -> {
+            Random random = new Random(42L);
+            RelationshipType type = RelationshipType.withName("TYPE");
+            Node[] nodes = new Node[NODES];
+            for (int i = 0; i < NODES; i++) {
+                // nodes without the label are not part of the graph and must not be loaded
+                if (random.nextInt(10) == 0) {
+                    db.createNode();
+                }
+                nodes[i] = db.createNode(() -> "Node");
+                if (random.nextBoolean()) {
+                    nodes[i].setProperty("score", random.nextDouble());
+                }
+            }
+            for (int s = 0; s < NODES; s++) {
+                Node source = nodes[s];
+                // parallel relationships, also in the undirected graph, would make
+                // the loaded weight depend on the import order
+                int degree = random.nextInt(MAX_DEGREE);
+                int offset = s + 1 + random.nextInt(100);
+                for (int i = 0; i < degree && offset + i * 7 < NODES; i++) {
+                    Node target = nodes[offset + i * 7];
+                    if (random.nextInt(5) == 0) {
+                        source.createRelationshipTo(target, type);
+                    } else {
+                        source.createRelationshipTo(target, type).setProperty("weight", random.nextDouble());
+                    }
+                }
+            }
+        });
+    }
+
+    @Parameterized.Parameters(name = "batched={0}, columnar={1}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(
+                new Object[]{false, false},
+                new Object[]{false, true},
+                new Object[]{true, false},
+                new Object[]{true, true}
+        );
+    }
+
+    @Parameterized.Parameter
+    public boolean batched;
+
+    @Parameterized.Parameter(1)
+    public boolean columnarWeights;
+
+    @Test
+    public void shouldLoadSameGraphAsLabelAndType() {
+        HugeGraph expected = (HugeGraph) loader(Direction.BOTH, "Node", "TYPE").load(HugeGraphFactory.class);
+        HugeGraph actual = (HugeGraph) cypherLoader(Direction.BOTH).load(HugeCypherGraphFactory.class);
+        assertSameGraph(expected, actual, Direction.OUTGOING, Direction.INCOMING);
+    }
+
+    @Test
+    public void shouldLoadOutgoingRelationships() {
+        HugeGraph expected = (HugeGraph) loader(Direction.OUTGOING, "Node", "TYPE").load(HugeGraphFactory.class);
+        HugeGraph actual = (HugeGraph) cypherLoader(Direction.OUTGOING).load(HugeCypherGraphFactory.class);
+        assertSameGraph(expected, actual, Direction.OUTGOING);
+    }
+
+    @Test
+    public void shouldLoadIncomingRelationships() {
+        HugeGraph expected = (HugeGraph) loader(Direction.INCOMING, "Node", "TYPE").load(HugeGraphFactory.class);
+        HugeGraph actual = (HugeGraph) cypherLoader(Direction.INCOMING).load(HugeCypherGraphFactory.class);
+        assertSameGraph(expected, actual, Direction.INCOMING);
+    }
+
+    @Test
+    public void shouldLoadUndirectedGraph() {
+        HugeGraph expected = (HugeGraph) loader(Direction.OUTGOING, "Node", "TYPE").asUndirected(true).load(HugeGraphFactory.class);
+        HugeGraph actual = (HugeGraph) cypherLoader(Direction.OUTGOING).asUndirected(true).load(HugeCypherGraphFactory.class);
+        assertSameGraph(expected, actual, Direction.OUTGOING);
+    }
+
+    @Test
+    public void shouldImportDuplicateNodesOnce() {
+        HugeGraph graph = (HugeGraph) loader(Direction.OUTGOING,
+                "MATCH (n:Node) RETURN id(n) AS id UNION ALL MATCH (n:Node) RETURN id(n) AS id",
+                RELATIONSHIP_STATEMENT)
+                .load(HugeCypherGraphFactory.class);
+        assertEquals(NODES, graph.nodeCount());
+    }
+
+    private GraphLoader cypherLoader(Direction direction) {
+        return loader(
+                direction,
+                batched ? BATCHED_NODE_STATEMENT : NODE_STATEMENT,
+                batched ? BATCHED_RELATIONSHIP_STATEMENT : RELATIONSHIP_STATEMENT);
+    }
+
+    private GraphLoader loader(Direction direction, String label, String relationship) {
+        return new GraphLoader(DB)
+                .withLabel(label)
+                .withRelationshipType(relationship)
+                .withRelationshipWeightsFromProperty("weight", 1.0)
+                .withColumnarRelationshipWeights(columnarWeights)
+                .withOptionalNodeProperties(PropertyMapping.of("score", "score", 0.5))
+                .withDirection(direction)
+                .withAllocationTracker(AllocationTracker.create())
+                .withExecutorService(Pools.DEFAULT)
+                .withConcurrency(4)
+                .withBatchSize(97);
+    }
+
+    private static void assertSameGraph(HugeGraph expected, HugeGraph actual, Direction... directions) {
+        assertEquals(expected.nodeCount(), actual.nodeCount());
+        expected.forEachNode((long node) -> {
+            long originalId = expected.toOriginalNodeId(node);
+            long actualNode = actual.toHugeMappedNodeId(originalId);
+            assertEquals(originalId, actual.toOriginalNodeId(actualNode));
+            for (Direction direction : directions) {
+                assertEquals(expected.degree(node, direction), actual.degree(actualNode, direction));
+                assertEquals(
+                        originalRelationships(expected, node, direction),
+                        originalRelationships(actual, actualNode, direction));
+            }
+            assertEquals(
+                    expected.hugeNodeProperties("score").nodeWeight(node),
+                    actual.hugeNodeProperties("score").nodeWeight(actualNode),
+                    0.0);
+            return true;
+        });
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.RelationshipIntersect;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphSnapshot;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.graphalgo.core.huge.RandomGraph.relationships;
+
+@RunWith(Parameterized.class)
+public final class HugeGraphCodecTest {
+
+    private static final int NODES = 1000;
+    // large enough for several blocks per adjacency list
+    private static final int MAX_DEGREE = 300;
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setupGraph() {
+        RandomGraph.of(NODES, MAX_DEGREE).create(DB);
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(
+                new Object[]{PageBackend.HEAP},
+                new Object[]{PageBackend.OFF_HEAP}
+        );
+    }
+
+    @Parameterized.Parameter
+    public PageBackend backend;
+
+    @Test
+    public void shouldDecodeSameRelationshipsAsVarLongs() {
+        HugeGraph expected = loadGraph(AdjacencyCodec.VAR_LONG, PageBackend.HEAP, false);
+        HugeGraph actual = loadGraph(AdjacencyCodec.BLOCK_PACKED, backend, false);
+        assertSameGraph(expected, actual);
+    }
+
+    @Test
+    public void shouldIntersectLikeVarLongs() {
+        HugeGraph expected = loadGraph(AdjacencyCodec.VAR_LONG, PageBackend.HEAP, true);
+        HugeGraph actual = loadGraph(AdjacencyCodec.BLOCK_PACKED, backend, true);
+        List<String> triangles = triangles(expected);
+        assertFalse(triangles.isEmpty());
+        assertEquals(triangles, triangles(actual));
+    }
+
+    @Test
+    public void shouldKeepCodecInSnapshot() throws Exception {
+        HugeGraph graph = loadGraph(AdjacencyCodec.BLOCK_PACKED, backend, false);
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            HugeGraphSnapshot.write(graph, file);
+            HugeGraph restored = HugeGraphSnapshot.read(file, PageBackend.HEAP, AllocationTracker.EMPTY);
+            assertEquals(AdjacencyCodec.BLOCK_PACKED, ((HugeGraphImpl) restored).adjacency(Direction.OUTGOING).codec());
+            assertSameGraph(graph, restored);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void assertSameGraph(HugeGraph expected, HugeGraph actual) {
+        assertEquals(expected.nodeCount(), actual.nodeCount());
+        Random random = new Random(23L);
+        expected.forEachNode((long node) -> {
+            for (Direction direction : new Direction[]{Direction.OUTGOING, Direction.INCOMING}) {
+                assertEquals(expected.degree(node, direction), actual.degree(node, direction));
+                assertEquals(relationships(expected, node, direction), relationships(actual, node, direction));
+            }
+            expected.forEachOutgoing(node, (source, target) -> {
+                assertTrue(actual.exists(source, target, Direction.OUTGOING));
+                assertEquals(expected.weightOf(source, target), actual.weightOf(source, target), 0.0);
+                return true;
+            });
+            long other = random.nextInt(NODES);
+            assertEquals(
+                    expected.exists(node, other, Direction.OUTGOING),
+                    actual.exists(node, other, Direction.OUTGOING));
+            assertEquals(expected.weightOf(node, other), actual.weightOf(node, other), 0.0);
+            return true;
+        });
+        assertFalse(actual.exists(0L, NODES, Direction.OUTGOING));
+    }
+
+    private static List<String> triangles(HugeGraph graph) {
+        List<String> triangles = new ArrayList<>();
+        RelationshipIntersect intersect = graph.intersection();
+        graph.forEachNode((long node) -> {
+            intersect.intersectAll(node, (a, b, c) -> triangles.add(a + "," + b + "," + c));
+            return true;
+        });
+        return triangles;
+    }
+
+    private HugeGraph loadGraph(AdjacencyCodec codec, PageBackend backend, boolean undirected) {
+        GraphLoader loader = new GraphLoader(DB)
+                .withAdjacencyCodec(codec)
+                .withPageBackend(backend)
+                .withAllocationTracker(AllocationTracker.create())
+                .withExecutorService(Pools.DEFAULT);
+        if (undirected) {
+            loader.asUndirected(true);
+        } else {
+            loader.withRelationshipWeightsFromProperty("weight", 0.0)
+                    .withColumnarRelationshipWeights(true)
+                    .withDirection(Direction.BOTH);
+        }
+        return (HugeGraph) loader.load(HugeGraphFactory.class);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.graphalgo.core.huge.RandomGraph.relationships;
+
+@RunWith(Parameterized.class)
+public final class HugeGraphDegreeCountingTest {
+
+    private static final int NODES = 2000;
+    private static final int MAX_DEGREE = 50;
+    // more relationships than fit into a single scanned batch
+    private static final int HUB_DEGREE = 40_000;
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setupGraph() {
+        long[] nodes = RandomGraph.of(NODES, MAX_DEGREE).withTypes("TYPE", "OTHER").create(DB);
+        DB.executeAndCommit((GraphDatabaseService db) -> {
+            Random random = new Random(42L);
+            RelationshipType type = RelationshipType.withName("TYPE");
+            Node hub = db.getNodeById(nodes[0]);
+            for (int i = 0; i < HUB_DEGREE; i++) {
+                db.getNodeById(nodes[i % NODES]).createRelationshipTo(hub, type).setProperty("weight", random.nextDouble());
+            }
+        });
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(
+                new Object[]{AdjacencyCodec.VAR_LONG},
+                new Object[]{AdjacencyCodec.BLOCK_PACKED}
+        );
+    }
+
+    @Parameterized.Parameter
+    public AdjacencyCodec codec;
+
+    @Test
+    public void shouldLoadSameGraphWithColumnarWeights() {
+        assertSameGraph(Direction.BOTH, loader -> loader
+                .withRelationshipWeightsFromProperty("weight", 0.0)
+                .withColumnarRelationshipWeights(true)
+                .withDirection(Direction.BOTH));
+    }
+
+    @Test
+    public void shouldLoadSameGraphWithWeightMap() {
+        assertSameGraph(Direction.INCOMING, loader -> loader
+                .withRelationshipWeightsFromProperty("weight", 0.0)
+                .withDirection(Direction.INCOMING));
+    }
+
+    @Test
+    public void shouldLoadSameUndirectedGraph() {
+        assertSameGraph(Direction.OUTGOING, loader -> loader.asUndirected(true));
+    }
+
+    @Test
+    public void shouldLoadSameGraphForSeveralTypes() {
+        assertSameGraph(Direction.OUTGOING, loader -> loader
+                .withRelationshipType("TYPE | OTHER")
+                .withDirection(Direction.OUTGOING));
+    }
+
+    private void assertSameGraph(Direction loaded, Consumer<GraphLoader> setup) {
+        HugeGraph expected = loadGraph(setup, false);
+        HugeGraph actual = loadGraph(setup, true);
+
+        assertEquals(expected.nodeCount(), actual.nodeCount());
+        Direction[] directions = loaded == Direction.BOTH
+                ? new Direction[]{Direction.OUTGOING, Direction.INCOMING}
+                : new Direction[]{loaded};
+        expected.forEachNode((long node) -> {
+            for (Direction direction : directions) {
+                assertEquals(expected.degree(node, direction), actual.degree(node, direction));
+                assertEquals(relationships(expected, node, direction), relationships(actual, node, direction));
+            }
+            return true;
+        });
+    }
+
+    private HugeGraph loadGraph(Consumer<GraphLoader> setup, boolean countDegrees) {
+        GraphLoader loader = new GraphLoader(DB)
+                .withAdjacencyCodec(codec)
+                .withDegreeCounting(countDegrees)
+                .withAllocationTracker(AllocationTracker.create())
+                .withExecutorService(Pools.DEFAULT);
+        setup.accept(loader);
+        return (HugeGraph) loader.load(HugeGraphFactory.class);
+    }
+}
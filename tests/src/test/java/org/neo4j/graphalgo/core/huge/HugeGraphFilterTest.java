@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.neo4j.graphalgo.PropertyMapping;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFilter;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoublePredicate;
+import java.util.function.LongPredicate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+public final class HugeGraphFilterTest {
+
+    // more than one range of the parallel rewrite
+    private static final int NODES = 40_000;
+    private static final int MAX_DEGREE = 6;
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setupGraph() {
+        RandomGraph.of(NODES, MAX_DEGREE).withScores("score").create(DB);
+    }
+
+    @Parameterized.Parameters(name = "columnar={0}, concurrency={1}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(
+                new Object[]{false, 1},
+                new Object[]{false, 4},
+                new Object[]{true, 4}
+        );
+    }
+
+    @Parameterized.Parameter
+    public boolean columnarWeights;
+
+    @Parameterized.Parameter(1)
+    public int concurrency;
+
+    @Test
+    public void shouldKeepMatchingNodesAndRelationships() {
+        HugeGraphImpl parent = loadGraph();
+        HugeWeightMapping scores = parent.hugeNodeProperties("score");
+        LongPredicate nodeFilter = node -> scores.nodeWeight(node) >= 0.5;
+        DoublePredicate relationshipFilter = weight -> weight >= 0.25;
+
+        HugeGraphImpl filtered = HugeGraphFilter.filter(
+                parent, nodeFilter, relationshipFilter, PageBackend.HEAP, concurrency, Pools.DEFAULT, AllocationTracker.EMPTY);
+
+        long expectedNodes = 0L;
+        for (long node = 0L; node < parent.nodeCount(); node++) {
+            if (nodeFilter.test(node)) {
+                long newId = filtered.toHugeMappedNodeId(parent.toOriginalNodeId(node));
+                assertEquals(expectedNodes++, newId);
+                assertEquals(scores.nodeWeight(node), filtered.hugeNodeProperties("score").nodeWeight(newId), 0.0);
+                for (Direction direction : new Direction[]{Direction.OUTGOING, Direction.INCOMING}) {
+                    List<String> expected = relationships(parent, node, direction, nodeFilter, relationshipFilter);
+                    List<String> actual = relationships(filtered, newId, direction, n -> true, w -> true);
+                    assertEquals(expected, actual);
+                }
+            } else {
+                assertEquals(-1L, filtered.toHugeMappedNodeId(parent.toOriginalNodeId(node)));
+            }
+        }
+        assertEquals(expectedNodes, filtered.nodeCount());
+        assertTrue(filtered.hasRelationshipWeights());
+    }
+
+    @Test
+    public void shouldKeepAllRelationshipsWithoutRelationshipFilter() {
+        HugeGraphImpl parent = loadGraph();
+
+        HugeGraphImpl filtered = HugeGraphFilter.filter(
+                parent, node -> true, null, PageBackend.HEAP, concurrency, Pools.DEFAULT, AllocationTracker.EMPTY);
+
+        assertEquals(parent.nodeCount(), filtered.nodeCount());
+        parent.forEachNode((long node) -> {
+            for (Direction direction : new Direction[]{Direction.OUTGOING, Direction.INCOMING}) {
+                assertEquals(parent.degree(node, direction), filtered.degree(node, direction));
+                assertEquals(
+                        relationships(parent, node, direction, n -> true, w -> true),
+                        relationships(filtered, node, direction, n -> true, w -> true));
+            }
+            return true;
+        });
+    }
+
+    private static List<String> relationships(
+            HugeGraph graph,
+            long node,
+            Direction direction,
+            LongPredicate nodeFilter,
+            DoublePredicate relationshipFilter) {
+        List<String> relationships = new ArrayList<>();
+        graph.forEachRelationship(node, direction, (long source, long target, double weight) -> {
+            if (nodeFilter.test(target) && relationshipFilter.test(weight)) {
+                relationships.add(graph.toOriginalNodeId(source) + "->" + graph.toOriginalNodeId(target) + ":" + weight);
+            }
+            return true;
+        });
+        Collections.sort(relationships);
+        return relationships;
+    }
+
+    private HugeGraphImpl loadGraph() {
+        return (HugeGraphImpl) new GraphLoader(DB)
+                .withRelationshipWeightsFromProperty("weight", 1.0)
+                .withColumnarRelationshipWeights(columnarWeights)
+                .withOptionalNodeProperties(PropertyMapping.of("score", "score", 0.0))
+                .withDirection(Direction.BOTH)
+                .withExecutorService(Pools.DEFAULT)
+                .load(HugeGraphFactory.class);
+    }
+}
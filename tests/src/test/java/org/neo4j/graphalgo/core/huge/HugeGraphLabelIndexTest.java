@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.graphalgo.PropertyMapping;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Loads a label that only few nodes carry, which reads the nodes from the label index
+ * and traverses their relationships instead of scanning the stores.
+ */
+public final class HugeGraphLabelIndexTest {
+
+    private static final int NODES = 10_000;
+    // every 40th node is labelled, well below the selectivity that switches to the label index
+    private static final int RARE_EVERY = 40;
+    private static final int MAX_DEGREE = 20;
+    // above the threshold of dense nodes, whose relationships are kept in groups
+    private static final int HUB_DEGREE = 200;
+
+    private static final Label RARE = Label.label("Rare");
+    private static final RelationshipType TYPE = RelationshipType.withName("TYPE");
+    private static final RelationshipType OTHER = RelationshipType.withName("OTHER");
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setup() {
+        DB.executeAndCommit((GraphDatabaseService db) -> {
+            Random random = new Random(42L);
+            Node[] nodes = new Node[NODES];
+            for (int i = 0; i < NODES; i++) {
+                nodes[i] = db.createNode();
+                if (i % RARE_EVERY == 0) {
+                    nodes[i].addLabel(RARE);
+                    nodes[i].setProperty("score", (double) i);
+                }
+            }
+            Set<Long> pairs = new HashSet<>();
+            for (int i = 0; i < NODES; i++) {
+                int degree = random.nextInt(MAX_DEGREE);
+                for (int j = 0; j < degree; j++) {
+                    // prefer labelled targets, so that the loaded graph has a fair share of relationships
+                    int target = random.nextBoolean()
+                            ? random.nextInt(NODES / RARE_EVERY) * RARE_EVERY
+                            : random.nextInt(NODES);
+                    connect(nodes, pairs, random, i, target);
+                }
+            }
+            for (int i = 0; i < HUB_DEGREE; i++) {
+                connect(nodes, pairs, random, RARE_EVERY, i * RARE_EVERY % NODES);
+                connect(nodes, pairs, random, i * RARE_EVERY % NODES, RARE_EVERY);
+            }
+        });
+    }
+
+    // every pair of nodes is connected at most once, so that the expected weights are unambiguous
+    private static void connect(Node[] nodes, Set<Long> pairs, Random random, int source, int target) {
+        if (pairs.add((long) source * NODES + target)) {
+            Relationship rel = nodes[source].createRelationshipTo(nodes[target], random.nextBoolean() ? TYPE : OTHER);
+            rel.setProperty("weight", random.nextDouble());
+        }
+    }
+
+    @Test
+    public void shouldLoadOutgoingRelationshipsWithWeights() {
+        HugeGraph graph = load(loader -> loader
+                .withRelationshipType("TYPE")
+                .withRelationshipWeightsFromProperty("weight", 0.0)
+                .withDirection(Direction.OUTGOING));
+        assertGraph(graph, "TYPE", Direction.OUTGOING, true);
+    }
+
+    @Test
+    public void shouldLoadBothDirections() {
+        HugeGraph graph = load(loader -> loader
+                .withRelationshipType("OTHER")
+                .withRelationshipWeightsFromProperty("weight", 0.0)
+                .withColumnarRelationshipWeights(true)
+                .withDirection(Direction.BOTH));
+        assertGraph(graph, "OTHER", Direction.OUTGOING, true);
+        assertGraph(graph, "OTHER", Direction.INCOMING, true);
+    }
+
+    @Test
+    public void shouldLoadUndirectedGraph() {
+        HugeGraph graph = load(loader -> loader
+                .withRelationshipType("TYPE")
+                .asUndirected(true));
+        assertGraph(graph, "TYPE", Direction.BOTH, false);
+    }
+
+    @Test
+    public void shouldLoadSeveralTypes() {
+        HugeGraph graph = load(loader -> loader
+                .withRelationshipType("TYPE | OTHER")
+                .withDirection(Direction.OUTGOING));
+        assertGraph(graph, "TYPE|OTHER", Direction.OUTGOING, false);
+    }
+
+    @Test
+    public void shouldLoadWithDegreeCounting() {
+        HugeGraph graph = load(loader -> loader
+                .withAnyRelationshipType()
+                .withRelationshipWeightsFromProperty("weight", 0.0)
+                .withDegreeCounting(true)
+                .withDirection(Direction.INCOMING));
+        assertGraph(graph, "TYPE|OTHER", Direction.INCOMING, true);
+    }
+
+    @Test
+    public void shouldLoadNodeProperties() {
+        HugeGraph graph = load(loader -> loader
+                .withOptionalNodeProperties(PropertyMapping.of("score", "score", 0D))
+                .withAnyRelationshipType());
+        HugeWeightMapping scores = (HugeWeightMapping) graph.nodeProperties("score");
+        graph.forEachNode((long node) -> {
+            long neoId = graph.toOriginalNodeId(node);
+            assertEquals(0L, neoId % RARE_EVERY);
+            assertEquals((double) neoId, scores.nodeWeight(node), 0.0);
+            return true;
+        });
+    }
+
+    private static HugeGraph load(Consumer<GraphLoader> setup) {
+        GraphLoader loader = new GraphLoader(DB)
+                .withLabel("Rare")
+                .withAllocationTracker(AllocationTracker.create())
+                .withExecutorService(Pools.DEFAULT)
+                .withConcurrency(4);
+        setup.accept(loader);
+        HugeGraph graph = (HugeGraph) loader.load(HugeGraphFactory.class);
+        assertEquals(NODES / RARE_EVERY, graph.nodeCount());
+        return graph;
+    }
+
+    private static void assertGraph(HugeGraph graph, String types, Direction direction, boolean weighted) {
+        Map<Long, Set<String>> expected = expectedRelationships(types, direction, weighted);
+        // undirected graphs keep the relationships of both directions as outgoing relationships
+        Direction traversed = direction == Direction.BOTH ? Direction.OUTGOING : direction;
+        long[] relationships = {0L};
+        graph.forEachNode((long node) -> {
+            Set<String> actual = new HashSet<>();
+            graph.forEachRelationship(node, traversed, (long source, long target, double weight) -> {
+                actual.add(graph.toOriginalNodeId(target) + (weighted ? ":" + weight : ""));
+                return true;
+            });
+            relationships[0] += actual.size();
+            assertEquals(
+                    expected.getOrDefault(graph.toOriginalNodeId(node), new HashSet<>()),
+                    actual);
+            return true;
+        });
+        assertTrue(relationships[0] > HUB_DEGREE);
+    }
+
+    private static Map<Long, Set<String>> expectedRelationships(String types, Direction direction, boolean weighted) {
+        Map<Long, Set<String>> expected = new HashMap<>();
+        DB.execute("MATCH (a:Rare)-[r:" + types + "]->(b:Rare) RETURN id(a) AS source, id(b) AS target, r.weight AS weight")
+                .accept(row -> {
+                    long source = row.getNumber("source").longValue();
+                    long target = row.getNumber("target").longValue();
+                    String weight = weighted ? ":" + row.getNumber("weight").doubleValue() : "";
+                    if (direction != Direction.INCOMING) {
+                        expected.computeIfAbsent(source, ignore -> new HashSet<>()).add(target + weight);
+                    }
+                    if (direction != Direction.OUTGOING) {
+                        expected.computeIfAbsent(target, ignore -> new HashSet<>()).add(source + weight);
+                    }
+                    return true;
+                });
+        return expected;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.graphalgo.core.huge.RandomGraph.relationships;
+
+@RunWith(Parameterized.class)
+public final class HugeGraphPageBackendTest {
+
+    private static final int NODES = 1000;
+    private static final int MAX_DEGREE = 200;
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule HUB_DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setupGraphs() {
+        RandomGraph.of(NODES, MAX_DEGREE).create(DB);
+        // the weights of the hub do not fit into a single page and the leaves need more than one page
+        HUB_DB.execute("CREATE (h:Hub) WITH h UNWIND range(1, 70000) AS i " +
+                "CREATE (h)-[:HUB {weight: i}]->(:Leaf)").close();
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(
+                new Object[]{PageBackend.OFF_HEAP},
+                new Object[]{PageBackend.MAPPED}
+        );
+    }
+
+    @Parameterized.Parameter
+    public PageBackend backend;
+
+    @Test
+    public void shouldDecodeSameRelationshipsAsHeapPages() {
+        HugeGraph expected = loadGraph(PageBackend.HEAP, AllocationTracker.EMPTY);
+        AllocationTracker tracker = AllocationTracker.create();
+        HugeGraph actual = loadGraph(backend, tracker);
+
+        assertEquals(NODES, actual.nodeCount());
+        assertSameGraph(expected, actual);
+        expected.release();
+    }
+
+    @Test
+    public void shouldMoveFullPagesWhileTheAdjacencyIsBuilt() {
+        HugeGraph expected = loadGraph(HUB_DB, PageBackend.HEAP, AllocationTracker.EMPTY);
+        HugeGraph actual = loadGraph(HUB_DB, backend, AllocationTracker.create());
+
+        assertSameGraph(expected, actual);
+        expected.release();
+        actual.release();
+    }
+
+    private static void assertSameGraph(HugeGraph expected, HugeGraph actual) {
+        expected.forEachNode((long node) -> {
+            for (Direction direction : new Direction[]{Direction.OUTGOING, Direction.INCOMING}) {
+                assertEquals(expected.degree(node, direction), actual.degree(node, direction));
+                assertEquals(relationships(expected, node, direction), relationships(actual, node, direction));
+            }
+            expected.forEachOutgoing(node, (source, target) -> {
+                assertTrue(actual.exists(source, target, Direction.OUTGOING));
+                assertEquals(expected.weightOf(source, target), actual.weightOf(source, target), 0.0);
+                return true;
+            });
+            return true;
+        });
+    }
+
+    @Test
+    public void shouldTrackOffHeapMemorySeparately() {
+        AllocationTracker tracker = AllocationTracker.create();
+        HugeGraph graph = loadGraph(backend, tracker);
+
+        assertTrue(tracker.trackedOffHeap() > 0L);
+        assertTrue(tracker.getUsageString().contains("off-heap"));
+
+        graph.release();
+        assertEquals(0L, tracker.trackedOffHeap());
+    }
+
+    private HugeGraph loadGraph(PageBackend backend, AllocationTracker tracker) {
+        return loadGraph(DB, backend, tracker);
+    }
+
+    private HugeGraph loadGraph(ImpermanentDatabaseRule db, PageBackend backend, AllocationTracker tracker) {
+        return (HugeGraph) new GraphLoader(db)
+                .withRelationshipWeightsFromProperty("weight", 0.0)
+                .withColumnarRelationshipWeights(true)
+                .withDirection(Direction.BOTH)
+                .withPageBackend(backend)
+                .withAllocationTracker(tracker)
+                .withExecutorService(Pools.DEFAULT)
+                .load(HugeGraphFactory.class);
+    }
+}
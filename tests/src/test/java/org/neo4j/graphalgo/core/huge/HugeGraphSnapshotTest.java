@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.neo4j.graphalgo.PropertyMapping;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeWeightMapping;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphSnapshot;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.graphalgo.core.huge.RandomGraph.relationships;
+
+@RunWith(Parameterized.class)
+public final class HugeGraphSnapshotTest {
+
+    private static final int NODES = 500;
+    private static final int MAX_DEGREE = 100;
+    // weights of the hub do not fit into a single page and must be stored in an oversized one
+    private static final int HUB_DEGREE = 40_000;
+    private static final RelationshipType TYPE = RelationshipType.withName("TYPE");
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setupGraph() {
+        long[] nodes = RandomGraph.of(NODES, MAX_DEGREE).withScores("score").create(DB);
+        DB.executeAndCommit((GraphDatabaseService db) -> {
+            Random random = new Random(42L);
+            for (int i = 0; i < NODES; i++) {
+                // larger than the integers that a double can represent exactly
+                db.getNodeById(nodes[i]).setProperty("seed", (1L << 60) + i);
+            }
+            Node hub = db.createNode();
+            for (int i = 0; i < HUB_DEGREE; i++) {
+                Node target = i < NODES ? db.getNodeById(nodes[i]) : db.createNode();
+                hub.createRelationshipTo(target, TYPE).setProperty("weight", random.nextDouble());
+            }
+        });
+    }
+
+    @Parameterized.Parameters(name = "{0}, columnar={1}")
+    public static Collection<Object[]> data() {
+        List<Object[]> data = new ArrayList<>();
+        for (PageBackend backend : PageBackend.values()) {
+            data.add(new Object[]{backend, false});
+            data.add(new Object[]{backend, true});
+        }
+        return data;
+    }
+
+    @Parameterized.Parameter
+    public PageBackend backend;
+
+    @Parameterized.Parameter(1)
+    public boolean columnarWeights;
+
+    @Test
+    public void shouldRestoreSavedGraph() throws IOException {
+        HugeGraph expected = loadGraph();
+        File file = folder.newFile();
+
+        long bytes = HugeGraphSnapshot.write(expected, file.toPath());
+        assertEquals(file.length(), bytes);
+
+        AllocationTracker tracker = AllocationTracker.create();
+        HugeGraph actual = HugeGraphSnapshot.read(file.toPath(), backend, tracker);
+
+        assertEquals(expected.nodeCount(), actual.nodeCount());
+        assertEquals(expected.availableNodeProperties(), actual.availableNodeProperties());
+        expected.forEachNode((long node) -> {
+            long originalId = expected.toOriginalNodeId(node);
+            assertEquals(originalId, actual.toOriginalNodeId(node));
+            assertEquals(node, actual.toHugeMappedNodeId(originalId));
+            for (String property : expected.availableNodeProperties()) {
+                HugeWeightMapping expectedProperties = expected.hugeNodeProperties(property);
+                HugeWeightMapping actualProperties = actual.hugeNodeProperties(property);
+                assertEquals(expectedProperties.nodeWeight(node), actualProperties.nodeWeight(node), 0.0);
+                assertEquals(expectedProperties.nodeLongValue(node, -1L), actualProperties.nodeLongValue(node, -1L));
+            }
+            for (Direction direction : new Direction[]{Direction.OUTGOING, Direction.INCOMING}) {
+                assertEquals(expected.degree(node, direction), actual.degree(node, direction));
+                assertEquals(relationships(expected, node, direction), relationships(actual, node, direction));
+            }
+            expected.forEachOutgoing(node, (source, target) -> {
+                assertEquals(expected.weightOf(source, target), actual.weightOf(source, target), 0.0);
+                return true;
+            });
+            return true;
+        });
+
+        if (backend != PageBackend.HEAP) {
+            assertTrue(tracker.trackedOffHeap() > 0L);
+        }
+        actual.release();
+        assertEquals(0L, tracker.trackedOffHeap());
+    }
+
+    @Test
+    public void shouldOverwriteTheSnapshotOfARestoredGraph() throws IOException {
+        File file = folder.newFile();
+        HugeGraphSnapshot.write(loadGraph(), file.toPath());
+        HugeGraph restored = HugeGraphSnapshot.read(file.toPath(), backend, AllocationTracker.EMPTY);
+        List<String> before = relationships(restored, 0L, Direction.OUTGOING);
+
+        // a mapped graph still reads from the file that is replaced here
+        HugeGraphSnapshot.write(restored, file.toPath());
+
+        assertEquals(before, relationships(restored, 0L, Direction.OUTGOING));
+        HugeGraph again = HugeGraphSnapshot.read(file.toPath(), backend, AllocationTracker.EMPTY);
+        assertEquals(before, relationships(again, 0L, Direction.OUTGOING));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void shouldRejectUnknownVersion() throws IOException {
+        File file = folder.newFile();
+        HugeGraphSnapshot.write(loadGraph(), file.toPath());
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4L);
+            raf.writeInt(Integer.reverseBytes(HugeGraphSnapshot.VERSION + 1));
+        }
+        try {
+            HugeGraphSnapshot.read(file.toPath(), backend, AllocationTracker.EMPTY);
+            fail("expected version check to fail");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Unsupported snapshot version"));
+        }
+    }
+
+    private HugeGraph loadGraph() {
+        return (HugeGraph) new GraphLoader(DB)
+                .withRelationshipWeightsFromProperty("weight", 1.0)
+                .withColumnarRelationshipWeights(columnarWeights)
+                .withOptionalNodeProperties(
+                        PropertyMapping.of("score", "score", 0.5),
+                        PropertyMapping.of("seed", "seed", 0.0),
+                        PropertyMapping.of("missing", "missing", 0.25))
+                .withDirection(Direction.BOTH)
+                .withExecutorService(Pools.DEFAULT)
+                .load(HugeGraphFactory.class);
+    }
+}
@@ -65,6 +65,90 @@ public final class HugeGraphWeightTest {
         });
     }
 
+    @Test
+    public void shouldLoadCorrectColumnarWeights() throws Exception {
+        mkDb(WEIGHT_BATCH_SIZE << 1, 2);
+        HugeGraph graph = loadGraph(db, Direction.BOTH, true);
+
+        graph.forEachNode((long node) -> {
+            graph.forEachRelationship(node, Direction.OUTGOING, (long src, long tgt, double weight) -> {
+                int fakeId = ((int) src << 16) | (int) tgt & 0xFFFF;
+                assertEquals(
+                        "Wrong weight for (" + src + ")->(" + tgt + ")",
+                        fakeId, (long) weight);
+                assertEquals(
+                        "Wrong weight lookup for (" + src + ")->(" + tgt + ")",
+                        fakeId, (long) graph.weightOf(src, tgt));
+                return true;
+            });
+            graph.forEachRelationship(node, Direction.INCOMING, (long tgt, long src, double weight) -> {
+                int fakeId = ((int) src << 16) | (int) tgt & 0xFFFF;
+                assertEquals(
+                        "Wrong weight for (" + src + ")->(" + tgt + ")",
+                        fakeId, (long) weight);
+                return true;
+            });
+            return true;
+        });
+    }
+
+    @Test
+    public void shouldReturnDefaultForMissingColumnarWeights() throws Exception {
+        mkDb(WEIGHT_BATCH_SIZE, 1);
+        HugeGraph graph = loadGraph(db, Direction.OUTGOING, true);
+
+        graph.forEachNode((long node) -> {
+            graph.forEachRelationship(node, Direction.OUTGOING, (long src, long tgt, double weight) -> {
+                assertEquals(weight, graph.weightOf(src, tgt), 0.0);
+                assertEquals(0.0, graph.weightOf(src, src), 0.0);
+                return true;
+            });
+            return true;
+        });
+    }
+
+    @Test
+    public void shouldKeepTheLastWeightOfParallelRelationships() throws Exception {
+        int sources = 3, targets = 5, rounds = 50;
+        db.executeAndCommit((GraphDatabaseService __) -> {
+            try (KernelTransaction st = db.transaction()) {
+                int type = st.tokenWrite().relationshipTypeGetOrCreateForName("TYPE");
+                int key = st.tokenWrite().propertyKeyGetOrCreateForName("weight");
+                Write write = st.dataWrite();
+                long[] nodeIds = new long[sources + targets];
+                for (int i = 0; i < nodeIds.length; i++) {
+                    nodeIds[i] = write.nodeCreate();
+                }
+                // more parallel relationships than are sorted by insertion, with a different weight each
+                for (int round = 0; round < rounds; round++) {
+                    for (int source = 0; source < sources; source++) {
+                        for (int target = 0; target < targets; target++) {
+                            long rel = write.relationshipCreate(nodeIds[source], type, nodeIds[sources + target]);
+                            write.relationshipSetProperty(rel, key, Values.intValue(round * 100 + target));
+                        }
+                    }
+                }
+                st.success();
+            } catch (KernelException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        HugeGraph weightMap = loadGraph(db, Direction.OUTGOING, false, 1);
+        HugeGraph columnar = loadGraph(db, Direction.OUTGOING, true, 1);
+
+        for (long node = 0L; node < sources; node++) {
+            assertEquals(targets, weightMap.degree(node, Direction.OUTGOING));
+            assertEquals(targets, columnar.degree(node, Direction.OUTGOING));
+            columnar.forEachRelationship(node, Direction.OUTGOING, (long src, long tgt, double weight) -> {
+                double last = (rounds - 1) * 100 + tgt - sources;
+                assertEquals("(" + src + ")->(" + tgt + ")", last, weight, 0.0);
+                assertEquals("(" + src + ")->(" + tgt + ")", last, columnar.weightOf(src, tgt), 0.0);
+                assertEquals("(" + src + ")->(" + tgt + ")", last, weightMap.weightOf(src, tgt), 0.0);
+                return true;
+            });
+        }
+    }
+
     @Test(timeout = 10000)
     public void shouldLoadMoreWeights() throws Exception {
         mkDb(WEIGHT_BATCH_SIZE, 4);
@@ -100,6 +184,7 @@ public final class HugeGraphWeightTest {
                         }
                     }
                 }
+                st.success();
             } catch (KernelException e) {
                 throw new RuntimeException(e);
             }
@@ -107,10 +192,20 @@ public final class HugeGraphWeightTest {
     }
 
     private HugeGraph loadGraph(final GraphDatabaseAPI db) {
+        return loadGraph(db, Direction.OUTGOING, false);
+    }
+
+    private HugeGraph loadGraph(final GraphDatabaseAPI db, Direction direction, boolean columnarWeights) {
+        return loadGraph(db, direction, columnarWeights, Pools.DEFAULT_CONCURRENCY);
+    }
+
+    private HugeGraph loadGraph(final GraphDatabaseAPI db, Direction direction, boolean columnarWeights, int concurrency) {
         return (HugeGraph) new GraphLoader(db)
                 .withRelationshipWeightsFromProperty("weight", 0)
-                .withDirection(Direction.OUTGOING)
+                .withDirection(direction)
+                .withColumnarRelationshipWeights(columnarWeights)
                 .withExecutorService(Pools.DEFAULT)
+                .withConcurrency(concurrency)
                 .withBatchSize(BATCH_SIZE)
                 .load(HugeGraphFactory.class);
     }
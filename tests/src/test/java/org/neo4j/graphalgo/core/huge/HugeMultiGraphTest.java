@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.graphalgo.api.Graph;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.RelationshipIntersect;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.loading.LoadGraphFactory;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HugeMultiGraphTest {
+
+    @ClassRule
+    public static ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    private static long idA;
+    private static long idB;
+    private static long idC;
+    private static long idD;
+
+    @BeforeClass
+    public static void setup() {
+        DB.execute("CREATE " +
+                "(a:Node {name: 'a'})," +
+                "(b:Node {name: 'b'})," +
+                "(c:Node {name: 'c'})," +
+                "(d:Node {name: 'd'})" +
+                "CREATE " +
+                "(a)-[:REL_A {w: 1}]->(b)," +
+                "(a)-[:REL_A {w: 1}]->(c)," +
+                "(a)-[:REL_B {w: 2}]->(c)," +
+                "(b)-[:REL_B {w: 2}]->(d)," +
+                "(c)-[:REL_C {w: 3}]->(d)," +
+                "(b)-[:REL_C {w: 3}]->(c);");
+        idA = id("a");
+        idB = id("b");
+        idC = id("c");
+        idD = id("d");
+    }
+
+    private static long id(String name) {
+        return DB.execute("MATCH (n:Node {name: $name}) RETURN id(n) AS id", Collections.singletonMap("name", name))
+                .<Long>columnAs("id")
+                .next();
+    }
+
+    @After
+    public void tearDown() {
+        LoadGraphFactory.remove("multi");
+    }
+
+    @Test
+    public void shouldLoadOneAdjacencyPerType() {
+        HugeGraph graph = load("REL_A|REL_B");
+
+        assertTrue(graph instanceof HugeMultiGraph);
+        assertArrayEquals(new String[]{"REL_A", "REL_B"}, ((HugeMultiGraph) graph).relationshipTypes());
+        assertEquals(4L, graph.nodeCount());
+
+        HugeGraph relA = ((HugeMultiGraph) graph).relationshipTypes("REL_A");
+        HugeGraph relB = ((HugeMultiGraph) graph).relationshipTypes("REL_B");
+        assertArrayEquals(ids(graph, idB, idC), targets(relA, idA));
+        assertArrayEquals(ids(graph, idC), targets(relB, idA));
+        assertArrayEquals(ids(graph), targets(relA, idB));
+        assertArrayEquals(ids(graph, idD), targets(relB, idB));
+        assertArrayEquals(ids(graph), targets(graph, idC));
+    }
+
+    @Test
+    public void shouldVisitTheUnionOfAllTypes() {
+        HugeGraph graph = load("REL_A|REL_B");
+        long a = graph.toHugeMappedNodeId(idA);
+
+        assertArrayEquals(ids(graph, idB, idC, idC), targets(graph, idA));
+        assertEquals(3, graph.degree(a, Direction.OUTGOING));
+        assertTrue(graph.exists(a, graph.toHugeMappedNodeId(idC), Direction.OUTGOING));
+        assertFalse(graph.exists(a, graph.toHugeMappedNodeId(idD), Direction.OUTGOING));
+        assertEquals(graph.toHugeMappedNodeId(idC), graph.getTarget(a, 2, Direction.OUTGOING));
+
+        long[] first = new long[1];
+        graph.forEachRelationship(a, Direction.OUTGOING, (s, t) -> {
+            first[0]++;
+            return false;
+        });
+        assertEquals(1L, first[0]);
+    }
+
+    @Test
+    public void shouldKeepWeightsPerType() {
+        HugeGraph graph = load("REL_A|REL_B");
+        long a = graph.toHugeMappedNodeId(idA);
+        long c = graph.toHugeMappedNodeId(idC);
+
+        assertEquals(1.0, ((HugeMultiGraph) graph).relationshipTypes("REL_A").weightOf(a, c), 1e-6);
+        assertEquals(2.0, ((HugeMultiGraph) graph).relationshipTypes("REL_B").weightOf(a, c), 1e-6);
+        assertEquals(1.0, graph.weightOf(a, c), 1e-6);
+        assertEquals(2.0, graph.weightOf(graph.toHugeMappedNodeId(idB), graph.toHugeMappedNodeId(idD)), 1e-6);
+        assertEquals(0.0, graph.weightOf(c, a), 1e-6);
+    }
+
+    @Test
+    public void shouldOnlyLoadTheRequestedSingleType() {
+        HugeGraph graph = load("REL_B");
+
+        assertFalse(graph instanceof HugeMultiGraph);
+        assertArrayEquals(ids(graph, idC), targets(graph, idA));
+        assertArrayEquals(ids(graph, idD), targets(graph, idB));
+        assertArrayEquals(ids(graph), targets(graph, idC));
+    }
+
+    @Test
+    public void shouldSelectTypesOfNamedGraph() {
+        HugeGraph graph = load("REL_A|REL_B|REL_C");
+        LoadGraphFactory.set("multi", graph);
+
+        Graph all = new GraphLoader(DB).withName("multi").withOptionalRelationshipType("").load(LoadGraphFactory.class);
+        Graph relA = new GraphLoader(DB).withName("multi").withRelationshipType("REL_A").load(LoadGraphFactory.class);
+        Graph relBC = new GraphLoader(DB).withName("multi").withRelationshipType("REL_B|REL_C").load(LoadGraphFactory.class);
+
+        assertTrue(all == graph);
+        assertArrayEquals(ids(graph, idB, idC), targets((HugeGraph) relA, idA));
+        assertArrayEquals(ids(graph, idC), targets((HugeGraph) relBC, idA));
+        assertArrayEquals(ids(graph, idD), targets((HugeGraph) relBC, idC));
+
+        // views do not own the data of the named graph
+        relA.release();
+        relBC.release();
+        assertArrayEquals(ids(graph, idB, idC), targets(((HugeMultiGraph) graph).relationshipTypes("REL_A"), idA));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailForUnknownTypes() {
+        HugeGraph graph = load("REL_A|REL_B");
+        ((HugeMultiGraph) graph).relationshipTypes("REL_C");
+    }
+
+    @Test
+    public void shouldIntersectTheUnionOfAllTypes() {
+        // a-b and a-c are REL_A, b-c is REL_C
+        assertEquals(Collections.singletonList(triangle(idA, idB, idC)), triangles("REL_A|REL_C"));
+        // a-c is both REL_A and REL_B but forms only one triangle
+        assertEquals(
+                Arrays.asList(triangle(idA, idB, idC), triangle(idB, idC, idD)),
+                triangles("REL_A|REL_B|REL_C"));
+        assertEquals(Collections.emptyList(), triangles("REL_A|REL_B"));
+    }
+
+    private static List<Set<Long>> triangles(String relationshipTypes) {
+        HugeGraph graph = (HugeGraph) new GraphLoader(DB)
+                .withAnyLabel()
+                .withRelationshipType(relationshipTypes)
+                .withDirection(Direction.OUTGOING)
+                .asUndirected(true)
+                .load(HugeGraphFactory.class);
+        List<Set<Long>> triangles = new ArrayList<>();
+        RelationshipIntersect intersect = graph.intersection();
+        for (long node = 0L; node < graph.nodeCount(); node++) {
+            intersect.intersectAll(node, (a, b, c) -> triangles.add(triangle(
+                    graph.toOriginalNodeId(a),
+                    graph.toOriginalNodeId(b),
+                    graph.toOriginalNodeId(c))));
+        }
+        return triangles;
+    }
+
+    private static Set<Long> triangle(long... neoIds) {
+        return LongStream.of(neoIds).boxed().collect(Collectors.toSet());
+    }
+
+    private static HugeGraph load(String relationshipTypes) {
+        return (HugeGraph) new GraphLoader(DB)
+                .withAnyLabel()
+                .withRelationshipType(relationshipTypes)
+                .withRelationshipWeightsFromProperty("w", 0.0)
+                .withDirection(Direction.OUTGOING)
+                .load(HugeGraphFactory.class);
+    }
+
+    private static long[] targets(HugeGraph graph, long neoId) {
+        LongStream.Builder targets = LongStream.builder();
+        graph.forEachRelationship(graph.toHugeMappedNodeId(neoId), Direction.OUTGOING, (s, t) -> {
+            targets.add(t);
+            return true;
+        });
+        long[] ids = targets.build().toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static long[] ids(HugeGraph graph, long... neoIds) {
+        long[] ids = Arrays.stream(neoIds).map(graph::toHugeMappedNodeId).toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+}
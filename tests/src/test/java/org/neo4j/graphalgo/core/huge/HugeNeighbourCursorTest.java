@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeNeighbourCursor;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.graphalgo.core.huge.RandomGraph.relationships;
+
+@RunWith(Parameterized.class)
+public final class HugeNeighbourCursorTest {
+
+    private static final int NODES = 300;
+    // larger than the batch size of the cursor, so that some nodes are read in several batches
+    private static final int MAX_DEGREE = 200;
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setupGraph() {
+        RandomGraph.of(NODES, MAX_DEGREE).withTypes("TYPE", "OTHER").create(DB);
+    }
+
+    @Parameterized.Parameters(name = "{0}, {1}, columnar={2}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(
+                new Object[]{AdjacencyCodec.VAR_LONG, PageBackend.HEAP, false},
+                new Object[]{AdjacencyCodec.VAR_LONG, PageBackend.HEAP, true},
+                new Object[]{AdjacencyCodec.VAR_LONG, PageBackend.OFF_HEAP, true},
+                new Object[]{AdjacencyCodec.BLOCK_PACKED, PageBackend.HEAP, false},
+                new Object[]{AdjacencyCodec.BLOCK_PACKED, PageBackend.OFF_HEAP, true}
+        );
+    }
+
+    @Parameterized.Parameter
+    public AdjacencyCodec codec;
+
+    @Parameterized.Parameter(1)
+    public PageBackend backend;
+
+    @Parameterized.Parameter(2)
+    public boolean columnarWeights;
+
+    @Test
+    public void shouldReadSameRelationshipsAsForEach() {
+        HugeGraph graph = loadGraph("TYPE");
+        for (Direction direction : Direction.values()) {
+            assertSameRelationships(graph, direction, HugeNeighbourCursor.BATCH_SIZE);
+        }
+    }
+
+    @Test
+    public void shouldReadIntoSmallArrays() {
+        HugeGraph graph = loadGraph("TYPE");
+        for (Direction direction : Direction.values()) {
+            assertSameRelationships(graph, direction, 3);
+        }
+    }
+
+    @Test
+    public void shouldReadAllRelationshipTypes() {
+        HugeGraph graph = loadGraph("TYPE|OTHER");
+        for (Direction direction : Direction.values()) {
+            assertSameRelationships(graph, direction, HugeNeighbourCursor.BATCH_SIZE);
+        }
+    }
+
+    @Test
+    public void shouldSkipWeightsOfUnweightedBatches() {
+        HugeGraph graph = loadGraph("TYPE");
+        HugeNeighbourCursor cursor = graph.neighbourCursor(Direction.INCOMING);
+        long[] targets = new long[HugeNeighbourCursor.BATCH_SIZE];
+        double[] weights = new double[HugeNeighbourCursor.BATCH_SIZE];
+        graph.forEachNode((long node) -> {
+            List<String> expected = expectedRelationships(graph, node, Direction.INCOMING);
+            List<String> actual = new ArrayList<>();
+            cursor.init(node);
+            int count;
+            boolean weighted = false;
+            while ((count = weighted ? cursor.next(targets, weights) : cursor.next(targets)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    actual.add(node + "->" + targets[i] + (weighted ? ":" + weights[i] : ""));
+                }
+                weighted = !weighted;
+            }
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < actual.size(); i++) {
+                String relationship = actual.get(i);
+                if (relationship.indexOf(':') != -1) {
+                    assertEquals(expected.get(i), relationship);
+                } else {
+                    assertEquals(expected.get(i).substring(0, expected.get(i).indexOf(':')), relationship);
+                }
+            }
+            return true;
+        });
+    }
+
+    private static void assertSameRelationships(HugeGraph graph, Direction direction, int batchSize) {
+        HugeNeighbourCursor cursor = graph.neighbourCursor(direction);
+        long[] targets = new long[batchSize];
+        double[] weights = new double[batchSize];
+        graph.forEachNode((long node) -> {
+            List<String> expected = expectedRelationships(graph, node, direction);
+            assertEquals(graph.degree(node, direction), cursor.init(node));
+            List<String> actual = neighbours(cursor, node, targets, weights);
+            if (direction == Direction.BOTH) {
+                // multiple relationship types are read type by type
+                Collections.sort(expected);
+                Collections.sort(actual);
+            }
+            assertEquals(expected, actual);
+            assertEquals(expected.size(), cursor.init(node));
+            List<String> targetsOnly = new ArrayList<>();
+            int count;
+            while ((count = cursor.next(targets)) > 0) {
+                for (int i = 0; i < count; i++) {
+                    targetsOnly.add(String.valueOf(targets[i]));
+                }
+            }
+            assertEquals(expected.size(), targetsOnly.size());
+            return true;
+        });
+    }
+
+    private static List<String> neighbours(HugeNeighbourCursor cursor, long node, long[] targets, double[] weights) {
+        List<String> neighbours = new ArrayList<>();
+        int count;
+        while ((count = cursor.next(targets, weights)) > 0) {
+            for (int i = 0; i < count; i++) {
+                neighbours.add(node + "->" + targets[i] + ":" + weights[i]);
+            }
+        }
+        return neighbours;
+    }
+
+    private static List<String> expectedRelationships(HugeGraph graph, long node, Direction direction) {
+        if (direction == Direction.BOTH) {
+            // incoming weights are looked up in incoming direction, just like a single direction would
+            List<String> relationships = relationships(graph, node, Direction.OUTGOING);
+            relationships.addAll(relationships(graph, node, Direction.INCOMING));
+            return relationships;
+        }
+        return relationships(graph, node, direction);
+    }
+
+    private HugeGraph loadGraph(String type) {
+        return (HugeGraph) new GraphLoader(DB)
+                .withOptionalRelationshipType(type)
+                .withRelationshipWeightsFromProperty("weight", 1.0)
+                .withColumnarRelationshipWeights(columnarWeights)
+                .withDirection(Direction.BOTH)
+                .withAdjacencyCodec(codec)
+                .withPageBackend(backend)
+                .withAllocationTracker(AllocationTracker.create())
+                .withExecutorService(Pools.DEFAULT)
+                .load(HugeGraphFactory.class);
+    }
+}
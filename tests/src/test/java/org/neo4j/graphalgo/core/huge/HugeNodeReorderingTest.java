@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.neo4j.graphalgo.PropertyMapping;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.PageBackend;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.graphalgo.core.huge.RandomGraph.originalRelationships;
+
+@RunWith(Parameterized.class)
+public final class HugeNodeReorderingTest {
+
+    private static final int NODES = 500;
+    // small degrees leave some nodes isolated and split the graph into several components
+    private static final int MAX_DEGREE = 4;
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setupGraph() {
+        RandomGraph.of(NODES, MAX_DEGREE).withTypes("TYPE", "OTHER").withScores("score").create(DB);
+    }
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(
+                new Object[]{NodeOrder.DEGREE},
+                new Object[]{NodeOrder.BFS},
+                new Object[]{NodeOrder.RCM},
+                new Object[]{NodeOrder.LABEL_PROPAGATION}
+        );
+    }
+
+    @Parameterized.Parameter
+    public NodeOrder order;
+
+    @Test
+    public void shouldKeepRelationshipsOfOriginalNodes() {
+        HugeGraph expected = loadGraph(NodeOrder.NONE, false, PageBackend.HEAP);
+        HugeGraph actual = loadGraph(order, false, PageBackend.HEAP);
+        assertSameGraph(expected, actual, Direction.OUTGOING, Direction.INCOMING);
+    }
+
+    @Test
+    public void shouldKeepColumnarWeightsOffHeap() {
+        HugeGraph expected = loadGraph(NodeOrder.NONE, true, PageBackend.HEAP);
+        HugeGraph actual = loadGraph(order, true, PageBackend.OFF_HEAP);
+        assertSameGraph(expected, actual, Direction.OUTGOING, Direction.INCOMING);
+    }
+
+    @Test
+    public void shouldReorderUndirectedGraph() {
+        HugeGraph expected = loadUndirectedGraph(NodeOrder.NONE);
+        HugeGraph actual = loadUndirectedGraph(order);
+        assertSameGraph(expected, actual, Direction.OUTGOING);
+    }
+
+    @Test
+    public void shouldReorderIncomingGraph() {
+        HugeGraph expected = loadIncomingGraph(NodeOrder.NONE);
+        HugeGraph actual = loadIncomingGraph(order);
+        assertSameGraph(expected, actual, Direction.INCOMING);
+    }
+
+    @Test
+    public void shouldRenumberNodes() {
+        HugeGraph storeOrder = loadGraph(NodeOrder.NONE, false, PageBackend.HEAP);
+        HugeGraph graph = loadGraph(order, false, PageBackend.HEAP);
+        boolean reordered = false;
+        for (long node = 0L; node < graph.nodeCount(); node++) {
+            assertEquals(node, graph.toHugeMappedNodeId(graph.toOriginalNodeId(node)));
+            reordered |= graph.toOriginalNodeId(node) != storeOrder.toOriginalNodeId(node);
+        }
+        assertTrue(reordered);
+        if (order == NodeOrder.DEGREE) {
+            for (long node = 1L; node < graph.nodeCount(); node++) {
+                assertTrue(graph.degree(node - 1L, Direction.BOTH) >= graph.degree(node, Direction.BOTH));
+            }
+        }
+    }
+
+    private static void assertSameGraph(HugeGraph expected, HugeGraph actual, Direction... directions) {
+        assertEquals(expected.nodeCount(), actual.nodeCount());
+        expected.forEachNode((long node) -> {
+            long originalId = expected.toOriginalNodeId(node);
+            long reorderedNode = actual.toHugeMappedNodeId(originalId);
+            assertEquals(originalId, actual.toOriginalNodeId(reorderedNode));
+            for (Direction direction : directions) {
+                assertEquals(expected.degree(node, direction), actual.degree(reorderedNode, direction));
+                assertEquals(
+                        originalRelationships(expected, node, direction),
+                        originalRelationships(actual, reorderedNode, direction));
+            }
+            assertEquals(
+                    expected.hugeNodeProperties("score").nodeWeight(node),
+                    actual.hugeNodeProperties("score").nodeWeight(reorderedNode),
+                    0.0);
+            return true;
+        });
+    }
+
+    private static HugeGraph loadGraph(NodeOrder order, boolean columnarWeights, PageBackend backend) {
+        return (HugeGraph) new GraphLoader(DB)
+                .withOptionalRelationshipType("TYPE|OTHER")
+                .withRelationshipWeightsFromProperty("weight", 1.0)
+                .withColumnarRelationshipWeights(columnarWeights)
+                .withOptionalNodeProperties(PropertyMapping.of("score", "score", 0.5))
+                .withDirection(Direction.BOTH)
+                .withNodeOrder(order)
+                .withPageBackend(backend)
+                .withAllocationTracker(AllocationTracker.create())
+                .withExecutorService(Pools.DEFAULT)
+                .load(HugeGraphFactory.class);
+    }
+
+    private static HugeGraph loadIncomingGraph(NodeOrder order) {
+        return (HugeGraph) new GraphLoader(DB)
+                .withOptionalRelationshipType("TYPE")
+                .withRelationshipWeightsFromProperty("weight", 1.0)
+                .withOptionalNodeProperties(PropertyMapping.of("score", "score", 0.5))
+                .withDirection(Direction.INCOMING)
+                .withNodeOrder(order)
+                .withExecutorService(Pools.DEFAULT)
+                .load(HugeGraphFactory.class);
+    }
+
+    private static HugeGraph loadUndirectedGraph(NodeOrder order) {
+        return (HugeGraph) new GraphLoader(DB)
+                .withOptionalRelationshipType("TYPE")
+                .withRelationshipWeightsFromProperty("weight", 1.0)
+                .withOptionalNodeProperties(PropertyMapping.of("score", "score", 0.5))
+                .asUndirected(true)
+                .withNodeOrder(order)
+                .withExecutorService(Pools.DEFAULT)
+                .load(HugeGraphFactory.class);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge;
+
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.api.HugeRelationshipIterator;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.internal.kernel.api.TokenWrite;
+import org.neo4j.internal.kernel.api.Write;
+import org.neo4j.internal.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.test.rule.DatabaseRule;
+import org.neo4j.values.storable.Values;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates the random graphs that the huge graph tests load and compare.
+ * <p>
+ * Every node gets fewer relationships than the maximum degree, to random targets, of a random type out of the given
+ * types and with a random double in the {@code weight} property. Parallel relationships and loops are possible.
+ * The graph only depends on its parameters, so create it once per test class from a {@code @BeforeClass} method.
+ */
+public final class RandomGraph {
+
+    private static final long SEED = 42L;
+
+    private final int nodeCount;
+    private final int maxDegree;
+    private String[] types = {"TYPE"};
+    private String scoreProperty;
+
+    public static RandomGraph of(int nodeCount, int maxDegree) {
+        return new RandomGraph(nodeCount, maxDegree);
+    }
+
+    private RandomGraph(int nodeCount, int maxDegree) {
+        this.nodeCount = nodeCount;
+        this.maxDegree = maxDegree;
+    }
+
+    /**
+     * Every relationship gets one of the given types, chosen at random. The default is a single type {@code TYPE}.
+     */
+    public RandomGraph withTypes(String... types) {
+        this.types = types;
+        return this;
+    }
+
+    /**
+     * About half of the nodes get a random double in the given property.
+     */
+    public RandomGraph withScores(String property) {
+        this.scoreProperty = property;
+        return this;
+    }
+
+    /**
+     * Creates the graph in a single transaction.
+     *
+     * @return the ids of the created nodes, in the order of their creation
+     */
+    public long[] create(DatabaseRule db) {
+        long[] nodes = new long[nodeCount];
+        db.executeAndCommit(ignored -> {
+            try (KernelTransaction st = db.transaction()) {
+                TokenWrite token = st.tokenWrite();
+                int[] typeIds = new int[types.length];
+                for (int i = 0; i < types.length; i++) {
+                    typeIds[i] = token.relationshipTypeGetOrCreateForName(types[i]);
+                }
+                int weight = token.propertyKeyGetOrCreateForName("weight");
+                int score = scoreProperty != null ? token.propertyKeyGetOrCreateForName(scoreProperty) : -1;
+                Write write = st.dataWrite();
+                Random random = new Random(SEED);
+                for (int i = 0; i < nodeCount; i++) {
+                    nodes[i] = write.nodeCreate();
+                    if (score != -1 && random.nextBoolean()) {
+                        write.nodeSetProperty(nodes[i], score, Values.doubleValue(random.nextDouble()));
+                    }
+                }
+                for (long source : nodes) {
+                    int degree = random.nextInt(maxDegree);
+                    for (int i = 0; i < degree; i++) {
+                        long target = nodes[random.nextInt(nodeCount)];
+                        int type = typeIds[random.nextInt(typeIds.length)];
+                        long rel = write.relationshipCreate(source, type, target);
+                        write.relationshipSetProperty(rel, weight, Values.doubleValue(random.nextDouble()));
+                    }
+                }
+                st.success();
+            } catch (KernelException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        return nodes;
+    }
+
+    /**
+     * The relationships of a node as {@code source->target:weight}, in the order in which the graph visits them.
+     */
+    public static List<String> relationships(HugeRelationshipIterator graph, long node, Direction direction) {
+        List<String> relationships = new ArrayList<>();
+        graph.forEachRelationship(node, direction, (long source, long target, double weight) -> {
+            relationships.add(source + "->" + target + ":" + weight);
+            return true;
+        });
+        return relationships;
+    }
+
+    /**
+     * The relationships of a node as {@code target:weight:weightOf}, with the original id of the target and sorted,
+     * so that graphs with different node ids can be compared.
+     */
+    public static List<String> originalRelationships(HugeGraph graph, long node, Direction direction) {
+        List<String> relationships = new ArrayList<>();
+        graph.forEachRelationship(node, direction, (long source, long target, double weight) -> {
+            relationships.add(graph.toOriginalNodeId(target) + ":" + weight + ":" + graph.weightOf(source, target));
+            return true;
+        });
+        Collections.sort(relationships);
+        return relationships;
+    }
+}
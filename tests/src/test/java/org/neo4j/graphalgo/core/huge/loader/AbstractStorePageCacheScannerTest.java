@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.neo4j.graphalgo.core.utils.ParallelUtil;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public final class AbstractStorePageCacheScannerTest {
+
+    private static final int NODES = 1000;
+    // enough relationship records to fill several prefetch blocks of pages
+    private static final int RELATIONSHIPS = 150_000;
+    private static final int THREADS = 4;
+
+    @ClassRule
+    public static final ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    @BeforeClass
+    public static void setupGraph() {
+        DB.executeAndCommit((GraphDatabaseService db) -> {
+            RelationshipType type = RelationshipType.withName("TYPE");
+            Node[] nodes = new Node[NODES];
+            for (int i = 0; i < NODES; i++) {
+                nodes[i] = db.createNode();
+            }
+            for (int i = 0; i < RELATIONSHIPS; i++) {
+                nodes[i % NODES].createRelationshipTo(nodes[(i * 7 + 1) % NODES], type);
+            }
+        });
+    }
+
+    @Test
+    public void shouldScanAllRecordsWhileReadingAhead() {
+        AbstractStorePageCacheScanner<RelationshipRecord> scanner = new AbstractStorePageCacheScanner<>(
+                AbstractStorePageCacheScanner.DEFAULT_PREFETCH_SIZE, DB, RelationshipStoreScanner.RELATIONSHIP_ACCESS);
+
+        AbstractStorePageCacheScanner<RelationshipRecord>.ReadAhead readAhead = scanner.startReadAhead();
+        assertNotNull(readAhead);
+        AtomicLong records = new AtomicLong();
+        Collection<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> {
+                try (AbstractStorePageCacheScanner<RelationshipRecord>.Cursor cursor = scanner.getCursor()) {
+                    while (cursor.bulkNext(record -> records.incrementAndGet())) {
+                        // count the records of all pages
+                    }
+                }
+            });
+        }
+        ParallelUtil.run(tasks, Pools.DEFAULT);
+        readAhead.stop();
+
+        assertEquals(RELATIONSHIPS, records.get());
+        assertTrue(readAhead.pagesRead() > 0L);
+        assertTrue(readAhead.maxWindow() >= AbstractStorePageCacheScanner.DEFAULT_PREFETCH_SIZE);
+        assertTrue(scanner.maxStallNanos() <= scanner.stallNanos());
+    }
+
+    @Test
+    public void shouldNotReadAheadOfSmallStores() {
+        AbstractStorePageCacheScanner<NodeRecord> scanner = new AbstractStorePageCacheScanner<>(
+                AbstractStorePageCacheScanner.DEFAULT_PREFETCH_SIZE, DB, NodeStoreScanner.NODE_ACCESS);
+        assertNull(scanner.startReadAhead());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import org.junit.Test;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class HugeIdMapTest {
+
+    private static final long HIGHEST_ID = 100_000L;
+
+    @Test
+    public void shouldKeepRangesOfConsecutiveIds() {
+        // batches of consecutive ids that are imported in any order, with some deleted ids in between
+        Random random = new Random(42L);
+        List<long[]> batches = new ArrayList<>();
+        for (long start = 0L; start < HIGHEST_ID; start += 1000L) {
+            batches.add(new long[]{start, Math.min(HIGHEST_ID, start + 1000L)});
+        }
+        Collections.shuffle(batches, random);
+        List<Long> ids = new ArrayList<>();
+        for (long[] batch : batches) {
+            for (long id = batch[0]; id < batch[1]; id++) {
+                if (random.nextInt(100) != 0) {
+                    ids.add(id);
+                }
+            }
+        }
+
+        HugeIdMap idMap = build(ids);
+        assertTrue(idMap instanceof HugeIdMap.Ranges);
+        assertMapping(ids, idMap);
+    }
+
+    @Test
+    public void shouldLookUpScatteredIds() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = HIGHEST_ID - 1L; id >= 0L; id -= 3L) {
+            ids.add(id);
+        }
+
+        HugeIdMap idMap = build(ids);
+        assertTrue(idMap instanceof HugeIdMap.Lookup);
+        assertMapping(ids, idMap);
+    }
+
+    @Test
+    public void shouldReorderRanges() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 10L; id < HIGHEST_ID; id++) {
+            ids.add(id);
+        }
+        HugeIdMap idMap = build(ids);
+        assertTrue(idMap instanceof HugeIdMap.Ranges);
+
+        // reverse the order of the nodes
+        long nodeCount = ids.size();
+        HugeLongArray oldIds = HugeLongArray.newArray(nodeCount, AllocationTracker.EMPTY);
+        for (long newId = 0L; newId < nodeCount; newId++) {
+            oldIds.set(newId, nodeCount - 1L - newId);
+        }
+        HugeIdMap reordered = idMap.reorder(oldIds, AllocationTracker.EMPTY);
+
+        Collections.reverse(ids);
+        assertMapping(ids, reordered);
+    }
+
+    private static HugeIdMap build(List<Long> ids) {
+        HugeLongArray graphIds = HugeLongArray.newArray(ids.size(), AllocationTracker.EMPTY);
+        for (int i = 0; i < ids.size(); i++) {
+            graphIds.set(i, ids.get(i));
+        }
+        return HugeIdMapBuilder.build(graphIds, ids.size(), HIGHEST_ID, AllocationTracker.EMPTY);
+    }
+
+    private static void assertMapping(List<Long> ids, HugeIdMap idMap) {
+        assertEquals(ids.size(), idMap.nodeCount());
+        boolean[] loaded = new boolean[(int) HIGHEST_ID];
+        for (int graphId = 0; graphId < ids.size(); graphId++) {
+            long originalId = ids.get(graphId);
+            loaded[(int) originalId] = true;
+            assertEquals(originalId, idMap.toOriginalNodeId(graphId));
+            assertEquals(graphId, idMap.toHugeMappedNodeId(originalId));
+        }
+        for (int originalId = 0; originalId < HIGHEST_ID; originalId++) {
+            assertEquals(loaded[originalId], idMap.contains(originalId));
+            if (!loaded[originalId]) {
+                assertEquals(-1L, idMap.toHugeMappedNodeId(originalId));
+            }
+        }
+        assertFalse(idMap.contains(HIGHEST_ID + 1L));
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.huge.loader;
+
+import org.junit.Test;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class HugeNodePropertiesBuilderTest {
+
+    private static final long NODES = 100_000L;
+
+    @Test
+    public void shouldStoreDensePropertiesInAColumn() {
+        HugeNodePropertiesBuilder builder = builder(NODES, 0.5);
+        for (long node = 0L; node < NODES; node += 2L) {
+            builder.set(node, node * 0.25);
+        }
+        HugeNodePropertyMap properties = builder.build();
+        assertTrue(properties instanceof HugeNodePropertyMap.DenseDoubles);
+        assertFalse(properties.isLongValued());
+        for (long node = 0L; node < NODES; node++) {
+            if (node % 2L == 0L) {
+                assertEquals(node * 0.25, properties.nodeWeight(node), 0.0);
+                assertEquals(node * 0.25, properties.nodeWeight(node, 42.0), 0.0);
+            } else {
+                assertEquals(0.5, properties.nodeWeight(node), 0.0);
+                assertEquals(42.0, properties.nodeWeight(node, 42.0), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void shouldStoreSparsePropertiesInAHashMap() {
+        AllocationTracker tracker = AllocationTracker.create();
+        HugeNodePropertiesBuilder builder = HugeNodePropertiesBuilder.of(NODES, tracker, 0.5, 0);
+        for (long node = 0L; node < NODES; node += 100L) {
+            builder.set(node, node * 0.25);
+        }
+        HugeNodePropertyMap properties = builder.build();
+        assertTrue(properties instanceof HugeNodePropertyMap.Sparse);
+        for (long node = 0L; node < NODES; node++) {
+            double expected = node % 100L == 0L ? node * 0.25 : 0.5;
+            assertEquals(expected, properties.nodeWeight(node), 0.0);
+        }
+        // the column is released after moving the values into the map
+        tracker.remove(properties.release());
+        assertTrue(tracker.tracked() < NODES * Double.BYTES);
+    }
+
+    @Test
+    public void shouldNotAllocateAColumnForSparseProperties() {
+        AllocationTracker tracker = AllocationTracker.create();
+        HugeNodePropertiesBuilder builder = HugeNodePropertiesBuilder.of(NODES, tracker, 0.5, 0);
+        for (long node = 0L; node < NODES; node += 100L) {
+            builder.set(node, node * 0.25);
+        }
+        assertTrue(tracker.tracked() < NODES * Long.BYTES / 4L);
+    }
+
+    @Test
+    public void shouldKeepSparsePropertiesWithADenseRegionInAHashMap() {
+        HugeNodePropertiesBuilder builder = builder(NODES, 0.0);
+        for (long node = 0L; node < 5_000L; node++) {
+            builder.set(node, node + 1L);
+        }
+        HugeNodePropertyMap properties = builder.build();
+        assertTrue(properties instanceof HugeNodePropertyMap.Sparse);
+        for (long node = 0L; node < NODES; node++) {
+            assertEquals(node < 5_000L ? node + 1L : 0L, properties.nodeLongValue(node, 0L));
+        }
+    }
+
+    @Test
+    public void shouldKeepLongValuesExact() {
+        HugeNodePropertiesBuilder builder = builder(NODES, 0.0);
+        long base = (1L << 60) + 1L;
+        for (long node = 0L; node < NODES; node += 2L) {
+            builder.set(node, base + node);
+        }
+        HugeNodePropertyMap properties = builder.build();
+        assertTrue(properties instanceof HugeNodePropertyMap.DenseLongs);
+        assertTrue(properties.isLongValued());
+        for (long node = 0L; node < NODES; node++) {
+            long expected = node % 2L == 0L ? base + node : node;
+            assertEquals(expected, properties.nodeLongValue(node, node));
+        }
+        assertEquals((double) base, properties.nodeWeight(0L), 0.0);
+        assertEquals(0.0, properties.nodeWeight(1L), 0.0);
+    }
+
+    @Test
+    public void shouldKeepLargeSparseLongValuesInAColumn() {
+        HugeNodePropertiesBuilder builder = builder(NODES, 0.0);
+        builder.set(42L, Long.MAX_VALUE);
+        HugeNodePropertyMap properties = builder.build();
+        assertTrue(properties instanceof HugeNodePropertyMap.DenseLongs);
+        assertEquals(Long.MAX_VALUE, properties.nodeLongValue(42L, 0L));
+    }
+
+    @Test
+    public void shouldStoreSmallSparseLongValuesInAHashMap() {
+        HugeNodePropertiesBuilder builder = builder(NODES, 0.0);
+        builder.set(42L, 1337L);
+        HugeNodePropertyMap properties = builder.build();
+        assertTrue(properties instanceof HugeNodePropertyMap.Sparse);
+        assertEquals(1337L, properties.nodeLongValue(42L, 0L));
+        assertEquals(-1L, properties.nodeLongValue(43L, -1L));
+    }
+
+    @Test
+    public void shouldConvertMixedValuesToDoubles() {
+        HugeNodePropertiesBuilder builder = builder(NODES, 0.0);
+        for (long node = 0L; node < NODES; node++) {
+            if (node % 2L == 0L) {
+                builder.set(node, node);
+            } else {
+                builder.set(node, node + 0.5);
+            }
+        }
+        HugeNodePropertyMap properties = builder.build();
+        assertTrue(properties instanceof HugeNodePropertyMap.DenseDoubles);
+        assertTrue(HugeNodePropertiesBuilder.estimateMemoryUsage(NODES).max() < 2L * NODES * Double.BYTES);
+        for (long node = 0L; node < NODES; node++) {
+            double expected = node % 2L == 0L ? (double) node : node + 0.5;
+            assertEquals(expected, properties.nodeWeight(node), 0.0);
+        }
+    }
+
+    @Test
+    public void shouldBuildEmptyProperties() {
+        HugeNodePropertyMap properties = builder(NODES, 0.5).build();
+        assertTrue(properties instanceof HugeNodePropertyMap.Sparse);
+        assertEquals(0.5, properties.nodeWeight(42L), 0.0);
+        assertFalse(properties.contains(42L));
+    }
+
+    @Test
+    public void shouldSetValuesConcurrently() {
+        HugeNodePropertiesBuilder builder = builder(NODES, 0.0);
+        LongStream.range(0L, NODES).parallel().forEach(node -> {
+            if (node % 3L == 0L) {
+                builder.set(node, node * 0.5);
+            } else {
+                builder.set(node, node);
+            }
+        });
+        HugeNodePropertyMap properties = builder.build();
+        for (long node = 0L; node < NODES; node++) {
+            double expected = node % 3L == 0L ? node * 0.5 : (double) node;
+            assertEquals(expected, properties.nodeWeight(node), 0.0);
+        }
+    }
+
+    @Test
+    public void shouldCopyOnlyLoadedValues() {
+        HugeNodePropertiesBuilder builder = builder(NODES, 0.5);
+        for (long node = 0L; node < NODES; node += 2L) {
+            builder.set(node, node);
+        }
+        HugeNodePropertyMap properties = builder.build();
+        HugeNodePropertiesBuilder copy = builder(NODES, 0.5);
+        for (long node = 0L; node < NODES; node++) {
+            properties.copyTo(node, copy, NODES - 1L - node);
+        }
+        HugeNodePropertyMap reversed = copy.build();
+        assertTrue(reversed.isLongValued());
+        for (long node = 0L; node < NODES; node++) {
+            assertEquals(properties.contains(node), reversed.contains(NODES - 1L - node));
+            assertEquals(properties.nodeLongValue(node, -1L), reversed.nodeLongValue(NODES - 1L - node, -1L));
+        }
+    }
+
+    private static HugeNodePropertiesBuilder builder(long nodeCount, double defaultValue) {
+        return HugeNodePropertiesBuilder.of(nodeCount, AllocationTracker.EMPTY, defaultValue, 0);
+    }
+}
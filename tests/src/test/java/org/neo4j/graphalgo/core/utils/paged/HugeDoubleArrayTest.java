@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.utils.paged;
+
+import com.carrotsearch.randomizedtesting.RandomizedTest;
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakScope;
+import org.junit.Test;
+
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+
+@ThreadLeakScope(ThreadLeakScope.Scope.NONE)
+public final class HugeDoubleArrayTest extends RandomizedTest {
+
+    private static final int PS = 16384;
+
+    @Test
+    public void shouldSetAndGet() {
+        testArray(10, array -> {
+            int index = between(2, 8);
+            double value = randomDouble();
+            array.set(index, value);
+            assertEquals(value, array.get(index), 0.0);
+        });
+    }
+
+    @Test
+    public void shouldAddToValues() {
+        testArray(10, array -> {
+            int index = between(2, 8);
+            double value = randomDouble();
+            array.set(index, value);
+            double newValue = randomDouble();
+            array.addTo(index, newValue);
+            assertEquals(value + newValue, array.get(index), 1e-12);
+        });
+    }
+
+    @Test
+    public void shouldFillValues() {
+        int size = between(10, 20);
+        double value = randomDouble();
+        testArray(size, array -> {
+            array.fill(value);
+            for (int index = 0; index < size; index++) {
+                assertEquals(value, array.get(index), 0.0);
+            }
+        });
+    }
+
+    @Test
+    public void shouldSetAndGetAcrossPages() {
+        int size = between(2 * PS, 3 * PS);
+        testArray(size, array -> {
+            for (int index = 0; index < size; index++) {
+                array.set(index, index * 0.5);
+            }
+            for (int index = 0; index < size; index++) {
+                assertEquals(index * 0.5, array.get(index), 0.0);
+            }
+        });
+    }
+
+    @Test
+    public void shouldReportSize() {
+        int size = between(10, 20);
+        testArray(size, array -> assertEquals(size, array.size()));
+    }
+
+    @Test
+    public void shouldTrackAndReleaseMemory() {
+        int size = between(PS + 1, 3 * PS);
+        AllocationTracker tracker = AllocationTracker.create();
+        HugeDoubleArray array = HugeDoubleArray.newPagedArray(size, tracker);
+        long released = array.release();
+        assertEquals(tracker.tracked(), released + MemoryUsage.shallowSizeOfInstance(HugeDoubleArray.class));
+        assertEquals(0L, array.release());
+    }
+
+    private void testArray(int size, Consumer<HugeDoubleArray> block) {
+        if (randomBoolean()) {
+            block.accept(HugeDoubleArray.newSingleArray(size, AllocationTracker.EMPTY));
+            block.accept(HugeDoubleArray.newPagedArray(size, AllocationTracker.EMPTY));
+        } else {
+            block.accept(HugeDoubleArray.newPagedArray(size, AllocationTracker.EMPTY));
+            block.accept(HugeDoubleArray.newSingleArray(size, AllocationTracker.EMPTY));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.core.write;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphalgo.TestDatabaseCreator;
+import org.neo4j.graphalgo.api.Graph;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.TerminationFlag;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public final class ExporterPipelineTest {
+
+    private static final int NODE_COUNT = 25_000;
+    private static final int THREADS = 4;
+
+    private static GraphDatabaseAPI db;
+
+    @BeforeClass
+    public static void setup() {
+        db = TestDatabaseCreator.createTestDatabase();
+        db.execute("UNWIND range(1, $count) AS _ CREATE (:Node)", singletonMap("count", NODE_COUNT)).close();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    public void shouldWriteValuesAddedFromManyThreads() throws InterruptedException {
+        Graph graph = new GraphLoader(db).load(HugeGraphFactory.class);
+        Exporter exporter = Exporter.of(db, graph)
+                .parallel(Pools.DEFAULT, THREADS, TerminationFlag.RUNNING_TRUE)
+                .build();
+
+        try (Exporter.Pipeline pipeline = exporter.pipeline("value")) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                // every thread adds its nodes in descending order, so that the batches have to be sorted
+                threads.add(new Thread(() -> {
+                    try (Exporter.Pipeline.Writer writer = pipeline.writer()) {
+                        for (long nodeId = NODE_COUNT - 1 - thread; nodeId >= 0L; nodeId -= THREADS) {
+                            writer.add(nodeId, 2.0 * nodeId);
+                        }
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            pipeline.success();
+        }
+
+        int[] count = {0};
+        db.execute("MATCH (n:Node) RETURN id(n) AS id, n.value AS value").accept(row -> {
+            long nodeId = graph.toMappedNodeId(row.getNumber("id").longValue());
+            assertEquals(2.0 * nodeId, row.getNumber("value").doubleValue(), 0.0);
+            count[0]++;
+            return true;
+        });
+        assertEquals(NODE_COUNT, count[0]);
+    }
+
+    @Test
+    public void shouldNotWriteRemainingValuesOfAFailedComputation() {
+        Graph graph = new GraphLoader(db).load(HugeGraphFactory.class);
+        Exporter exporter = Exporter.of(db, graph)
+                .parallel(Pools.DEFAULT, THREADS, TerminationFlag.RUNNING_TRUE)
+                .build();
+
+        try (Exporter.Pipeline pipeline = exporter.pipeline("failed")) {
+            try (Exporter.Pipeline.Writer writer = pipeline.writer()) {
+                writer.add(0L, 42.0);
+            }
+            throw new IllegalStateException("computation failed");
+        } catch (IllegalStateException e) {
+            assertEquals("computation failed", e.getMessage());
+        }
+
+        long written = (long) db.execute("MATCH (n:Node) WHERE exists(n.failed) RETURN count(n) AS count")
+                .columnAs("count")
+                .next();
+        assertEquals(0L, written);
+    }
+
+    @Test
+    public void shouldHandOutIdleWritersAgain() {
+        Graph graph = new GraphLoader(db).load(HugeGraphFactory.class);
+        Exporter exporter = Exporter.of(db, graph)
+                .parallel(Pools.DEFAULT, THREADS, TerminationFlag.RUNNING_TRUE)
+                .build();
+
+        try (Exporter.Pipeline pipeline = exporter.pipeline("reused")) {
+            Exporter.Pipeline.Writer first = pipeline.writer();
+            Exporter.Pipeline.Writer second = pipeline.writer();
+            assertNotSame(first, second);
+            first.close();
+            assertSame(first, pipeline.writer());
+            second.close();
+            pipeline.success();
+        }
+    }
+}
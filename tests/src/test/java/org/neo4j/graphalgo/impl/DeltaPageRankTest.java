@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.neo4j.graphalgo.TestDatabaseCreator;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.impl.pagerank.HugeDeltaPageRank;
+import org.neo4j.graphalgo.impl.pagerank.PageRankAlgorithm;
+import org.neo4j.graphalgo.impl.results.CentralityResult;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class DeltaPageRankTest {
+
+    private static final String DB_CYPHER = "" +
+            "CREATE (a:Label1 {name:\"a\"})\n" +
+            "CREATE (b:Label1 {name:\"b\"})\n" +
+            "CREATE (c:Label1 {name:\"c\"})\n" +
+            "CREATE (d:Label1 {name:\"d\"})\n" +
+            "CREATE (e:Label1 {name:\"e\"})\n" +
+            "CREATE (f:Label1 {name:\"f\"})\n" +
+            "CREATE (g:Label1 {name:\"g\"})\n" +
+            "CREATE (h:Label1 {name:\"h\"})\n" +
+            "CREATE (i:Label1 {name:\"i\"})\n" +
+            "CREATE (j:Label1 {name:\"j\"})\n" +
+            "CREATE\n" +
+            "  (b)-[:TYPE1]->(c),\n" +
+            "  (c)-[:TYPE1]->(b),\n" +
+            "  (d)-[:TYPE1]->(a),\n" +
+            "  (d)-[:TYPE1]->(b),\n" +
+            "  (e)-[:TYPE1]->(b),\n" +
+            "  (e)-[:TYPE1]->(d),\n" +
+            "  (e)-[:TYPE1]->(f),\n" +
+            "  (f)-[:TYPE1]->(b),\n" +
+            "  (f)-[:TYPE1]->(e),\n" +
+            "  (g)-[:TYPE1]->(b),\n" +
+            "  (g)-[:TYPE1]->(e),\n" +
+            "  (h)-[:TYPE1]->(b),\n" +
+            "  (h)-[:TYPE1]->(e),\n" +
+            "  (i)-[:TYPE1]->(b),\n" +
+            "  (i)-[:TYPE1]->(e),\n" +
+            "  (j)-[:TYPE1]->(e)\n";
+
+    private static GraphDatabaseAPI db;
+    private static HugeGraph graph;
+
+    @BeforeClass
+    public static void setupGraph() {
+        db = TestDatabaseCreator.createTestDatabase();
+        try (Transaction tx = db.beginTx()) {
+            db.execute(DB_CYPHER).close();
+            tx.success();
+        }
+        graph = (HugeGraph) new GraphLoader(db)
+                .withLabel(Label.label("Label1"))
+                .withRelationshipType("TYPE1")
+                .withDirection(Direction.OUTGOING)
+                .load(HugeGraphFactory.class);
+    }
+
+    @AfterClass
+    public static void shutdownGraph() {
+        if (db != null) db.shutdown();
+    }
+
+    @Test
+    public void shouldConvergeToTheScoresOfPowerIteration() {
+        CentralityResult expected = PageRankAlgorithm
+                .of(graph, 0.85, LongStream.empty())
+                .compute(100)
+                .result();
+
+        PageRankAlgorithm delta = PageRankAlgorithm
+                .deltaOf(AllocationTracker.EMPTY, graph, 0.85, 1e-7, LongStream.empty(), Pools.DEFAULT, 4)
+                .compute(1000);
+        CentralityResult actual = delta.result();
+
+        assertTrue("iterations: " + delta.iterations(), delta.iterations() < 1000);
+        for (long nodeId = 0L; nodeId < graph.nodeCount(); nodeId++) {
+            assertEquals("Node#" + nodeId, expected.score(nodeId), actual.score(nodeId), 1e-5);
+        }
+    }
+
+    @Test
+    public void shouldOnlyTraverseRelationshipsOfNodesAboveEpsilon() {
+        HugeDeltaPageRank delta = (HugeDeltaPageRank) PageRankAlgorithm
+                .deltaOf(AllocationTracker.EMPTY, graph, 0.85, 1e-5, LongStream.empty(), Pools.DEFAULT, 4)
+                .compute(1000);
+
+        // power iteration traverses every relationship in every iteration
+        long relationships = 0L;
+        for (long nodeId = 0L; nodeId < graph.nodeCount(); nodeId++) {
+            relationships += graph.degree(nodeId, Direction.OUTGOING);
+        }
+        long powerIteration = delta.iterations() * relationships;
+        assertTrue(
+                "traversed " + delta.relationshipsTraversed() + " of " + powerIteration,
+                delta.relationshipsTraversed() < powerIteration);
+
+        CentralityResult expected = PageRankAlgorithm
+                .of(graph, 0.85, LongStream.empty())
+                .compute(100)
+                .result();
+        for (long nodeId = 0L; nodeId < graph.nodeCount(); nodeId++) {
+            assertEquals("Node#" + nodeId, expected.score(nodeId), delta.result().score(nodeId), 1e-2);
+        }
+    }
+
+    @Test
+    public void shouldStartFromTheSourceNodes() {
+        long source = graph.toOriginalNodeId(4L);
+        CentralityResult expected = PageRankAlgorithm
+                .of(graph, 0.85, LongStream.of(source))
+                .compute(100)
+                .result();
+
+        CentralityResult actual = PageRankAlgorithm
+                .deltaOf(AllocationTracker.EMPTY, graph, 0.85, 1e-7, LongStream.of(source), Pools.DEFAULT, 4)
+                .compute(1000)
+                .result();
+
+        for (long nodeId = 0L; nodeId < graph.nodeCount(); nodeId++) {
+            assertEquals("Node#" + nodeId, expected.score(nodeId), actual.score(nodeId), 1e-5);
+        }
+    }
+
+    @Test
+    public void shouldNotProcessAnyNodeIfEpsilonExceedsTheInitialResidual() {
+        PageRankAlgorithm delta = PageRankAlgorithm
+                .deltaOf(AllocationTracker.EMPTY, graph, 0.85, 0.5, LongStream.empty(), Pools.DEFAULT, 4)
+                .compute(20);
+
+        assertEquals(0, delta.iterations());
+        for (long nodeId = 0L; nodeId < graph.nodeCount(); nodeId++) {
+            assertEquals(0.0, delta.result().score(nodeId), 0.0);
+        }
+    }
+
+    @Test
+    public void shouldUntrackAllArraysOnRelease() {
+        AllocationTracker tracker = AllocationTracker.create();
+        PageRankAlgorithm delta = PageRankAlgorithm
+                .deltaOf(tracker, graph, 0.85, 1e-7, LongStream.empty(), Pools.DEFAULT, 4)
+                .compute(1000);
+        CentralityResult result = delta.result();
+        double score = result.score(1L);
+        long computed = tracker.tracked();
+
+        delta.algorithm().release();
+
+        assertTrue("still tracked " + tracker.tracked() + " of " + computed, tracker.tracked() < computed / 100);
+        // the ranks belong to the result that has been handed out
+        assertEquals(score, result.score(1L), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveEpsilon() {
+        PageRankAlgorithm.deltaOf(AllocationTracker.EMPTY, graph, 0.85, 0.0, LongStream.empty(), Pools.DEFAULT, 4);
+    }
+}
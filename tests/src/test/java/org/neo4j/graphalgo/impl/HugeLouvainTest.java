@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2017 "Neo4j, Inc." <http://neo4j.com>
+ *
+ * This file is part of Neo4j Graph Algorithms <http://github.com/neo4j-contrib/neo4j-graph-algorithms>.
+ *
+ * Neo4j Graph Algorithms is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphalgo.impl;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.neo4j.graphalgo.TestProgressLogger;
+import org.neo4j.graphalgo.api.HugeGraph;
+import org.neo4j.graphalgo.core.GraphLoader;
+import org.neo4j.graphalgo.core.huge.loader.HugeGraphFactory;
+import org.neo4j.graphalgo.core.utils.Pools;
+import org.neo4j.graphalgo.core.utils.TerminationFlag;
+import org.neo4j.graphalgo.core.utils.paged.AllocationTracker;
+import org.neo4j.graphalgo.core.utils.paged.HugeLongArray;
+import org.neo4j.graphalgo.impl.louvain.HugeLouvain;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * (a)-(b)--(g)-(h)
+ *  \  /     \ /
+ *  (c)     (i)           (ABC)-(GHI)
+ *   \      /         =>    \   /
+ *   (d)-(e)                (DEF)
+ *    \  /
+ *    (f)
+ */
+public class HugeLouvainTest {
+
+    private static final String COMPLEX_CYPHER =
+            "CREATE (a:Node {name:'a'})\n" +
+                    "CREATE (b:Node {name:'b'})\n" +
+                    "CREATE (c:Node {name:'c'})\n" +
+                    "CREATE (d:Node {name:'d'})\n" +
+                    "CREATE (e:Node {name:'e'})\n" +
+                    "CREATE (f:Node {name:'f'})\n" +
+                    "CREATE (g:Node {name:'g'})\n" +
+                    "CREATE (h:Node {name:'h'})\n" +
+                    "CREATE (i:Node {name:'i'})\n" +
+                    "CREATE" +
+
+                    " (a)-[:TYPE]->(b),\n" +
+                    " (a)-[:TYPE]->(c),\n" +
+                    " (b)-[:TYPE]->(c),\n" +
+
+                    " (g)-[:TYPE]->(h),\n" +
+                    " (g)-[:TYPE]->(i),\n" +
+                    " (h)-[:TYPE]->(i),\n" +
+
+                    " (e)-[:TYPE]->(d),\n" +
+                    " (e)-[:TYPE]->(f),\n" +
+                    " (d)-[:TYPE]->(f),\n" +
+
+                    " (a)-[:TYPE]->(g),\n" +
+                    " (c)-[:TYPE]->(e),\n" +
+                    " (f)-[:TYPE]->(i)";
+
+    /**
+     * a ring of 30 triangles, where every triangle is connected to the next one
+     */
+    private static final String RING_CYPHER =
+            "UNWIND range(0, 29) AS t\n" +
+                    "CREATE (:Node {id: 3 * t}), (:Node {id: 3 * t + 1}), (:Node {id: 3 * t + 2})\n" +
+                    "WITH count(*) AS ignore\n" +
+                    "MATCH (s:Node), (t:Node)\n" +
+                    "WHERE (s.id / 3 = t.id / 3 AND s.id < t.id) OR (s.id % 3 = 2 AND t.id = (s.id + 1) % 90)\n" +
+                    "CREATE (s)-[:TYPE]->(t)";
+
+    @Rule
+    public ImpermanentDatabaseRule DB = new ImpermanentDatabaseRule();
+
+    private HugeGraph setup(String cypher) {
+        DB.execute(cypher).close();
+        return (HugeGraph) new GraphLoader(DB)
+                .withAnyRelationshipType()
+                .withAnyLabel()
+                .withoutNodeProperties()
+                .withOptionalRelationshipWeightsFromProperty("w", 1.0)
+                .asUndirected(true)
+                .load(HugeGraphFactory.class);
+    }
+
+    @Test
+    public void testComplex() {
+        final HugeGraph graph = setup(COMPLEX_CYPHER);
+        final HugeLouvain algorithm = new HugeLouvain(graph, Pools.DEFAULT, 2, AllocationTracker.EMPTY)
+                .withIntermediateCommunities(true)
+                .withProgressLogger(TestProgressLogger.INSTANCE)
+                .withTerminationFlag(TerminationFlag.RUNNING_TRUE)
+                .compute(10, 10);
+
+        final HugeLongArray communities = algorithm.getCommunityIds();
+        assertEquals(3L, algorithm.getCommunityCount());
+        assertEquals(1, algorithm.getLevel());
+        for (long node = 0L; node < 9L; node++) {
+            assertEquals(communities.get(node - node % 3), communities.get(node));
+            assertEquals(communities.get(node), algorithm.getDendrogram()[0].get(node));
+        }
+        assertNotEquals(communities.get(0L), communities.get(3L));
+        assertNotEquals(communities.get(0L), communities.get(6L));
+        assertNotEquals(communities.get(3L), communities.get(6L));
+        // 3 * (3 / 12 - (8 / 24)^2)
+        assertEquals(5.0 / 12.0, algorithm.getFinalModularity(), 1e-9);
+    }
+
+    @Test
+    public void testIntermediateCommunitiesAreOnlyKeptOnRequest() {
+        final HugeGraph graph = setup(COMPLEX_CYPHER);
+        final HugeLouvain algorithm = new HugeLouvain(graph, Pools.DEFAULT, 1, AllocationTracker.EMPTY)
+                .compute(10, 10);
+
+        assertEquals(1, algorithm.getLevel());
+        assertEquals(0, algorithm.getDendrogram().length);
+        assertEquals(1, algorithm.getModularities().length);
+    }
+
+    @Test
+    public void testRingOfTriangles() {
+        final HugeGraph graph = setup(RING_CYPHER);
+        final HugeLouvain algorithm = new HugeLouvain(graph, Pools.DEFAULT, 4, AllocationTracker.EMPTY)
+                .withIntermediateCommunities(true)
+                .compute(10, 10);
+
+        final HugeLongArray[] dendrogram = algorithm.getDendrogram();
+        assertTrue("expected more than one level, got " + algorithm.getLevel(), algorithm.getLevel() > 1);
+
+        // the first level finds the triangles
+        final Set<Long> triangles = new HashSet<>();
+        for (long node = 0L; node < graph.nodeCount(); node++) {
+            triangles.add(dendrogram[0].get(node));
+        }
+        assertEquals(30, triangles.size());
+
+        // the next levels merge the triangles and increase the modularity
+        final double[] modularities = algorithm.getModularities();
+        for (int level = 1; level < modularities.length; level++) {
+            assertTrue(modularities[level] > modularities[level - 1]);
+        }
+        assertTrue(algorithm.getCommunityCount() < 30L);
+        assertEquals(modularities[modularities.length - 1], algorithm.getFinalModularity(), 1e-9);
+    }
+}